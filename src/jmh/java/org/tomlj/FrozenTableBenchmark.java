@@ -0,0 +1,96 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to You under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.tomlj;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Compares parsing into, and reading from, frozen tables with the mutable tables returned by default.
+ *
+ * <p>
+ * Run with {@code ./gradlew jmh}, which also reports the bytes allocated per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FrozenTableBenchmark {
+  private static final int KEYS_PER_TABLE = 100;
+  private static final TomlParseOptions FROZEN = TomlParseOptions.defaults().withFrozenTables(true);
+
+  @Param({"100", "2000"})
+  int tables;
+
+  private String document;
+  private List<List<String>> paths;
+  private TomlTable frozen;
+  private TomlTable mutable;
+
+  @Setup
+  public void setup() {
+    StringBuilder builder = new StringBuilder();
+    paths = new ArrayList<>(tables * KEYS_PER_TABLE);
+    for (int t = 0; t < tables; ++t) {
+      builder.append("[table").append(t).append("]\n");
+      for (int k = 0; k < KEYS_PER_TABLE; ++k) {
+        builder.append("key").append(k).append(" = ").append(t * KEYS_PER_TABLE + k).append('\n');
+        paths.add(Arrays.asList("table" + t, "key" + k));
+      }
+    }
+    document = builder.toString();
+    frozen = Toml.parse(document, FROZEN);
+    mutable = Toml.parse(document);
+  }
+
+  @Benchmark
+  public TomlTable parseFrozen() {
+    return Toml.parse(document, FROZEN);
+  }
+
+  @Benchmark
+  public TomlTable parseMutable() {
+    return Toml.parse(document);
+  }
+
+  @Benchmark
+  public void getFrozen(Blackhole blackhole) {
+    for (List<String> path : paths) {
+      blackhole.consume(frozen.get(path));
+    }
+  }
+
+  @Benchmark
+  public void getMutable(Blackhole blackhole) {
+    for (List<String> path : paths) {
+      blackhole.consume(mutable.get(path));
+    }
+  }
+}
@@ -13,6 +13,12 @@ package org.tomlj.internal;
   public final IntegerStack arrayDepthStack = new IntegerStack();
   public int arrayDepth = 0;
 
+  @Override
+  public void reset() {
+    super.reset();
+    resetArrayDepth();
+  }
+
   private void resetArrayDepth() {
     arrayDepthStack.clear();
     arrayDepth = 0;
@@ -14,6 +14,7 @@ package org.tomlj;
 
 import java.util.Collections;
 import java.util.List;
+import java.util.function.ObjIntConsumer;
 
 final class EmptyTomlArray implements TomlArray {
 
@@ -95,4 +96,12 @@ final class EmptyTomlArray implements TomlArray {
   public List<Object> toList() {
     return Collections.emptyList();
   }
+
+  @Override
+  public List<Object> asList() {
+    return Collections.emptyList();
+  }
+
+  @Override
+  public void forEach(ObjIntConsumer<Object> action) {}
 }
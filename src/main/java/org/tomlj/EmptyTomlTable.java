@@ -16,6 +16,7 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.BiConsumer;
 
 import org.checkerframework.checker.nullness.qual.Nullable;
 
@@ -71,4 +72,12 @@ final class EmptyTomlTable implements TomlTable {
   public Map<String, Object> toMap() {
     return Collections.emptyMap();
   }
+
+  @Override
+  public Map<String, Object> asMap() {
+    return Collections.emptyMap();
+  }
+
+  @Override
+  public void forEach(BiConsumer<String, Object> action) {}
 }
@@ -0,0 +1,449 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to You under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.tomlj;
+
+import static java.util.Objects.requireNonNull;
+import static org.tomlj.Parser.parseDottedKey;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.stream.Collectors;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * A read-only table, built from a {@link MutableTomlTable} once parsing is complete.
+ *
+ * <p>
+ * Keys, values and positions are held in parallel arrays, in the order the keys were defined, with positions packed
+ * into a single {@code long} (or discarded, if the document was parsed without input positions). Tables with more than
+ * a few keys also have an open-addressing hash index into the arrays.
+ */
+final class FrozenTomlTable implements TomlTable {
+
+  // Tables up to this size are searched linearly
+  private static final int MAX_UNINDEXED = 8;
+
+  private final String[] keys;
+  // May contain deferred snapshot values, which are converted on first access
+  private final Object[] values;
+  private final long @Nullable [] positions;
+  // Pairs of the hash of a key and its index plus one, at the slot for its hash (or the next free slot), or null for
+  // small tables
+  private final int @Nullable [] index;
+  // Computed on first use, or 0
+  private volatile long fingerprint;
+
+  FrozenTomlTable(String[] keys, Object[] values, long @Nullable [] positions) {
+    this.keys = keys;
+    this.values = values;
+    this.positions = positions;
+    this.index = (keys.length > MAX_UNINDEXED) ? buildIndex(keys) : null;
+  }
+
+  @Nullable
+  private TomlPosition positionOf(int i) {
+    // a table read from a snapshot has no position (0) for entries that had none when it was written
+    return (positions == null || positions[i] == 0) ? null : TomlPosition.unpack(positions[i]);
+  }
+
+  private static int[] buildIndex(String[] keys) {
+    int capacity = Integer.highestOneBit(keys.length * 2 - 1) << 1;
+    int[] index = new int[capacity * 2];
+    int mask = capacity - 1;
+    for (int i = 0; i < keys.length; ++i) {
+      int hash = keys[i].hashCode();
+      int slot = spread(hash) & mask;
+      while (index[2 * slot + 1] != 0) {
+        slot = (slot + 1) & mask;
+      }
+      index[2 * slot] = hash;
+      index[2 * slot + 1] = i + 1;
+    }
+    return index;
+  }
+
+  private static int spread(int hash) {
+    return hash ^ (hash >>> 16);
+  }
+
+  // The index of the key equal to key.substring(start, end), or -1
+  private int find(String key, int start, int end) {
+    int length = end - start;
+    int[] index = this.index;
+    if (index == null) {
+      for (int i = 0; i < keys.length; ++i) {
+        String k = keys[i];
+        if (k.length() == length && k.regionMatches(0, key, start, length)) {
+          return i;
+        }
+      }
+      return -1;
+    }
+    // same as String.hashCode, without creating the substring
+    int hash = 0;
+    for (int i = start; i < end; ++i) {
+      hash = 31 * hash + key.charAt(i);
+    }
+    return lookup(index, hash, key, start, end);
+  }
+
+  // The index of the key, or -1
+  private int find(String key) {
+    int[] index = this.index;
+    if (index == null) {
+      for (int i = 0; i < keys.length; ++i) {
+        if (keys[i].equals(key)) {
+          return i;
+        }
+      }
+      return -1;
+    }
+    return lookup(index, key.hashCode(), key, 0, key.length());
+  }
+
+  private int lookup(int[] index, int hash, String key, int start, int end) {
+    int length = end - start;
+    int mask = (index.length >>> 1) - 1;
+    for (int slot = spread(hash) & mask; index[2 * slot + 1] != 0; slot = (slot + 1) & mask) {
+      if (index[2 * slot] == hash) {
+        int i = index[2 * slot + 1] - 1;
+        String k = keys[i];
+        if (length == key.length() ? k.equals(key) : (k.length() == length && k.regionMatches(0, key, start, length))) {
+          return i;
+        }
+      }
+    }
+    return -1;
+  }
+
+  // The values array is never written after construction, so the table is safely published by its final fields.
+  // Deferred values keep their converted value themselves.
+  private Object value(int i) {
+    Object v = values[i];
+    if (v instanceof TomlSnapshot.Deferred) {
+      return ((TomlSnapshot.Deferred) v).get();
+    }
+    return v;
+  }
+
+  long fingerprint() {
+    long fingerprint = this.fingerprint;
+    if (fingerprint == 0) {
+      fingerprint = TomlFingerprint.compute(this);
+      this.fingerprint = fingerprint;
+    }
+    return fingerprint;
+  }
+
+  @Override
+  public int size() {
+    return keys.length;
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return keys.length == 0;
+  }
+
+  @Override
+  public Set<String> keySet() {
+    return new AbstractSet<String>() {
+      @Override
+      public Iterator<String> iterator() {
+        return new Iterator<String>() {
+          private int next = 0;
+
+          @Override
+          public boolean hasNext() {
+            return next < keys.length;
+          }
+
+          @Override
+          public String next() {
+            if (next >= keys.length) {
+              throw new NoSuchElementException();
+            }
+            return keys[next++];
+          }
+        };
+      }
+
+      @Override
+      public int size() {
+        return keys.length;
+      }
+
+      @Override
+      public boolean contains(Object o) {
+        return (o instanceof String) && find((String) o) >= 0;
+      }
+    };
+  }
+
+  @Override
+  public Set<List<String>> keyPathSet(boolean includeTables) {
+    return pathStream(includeTables).collect(Collectors.toSet());
+  }
+
+  @Override
+  public Set<Entry<String, Object>> entrySet() {
+    Set<Entry<String, Object>> entries = new LinkedHashSet<>();
+    for (int i = 0; i < keys.length; ++i) {
+      entries.add(new AbstractMap.SimpleEntry<>(keys[i], value(i)));
+    }
+    return entries;
+  }
+
+  @Override
+  public Set<Entry<List<String>, Object>> entryPathSet(boolean includeTables) {
+    return entryPathStream(includeTables).collect(Collectors.toCollection(LinkedHashSet::new));
+  }
+
+  @Override
+  @Nullable
+  public Object get(String dottedKey) {
+    if (!Parser.isSimpleDottedKey(dottedKey)) {
+      return get(parseDottedKey(dottedKey));
+    }
+    // walk the unquoted key segments in place, without building a key path
+    FrozenTomlTable table = this;
+    int start = 0;
+    int dot;
+    while ((dot = dottedKey.indexOf('.', start)) >= 0) {
+      int i = table.find(dottedKey, start, dot);
+      Object value = (i >= 0) ? table.value(i) : null;
+      if (!(value instanceof FrozenTomlTable)) {
+        return null;
+      }
+      table = (FrozenTomlTable) value;
+      start = dot + 1;
+    }
+    int i = table.find(dottedKey, start, dottedKey.length());
+    return (i >= 0) ? table.value(i) : null;
+  }
+
+  @Override
+  @Nullable
+  public Object get(TomlKey key) {
+    String[] segments = key.segments;
+    FrozenTomlTable table = this;
+    int last = segments.length - 1;
+    for (int i = 0; i < last; ++i) {
+      table = table.subTable(segments[i]);
+      if (table == null) {
+        return null;
+      }
+    }
+    int i = table.find(segments[last]);
+    return (i >= 0) ? table.value(i) : null;
+  }
+
+  @Override
+  @Nullable
+  public Object get(List<String> path) {
+    if (path.isEmpty()) {
+      return this;
+    }
+    FrozenTomlTable table = this;
+    int last = path.size() - 1;
+    for (int i = 0; i < last; ++i) {
+      table = table.subTable(path.get(i));
+      if (table == null) {
+        return null;
+      }
+    }
+    int i = table.find(path.get(last));
+    return (i >= 0) ? table.value(i) : null;
+  }
+
+  @Nullable
+  private FrozenTomlTable subTable(String key) {
+    int i = find(key);
+    Object value = (i >= 0) ? value(i) : null;
+    return (value instanceof FrozenTomlTable) ? (FrozenTomlTable) value : null;
+  }
+
+  @Override
+  @Nullable
+  public TomlPosition inputPositionOf(String dottedKey) {
+    return inputPositionOf(parseDottedKey(dottedKey));
+  }
+
+  @Override
+  @Nullable
+  public TomlPosition inputPositionOf(TomlKey key) {
+    String[] segments = key.segments;
+    FrozenTomlTable table = this;
+    int last = segments.length - 1;
+    for (int i = 0; i < last; ++i) {
+      table = table.subTable(segments[i]);
+      if (table == null) {
+        return null;
+      }
+    }
+    int i = table.find(segments[last]);
+    return (i >= 0) ? table.positionOf(i) : null;
+  }
+
+  @Override
+  @Nullable
+  public TomlPosition inputPositionOf(List<String> path) {
+    if (path.isEmpty()) {
+      return TomlPosition.positionAt(1, 1);
+    }
+    FrozenTomlTable table = this;
+    int last = path.size() - 1;
+    for (int i = 0; i < last; ++i) {
+      table = table.subTable(path.get(i));
+      if (table == null) {
+        return null;
+      }
+    }
+    int i = table.find(path.get(last));
+    return (i >= 0) ? table.positionOf(i) : null;
+  }
+
+  @Override
+  public Map<String, Object> toMap() {
+    Map<String, Object> map = new HashMap<>(keys.length * 4 / 3 + 1);
+    for (int i = 0; i < keys.length; ++i) {
+      map.put(keys[i], value(i));
+    }
+    return map;
+  }
+
+  @Override
+  public Map<String, Object> asMap() {
+    return new MapView();
+  }
+
+  @Override
+  public void forEach(BiConsumer<String, Object> action) {
+    requireNonNull(action);
+    for (int i = 0; i < keys.length; ++i) {
+      action.accept(keys[i], value(i));
+    }
+  }
+
+  // A view of the keys and values arrays. Entries refer to their index, so their (deferred) values are only converted
+  // when read.
+  private final class MapView extends AbstractMap<String, Object> {
+    @Override
+    public int size() {
+      return keys.length;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+      return (key instanceof String) && find((String) key) >= 0;
+    }
+
+    @Override
+    @Nullable
+    public Object get(Object key) {
+      if (!(key instanceof String)) {
+        return null;
+      }
+      int i = find((String) key);
+      return (i >= 0) ? value(i) : null;
+    }
+
+    @Override
+    public void forEach(BiConsumer<? super String, ? super Object> action) {
+      FrozenTomlTable.this.forEach(action::accept);
+    }
+
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+      return new AbstractSet<Entry<String, Object>>() {
+        @Override
+        public Iterator<Entry<String, Object>> iterator() {
+          return new Iterator<Entry<String, Object>>() {
+            private int next = 0;
+
+            @Override
+            public boolean hasNext() {
+              return next < keys.length;
+            }
+
+            @Override
+            public Entry<String, Object> next() {
+              if (next >= keys.length) {
+                throw new NoSuchElementException();
+              }
+              return new IndexEntry(next++);
+            }
+          };
+        }
+
+        @Override
+        public int size() {
+          return keys.length;
+        }
+      };
+    }
+  }
+
+  // Lighter than a SimpleImmutableEntry, as it holds only the index. Entries are not reused, as callers may keep them.
+  private final class IndexEntry implements Map.Entry<String, Object> {
+    private final int index;
+
+    IndexEntry(int index) {
+      this.index = index;
+    }
+
+    @Override
+    public String getKey() {
+      return keys[index];
+    }
+
+    @Override
+    public Object getValue() {
+      return value(index);
+    }
+
+    @Override
+    public Object setValue(Object value) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean equals(@Nullable Object obj) {
+      if (!(obj instanceof Map.Entry)) {
+        return false;
+      }
+      Map.Entry<?, ?> other = (Map.Entry<?, ?>) obj;
+      return getKey().equals(other.getKey()) && getValue().equals(other.getValue());
+    }
+
+    @Override
+    public int hashCode() {
+      return getKey().hashCode() ^ getValue().hashCode();
+    }
+
+    @Override
+    public String toString() {
+      return getKey() + "=" + getValue();
+    }
+  }
+}
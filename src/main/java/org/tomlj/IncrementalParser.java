@@ -0,0 +1,145 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to You under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.tomlj;
+
+import org.tomlj.RecursiveDescentParser.Segment;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Parses documents so that they can be parsed again, after an edit, without re-parsing the unchanged text.
+ *
+ * <p>
+ * The document is parsed in segments: runs of lines that start and end with the scanner in its initial state (which,
+ * outside of multi-line strings, arrays and inline tables, is every line break). Each segment records its parsed
+ * expressions and syntax errors, and the tables are built by applying the expressions in document order.
+ *
+ * <p>
+ * After an edit, parsing restarts at the segment containing the edit, and continues until a segment ends at a line
+ * break that was also the end of a segment before the edit. The remaining segments are reused, moving their positions
+ * by the number of lines added or removed, and the tables are built again from all the segments.
+ */
+final class IncrementalParser {
+  private IncrementalParser() {}
+
+  static TomlParseResult parse(CharSequence input, TomlVersion version, boolean inputPositions, boolean frozenTables) {
+    RecursiveDescentParser parser = RecursiveDescentParser.segmented(input, 0, 1, version);
+    List<Segment> segments = new ArrayList<>();
+    Segment segment;
+    while ((segment = parser.nextSegment()) != null) {
+      segments.add(segment);
+    }
+    return RecursiveDescentParser.build(input, version, inputPositions, frozenTables, segments);
+  }
+
+  static TomlParseResult reparse(TomlParseResult previous, int offset, int removedLength, CharSequence insertedText) {
+    if (!(previous instanceof Result)) {
+      throw new IllegalArgumentException("The previous result was not parsed with incremental reparsing enabled");
+    }
+    Result result = (Result) previous;
+    CharSequence input = result.input;
+    if (offset < 0 || removedLength < 0 || offset > input.length() - removedLength) {
+      throw new IndexOutOfBoundsException(
+          "offset " + offset + ", removed length " + removedLength + ", length " + input.length());
+    }
+    String text = new StringBuilder(input.length() - removedLength + insertedText.length())
+        .append(input, 0, offset)
+        .append(insertedText)
+        .append(input, offset + removedLength, input.length())
+        .toString();
+    int delta = insertedText.length() - removedLength;
+    int editEnd = offset + insertedText.length();
+
+    List<Segment> oldSegments = result.segments;
+    int count = oldSegments.size();
+    // The first segment that the edit may change (the last segment may end without a line break, so is always parsed
+    // again if the edit is at the end of the input)
+    int first = firstEndingAfter(oldSegments, offset);
+    if (first == count && count > 0) {
+      --first;
+    }
+    int start = (first < count) ? oldSegments.get(first).start : 0;
+    int line = (first < count) ? oldSegments.get(first).line : 1;
+
+    List<Segment> segments = new ArrayList<>(oldSegments.subList(0, first));
+    RecursiveDescentParser parser = RecursiveDescentParser.segmented(text, start, line, result.version);
+    int next = first;
+    Segment segment;
+    while ((segment = parser.nextSegment()) != null) {
+      segments.add(segment);
+      if (segment.end < editEnd) {
+        continue;
+      }
+      int oldEnd = segment.end - delta;
+      while (next < count && oldSegments.get(next).start < oldEnd) {
+        ++next;
+      }
+      if (next < count && oldSegments.get(next).start == oldEnd) {
+        int lines = segment.endLine - oldSegments.get(next).line;
+        for (Segment reused : oldSegments.subList(next, count)) {
+          if (lines != 0 && reused.hasValueErrors()) {
+            Segment reparsed = RecursiveDescentParser
+                .segmented(text, reused.start + delta, reused.line + lines, result.version)
+                .nextSegment();
+            assert reparsed != null && reparsed.end == reused.end + delta;
+            segments.add(reparsed);
+          } else {
+            segments.add(reused.moved(delta, lines));
+          }
+        }
+        break;
+      }
+    }
+    return RecursiveDescentParser.build(text, result.version, result.inputPositions, result.frozenTables, segments);
+  }
+
+  private static int firstEndingAfter(List<Segment> segments, int offset) {
+    int low = 0;
+    int high = segments.size();
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (segments.get(mid).end > offset) {
+        high = mid;
+      } else {
+        low = mid + 1;
+      }
+    }
+    return low;
+  }
+
+  static final class Result extends Parser.ParseResult {
+    private final CharSequence input;
+    private final TomlVersion version;
+    private final boolean inputPositions;
+    private final boolean frozenTables;
+    private final List<Segment> segments;
+
+    Result(
+        TomlTable table,
+        List<TomlParseError> errors,
+        CharSequence input,
+        TomlVersion version,
+        boolean inputPositions,
+        boolean frozenTables,
+        List<Segment> segments) {
+      super(table, () -> errors);
+      this.input = input;
+      this.version = version;
+      this.inputPositions = inputPositions;
+      this.frozenTables = frozenTables;
+      this.segments = Collections.unmodifiableList(segments);
+    }
+  }
+}
@@ -30,7 +30,21 @@ public enum JsonOptions {
   /**
    * Output all values as strings, rather than using integer, float or boolean values.
    */
-  ALL_VALUES_AS_STRINGS;
+  ALL_VALUES_AS_STRINGS,
+  /**
+   * Output JSON with no line breaks or indentation, and no spaces between tokens.
+   * <p>
+   * This is the default for {@link TomlTable#toJsonUtf8(java.io.OutputStream, JsonOptions...)} and the other UTF-8
+   * writers. Cannot be combined with {@link #PRETTY_PRINT}.
+   */
+  COMPACT,
+  /**
+   * Output JSON with line breaks and indentation.
+   * <p>
+   * This is the default for {@link TomlTable#toJson(JsonOptions...)} and the other {@code toJson} methods. Cannot be
+   * combined with {@link #COMPACT}.
+   */
+  PRETTY_PRINT;
 
   static EnumSet<JsonOptions> setFrom(JsonOptions[] options) {
     return options.length > 0 ? EnumSet.of(options[0], options) : EnumSet.noneOf(JsonOptions.class);
@@ -14,116 +14,203 @@ package org.tomlj;
 
 import static java.util.Objects.requireNonNull;
 import static org.tomlj.JsonOptions.ALL_VALUES_AS_STRINGS;
+import static org.tomlj.JsonOptions.COMPACT;
+import static org.tomlj.JsonOptions.PRETTY_PRINT;
 import static org.tomlj.JsonOptions.VALUES_AS_OBJECTS_WITH_TYPE;
-import static org.tomlj.TomlType.TABLE;
 import static org.tomlj.TomlType.typeFor;
 
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.OffsetDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 
 final class JsonSerializer {
-  private JsonSerializer() {}
+  private static final String LINE_SEPARATOR = System.lineSeparator();
+  private static final byte[] LINE_SEPARATOR_BYTES = LINE_SEPARATOR.getBytes(StandardCharsets.UTF_8);
+  private static final int MAX_INDENT_CHUNK = 64;
+  private static final String SPACES = new String(spaces(MAX_INDENT_CHUNK), StandardCharsets.US_ASCII);
+  private static final byte[] SPACE_BYTES = spaces(MAX_INDENT_CHUNK);
+
+  // The escape sequence for each ASCII character that must be escaped in a JSON string, or null
+  private static final String[] ESCAPES = new String[0x80];
+
+  static {
+    for (char ch = 0; ch < 0x20; ++ch) {
+      ESCAPES[ch] = String.format("\\u%04x", (int) ch);
+    }
+    ESCAPES['\t'] = "\\t";
+    ESCAPES['\b'] = "\\b";
+    ESCAPES['\n'] = "\\n";
+    ESCAPES['\r'] = "\\r";
+    ESCAPES['\f'] = "\\f";
+    ESCAPES['"'] = "\\\"";
+    ESCAPES['\\'] = "\\\\";
+  }
+
+  private static byte[] spaces(int count) {
+    byte[] spaces = new byte[count];
+    Arrays.fill(spaces, (byte) ' ');
+    return spaces;
+  }
+
+  private final Output out;
+  private final boolean compact;
+  private final boolean valuesAsObjects;
+  private final boolean valuesAsStrings;
+
+  private JsonSerializer(Output out, boolean compact, Set<JsonOptions> options) {
+    this.out = out;
+    this.compact = compact;
+    this.valuesAsObjects = options.contains(VALUES_AS_OBJECTS_WITH_TYPE);
+    this.valuesAsStrings = options.contains(ALL_VALUES_AS_STRINGS);
+  }
 
   static void toJson(TomlTable table, Appendable appendable, Set<JsonOptions> options) throws IOException {
     requireNonNull(table);
     requireNonNull(appendable);
-    toJson(table, appendable, options, 0);
-    appendable.append(System.lineSeparator());
+    write(table, new TextOutput(appendable), isCompact(options, false), options);
+  }
+
+  static void toJson(TomlArray array, Appendable appendable, Set<JsonOptions> options) throws IOException {
+    requireNonNull(array);
+    requireNonNull(appendable);
+    write(array, new TextOutput(appendable), isCompact(options, false), options);
   }
 
-  private static void toJson(TomlTable table, Appendable appendable, Set<JsonOptions> options, int indent)
+  static void toJson(Object tableOrArray, OutputStream stream, Set<JsonOptions> options) throws IOException {
+    requireNonNull(stream);
+    Output out = new Utf8Output((bytes, length) -> stream.write(bytes, 0, length));
+    write(tableOrArray, out, isCompact(options, true), options);
+  }
+
+  static void toJson(Object tableOrArray, WritableByteChannel channel, Set<JsonOptions> options) throws IOException {
+    requireNonNull(channel);
+    Output out = new Utf8Output((bytes, length) -> {
+      ByteBuffer buffer = ByteBuffer.wrap(bytes, 0, length);
+      while (buffer.hasRemaining()) {
+        channel.write(buffer);
+      }
+    });
+    write(tableOrArray, out, isCompact(options, true), options);
+  }
+
+  private static boolean isCompact(Set<JsonOptions> options, boolean compactByDefault) {
+    if (options.contains(COMPACT) && options.contains(PRETTY_PRINT)) {
+      throw new IllegalArgumentException("JSON options COMPACT and PRETTY_PRINT cannot be combined");
+    }
+    return compactByDefault ? !options.contains(PRETTY_PRINT) : options.contains(COMPACT);
+  }
+
+  private static void write(Object tableOrArray, Output out, boolean compact, Set<JsonOptions> options)
       throws IOException {
+    JsonSerializer serializer = new JsonSerializer(out, compact, options);
+    if (tableOrArray instanceof TomlTable) {
+      serializer.writeTable((TomlTable) tableOrArray, 0);
+    } else {
+      serializer.writeArray((TomlArray) tableOrArray, 0);
+    }
+    serializer.newLine();
+    out.flush();
+  }
+
+  // Line breaks and indentation are omitted from compact JSON
+  private void newLine() throws IOException {
+    if (!compact) {
+      out.newLine();
+    }
+  }
+
+  private void indent(int indent) throws IOException {
+    if (!compact) {
+      out.indent(indent);
+    }
+  }
+
+  private void writeTable(TomlTable table, int indent) throws IOException {
     if (table.isEmpty()) {
-      appendable.append("{}");
+      out.append("{}");
       return;
     }
-    appendLine(appendable, "{");
-    for (Iterator<Map.Entry<String, Object>> iterator = table.entrySet().stream().iterator(); iterator.hasNext();) {
+    out.append('{');
+    newLine();
+    for (Iterator<Map.Entry<String, Object>> iterator = table.asMap().entrySet().iterator(); iterator.hasNext();) {
       Map.Entry<String, Object> entry = iterator.next();
-      String key = entry.getKey();
-      append(appendable, indent + 2, "\"" + escape(key) + "\" : ");
-      Object value = entry.getValue();
-      assert value != null;
-      appendTomlValue(value, appendable, options, indent);
+      indent(indent + 2);
+      out.append('"');
+      out.appendEscaped(entry.getKey());
+      out.append(compact ? "\":" : "\" : ");
+      writeValue(entry.getValue(), indent);
       if (iterator.hasNext()) {
-        appendable.append(",");
-        appendable.append(System.lineSeparator());
+        out.append(',');
+        newLine();
       }
     }
-    appendable.append(System.lineSeparator());
-    append(appendable, indent, "}");
+    newLine();
+    indent(indent);
+    out.append('}');
   }
 
-  static void toJson(TomlArray array, Appendable appendable, Set<JsonOptions> options) throws IOException {
-    toJson(array, appendable, options, 0);
-    appendable.append(System.lineSeparator());
-  }
-
-  private static void toJson(TomlArray array, Appendable appendable, Set<JsonOptions> options, int indent)
-      throws IOException {
+  private void writeArray(TomlArray array, int indent) throws IOException {
     if (array.isEmpty()) {
-      appendable.append("[]");
+      out.append("[]");
       return;
     }
-
-    appendable.append("[");
-    Optional<TomlType> tomlType = Optional.empty();
-    for (Iterator<Object> iterator = array.toList().iterator(); iterator.hasNext();) {
-      Object tomlValue = iterator.next();
-      tomlType = typeFor(tomlValue);
-      assert tomlType.isPresent();
-      if (tomlType.get().equals(TABLE)) {
-        toJson((TomlTable) tomlValue, appendable, options, indent);
+    out.append('[');
+    boolean isTable = false;
+    for (int i = 0, size = array.size(); i < size; ++i) {
+      Object value = array.get(i);
+      isTable = value instanceof TomlTable;
+      if (isTable) {
+        writeTable((TomlTable) value, indent);
       } else {
-        appendable.append(System.lineSeparator());
-        indentLine(appendable, indent + 2);
-        appendTomlValue(tomlValue, appendable, options, indent);
+        newLine();
+        indent(indent + 2);
+        writeValue(value, indent);
       }
 
-      if (iterator.hasNext()) {
-        appendable.append(",");
-      } else if (!tomlType.get().equals(TABLE)) {
-        appendable.append(System.lineSeparator());
+      if (i + 1 < size) {
+        out.append(',');
+      } else if (!isTable) {
+        newLine();
       }
     }
-    if (tomlType.isPresent() && tomlType.get().equals(TABLE)) {
-      appendable.append("]");
-    } else {
-      append(appendable, indent, "]");
+    if (!isTable) {
+      indent(indent);
     }
+    out.append(']');
   }
 
-  private static void appendTomlValue(Object value, Appendable appendable, Set<JsonOptions> options, int indent)
-      throws IOException {
-    Optional<TomlType> tomlType = typeFor(value);
-    assert tomlType.isPresent();
-    switch (tomlType.get()) {
-      case ARRAY:
-        toJson((TomlArray) value, appendable, options, indent + 2);
-        return;
-      case TABLE:
-        toJson((TomlTable) value, appendable, options, indent + 2);
-        return;
-      default:
-        // continue
+  private void writeValue(Object value, int indent) throws IOException {
+    if (value instanceof TomlArray) {
+      writeArray((TomlArray) value, indent + 2);
+      return;
+    }
+    if (value instanceof TomlTable) {
+      writeTable((TomlTable) value, indent + 2);
+      return;
     }
 
-    if (options.contains(VALUES_AS_OBJECTS_WITH_TYPE)) {
-      appendable.append("{ \"type\": \"");
-      appendable.append(typeName(tomlType.get()));
-      appendable.append("\", \"value\": ");
-      appendTomlValueLiteral(tomlType.get(), value, appendable, options);
-      appendable.append(" }");
+    Optional<TomlType> tomlType = typeFor(value);
+    assert tomlType.isPresent();
+    if (valuesAsObjects) {
+      out.append(compact ? "{\"type\":\"" : "{ \"type\": \"");
+      out.append(typeName(tomlType.get()));
+      out.append(compact ? "\",\"value\":" : "\", \"value\": ");
+      writeLiteral(tomlType.get(), value);
+      out.append(compact ? "}" : " }");
     } else {
-      appendTomlValueLiteral(tomlType.get(), value, appendable, options);
+      writeLiteral(tomlType.get(), value);
     }
   }
 
@@ -144,130 +231,274 @@ final class JsonSerializer {
     }
   }
 
-  private static void appendTomlValueLiteral(
-      TomlType tomlType,
-      Object value,
-      Appendable appendable,
-      Set<JsonOptions> options) throws IOException {
+  private void writeLiteral(TomlType tomlType, Object value) throws IOException {
     switch (tomlType) {
       case STRING:
-        appendable.append('"');
-        appendable.append(escape((String) value));
-        appendable.append('"');
+        out.append('"');
+        out.appendEscaped((String) value);
+        out.append('"');
         break;
       case INTEGER:
-        if (options.contains(ALL_VALUES_AS_STRINGS)) {
-          appendable.append('"');
+        if (valuesAsStrings) {
+          out.append('"');
         }
-        appendable.append(value.toString());
-        if (options.contains(ALL_VALUES_AS_STRINGS)) {
-          appendable.append('"');
+        out.append((Long) value);
+        if (valuesAsStrings) {
+          out.append('"');
         }
         break;
       case FLOAT:
-        if (options.contains(ALL_VALUES_AS_STRINGS)) {
-          appendable.append('"');
+        if (valuesAsStrings) {
+          out.append('"');
         }
-        if (Double.isNaN((Double) value)) {
-          appendable.append("nan");
-        } else if ((Double) value == Double.POSITIVE_INFINITY) {
-          appendable.append("+inf");
-        } else if ((Double) value == Double.NEGATIVE_INFINITY) {
-          appendable.append("-inf");
+        double d = (Double) value;
+        if (Double.isNaN(d)) {
+          out.append("nan");
+        } else if (d == Double.POSITIVE_INFINITY) {
+          out.append("+inf");
+        } else if (d == Double.NEGATIVE_INFINITY) {
+          out.append("-inf");
         } else {
-          appendable.append(value.toString());
+          out.append(Double.toString(d));
         }
-        if (options.contains(ALL_VALUES_AS_STRINGS)) {
-          appendable.append('"');
+        if (valuesAsStrings) {
+          out.append('"');
         }
         break;
       case BOOLEAN:
-        if (options.contains(ALL_VALUES_AS_STRINGS)) {
-          appendable.append('"');
+        if (valuesAsStrings) {
+          out.append('"');
         }
-        appendable.append(((Boolean) value) ? "true" : "false");
-        if (options.contains(ALL_VALUES_AS_STRINGS)) {
-          appendable.append('"');
+        out.append(((Boolean) value) ? "true" : "false");
+        if (valuesAsStrings) {
+          out.append('"');
         }
         break;
       case OFFSET_DATE_TIME:
-        appendable.append('"');
-        appendable.append(((OffsetDateTime) value).format(DateTimeFormatter.ISO_OFFSET_DATE_TIME));
-        appendable.append('"');
+        out.append('"');
+        out.append(((OffsetDateTime) value).format(DateTimeFormatter.ISO_OFFSET_DATE_TIME));
+        out.append('"');
         break;
       case LOCAL_DATE_TIME:
-        appendable.append('"');
-        appendable.append(((LocalDateTime) value).format(DateTimeFormatter.ISO_DATE_TIME));
-        appendable.append('"');
+        out.append('"');
+        out.append(((LocalDateTime) value).format(DateTimeFormatter.ISO_DATE_TIME));
+        out.append('"');
         break;
       case LOCAL_DATE:
-        appendable.append('"');
-        appendable.append(((LocalDate) value).format(DateTimeFormatter.ISO_DATE));
-        appendable.append('"');
+        out.append('"');
+        out.append(((LocalDate) value).format(DateTimeFormatter.ISO_DATE));
+        out.append('"');
         break;
       case LOCAL_TIME:
-        appendable.append('"');
-        appendable.append(((LocalTime) value).format(DateTimeFormatter.ISO_TIME));
-        appendable.append('"');
+        out.append('"');
+        out.append(((LocalTime) value).format(DateTimeFormatter.ISO_TIME));
+        out.append('"');
         break;
       default:
         throw new AssertionError("Attempted to output literal form of non-literal type " + tomlType.typeName());
     }
   }
 
-  private static void append(Appendable appendable, int indent, String line) throws IOException {
-    indentLine(appendable, indent);
-    appendable.append(line);
-  }
+  // Where the JSON is written: either text, or UTF-8 bytes
+  private abstract static class Output {
+    abstract void append(char ch) throws IOException;
+
+    // Appends text that does not need escaping
+    abstract void append(String text) throws IOException;
+
+    abstract void append(long value) throws IOException;
 
-  private static void appendLine(Appendable appendable, String line) throws IOException {
-    appendable.append(line);
-    appendable.append(System.lineSeparator());
+    abstract void appendEscaped(String text) throws IOException;
+
+    abstract void indent(int indent) throws IOException;
+
+    abstract void newLine() throws IOException;
+
+    void flush() throws IOException {}
   }
 
-  private static void indentLine(Appendable appendable, int indent) throws IOException {
-    for (int i = 0; i < indent; ++i) {
-      appendable.append(' ');
+  private static final class TextOutput extends Output {
+    private final Appendable appendable;
+
+    TextOutput(Appendable appendable) {
+      this.appendable = appendable;
+    }
+
+    @Override
+    void append(char ch) throws IOException {
+      appendable.append(ch);
+    }
+
+    @Override
+    void append(String text) throws IOException {
+      appendable.append(text);
+    }
+
+    @Override
+    void append(long value) throws IOException {
+      if (appendable instanceof StringBuilder) {
+        ((StringBuilder) appendable).append(value);
+      } else {
+        appendable.append(Long.toString(value));
+      }
+    }
+
+    @Override
+    void appendEscaped(String text) throws IOException {
+      // append runs of characters that need no escaping directly from the text
+      int start = 0;
+      for (int i = 0, length = text.length(); i < length; ++i) {
+        char ch = text.charAt(i);
+        if (ch < 0x80 && ESCAPES[ch] != null) {
+          appendable.append(text, start, i);
+          appendable.append(ESCAPES[ch]);
+          start = i + 1;
+        }
+      }
+      appendable.append(text, start, text.length());
+    }
+
+    @Override
+    void indent(int indent) throws IOException {
+      while (indent > 0) {
+        int chunk = Math.min(indent, MAX_INDENT_CHUNK);
+        appendable.append(SPACES, 0, chunk);
+        indent -= chunk;
+      }
+    }
+
+    @Override
+    void newLine() throws IOException {
+      appendable.append(LINE_SEPARATOR);
     }
   }
 
-  private static StringBuilder escape(String text) {
-    StringBuilder out = new StringBuilder(text.length());
-    for (int i = 0; i < text.length(); i++) {
-      char ch = text.charAt(i);
-      if (ch == '"') {
-        out.append("\\\"");
-        continue;
+  private static final class Utf8Output extends Output {
+    // The most bytes written for a single char (an escape sequence), or for a surrogate pair
+    private static final int MAX_BYTES_PER_CHAR = 6;
+    // Long.MIN_VALUE, with its sign
+    private static final int MAX_LONG_LENGTH = 20;
+
+    interface Sink {
+      void write(byte[] bytes, int length) throws IOException;
+    }
+
+    private final Sink sink;
+    private final byte[] buffer = new byte[8192];
+    private int position = 0;
+
+    Utf8Output(Sink sink) {
+      this.sink = sink;
+    }
+
+    private void ensure(int length) throws IOException {
+      if (position + length > buffer.length) {
+        flush();
+      }
+    }
+
+    @Override
+    void append(char ch) throws IOException {
+      if (ch < 0x80) {
+        ensure(1);
+        buffer[position++] = (byte) ch;
+      } else {
+        encode(String.valueOf(ch), false);
+      }
+    }
+
+    @Override
+    void append(String text) throws IOException {
+      encode(text, false);
+    }
+
+    @Override
+    void append(long value) throws IOException {
+      if (value == Long.MIN_VALUE) {
+        append(Long.toString(value));
+        return;
+      }
+      ensure(MAX_LONG_LENGTH);
+      if (value < 0) {
+        buffer[position++] = '-';
+        value = -value;
+      }
+      int length = 1;
+      for (long v = value / 10; v != 0; v /= 10) {
+        ++length;
       }
-      if (ch == '\\') {
-        out.append("\\\\");
-        continue;
+      for (int i = position + length - 1; i >= position; --i) {
+        buffer[i] = (byte) ('0' + (value % 10));
+        value /= 10;
       }
-      if (ch >= 0x20) {
-        out.append(ch);
-        continue;
+      position += length;
+    }
+
+    @Override
+    void appendEscaped(String text) throws IOException {
+      encode(text, true);
+    }
+
+    private void encode(String text, boolean escape) throws IOException {
+      byte[] buffer = this.buffer;
+      for (int i = 0, length = text.length(); i < length; ++i) {
+        if (position + MAX_BYTES_PER_CHAR > buffer.length) {
+          flush();
+        }
+        char ch = text.charAt(i);
+        if (ch < 0x80) {
+          String escaped = escape ? ESCAPES[ch] : null;
+          if (escaped == null) {
+            buffer[position++] = (byte) ch;
+          } else {
+            for (int j = 0; j < escaped.length(); ++j) {
+              buffer[position++] = (byte) escaped.charAt(j);
+            }
+          }
+        } else if (ch < 0x800) {
+          buffer[position++] = (byte) (0xc0 | (ch >> 6));
+          buffer[position++] = (byte) (0x80 | (ch & 0x3f));
+        } else if (!Character.isSurrogate(ch)) {
+          buffer[position++] = (byte) (0xe0 | (ch >> 12));
+          buffer[position++] = (byte) (0x80 | ((ch >> 6) & 0x3f));
+          buffer[position++] = (byte) (0x80 | (ch & 0x3f));
+        } else if (Character.isHighSurrogate(ch) && i + 1 < length && Character.isLowSurrogate(text.charAt(i + 1))) {
+          int codepoint = Character.toCodePoint(ch, text.charAt(++i));
+          buffer[position++] = (byte) (0xf0 | (codepoint >> 18));
+          buffer[position++] = (byte) (0x80 | ((codepoint >> 12) & 0x3f));
+          buffer[position++] = (byte) (0x80 | ((codepoint >> 6) & 0x3f));
+          buffer[position++] = (byte) (0x80 | (codepoint & 0x3f));
+        } else {
+          // an unpaired surrogate, which is replaced as by String.getBytes
+          buffer[position++] = '?';
+        }
       }
+    }
+
+    @Override
+    void indent(int indent) throws IOException {
+      while (indent > 0) {
+        int chunk = Math.min(indent, MAX_INDENT_CHUNK);
+        ensure(chunk);
+        System.arraycopy(SPACE_BYTES, 0, buffer, position, chunk);
+        position += chunk;
+        indent -= chunk;
+      }
+    }
+
+    @Override
+    void newLine() throws IOException {
+      ensure(LINE_SEPARATOR_BYTES.length);
+      System.arraycopy(LINE_SEPARATOR_BYTES, 0, buffer, position, LINE_SEPARATOR_BYTES.length);
+      position += LINE_SEPARATOR_BYTES.length;
+    }
 
-      switch (ch) {
-        case '\t':
-          out.append("\\t");
-          break;
-        case '\b':
-          out.append("\\b");
-          break;
-        case '\n':
-          out.append("\\n");
-          break;
-        case '\r':
-          out.append("\\r");
-          break;
-        case '\f':
-          out.append("\\f");
-          break;
-        default:
-          out.append("\\u").append(String.format("%04x", text.codePointAt(i)));
+    @Override
+    void flush() throws IOException {
+      if (position > 0) {
+        sink.write(buffer, position);
+        position = 0;
       }
     }
-    return out;
   }
 }
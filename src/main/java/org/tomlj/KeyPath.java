@@ -0,0 +1,195 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to You under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.tomlj;
+
+import java.util.AbstractList;
+import java.util.AbstractMap;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * A read-only key path, held as its last key and a reference to the path of its parent table.
+ *
+ * <p>
+ * All the paths in a table share the path of the table as their prefix, so walking a table creates one small object
+ * per key rather than a copy of the whole path.
+ */
+final class KeyPath extends AbstractList<String> {
+  @Nullable
+  private final KeyPath parent;
+  private final String key;
+  private final int size;
+
+  private KeyPath(@Nullable KeyPath parent, String key) {
+    this.parent = parent;
+    this.key = key;
+    this.size = (parent == null) ? 1 : parent.size + 1;
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public String get(int index) {
+    if (index < 0 || index >= size) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+    }
+    KeyPath path = this;
+    for (int i = size - 1; i > index; --i) {
+      path = path.parent;
+      assert path != null;
+    }
+    return path.key;
+  }
+
+  @Override
+  public Object[] toArray() {
+    String[] keys = new String[size];
+    KeyPath path = this;
+    for (int i = size - 1; i >= 0; --i) {
+      assert path != null;
+      keys[i] = path.key;
+      path = path.parent;
+    }
+    return keys;
+  }
+
+  @Override
+  public Iterator<String> iterator() {
+    // walk the parents once, rather than once per key
+    return Arrays.asList((String[]) toArray()).iterator();
+  }
+
+  /**
+   * Walk a table depth first, in the order its keys were defined.
+   *
+   * <p>
+   * Each entry in a sub-table follows the entry for the sub-table itself (if tables are included). Tables in arrays are
+   * not walked.
+   */
+  static Stream<Map.Entry<List<String>, Object>> entries(TomlTable table, boolean includeTables) {
+    return stream(new Walker<Map.Entry<List<String>, Object>>(table, includeTables) {
+      @Override
+      Map.Entry<List<String>, Object> element(KeyPath path, Object value) {
+        return new AbstractMap.SimpleImmutableEntry<>(path, value);
+      }
+    });
+  }
+
+  /**
+   * Walk a table as {@link #entries(TomlTable, boolean)} does, returning only the paths.
+   */
+  static Stream<List<String>> paths(TomlTable table, boolean includeTables) {
+    return stream(new Walker<List<String>>(table, includeTables) {
+      @Override
+      List<String> element(KeyPath path, Object value) {
+        return path;
+      }
+    });
+  }
+
+  private static <T> Stream<T> stream(Iterator<T> iterator) {
+    Spliterator<T> spliterator = Spliterators
+        .spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.NONNULL);
+    return StreamSupport.stream(spliterator, false);
+  }
+
+  // The path of a table is only created when it, or one of its entries, is returned
+  private static final class Frame {
+    @Nullable
+    private final Frame parent;
+    @Nullable
+    private final String key;
+    @Nullable
+    private KeyPath path;
+    final Iterator<Map.Entry<String, Object>> entries;
+
+    Frame(@Nullable Frame parent, @Nullable String key, TomlTable table) {
+      this.parent = parent;
+      this.key = key;
+      this.entries = table.asMap().entrySet().iterator();
+    }
+
+    @Nullable
+    KeyPath path() {
+      if (path == null && key != null) {
+        assert parent != null;
+        path = new KeyPath(parent.path(), key);
+      }
+      return path;
+    }
+  }
+
+  private abstract static class Walker<T> implements Iterator<T> {
+    private final boolean includeTables;
+    private final Deque<Frame> stack = new ArrayDeque<>();
+    @Nullable
+    private T next;
+
+    Walker(TomlTable table, boolean includeTables) {
+      this.includeTables = includeTables;
+      stack.push(new Frame(null, null, table));
+    }
+
+    abstract T element(KeyPath path, Object value);
+
+    @Override
+    public boolean hasNext() {
+      while (next == null && !stack.isEmpty()) {
+        Frame frame = stack.peek();
+        if (!frame.entries.hasNext()) {
+          stack.pop();
+          continue;
+        }
+        Map.Entry<String, Object> entry = frame.entries.next();
+        Object value = entry.getValue();
+        if (value instanceof TomlTable) {
+          Frame child = new Frame(frame, entry.getKey(), (TomlTable) value);
+          stack.push(child);
+          if (includeTables) {
+            KeyPath path = child.path();
+            assert path != null;
+            next = element(path, value);
+          }
+          continue;
+        }
+        next = element(new KeyPath(frame.path(), entry.getKey()), value);
+      }
+      return next != null;
+    }
+
+    @Override
+    public T next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      T element = next;
+      assert element != null;
+      next = null;
+      return element;
+    }
+  }
+}
@@ -0,0 +1,119 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to You under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.tomlj;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * A bounded, least-recently-used cache of parsed dotted keys.
+ *
+ * <p>
+ * The cache is split into independently locked segments, each holding an access-ordered map, so concurrent lookups of
+ * different keys rarely contend. Eviction is LRU within each segment.
+ */
+final class KeyPathCache {
+
+  /**
+   * Set the system property {@code tomlj.keyCacheSize} to the maximum number of dotted keys to cache, or to {@code 0}
+   * to disable the cache.
+   */
+  static final String SIZE_PROPERTY = "tomlj.keyCacheSize";
+
+  private static final int DEFAULT_SIZE = 1024;
+  private static final int SEGMENTS = 16;
+
+  static final KeyPathCache INSTANCE = new KeyPathCache(Integer.getInteger(SIZE_PROPERTY, DEFAULT_SIZE));
+
+  private static final class Segment extends LinkedHashMap<String, List<String>> {
+    private final int capacity;
+
+    Segment(int capacity) {
+      super(16, 0.75f, true);
+      this.capacity = capacity;
+    }
+
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<String, List<String>> eldest) {
+      return size() > capacity;
+    }
+  }
+
+  private final Segment @Nullable [] segments;
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+
+  KeyPathCache(int maxSize) {
+    this(maxSize, SEGMENTS);
+  }
+
+  KeyPathCache(int maxSize, int maxSegments) {
+    if (maxSize <= 0) {
+      this.segments = null;
+      return;
+    }
+    int segmentCount = Math.min(maxSegments, maxSize);
+    int capacity = (maxSize + segmentCount - 1) / segmentCount;
+    this.segments = new Segment[segmentCount];
+    for (int i = 0; i < segmentCount; ++i) {
+      segments[i] = new Segment(capacity);
+    }
+  }
+
+  boolean isEnabled() {
+    return segments != null;
+  }
+
+  /**
+   * Get the cached path for a dotted key, computing it if absent.
+   *
+   * <p>
+   * The parse function is called without holding any lock, and the path it returns must be immutable. If it throws,
+   * nothing is cached.
+   */
+  List<String> get(String dottedKey, Function<String, List<String>> parse) {
+    Segment[] segments = this.segments;
+    if (segments == null) {
+      return parse.apply(dottedKey);
+    }
+    int hash = dottedKey.hashCode();
+    Segment segment = segments[((hash ^ (hash >>> 16)) & 0x7fffffff) % segments.length];
+    List<String> path;
+    synchronized (segment) {
+      path = segment.get(dottedKey);
+    }
+    if (path != null) {
+      hits.increment();
+      return path;
+    }
+    misses.increment();
+    path = parse.apply(dottedKey);
+    synchronized (segment) {
+      segment.put(dottedKey, path);
+    }
+    return path;
+  }
+
+  long hits() {
+    return hits.sum();
+  }
+
+  long misses() {
+    return misses.sum();
+  }
+}
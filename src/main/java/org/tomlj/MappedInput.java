@@ -0,0 +1,177 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to You under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.tomlj;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads UTF-8 encoded files for the parser.
+ *
+ * <p>
+ * Files are read into a single buffer rather than through a stream. If the file is entirely ASCII (as most TOML
+ * documents are), it is returned as a view over the bytes, so the parser reads it directly and only the spans that
+ * become keys or values are copied into strings. Otherwise it is decoded in a single pass, reporting malformed input in
+ * the same way as a {@link java.io.Reader} with {@link CodingErrorAction#REPORT}.
+ *
+ * <p>
+ * Only very large files are memory-mapped. A mapping lasts until the buffer is garbage collected: until then, Windows
+ * will not let the file be replaced or deleted, and truncating the file makes reads from the mapping fail with an
+ * {@link InternalError}.
+ */
+final class MappedInput {
+  private MappedInput() {}
+
+  // Below this size, text files are read onto the heap, so that the file is not held open by a mapping
+  private static final long MAP_THRESHOLD = 16 * 1024 * 1024;
+  // Below this size, reading a file is cheaper than mapping it
+  private static final long SMALL_FILE = 64 * 1024;
+  private static final long NON_ASCII_MASK = 0x8080808080808080L;
+
+  /**
+   * Read a UTF-8 encoded file.
+   *
+   * @param file The file to read.
+   * @return The text of the file.
+   * @throws IOException If an IO error occurs, or the file is not valid UTF-8.
+   */
+  static CharSequence read(Path file) throws IOException {
+    return decode(readBytes(file));
+  }
+
+  /**
+   * Read the bytes of a file, memory-mapping it only if it is very large.
+   *
+   * @param file The file to read.
+   * @return The bytes of the file.
+   * @throws IOException If an IO error occurs.
+   */
+  static ByteBuffer readBytes(Path file) throws IOException {
+    return readBytes(file, MAP_THRESHOLD);
+  }
+
+  /**
+   * Memory-map a file, unless it is small enough that reading it is cheaper.
+   *
+   * <p>
+   * The file cannot be replaced or deleted on Windows while the buffer is reachable.
+   *
+   * @param file The file to map.
+   * @return The bytes of the file.
+   * @throws IOException If an IO error occurs.
+   */
+  static ByteBuffer mapBytes(Path file) throws IOException {
+    return readBytes(file, SMALL_FILE);
+  }
+
+  private static ByteBuffer readBytes(Path file, long mapThreshold) throws IOException {
+    ByteBuffer bytes;
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      long size = channel.size();
+      if (size > Integer.MAX_VALUE) {
+        throw new IOException("File is too large: " + file);
+      }
+      if (size < mapThreshold) {
+        bytes = ByteBuffer.allocate((int) size);
+        while (bytes.hasRemaining() && channel.read(bytes) >= 0) {
+          // continue
+        }
+        bytes.flip();
+      } else {
+        bytes = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+      }
+    }
+    return bytes;
+  }
+
+  /**
+   * Decode UTF-8 encoded bytes, returning a view over them if they are all ASCII.
+   *
+   * @param bytes The bytes to decode.
+   * @return The text.
+   * @throws IOException If the bytes are not valid UTF-8.
+   */
+  static CharSequence decode(ByteBuffer bytes) throws IOException {
+    if (isAscii(bytes)) {
+      return new AsciiSequence(bytes, bytes.position(), bytes.remaining());
+    }
+    CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder();
+    decoder.onMalformedInput(CodingErrorAction.REPORT);
+    decoder.onUnmappableCharacter(CodingErrorAction.REPORT);
+    return decoder.decode(bytes.duplicate());
+  }
+
+  private static boolean isAscii(ByteBuffer bytes) {
+    int i = bytes.position();
+    int end = bytes.limit();
+    for (; i + 8 <= end; i += 8) {
+      if ((bytes.getLong(i) & NON_ASCII_MASK) != 0) {
+        return false;
+      }
+    }
+    for (; i < end; ++i) {
+      if (bytes.get(i) < 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static final class AsciiSequence implements CharSequence {
+    private final ByteBuffer bytes;
+    private final int offset;
+    private final int length;
+
+    AsciiSequence(ByteBuffer bytes, int offset, int length) {
+      this.bytes = bytes;
+      this.offset = offset;
+      this.length = length;
+    }
+
+    @Override
+    public int length() {
+      return length;
+    }
+
+    @Override
+    public char charAt(int index) {
+      if (index < 0 || index >= length) {
+        throw new IndexOutOfBoundsException("index " + index + ", length " + length);
+      }
+      return (char) bytes.get(offset + index);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+      if (start < 0 || end > length || start > end) {
+        throw new IndexOutOfBoundsException("start " + start + ", end " + end + ", length " + length);
+      }
+      return new AsciiSequence(bytes, offset + start, end - start);
+    }
+
+    @Override
+    public String toString() {
+      byte[] chars = new byte[length];
+      ByteBuffer view = bytes.duplicate();
+      view.position(offset);
+      view.get(chars);
+      return new String(chars, StandardCharsets.ISO_8859_1);
+    }
+  }
+}
@@ -13,8 +13,6 @@
 package org.tomlj;
 
 
-import java.util.Optional;
-
 final class MutableHomogeneousTomlArray extends MutableTomlArray {
 
   private TomlType type = null;
@@ -74,31 +72,25 @@ final class MutableHomogeneousTomlArray extends MutableTomlArray {
   }
 
   @Override
-  public MutableHomogeneousTomlArray append(Object value, TomlPosition position) {
-    if (value instanceof Integer) {
-      value = ((Integer) value).longValue();
-    }
+  MutableTomlArray emptyCopy() {
+    MutableHomogeneousTomlArray copy = new MutableHomogeneousTomlArray(isTableArray());
+    copy.type = type;
+    return copy;
+  }
 
-    TomlType origType = type;
-    Optional<TomlType> valueType = TomlType.typeFor(value);
-    if (!valueType.isPresent()) {
-      throw new IllegalArgumentException("Unsupported type " + value.getClass().getSimpleName());
-    }
-    if (type != null) {
-      if (valueType.get() != type) {
-        throw new TomlInvalidTypeException(
-            "Cannot add a " + TomlType.typeNameFor(value) + " to an array containing " + type.typeName() + "s");
-      }
-    } else {
-      type = valueType.get();
-    }
+  @Override
+  public MutableHomogeneousTomlArray append(Object value, TomlPosition position) {
+    super.append(value, position);
+    return this;
+  }
 
-    try {
-      super.append(value, position);
-    } catch (Throwable e) {
-      type = origType;
-      throw e;
+  @Override
+  void checkType(TomlType valueType) {
+    if (type == null) {
+      type = valueType;
+    } else if (valueType != type) {
+      throw new TomlInvalidTypeException(
+          "Cannot add a " + valueType.typeName() + " to an array containing " + type.typeName() + "s");
     }
-    return this;
   }
 }
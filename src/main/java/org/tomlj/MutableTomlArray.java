@@ -15,8 +15,15 @@ package org.tomlj;
 import static org.tomlj.TomlVersion.V0_5_0;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.DoubleStream;
+import java.util.stream.LongStream;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
 
 class MutableTomlArray implements TomlArray {
 
@@ -28,18 +35,32 @@ class MutableTomlArray implements TomlArray {
     return version.after(V0_5_0) ? new MutableTomlArray(tableArray) : new MutableHomogeneousTomlArray(tableArray);
   }
 
-  private static class Element {
-    final Object value;
-    final TomlPosition position;
+  private static final long[] NO_POSITIONS = new long[0];
 
-    private Element(Object value, TomlPosition position) {
-      this.value = value;
-      this.position = position;
-    }
-  }
+  // How the values are held: while all the values are longs, doubles or booleans, they are held unboxed
+  private static final int EMPTY = 0;
+  private static final int LONGS = 1;
+  private static final int DOUBLES = 2;
+  private static final int BOOLEANS = 3;
+  private static final int OBJECTS = 4;
 
-  private final List<Element> elements = new ArrayList<>();
+  private int kind = EMPTY;
+  private int size = 0;
+  private long @Nullable [] longs;
+  private double @Nullable [] doubles;
+  @Nullable
+  private BitSet booleans;
+  @Nullable
+  private ArrayList<Object> values;
+  // The packed position of each value, or null if input positions were discarded
+  private long @Nullable [] positions = NO_POSITIONS;
   private final boolean isTableArray;
+  // Whether the array is shared by the segments of an incremental parse, and so must not be changed once built
+  private boolean shared;
+  @Nullable
+  private MutableTomlArray frozen;
+  // Computed on first use (once parsing is complete), or 0
+  private volatile long fingerprint;
 
   MutableTomlArray(boolean isTableArray) {
     this.isTableArray = isTableArray;
@@ -101,39 +122,341 @@ class MutableTomlArray implements TomlArray {
 
   @Override
   public int size() {
-    return elements.size();
+    return size;
   }
 
   @Override
   public boolean isEmpty() {
-    return elements.isEmpty();
+    return size == 0;
+  }
+
+  // Whether all the values are held unboxed, as longs, doubles or booleans
+  boolean holdsLongs() {
+    return kind == LONGS;
+  }
+
+  boolean holdsDoubles() {
+    return kind == DOUBLES;
+  }
+
+  boolean holdsBooleans() {
+    return kind == BOOLEANS;
   }
 
   @Override
   public Object get(int index) {
-    return elements.get(index).value;
+    checkIndex(index);
+    switch (kind) {
+      case LONGS:
+        return longs[index];
+      case DOUBLES:
+        return doubles[index];
+      case BOOLEANS:
+        return booleans.get(index);
+      default:
+        return values.get(index);
+    }
+  }
+
+  @Override
+  public long getLong(int index) {
+    if (kind != LONGS) {
+      return TomlArray.super.getLong(index);
+    }
+    checkIndex(index);
+    return longs[index];
+  }
+
+  @Override
+  public double getDouble(int index) {
+    if (kind != DOUBLES) {
+      return TomlArray.super.getDouble(index);
+    }
+    checkIndex(index);
+    return doubles[index];
+  }
+
+  @Override
+  public boolean getBoolean(int index) {
+    if (kind != BOOLEANS) {
+      return TomlArray.super.getBoolean(index);
+    }
+    checkIndex(index);
+    return booleans.get(index);
+  }
+
+  @Override
+  public long[] toLongArray() {
+    return (kind == LONGS) ? Arrays.copyOf(longs, size) : TomlArray.super.toLongArray();
+  }
+
+  @Override
+  public double[] toDoubleArray() {
+    return (kind == DOUBLES) ? Arrays.copyOf(doubles, size) : TomlArray.super.toDoubleArray();
+  }
+
+  @Override
+  public LongStream longStream() {
+    return (kind == LONGS) ? Arrays.stream(longs, 0, size) : TomlArray.super.longStream();
+  }
+
+  @Override
+  public DoubleStream doubleStream() {
+    return (kind == DOUBLES) ? Arrays.stream(doubles, 0, size) : TomlArray.super.doubleStream();
   }
 
   @Override
   public TomlPosition inputPositionOf(int index) {
-    return elements.get(index).position;
+    checkIndex(index);
+    long[] positions = this.positions;
+    if (positions == null) {
+      throw new IllegalStateException("Input positions were not kept when this array was parsed");
+    }
+    return TomlPosition.unpack(positions[index]);
+  }
+
+  // Whether the positions of the values are kept
+  boolean hasPositions() {
+    return positions != null;
+  }
+
+  long fingerprint() {
+    long fingerprint = this.fingerprint;
+    if (fingerprint == 0) {
+      fingerprint = TomlFingerprint.compute(this);
+      this.fingerprint = fingerprint;
+    }
+    return fingerprint;
+  }
+
+  private void checkIndex(int index) {
+    if (index < 0 || index >= size) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+    }
   }
 
   MutableTomlArray append(Object value, TomlPosition position) {
+    return append(value, position.pack());
+  }
+
+  // The position is packed by TomlPosition.pack(), and ignored if the positions have been discarded
+  MutableTomlArray append(Object value, long position) {
     if (value instanceof Integer) {
       value = ((Integer) value).longValue();
     }
 
-    if (!TomlType.typeFor(value).isPresent()) {
+    Optional<TomlType> type = TomlType.typeFor(value);
+    if (!type.isPresent()) {
       throw new IllegalArgumentException("Unsupported type " + value.getClass().getSimpleName());
     }
+    checkType(type.get());
+    appendPosition(position);
+    add(value);
+    return this;
+  }
+
+  // Appends a long without boxing it (unless this array already holds other values)
+  MutableTomlArray append(long value, long position) {
+    checkType(TomlType.INTEGER);
+    appendPosition(position);
+    if (kind == EMPTY) {
+      kind = LONGS;
+      longs = new long[4];
+    }
+    if (kind != LONGS) {
+      add(value);
+      return this;
+    }
+    if (size == longs.length) {
+      longs = Arrays.copyOf(longs, size * 2);
+    }
+    longs[size++] = value;
+    return this;
+  }
 
-    elements.add(new Element(value, position));
+  // Appends a double without boxing it (unless this array already holds other values)
+  MutableTomlArray append(double value, long position) {
+    checkType(TomlType.FLOAT);
+    appendPosition(position);
+    if (kind == EMPTY) {
+      kind = DOUBLES;
+      doubles = new double[4];
+    }
+    if (kind != DOUBLES) {
+      add(value);
+      return this;
+    }
+    if (size == doubles.length) {
+      doubles = Arrays.copyOf(doubles, size * 2);
+    }
+    doubles[size++] = value;
     return this;
   }
 
+  // Appends a boolean without boxing it (unless this array already holds other values)
+  MutableTomlArray append(boolean value, long position) {
+    checkType(TomlType.BOOLEAN);
+    appendPosition(position);
+    if (kind == EMPTY) {
+      kind = BOOLEANS;
+      booleans = new BitSet();
+    }
+    if (kind != BOOLEANS) {
+      add(value);
+      return this;
+    }
+    booleans.set(size++, value);
+    return this;
+  }
+
+  /**
+   * Check that a value of the given type can be appended, before anything is changed.
+   *
+   * @param type The type of the value.
+   * @throws TomlInvalidTypeException If the value cannot be added to this array.
+   */
+  void checkType(TomlType type) {}
+
+  private void appendPosition(long position) {
+    long[] positions = this.positions;
+    if (positions != null) {
+      if (size == positions.length) {
+        positions = Arrays.copyOf(positions, Math.max(4, size * 2));
+        this.positions = positions;
+      }
+      positions[size] = position;
+    }
+  }
+
+  private void add(Object value) {
+    if (kind == EMPTY) {
+      if (value instanceof Long) {
+        kind = LONGS;
+        longs = new long[4];
+      } else if (value instanceof Double) {
+        kind = DOUBLES;
+        doubles = new double[4];
+      } else if (value instanceof Boolean) {
+        kind = BOOLEANS;
+        booleans = new BitSet();
+      } else {
+        kind = OBJECTS;
+        values = new ArrayList<>();
+      }
+    }
+    if (kind == LONGS && value instanceof Long) {
+      if (size == longs.length) {
+        longs = Arrays.copyOf(longs, size * 2);
+      }
+      longs[size] = (Long) value;
+    } else if (kind == DOUBLES && value instanceof Double) {
+      if (size == doubles.length) {
+        doubles = Arrays.copyOf(doubles, size * 2);
+      }
+      doubles[size] = (Double) value;
+    } else if (kind == BOOLEANS && value instanceof Boolean) {
+      booleans.set(size, (Boolean) value);
+    } else {
+      if (kind != OBJECTS) {
+        values = boxed();
+        kind = OBJECTS;
+        longs = null;
+        doubles = null;
+        booleans = null;
+      }
+      values.add(value);
+    }
+    ++size;
+  }
+
+  // Discards the positions of the values, which must be called before any values are appended
+  void discardPositions() {
+    assert size == 0;
+    positions = null;
+  }
+
+  private ArrayList<Object> boxed() {
+    ArrayList<Object> list = new ArrayList<>(Math.max(4, size * 2));
+    for (int i = 0; i < size; ++i) {
+      list.add(get(i));
+    }
+    return list;
+  }
+
+  // Replaces any tables in this array, or in arrays it contains, with read-only copies (in place, as the array is not
+  // changed once parsing is complete), and releases any unused capacity
+  MutableTomlArray freeze(Map<String, String> keys, boolean inputPositions) {
+    if (!inputPositions) {
+      positions = null;
+    }
+    if (kind == OBJECTS) {
+      values.replaceAll(value -> MutableTomlTable.freezeValue(value, keys, inputPositions));
+    }
+    trim();
+    return this;
+  }
+
+  // Marks the array as shared with the segments of an incremental parse, so that its frozen form is a copy that is kept
+  // for the next build
+  void share() {
+    shared = true;
+  }
+
+  boolean isShared() {
+    return shared;
+  }
+
+  // The input positions are always kept or always dropped for the builds that share this array
+  synchronized MutableTomlArray freezeShared(Map<String, String> keys, boolean inputPositions) {
+    if (frozen == null) {
+      frozen = copy(0).freeze(keys, inputPositions);
+    }
+    return frozen;
+  }
+
+  // Releases any unused capacity once parsing is complete
+  void trim() {
+    if (longs != null && longs.length > size) {
+      longs = Arrays.copyOf(longs, size);
+    }
+    if (doubles != null && doubles.length > size) {
+      doubles = Arrays.copyOf(doubles, size);
+    }
+    if (booleans != null && booleans.size() >= size + 64) {
+      // the copy has only the words needed to hold the values
+      booleans = booleans.get(0, size);
+    }
+    if (values != null) {
+      values.trimToSize();
+    }
+    if (positions != null && positions.length > size) {
+      positions = Arrays.copyOf(positions, size);
+    }
+  }
+
+  // Copies this array and any tables or arrays it contains, moving all positions by the given number of lines
+  MutableTomlArray copy(int lines) {
+    long[] positions = this.positions;
+    assert positions != null;
+    MutableTomlArray copy = emptyCopy();
+    for (int i = 0; i < size; ++i) {
+      Object value = get(i);
+      if (value instanceof MutableTomlTable) {
+        value = ((MutableTomlTable) value).copy(lines);
+      } else if (value instanceof MutableTomlArray) {
+        value = ((MutableTomlArray) value).copy(lines);
+      }
+      copy.append(value, TomlPosition.unpack(positions[i]).plusLines(lines));
+    }
+    return copy;
+  }
+
+  MutableTomlArray emptyCopy() {
+    return new MutableTomlArray(isTableArray);
+  }
+
   @Override
   public List<Object> toList() {
-    return elements.stream().map(e -> e.value).collect(Collectors.toList());
+    return (kind == OBJECTS) ? new ArrayList<>(values) : boxed();
   }
 }
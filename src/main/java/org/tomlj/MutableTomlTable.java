@@ -12,20 +12,24 @@
  */
 package org.tomlj;
 
+import static java.util.Objects.requireNonNull;
 import static org.tomlj.Parser.parseDottedKey;
 import static org.tomlj.TomlType.typeFor;
 
 import java.util.AbstractMap;
+import java.util.AbstractSet;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.function.BiConsumer;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 import org.checkerframework.checker.nullness.qual.Nullable;
 
@@ -33,34 +37,139 @@ final class MutableTomlTable implements TomlTable {
 
   private static class Element {
     final Object value;
-    final TomlPosition position;
+    // Packed, rather than held as a separate object
+    final long position;
 
-    private Element(Object value, TomlPosition position) {
+    private Element(Object value, long position) {
       this.value = value;
       this.position = position;
     }
+
+    TomlPosition position() {
+      return TomlPosition.unpack(position);
+    }
   }
 
   private final Map<String, Element> properties = new LinkedHashMap<>();
   private final TomlVersion version;
-  private TomlPosition definedAt;
+  // The packed position of the definition, or 0 if the table has not been defined
+  private long definedAt;
+  // Whether the table is shared by the segments of an incremental parse, and so must not be changed once built
+  private boolean shared;
+  @Nullable
+  private FrozenTomlTable frozen;
 
   MutableTomlTable(TomlVersion version, TomlPosition definedAt) {
+    this(version, definedAt.pack());
+  }
+
+  // The position is packed by TomlPosition.pack()
+  MutableTomlTable(TomlVersion version, long definedAt) {
     this.version = version;
     this.definedAt = definedAt;
   }
 
   MutableTomlTable(TomlVersion version) {
     this.version = version;
-    this.definedAt = null;
+  }
+
+  /**
+   * Complete a parsed table, freezing it if required.
+   *
+   * @param frozenTables Whether to freeze the table.
+   * @param inputPositions Whether to keep the input positions of the values.
+   * @return This table, or a read-only copy of it.
+   */
+  TomlTable complete(boolean frozenTables, boolean inputPositions) {
+    // the positions are always kept by mutable tables, so are discarded by freezing
+    return (frozenTables || !inputPositions) ? freeze(inputPositions) : this;
+  }
+
+  /**
+   * Create a read-only copy of this table, to be returned once parsing is complete.
+   *
+   * <p>
+   * This table, and the tables and arrays it contains, are emptied as they are copied and must not be used afterwards.
+   *
+   * @param inputPositions Whether to keep the input positions of the values.
+   * @return A read-only copy of this table.
+   */
+  FrozenTomlTable freeze(boolean inputPositions) {
+    return freeze(new HashMap<>(), inputPositions);
+  }
+
+  // Keys that occur in many tables (such as in an array of tables) share a single string. Each entry is removed once
+  // it is frozen, so the mutable tree is released as the frozen one is built rather than both being held in full.
+  private FrozenTomlTable freeze(Map<String, String> keys, boolean inputPositions) {
+    int size = properties.size();
+    String[] frozenKeys = new String[size];
+    Object[] values = new Object[size];
+    long[] positions = inputPositions ? new long[size] : null;
+    int i = 0;
+    for (Iterator<Map.Entry<String, Element>> iterator = properties.entrySet().iterator(); iterator.hasNext();) {
+      Map.Entry<String, Element> entry = iterator.next();
+      Element element = entry.getValue();
+      frozenKeys[i] = keys.computeIfAbsent(entry.getKey(), key -> key);
+      values[i] = freezeValue(element.value, keys, inputPositions);
+      if (positions != null) {
+        positions[i] = element.position;
+      }
+      iterator.remove();
+      ++i;
+    }
+    return new FrozenTomlTable(frozenKeys, values, positions);
+  }
+
+  static Object freezeValue(Object value, Map<String, String> keys, boolean inputPositions) {
+    if (value instanceof MutableTomlTable) {
+      MutableTomlTable table = (MutableTomlTable) value;
+      return table.shared ? table.freezeShared(keys, inputPositions) : table.freeze(keys, inputPositions);
+    }
+    if (value instanceof MutableTomlArray) {
+      MutableTomlArray array = (MutableTomlArray) value;
+      return array.isShared() ? array.freezeShared(keys, inputPositions) : array.freeze(keys, inputPositions);
+    }
+    return value;
+  }
+
+  // Marks the table as shared with the segments of an incremental parse, so that it is copied rather than changed when
+  // building tables, and its frozen form is kept for the next build
+  void share() {
+    shared = true;
+  }
+
+  // The input positions are always kept or always dropped for the builds that share this table
+  private synchronized FrozenTomlTable freezeShared(Map<String, String> keys, boolean inputPositions) {
+    if (frozen == null) {
+      frozen = copy(0).freeze(keys, inputPositions);
+    }
+    return frozen;
+  }
+
+  // Copies this table and any tables or arrays it contains, moving all positions by the given number of lines
+  MutableTomlTable copy(int lines) {
+    MutableTomlTable copy = new MutableTomlTable(version);
+    if (definedAt != 0) {
+      copy.definedAt = TomlPosition.plusLines(definedAt, lines);
+    }
+    properties.forEach((key, element) -> {
+      Object value = element.value;
+      if (value instanceof MutableTomlTable) {
+        value = ((MutableTomlTable) value).copy(lines);
+      } else if (value instanceof MutableTomlArray) {
+        value = ((MutableTomlArray) value).copy(lines);
+      }
+      copy.properties.put(key, new Element(value, TomlPosition.plusLines(element.position, lines)));
+    });
+    return copy;
   }
 
   boolean isDefined() {
-    return definedAt != null;
+    return definedAt != 0;
   }
 
   void define(TomlPosition position) {
-    definedAt = position;
+    definedAt = position.pack();
   }
 
   @Override
@@ -80,28 +189,7 @@ final class MutableTomlTable implements TomlTable {
 
   @Override
   public Set<List<String>> keyPathSet(boolean includeTables) {
-    return properties.entrySet().stream().flatMap(entry -> {
-      String key = entry.getKey();
-      List<String> basePath = Collections.singletonList(key);
-
-      Element element = entry.getValue();
-      if (!(element.value instanceof TomlTable)) {
-        return Stream.of(basePath);
-      }
-
-      Stream<List<String>> subKeys = ((TomlTable) element.value).keyPathSet(includeTables).stream().map(subPath -> {
-        List<String> path = new ArrayList<>(subPath.size() + 1);
-        path.add(key);
-        path.addAll(subPath);
-        return path;
-      });
-
-      if (includeTables) {
-        return Stream.concat(Stream.of(basePath), subKeys);
-      } else {
-        return subKeys;
-      }
-    }).collect(Collectors.toSet());
+    return pathStream(includeTables).collect(Collectors.toSet());
   }
 
   @Override
@@ -115,30 +203,21 @@ final class MutableTomlTable implements TomlTable {
 
   @Override
   public Set<Entry<List<String>, Object>> entryPathSet(boolean includeTables) {
-    return properties.entrySet().stream().flatMap(entry -> {
-      String key = entry.getKey();
-      List<String> entryPath = Collections.singletonList(key);
-      Element element = entry.getValue();
+    return entryPathStream(includeTables).collect(Collectors.toCollection(LinkedHashSet::new));
+  }
 
-      if (!(element.value instanceof TomlTable)) {
-        return Stream.of(new AbstractMap.SimpleEntry<>(entryPath, element.value));
-      }
+  @Override
+  @Nullable
+  public Object get(String dottedKey) {
+    Element element = getElement(dottedKey);
+    return (element != null) ? element.value : null;
+  }
 
-      Stream<Entry<List<String>, Object>> subEntries =
-          ((TomlTable) element.value).entryPathSet(includeTables).stream().map(subEntry -> {
-            List<String> subPath = subEntry.getKey();
-            List<String> path = new ArrayList<>(subPath.size() + 1);
-            path.add(key);
-            path.addAll(subPath);
-            return new AbstractMap.SimpleEntry<>(path, subEntry.getValue());
-          });
-
-      if (includeTables) {
-        return Stream.concat(Stream.of(new AbstractMap.SimpleEntry<>(entryPath, element.value)), subEntries);
-      } else {
-        return subEntries;
-      }
-    }).collect(Collectors.toCollection(LinkedHashSet::new));
+  @Override
+  @Nullable
+  public Object get(TomlKey key) {
+    Element element = getElement(key.segments);
+    return (element != null) ? element.value : null;
   }
 
   @Override
@@ -151,6 +230,20 @@ final class MutableTomlTable implements TomlTable {
     return (element != null) ? element.value : null;
   }
 
+  @Override
+  @Nullable
+  public TomlPosition inputPositionOf(String dottedKey) {
+    Element element = getElement(dottedKey);
+    return (element != null) ? element.position() : null;
+  }
+
+  @Override
+  @Nullable
+  public TomlPosition inputPositionOf(TomlKey key) {
+    Element element = getElement(key.segments);
+    return (element != null) ? element.position() : null;
+  }
+
   @Override
   @Nullable
   public TomlPosition inputPositionOf(List<String> path) {
@@ -158,7 +251,39 @@ final class MutableTomlTable implements TomlTable {
       return TomlPosition.positionAt(1, 1);
     }
     Element element = getElement(path);
-    return (element != null) ? element.position : null;
+    return (element != null) ? element.position() : null;
+  }
+
+  private Element getElement(String dottedKey) {
+    if (!Parser.isSimpleDottedKey(dottedKey)) {
+      return getElement(parseDottedKey(dottedKey));
+    }
+    // walk the unquoted key segments in place, without building a key path
+    MutableTomlTable table = this;
+    int start = 0;
+    int dot;
+    while ((dot = dottedKey.indexOf('.', start)) >= 0) {
+      Element element = table.properties.get(dottedKey.substring(start, dot));
+      if (element == null || !(element.value instanceof MutableTomlTable)) {
+        return null;
+      }
+      table = (MutableTomlTable) element.value;
+      start = dot + 1;
+    }
+    return table.properties.get((start == 0) ? dottedKey : dottedKey.substring(start));
+  }
+
+  private Element getElement(String[] segments) {
+    MutableTomlTable table = this;
+    int last = segments.length - 1;
+    for (int i = 0; i < last; ++i) {
+      Element element = table.properties.get(segments[i]);
+      if (element == null || !(element.value instanceof MutableTomlTable)) {
+        return null;
+      }
+      table = (MutableTomlTable) element.value;
+    }
+    return table.properties.get(segments[last]);
   }
 
   private Element getElement(List<String> path) {
@@ -184,7 +309,67 @@ final class MutableTomlTable implements TomlTable {
     return properties.entrySet().stream().collect(Collectors.toMap(Entry::getKey, e -> e.getValue().value));
   }
 
+  @Override
+  public Map<String, Object> asMap() {
+    return new AbstractMap<String, Object>() {
+      @Override
+      public int size() {
+        return properties.size();
+      }
+
+      @Override
+      public boolean containsKey(Object key) {
+        return properties.containsKey(key);
+      }
+
+      @Override
+      @Nullable
+      public Object get(Object key) {
+        Element element = properties.get(key);
+        return (element != null) ? element.value : null;
+      }
+
+      @Override
+      public Set<Entry<String, Object>> entrySet() {
+        return new AbstractSet<Entry<String, Object>>() {
+          @Override
+          public Iterator<Entry<String, Object>> iterator() {
+            Iterator<Entry<String, Element>> iterator = properties.entrySet().iterator();
+            return new Iterator<Entry<String, Object>>() {
+              @Override
+              public boolean hasNext() {
+                return iterator.hasNext();
+              }
+
+              @Override
+              public Entry<String, Object> next() {
+                Entry<String, Element> entry = iterator.next();
+                return new AbstractMap.SimpleImmutableEntry<>(entry.getKey(), entry.getValue().value);
+              }
+            };
+          }
+
+          @Override
+          public int size() {
+            return properties.size();
+          }
+        };
+      }
+    };
+  }
+
+  @Override
+  public void forEach(BiConsumer<String, Object> action) {
+    requireNonNull(action);
+    properties.forEach((key, element) -> action.accept(key, element.value));
+  }
+
   MutableTomlTable createTable(List<String> path, TomlPosition position) {
+    return createTable(path, position.pack());
+  }
+
+  // The position is packed by TomlPosition.pack()
+  MutableTomlTable createTable(List<String> path, long position) {
     if (path.isEmpty()) {
       return this;
     }
@@ -202,16 +387,21 @@ final class MutableTomlTable implements TomlTable {
     if (element.value instanceof MutableTomlTable) {
       final MutableTomlTable subTable = (MutableTomlTable) element.value;
       if (!subTable.isDefined()) {
-        subTable.define(position);
+        subTable.definedAt = position;
         table.properties.put(key, new Element(subTable, position));
         return subTable;
       }
     }
-    String message = Toml.joinKeyPath(path) + " previously defined at " + element.position;
-    throw new TomlParseError(message, position);
+    String message = Toml.joinKeyPath(path) + " previously defined at " + element.position();
+    throw new TomlParseError(message, TomlPosition.unpack(position));
   }
 
   MutableTomlTable createTableArray(List<String> path, TomlPosition position) {
+    return createTableArray(path, position.pack());
+  }
+
+  // The position is packed by TomlPosition.pack()
+  MutableTomlTable createTableArray(List<String> path, long position) {
     if (path.isEmpty()) {
       throw new IllegalArgumentException("empty path");
     }
@@ -223,12 +413,12 @@ final class MutableTomlTable implements TomlTable {
     Element element =
         table.properties.computeIfAbsent(key, k -> new Element(MutableTomlArray.create(version, true), position));
     if (!(element.value instanceof TomlArray)) {
-      String message = Toml.joinKeyPath(path) + " is not an array (previously defined at " + element.position + ")";
-      throw new TomlParseError(message, position);
+      String message = Toml.joinKeyPath(path) + " is not an array (previously defined at " + element.position() + ")";
+      throw new TomlParseError(message, TomlPosition.unpack(position));
     }
     if (!(element.value instanceof MutableTomlArray) || !((MutableTomlArray) element.value).isTableArray()) {
-      String message = Toml.joinKeyPath(path) + " previously defined as a literal array at " + element.position;
-      throw new TomlParseError(message, position);
+      String message = Toml.joinKeyPath(path) + " previously defined as a literal array at " + element.position();
+      throw new TomlParseError(message, TomlPosition.unpack(position));
     }
     MutableTomlArray array = (MutableTomlArray) element.value;
     MutableTomlTable newTable = new MutableTomlTable(version);
@@ -247,6 +437,11 @@ final class MutableTomlTable implements TomlTable {
       List<String> path,
       Object value,
       TomlPosition position) {
+    return set(path, value, position.pack());
+  }
+
+  // The position is packed by TomlPosition.pack()
+  List<AbstractMap.SimpleEntry<MutableTomlTable, TomlPosition>> set(List<String> path, Object value, long position) {
     int depth = path.size();
     assert (depth > 0);
     if (value instanceof Integer) {
@@ -260,8 +455,8 @@ final class MutableTomlTable implements TomlTable {
     Element prevElem = table.properties.putIfAbsent(path.get(depth - 1), new Element(value, position));
     if (prevElem != null) {
       String pathString = Toml.joinKeyPath(path);
-      String message = pathString + " previously defined at " + prevElem.position;
-      throw new TomlParseError(message, position);
+      String message = pathString + " previously defined at " + prevElem.position();
+      throw new TomlParseError(message, TomlPosition.unpack(position));
     }
     return result.intermediates;
   }
@@ -282,7 +477,7 @@ final class MutableTomlTable implements TomlTable {
    * Ensure a table exists at a given path.
    *
    * @param path The path to ensure exists (as a table)
-   * @param position The input position.
+   * @param position The input position, packed by {@link TomlPosition#pack()}.
    * @param followTableArrays If `true`, path walking is permitted via the last element of array tables.
    * @param followDefinedTables Allow path walking through defined tables.
    * @return The
@@ -290,7 +485,7 @@ final class MutableTomlTable implements TomlTable {
    */
   private EnsureTableResult ensureTable(
       List<String> path,
-      TomlPosition position,
+      long position,
       boolean followTableArrays,
       boolean followDefinedTables) {
     MutableTomlTable table = this;
@@ -304,34 +499,42 @@ final class MutableTomlTable implements TomlTable {
     for (int i = 0; i < depth; ++i) {
       Element element =
           table.properties.computeIfAbsent(path.get(i), k -> new Element(new MutableTomlTable(version), position));
+      if (element.value instanceof MutableTomlTable && ((MutableTomlTable) element.value).shared) {
+        // a shared (inline) table is extended in a copy
+        element = new Element(((MutableTomlTable) element.value).copy(0), element.position);
+        table.properties.put(path.get(i), element);
+      }
       if (element.value instanceof MutableTomlTable) {
         table = (MutableTomlTable) element.value;
-        if (!followDefinedTables && table.definedAt != null) {
-          String message = Toml.joinKeyPath(path.subList(0, i + 1)) + " already defined at " + table.definedAt;
-          throw new TomlParseError(message, position);
+        if (!followDefinedTables && table.definedAt != 0) {
+          String message =
+              Toml.joinKeyPath(path.subList(0, i + 1)) + " already defined at " + TomlPosition.unpack(table.definedAt);
+          throw new TomlParseError(message, TomlPosition.unpack(position));
         }
-        elements.add(new AbstractMap.SimpleEntry<>(table, element.position));
+        elements.add(new AbstractMap.SimpleEntry<>(table, element.position()));
         continue;
       }
       if (element.value instanceof TomlTable) {
         String message = Toml.joinKeyPath(path.subList(0, i + 1))
             + " is not a table (previously defined at "
-            + element.position
+            + element.position()
             + ")";
-        throw new TomlParseError(message, position);
+        throw new TomlParseError(message, TomlPosition.unpack(position));
       }
       if (followTableArrays && element.value instanceof MutableTomlArray) {
         MutableTomlArray array = (MutableTomlArray) element.value;
         if (array.isTableArray()) {
           assert !array.isEmpty();
           table = (MutableTomlTable) array.get(array.size() - 1);
-          elements.add(new AbstractMap.SimpleEntry<>(table, element.position));
+          elements.add(new AbstractMap.SimpleEntry<>(table, element.position()));
           continue;
         }
       }
-      String message =
-          Toml.joinKeyPath(path.subList(0, i + 1)) + " is not a table (previously defined at " + element.position + ")";
-      throw new TomlParseError(message, position);
+      String message = Toml.joinKeyPath(path.subList(0, i + 1))
+          + " is not a table (previously defined at "
+          + element.position()
+          + ")";
+      throw new TomlParseError(message, TomlPosition.unpack(position));
     }
     return new EnsureTableResult(table, elements);
   }
@@ -0,0 +1,208 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to You under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.tomlj;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+/**
+ * Parses large documents by splitting them at table headers and parsing the parts concurrently.
+ *
+ * <p>
+ * A quick scan of the input (tracking only strings, comments and brackets) finds lines that start a table header
+ * outside of any multi-line string or array. The document is split at some of these lines, and each part is scanned,
+ * parsed and has its values converted on the executor. The resulting expressions are then applied to the tables in
+ * document order, on the calling thread, so table definitions are checked exactly as for a sequential parse.
+ *
+ * <p>
+ * If any part has a syntax error (which may mean the quick scan split it in the wrong place), the whole document is
+ * parsed again sequentially, so that errors are always reported as for a sequential parse.
+ */
+final class ParallelParser {
+  private ParallelParser() {}
+
+  // Parts smaller than this are not worth parsing separately
+  private static final int MIN_CHUNK_SIZE = 256 * 1024;
+
+  private static final int NORMAL = 0;
+  private static final int COMMENT = 1;
+  private static final int BASIC_STRING = 2;
+  private static final int LITERAL_STRING = 3;
+  private static final int ML_BASIC_STRING = 4;
+  private static final int ML_LITERAL_STRING = 5;
+
+  static TomlParseResult parse(CharSequence input, TomlVersion version, Executor executor) {
+    int chunkSize = Math.max(MIN_CHUNK_SIZE, input.length() / (4 * Runtime.getRuntime().availableProcessors()));
+    return parse(input, version, executor, chunkSize);
+  }
+
+  static TomlParseResult parse(CharSequence input, TomlVersion version, Executor executor, int chunkSize) {
+    List<int[]> splits = split(input, chunkSize);
+    if (splits.size() == 1) {
+      return RecursiveDescentParser.parse(input, version);
+    }
+
+    List<CompletableFuture<RecursiveDescentParser>> futures = new ArrayList<>(splits.size());
+    for (int i = 0; i < splits.size(); ++i) {
+      int start = splits.get(i)[0];
+      int line = splits.get(i)[1];
+      int end = (i + 1 < splits.size()) ? splits.get(i + 1)[0] : input.length();
+      futures
+          .add(
+              CompletableFuture
+                  .supplyAsync(() -> RecursiveDescentParser.parseChunk(input, start, end, line, version), executor));
+    }
+
+    List<RecursiveDescentParser> chunks = new ArrayList<>(futures.size());
+    boolean syntaxErrors = false;
+    for (CompletableFuture<RecursiveDescentParser> future : futures) {
+      RecursiveDescentParser chunk = join(future);
+      syntaxErrors |= chunk.hasSyntaxErrors();
+      chunks.add(chunk);
+    }
+    if (syntaxErrors) {
+      return RecursiveDescentParser.parse(input, version);
+    }
+    return RecursiveDescentParser.merge(chunks, version);
+  }
+
+  private static <T> T join(CompletableFuture<T> future) {
+    try {
+      return future.join();
+    } catch (CompletionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw e;
+    }
+  }
+
+  /**
+   * Find the offsets at which to split the input.
+   *
+   * @return The offset and line number of the start of each part, starting with the beginning of the input.
+   */
+  static List<int[]> split(CharSequence input, int chunkSize) {
+    List<int[]> splits = new ArrayList<>();
+    splits.add(new int[] {0, 1});
+    int length = input.length();
+    int nextSplit = chunkSize;
+    int state = NORMAL;
+    int depth = 0;
+    int line = 1;
+    int i = 0;
+    while (i < length) {
+      char c = input.charAt(i);
+      switch (state) {
+        case NORMAL:
+          if (c == '\n') {
+            ++i;
+            ++line;
+            if (depth == 0 && i >= nextSplit && i < length && isTableHeader(input, i)) {
+              splits.add(new int[] {i, line});
+              nextSplit = i + chunkSize;
+            }
+            continue;
+          }
+          if (c == '#') {
+            state = COMMENT;
+          } else if (c == '"') {
+            if (isTriple(input, i, '"')) {
+              state = ML_BASIC_STRING;
+              i += 3;
+              continue;
+            }
+            state = BASIC_STRING;
+          } else if (c == '\'') {
+            if (isTriple(input, i, '\'')) {
+              state = ML_LITERAL_STRING;
+              i += 3;
+              continue;
+            }
+            state = LITERAL_STRING;
+          } else if (c == '[' || c == '{') {
+            ++depth;
+          } else if ((c == ']' || c == '}') && depth > 0) {
+            --depth;
+          }
+          ++i;
+          break;
+        case COMMENT:
+        case BASIC_STRING:
+        case LITERAL_STRING:
+          // these end at the end of the line, even if they are unterminated
+          if (c == '\n') {
+            state = NORMAL;
+            continue;
+          }
+          if (state == BASIC_STRING && c == '\\') {
+            i += (i + 1 < length && input.charAt(i + 1) != '\n') ? 2 : 1;
+            continue;
+          }
+          if ((state == BASIC_STRING && c == '"') || (state == LITERAL_STRING && c == '\'')) {
+            state = NORMAL;
+          }
+          ++i;
+          break;
+        case ML_BASIC_STRING:
+          if (c == '\\' && i + 1 < length && input.charAt(i + 1) != '\n') {
+            i += 2;
+            continue;
+          }
+          if (c == '"' && isTriple(input, i, '"')) {
+            state = NORMAL;
+            i += 3;
+            continue;
+          }
+          if (c == '\n') {
+            ++line;
+          }
+          ++i;
+          break;
+        case ML_LITERAL_STRING:
+          if (c == '\'' && isTriple(input, i, '\'')) {
+            state = NORMAL;
+            i += 3;
+            continue;
+          }
+          if (c == '\n') {
+            ++line;
+          }
+          ++i;
+          break;
+        default:
+          throw new IllegalStateException("Unknown state " + state);
+      }
+    }
+    return splits;
+  }
+
+  private static boolean isTriple(CharSequence input, int i, char c) {
+    return i + 2 < input.length() && input.charAt(i + 1) == c && input.charAt(i + 2) == c;
+  }
+
+  private static boolean isTableHeader(CharSequence input, int i) {
+    int length = input.length();
+    while (i < length && (input.charAt(i) == ' ' || input.charAt(i) == '\t')) {
+      ++i;
+    }
+    return i < length && input.charAt(i) == '[';
+  }
+}
@@ -15,96 +15,306 @@ package org.tomlj;
 import org.tomlj.internal.TomlLexer;
 import org.tomlj.internal.TomlParser;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
 
+import org.antlr.v4.runtime.BailErrorStrategy;
 import org.antlr.v4.runtime.CharStream;
 import org.antlr.v4.runtime.CharStreams;
-import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.DefaultErrorStrategy;
+import org.antlr.v4.runtime.atn.PredictionMode;
+import org.antlr.v4.runtime.misc.Interval;
+import org.antlr.v4.runtime.misc.ParseCancellationException;
 import org.antlr.v4.runtime.tree.ParseTree;
 import org.checkerframework.checker.nullness.qual.Nullable;
 
 final class Parser {
   private Parser() {}
 
+  /**
+   * Set the system property {@code tomlj.parser} to {@code antlr} to parse documents using the ANTLR generated parser,
+   * rather than the (default) recursive-descent parser.
+   */
+  static final String PARSER_PROPERTY = "tomlj.parser";
+
+  private static final boolean USE_ANTLR = "antlr".equalsIgnoreCase(System.getProperty(PARSER_PROPERTY));
+
+  // A small document touching every value type, string form and table form, used to warm up the parser
+  private static final String WARM_UP_DOCUMENT = String
+      .join(
+          "\n",
+          "# warm up",
+          "title = \"TOML \\\"warm\\\" up\\u00e9\"",
+          "literal = 'C:\\path'",
+          "multi = \"\"\"",
+          "one \\",
+          "  two\"\"\"",
+          "multi-literal = '''",
+          "raw\\n'''",
+          "ints = [ 1, +2, -3, 1_000, 0xdead_beef, 0o755, 0b1101 ]",
+          "floats = [ 1.0, -0.5e-3, 6.626e-34, inf, -inf, nan ]",
+          "bools = [ true, false ]",
+          "dates = [ 1979-05-27T07:32:00Z, 1979-05-27T00:32:00.999-07:00, 1979-05-27 07:32:00, 1979-05-27, 07:32:00 ]",
+          "nested = [ [ 1, 2 ], [ \"a\", 'b' ], ]",
+          "inline = { x = 1, y.z = \"2\", \"quoted key\" = [ 0 ] }",
+          "",
+          "[server.\"http\".'ports']",
+          "a.b = 8080 # comment",
+          "",
+          "[[products]]",
+          "name = \"Hammer\"",
+          "",
+          "[[products]]",
+          "name = \"Nail\"",
+          "");
+
+  static TomlParseResult parse(CharSequence input, TomlVersion version) {
+    if (USE_ANTLR) {
+      return parseWithAntlr(CharStreams.fromString(input.toString()), version);
+    }
+    return RecursiveDescentParser.parse(input, version);
+  }
+
+  static TomlParseResult parse(CharSequence input, TomlParseOptions options) {
+    // only the recursive-descent parser records what is needed to reparse incrementally
+    TomlVersion version = options.version().canonical;
+    if (options.incremental()) {
+      return IncrementalParser.parse(input, version, options.inputPositions(), options.frozenTables());
+    }
+    if (USE_ANTLR) {
+      return parseWithAntlr(
+          CharStreams.fromString(input.toString()),
+          version,
+          options.inputPositions(),
+          options.frozenTables());
+    }
+    return RecursiveDescentParser.parse(input, version, options.inputPositions(), options.frozenTables());
+  }
+
+  static TomlParseResult parseParallel(CharSequence input, TomlVersion version, Executor executor) {
+    if (USE_ANTLR) {
+      return parseWithAntlr(CharStreams.fromString(input.toString()), version);
+    }
+    return ParallelParser.parse(input, version, executor);
+  }
+
   static TomlParseResult parse(CharStream stream, TomlVersion version) {
-    TomlLexer lexer = new TomlLexer(stream);
-    TomlParser parser = new TomlParser(new CommonTokenStream(lexer));
-    parser.removeErrorListeners();
+    if (USE_ANTLR) {
+      return parseWithAntlr(stream, version);
+    }
+    return RecursiveDescentParser.parse(stream.getText(Interval.of(0, stream.size() - 1)), version);
+  }
+
+  static TomlParseResult parseWithAntlr(CharStream stream, TomlVersion version) {
+    return parseWithAntlr(stream, version, true, false);
+  }
+
+  static TomlParseResult parseWithAntlr(
+      CharStream stream,
+      TomlVersion version,
+      boolean inputPositions,
+      boolean frozenTables) {
     AccumulatingErrorListener errorListener = new AccumulatingErrorListener();
-    parser.addErrorListener(errorListener);
-    ParseTree tree = parser.toml();
-    TomlTable table = tree.accept(new LineVisitor(version, errorListener));
-
-    return new TomlParseResult() {
-      @Override
-      public int size() {
-        return table.size();
-      }
+    TomlTable table;
+    try (TomlParserPool pool = TomlParserPool.acquire()) {
+      TomlParser parser = pool.parser(stream, TomlLexer.DEFAULT_MODE);
+      ParseTree tree;
 
-      @Override
-      public boolean isEmpty() {
-        return table.isEmpty();
+      // First try the faster SLL prediction, bailing out at the first syntax error. Only when that fails is the input
+      // re-parsed with full LL prediction and error recovery, to produce the complete set of syntax errors.
+      parser.getInterpreter().setPredictionMode(PredictionMode.SLL);
+      parser.setErrorHandler(new BailErrorStrategy());
+      try {
+        tree = parser.toml();
+      } catch (ParseCancellationException e) {
+        parser.reset();
+        parser.addErrorListener(errorListener);
+        parser.setErrorHandler(new DefaultErrorStrategy());
+        parser.getInterpreter().setPredictionMode(PredictionMode.LL);
+        tree = parser.toml();
       }
 
-      @Override
-      public Set<String> keySet() {
-        return table.keySet();
-      }
+      table = tree.accept(new LineVisitor(version, errorListener)).complete(frozenTables, inputPositions);
+    }
+    return parseResult(table, errorListener.errors());
+  }
 
-      @Override
-      public Set<List<String>> keyPathSet(boolean includeTables) {
-        return table.keyPathSet(includeTables);
-      }
+  static TomlParseResult parseResult(TomlTable table, List<TomlParseError> errors) {
+    return parseResult(table, () -> errors);
+  }
 
-      @Override
-      public Set<Map.Entry<String, Object>> entrySet() {
-        return table.entrySet();
-      }
+  static TomlParseResult parseResult(TomlTable table, Supplier<List<TomlParseError>> errors) {
+    return new ParseResult(table, errors);
+  }
 
-      @Override
-      public Set<Map.Entry<List<String>, Object>> entryPathSet(boolean includeTables) {
-        return table.entryPathSet(includeTables);
-      }
+  static class ParseResult implements TomlParseResult {
+    private final TomlTable table;
+    private final Supplier<List<TomlParseError>> errors;
 
-      @Override
-      @Nullable
-      public Object get(List<String> path) {
-        return table.get(path);
-      }
+    ParseResult(TomlTable table, Supplier<List<TomlParseError>> errors) {
+      this.table = table;
+      this.errors = errors;
+    }
 
-      @Override
-      @Nullable
-      public TomlPosition inputPositionOf(List<String> path) {
-        return table.inputPositionOf(path);
-      }
+    TomlTable table() {
+      return table;
+    }
 
-      @Override
-      public Map<String, Object> toMap() {
-        return table.toMap();
-      }
+    @Override
+    public int size() {
+      return table.size();
+    }
 
-      @Override
-      public List<TomlParseError> errors() {
-        return errorListener.errors();
-      }
-    };
+    @Override
+    public boolean isEmpty() {
+      return table.isEmpty();
+    }
+
+    @Override
+    public Set<String> keySet() {
+      return table.keySet();
+    }
+
+    @Override
+    public Set<List<String>> keyPathSet(boolean includeTables) {
+      return table.keyPathSet(includeTables);
+    }
+
+    @Override
+    public Set<Map.Entry<String, Object>> entrySet() {
+      return table.entrySet();
+    }
+
+    @Override
+    public Set<Map.Entry<List<String>, Object>> entryPathSet(boolean includeTables) {
+      return table.entryPathSet(includeTables);
+    }
+
+    @Override
+    @Nullable
+    public Object get(String dottedKey) {
+      return table.get(dottedKey);
+    }
+
+    @Override
+    @Nullable
+    public Object get(TomlKey key) {
+      return table.get(key);
+    }
+
+    @Override
+    @Nullable
+    public Object get(List<String> path) {
+      return table.get(path);
+    }
+
+    @Override
+    @Nullable
+    public TomlPosition inputPositionOf(String dottedKey) {
+      return table.inputPositionOf(dottedKey);
+    }
+
+    @Override
+    @Nullable
+    public TomlPosition inputPositionOf(TomlKey key) {
+      return table.inputPositionOf(key);
+    }
+
+    @Override
+    @Nullable
+    public TomlPosition inputPositionOf(List<String> path) {
+      return table.inputPositionOf(path);
+    }
+
+    @Override
+    public Map<String, Object> toMap() {
+      return table.toMap();
+    }
+
+    @Override
+    public Map<String, Object> asMap() {
+      return table.asMap();
+    }
+
+    @Override
+    public void forEach(BiConsumer<String, Object> action) {
+      table.forEach(action);
+    }
+
+    @Override
+    public List<TomlParseError> errors() {
+      return errors.get();
+    }
+  }
+
+  /**
+   * Parse a built-in document, and a malformed one, with the selected parser so that the first real parse does not pay
+   * for class loading and (for the ANTLR parser) ATN deserialization and DFA construction.
+   */
+  static void warmUp() {
+    parse(WARM_UP_DOCUMENT, TomlVersion.LATEST);
+    parse("key = [ 1, 2\n[table\nkey = \"unterminated\n", TomlVersion.LATEST);
+    parseKeyPath("warm.\"up\".'key'");
   }
 
   static List<String> parseDottedKey(String dottedKey) {
-    TomlLexer lexer = new TomlLexer(CharStreams.fromString(dottedKey));
-    lexer.mode(TomlLexer.TomlKeyMode);
-    TomlParser parser = new TomlParser(new CommonTokenStream(lexer));
-    parser.removeErrorListeners();
+    return KeyPathCache.INSTANCE.get(dottedKey, Parser::parseKeyPath);
+  }
+
+  private static List<String> parseKeyPath(String dottedKey) {
+    if (isSimpleDottedKey(dottedKey)) {
+      List<String> keyList = new ArrayList<>();
+      int start = 0;
+      int dot;
+      while ((dot = dottedKey.indexOf('.', start)) >= 0) {
+        keyList.add(dottedKey.substring(start, dot));
+        start = dot + 1;
+      }
+      keyList.add(dottedKey.substring(start));
+      return Collections.unmodifiableList(keyList);
+    }
     AccumulatingErrorListener errorListener = new AccumulatingErrorListener();
-    parser.addErrorListener(errorListener);
-    List<String> keyList = parser.tomlKey().accept(new KeyVisitor(TomlVersion.HEAD));
+    List<String> keyList;
+    try (TomlParserPool pool = TomlParserPool.acquire()) {
+      TomlParser parser = pool.parser(CharStreams.fromString(dottedKey), TomlLexer.TomlKeyMode);
+      parser.addErrorListener(errorListener);
+      keyList = parser.tomlKey().accept(new KeyVisitor(TomlVersion.HEAD));
+    }
     List<TomlParseError> errors = errorListener.errors();
     if (!errors.isEmpty()) {
       TomlParseError e = errors.get(0);
       throw new IllegalArgumentException("Invalid key: " + e.getMessage(), e);
     }
-    return keyList;
+    return Collections.unmodifiableList(keyList);
+  }
+
+  // A dotted key made only of unquoted keys separated by single dots (no whitespace or quoting) can be split directly,
+  // without running the key grammar.
+  static boolean isSimpleDottedKey(String dottedKey) {
+    int length = dottedKey.length();
+    if (length == 0) {
+      return false;
+    }
+    boolean segmentStart = true;
+    for (int i = 0; i < length; ++i) {
+      char c = dottedKey.charAt(i);
+      if (c == '.') {
+        if (segmentStart) {
+          return false;
+        }
+        segmentStart = true;
+      } else if (TomlScanner.isKeyChar(c)) {
+        segmentStart = false;
+      } else {
+        return false;
+      }
+    }
+    return !segmentStart;
   }
 }
@@ -0,0 +1,1739 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to You under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.tomlj;
+
+import static org.tomlj.EmptyTomlArray.EMPTY_ARRAY;
+import static org.tomlj.TomlScanner.*;
+import static org.tomlj.TomlVersion.V0_4_0;
+import static org.tomlj.TomlVersion.V0_5_0;
+
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * A recursive-descent parser that builds a {@link MutableTomlTable} directly from the input characters.
+ *
+ * <p>
+ * This parser accepts the same language as the ANTLR grammar, and reports the same errors. As with the ANTLR parser,
+ * syntax errors are reported ahead of errors found when converting values or building tables.
+ *
+ * <p>
+ * When given a {@link TomlEventHandler}, the parser instead streams the document to the handler without building any
+ * tables, reporting errors as they are found.
+ */
+final class RecursiveDescentParser {
+
+  // Value contexts (used to determine what may follow a value)
+  private static final int TOP_LEVEL = 0;
+  private static final int IN_ARRAY = 1;
+  private static final int IN_INLINE_TABLE = 2;
+  private static final int IN_KEY = 3;
+
+  private static final String EXPECTED_EXPRESSION =
+      "a-z, A-Z, 0-9, ', \", a table key, a newline, or end-of-input";
+  private static final String EXPECTED_END_OF_LINE = "a newline or end-of-input";
+  private static final String EXPECTED_KEY = "a-z, A-Z, 0-9, ', or \"";
+  private static final String EXPECTED_DOT_OR_EQUALS = ". or =";
+  private static final String EXPECTED_VALUE =
+      "', \", ''', \"\"\", a number, a boolean, a date/time, an array, or a table";
+  private static final String EXPECTED_ARRAY_VALUE =
+      "], ', \", ''', \"\"\", a number, a boolean, a date/time, an array, a table, or a newline";
+  private static final String EXPECTED_ARRAY_SEPARATOR = "], a comma, or a newline";
+  private static final String EXPECTED_INLINE_TABLE_KEY = "a-z, A-Z, 0-9, }, ', or \"";
+  private static final String EXPECTED_DATE_TIME = "a date/time";
+
+  private final TomlScanner scanner;
+  private final TomlVersion version;
+  @Nullable
+  private final TomlEventHandler handler;
+  // Whether to keep the input positions of array elements, which are otherwise discarded as arrays are created
+  private final boolean inputPositions;
+  // When streaming, whether to skip values rather than convert them and pass them to the handler
+  private boolean skipValues;
+  // When parsing part of a document, the expressions to apply to the tables later
+  @Nullable
+  private final List<Expression> expressions;
+  private final MutableTomlTable rootTable;
+  private MutableTomlTable currentTable;
+  // When streaming, the path of the current table
+  private List<String> currentPath = Collections.emptyList();
+  private final Map<MutableTomlTable, TomlPosition> openTables = new HashMap<>();
+  private final List<TomlParseError> syntaxErrors = new ArrayList<>();
+  private final List<TomlParseError> errors = new ArrayList<>();
+  // The first error found when converting the values of the current expression
+  @Nullable
+  private TomlParseError valueError;
+  // The start of the next segment, when parsing in segments
+  private int segmentStart;
+  private int segmentLine;
+
+  private RecursiveDescentParser(
+      TomlScanner scanner,
+      TomlVersion version,
+      @Nullable TomlEventHandler handler,
+      boolean inputPositions,
+      @Nullable List<Expression> expressions) {
+    this.scanner = scanner;
+    this.version = version;
+    this.handler = handler;
+    this.inputPositions = inputPositions;
+    this.expressions = expressions;
+    this.rootTable = new MutableTomlTable(version, TomlPosition.positionAt(1, 1));
+    this.currentTable = rootTable;
+    scanner.next();
+  }
+
+  static TomlParseResult parse(CharSequence input, TomlVersion version) {
+    return parse(input, version, true, false);
+  }
+
+  static TomlParseResult parse(CharSequence input, TomlVersion version, boolean inputPositions, boolean frozenTables) {
+    RecursiveDescentParser parser =
+        new RecursiveDescentParser(new TomlScanner(input), version, null, inputPositions, null);
+    parser.document();
+    List<TomlParseError> errors = parser.syntaxErrors;
+    errors.addAll(parser.errors);
+    return Parser.parseResult(parser.rootTable.complete(frozenTables, inputPositions), errors);
+  }
+
+  static void parse(CharSequence input, TomlVersion version, TomlEventHandler handler) {
+    new RecursiveDescentParser(new TomlScanner(input), version, handler, true, null).document();
+  }
+
+  // Creates a parser that streams to the handler one expression at a time, as nextExpression() is called
+  static RecursiveDescentParser streaming(CharSequence input, TomlVersion version, TomlEventHandler handler) {
+    return new RecursiveDescentParser(new TomlScanner(input), version, handler, true, null);
+  }
+
+  // When streaming, sets whether the values of key/value pairs are skipped (but still checked for syntax errors)
+  void skipValues(boolean skipValues) {
+    this.skipValues = skipValues;
+  }
+
+  // Parses part of a document, which must start at the beginning of a line, without building any tables
+  static RecursiveDescentParser parseChunk(CharSequence input, int start, int end, int line, TomlVersion version) {
+    TomlScanner scanner = TomlScanner.forRange(input, start, end, line);
+    RecursiveDescentParser parser = new RecursiveDescentParser(scanner, version, null, true, new ArrayList<>());
+    parser.document();
+    return parser;
+  }
+
+  boolean hasSyntaxErrors() {
+    return !syntaxErrors.isEmpty();
+  }
+
+  // Builds the tables from consecutive chunks of a document that parsed without syntax errors
+  static TomlParseResult merge(List<RecursiveDescentParser> chunks, TomlVersion version) {
+    RecursiveDescentParser builder = new RecursiveDescentParser(new TomlScanner(""), version, null, true, null);
+    for (RecursiveDescentParser chunk : chunks) {
+      assert chunk.expressions != null && !chunk.hasSyntaxErrors();
+      for (Expression expression : chunk.expressions) {
+        if (expression.isTable) {
+          builder.applyTable(expression.isArrayTable, expression.path, expression.error, expression.position);
+        } else {
+          assert expression.path != null;
+          builder.applyKeyval(expression.path, expression.value, expression.error, expression.position);
+        }
+      }
+    }
+    return Parser.parseResult(builder.rootTable, builder.errors);
+  }
+
+  // Creates a parser that parses the input from the start of a line, in segments, without building any tables
+  static RecursiveDescentParser segmented(CharSequence input, int start, int line, TomlVersion version) {
+    TomlScanner scanner = TomlScanner.forRange(input, start, input.length(), line);
+    RecursiveDescentParser parser = new RecursiveDescentParser(scanner, version, null, true, new ArrayList<>());
+    parser.segmentStart = start;
+    parser.segmentLine = line;
+    return parser;
+  }
+
+  // Parses the expressions up to the next line break after which the scanner is in its initial state (or the end of the
+  // input), returning null at the end of the input
+  @Nullable
+  Segment nextSegment() {
+    assert expressions != null;
+    expressions.clear();
+    syntaxErrors.clear();
+    while (nextExpression()) {
+      if (scanner.type() == EOF || scanner.atCleanLineBreak()) {
+        Segment segment = new Segment(
+            segmentStart,
+            segmentLine,
+            scanner.end(),
+            scanner.lineAfter(),
+            new ArrayList<>(expressions),
+            new ArrayList<>(syntaxErrors),
+            0);
+        segmentStart = scanner.end();
+        segmentLine = scanner.lineAfter();
+        return segment;
+      }
+    }
+    return null;
+  }
+
+  // Builds the tables from the consecutive segments of a document
+  static IncrementalParser.Result build(
+      CharSequence input,
+      TomlVersion version,
+      boolean inputPositions,
+      boolean frozenTables,
+      List<Segment> segments) {
+    RecursiveDescentParser builder = new RecursiveDescentParser(new TomlScanner(""), version, null, true, null);
+    List<TomlParseError> errors = new ArrayList<>();
+    List<Segment> builtSegments = new ArrayList<>(segments.size());
+    for (Segment segment : segments) {
+      segment = segment.rebased();
+      builtSegments.add(segment);
+      errors.addAll(segment.syntaxErrors);
+      for (Expression expression : segment.expressions) {
+        if (expression.isTable) {
+          builder.applyTable(expression.isArrayTable, expression.path, expression.error, expression.position);
+        } else {
+          assert expression.path != null;
+          // tables and arrays are shared with the segments, and so with later builds, rather than copied
+          Object value = expression.value;
+          if (value instanceof MutableTomlTable) {
+            ((MutableTomlTable) value).share();
+          } else if (value instanceof MutableTomlArray) {
+            ((MutableTomlArray) value).share();
+          }
+          builder.applyKeyval(expression.path, value, expression.error, expression.position);
+        }
+      }
+    }
+    errors.addAll(builder.errors);
+    TomlTable table = builder.rootTable.complete(frozenTables, inputPositions);
+    return new IncrementalParser.Result(table, errors, input, version, inputPositions, frozenTables, builtSegments);
+  }
+
+  private static TomlParseError plusLines(TomlParseError error, int lines) {
+    if (lines == 0) {
+      return error;
+    }
+    return new TomlParseError(error.getMessage(), error.position().plusLines(lines), error.getCause());
+  }
+
+  // The expressions parsed from a run of lines that starts and ends with the scanner in its initial state
+  static final class Segment {
+    // The offset of the first character, and the offset following the last character
+    final int start;
+    final int end;
+    // The line of the first character, and the line following the last character
+    final int line;
+    final int endLine;
+    private final List<Expression> expressions;
+    private final List<TomlParseError> syntaxErrors;
+    // The number of lines the segment has moved since its positions were recorded
+    private final int lineShift;
+
+    private Segment(
+        int start,
+        int line,
+        int end,
+        int endLine,
+        List<Expression> expressions,
+        List<TomlParseError> syntaxErrors,
+        int lineShift) {
+      this.start = start;
+      this.line = line;
+      this.end = end;
+      this.endLine = endLine;
+      this.expressions = expressions;
+      this.syntaxErrors = syntaxErrors;
+      this.lineShift = lineShift;
+    }
+
+    Segment moved(int chars, int lines) {
+      if (chars == 0 && lines == 0) {
+        return this;
+      }
+      return new Segment(
+          start + chars,
+          line + lines,
+          end + chars,
+          endLine + lines,
+          expressions,
+          syntaxErrors,
+          lineShift + lines);
+    }
+
+    // Moves the recorded positions by the line shift, copying any tables and arrays, so that the segment can be built
+    // (and its values shared) without moving them again
+    Segment rebased() {
+      if (lineShift == 0) {
+        return this;
+      }
+      List<Expression> movedExpressions = new ArrayList<>(expressions.size());
+      for (Expression expression : expressions) {
+        movedExpressions.add(expression.plusLines(lineShift));
+      }
+      List<TomlParseError> movedErrors = new ArrayList<>(syntaxErrors.size());
+      for (TomlParseError error : syntaxErrors) {
+        movedErrors.add(plusLines(error, lineShift));
+      }
+      return new Segment(start, line, end, endLine, movedExpressions, movedErrors, 0);
+    }
+
+    // Value errors may refer to other positions in their message, so cannot simply be moved
+    boolean hasValueErrors() {
+      for (Expression expression : expressions) {
+        if (expression.error != null) {
+          return true;
+        }
+      }
+      return false;
+    }
+  }
+
+  private static final class Expression {
+    final boolean isTable;
+    final boolean isArrayTable;
+    @Nullable
+    final List<String> path;
+    @Nullable
+    final Object value;
+    @Nullable
+    final TomlParseError error;
+    // The position is packed by TomlPosition.pack()
+    final long position;
+
+    Expression(
+        boolean isTable,
+        boolean isArrayTable,
+        @Nullable List<String> path,
+        @Nullable Object value,
+        @Nullable TomlParseError error,
+        long position) {
+      this.isTable = isTable;
+      this.isArrayTable = isArrayTable;
+      this.path = path;
+      this.value = value;
+      this.error = error;
+      this.position = position;
+    }
+
+    Expression plusLines(int lines) {
+      Object movedValue = value;
+      if (movedValue instanceof MutableTomlTable) {
+        movedValue = ((MutableTomlTable) movedValue).copy(lines);
+      } else if (movedValue instanceof MutableTomlArray) {
+        movedValue = ((MutableTomlArray) movedValue).copy(lines);
+      }
+      return new Expression(
+          isTable,
+          isArrayTable,
+          path,
+          movedValue,
+          (error == null) ? null : RecursiveDescentParser.plusLines(error, lines),
+          TomlPosition.plusLines(position, lines));
+    }
+  }
+
+  private void document() {
+    while (nextExpression()) {
+      // continue
+    }
+  }
+
+  // Parses the next key/value pair or table header, returning false at the end of the input
+  boolean nextExpression() {
+    while (scanner.type() == NEW_LINE) {
+      scanner.next();
+    }
+    if (scanner.type() == EOF) {
+      return false;
+    }
+    valueError = null;
+    try {
+      expression();
+      if (scanner.type() != NEW_LINE && scanner.type() != EOF) {
+        throw unexpected(EXPECTED_END_OF_LINE);
+      }
+    } catch (TomlParseError e) {
+      syntaxError(e);
+      if (scanner.type() != NEW_LINE && scanner.type() != EOF) {
+        scanner.skipLine();
+        scanner.next();
+      }
+    }
+    return true;
+  }
+
+  private void expression() {
+    switch (scanner.type()) {
+      case TABLE_KEY_START:
+        table(TABLE_KEY_END, "]");
+        return;
+      case ARRAY_TABLE_KEY_START:
+        table(ARRAY_TABLE_KEY_END, "]]");
+        return;
+      case UNQUOTED_KEY:
+      case QUOTATION_MARK:
+      case APOSTROPHE:
+        keyval();
+        return;
+      default:
+        throw unexpected(EXPECTED_EXPRESSION);
+    }
+  }
+
+  private void keyval() {
+    long position = TomlPosition.pack(scanner.line(), scanner.column());
+    List<String> path = key();
+    // TOML 0.4.0 doesn't support dotted keys
+    if (!version.after(V0_4_0) && path.size() > 1) {
+      valueError(new TomlParseError("Dotted keys are not supported", TomlPosition.unpack(position)));
+    }
+    if (scanner.type() != EQUALS) {
+      throw unexpected(EXPECTED_DOT_OR_EQUALS);
+    }
+    scanner.next();
+    if (handler != null) {
+      streamKeyval(handler, path, TomlPosition.unpack(position));
+      return;
+    }
+    Object value = value(TOP_LEVEL);
+    applyKeyval(path, value, valueError, position);
+  }
+
+  private void applyKeyval(
+      List<String> path,
+      @Nullable Object value,
+      @Nullable TomlParseError valueError,
+      long position) {
+    if (expressions != null) {
+      expressions.add(new Expression(false, false, path, value, valueError, position));
+      return;
+    }
+    if (valueError != null) {
+      error(valueError);
+      return;
+    }
+    if (value != null) {
+      try {
+        currentTable
+            .set(path, value, position)
+            .forEach(entry -> openTables.putIfAbsent(entry.getKey(), entry.getValue()));
+      } catch (TomlParseError e) {
+        error(e);
+      }
+    }
+  }
+
+  // Consumes a value, throwing the same syntax errors as value() but without converting it. Escape sequences in strings
+  // are checked, and reported as value errors in the same way as value().
+  private void skipValue(int context) {
+    switch (scanner.type()) {
+      case QUOTATION_MARK:
+      case TRIPLE_QUOTATION_MARK:
+      case APOSTROPHE:
+      case TRIPLE_APOSTROPHE:
+        skipString(context);
+        return;
+      case DATE_DIGITS:
+        skipDateTime();
+        return;
+      case ARRAY_START:
+        skipArray();
+        return;
+      case INLINE_TABLE_START:
+        skipInlineTable(context);
+        return;
+      default:
+        if (!isValueStart(scanner.type())) {
+          throw unexpected(EXPECTED_VALUE);
+        }
+        scanner.next();
+    }
+  }
+
+  private void skipString(int context) {
+    switch (scanner.type()) {
+      case QUOTATION_MARK:
+        skipString(QUOTATION_MARK, ESCAPE_SEQUENCE, "\" or a character", "\" or a character", context);
+        return;
+      case TRIPLE_QUOTATION_MARK:
+        skipString(
+            TRIPLE_QUOTATION_MARK,
+            ESCAPE_SEQUENCE,
+            "\"\"\" or a character",
+            "\"\"\" or a character",
+            context);
+        return;
+      case APOSTROPHE:
+        skipString(APOSTROPHE, -1, "' or a character", "'", context);
+        return;
+      default:
+        skipString(TRIPLE_APOSTROPHE, -1, "''' or a character", "'''", context);
+    }
+  }
+
+  // The error for an unterminated string is shorter if it is followed by something that could follow a value
+  private void skipString(int endType, int escapeType, String expected, String expectedBeforeFollow, int context) {
+    scanner.next();
+    while (scanner.type() == STRING_CHARS || scanner.type() == escapeType) {
+      if (scanner.type() == escapeType) {
+        unescape();
+      }
+      scanner.next();
+    }
+    if (scanner.type() != endType) {
+      throw unexpected(isFollow(context, scanner.type()) ? expectedBeforeFollow : expected);
+    }
+    scanner.next();
+  }
+
+  private void skipArray() {
+    scanner.next();
+    while (true) {
+      while (scanner.type() == NEW_LINE) {
+        scanner.next();
+      }
+      if (scanner.type() == ARRAY_END) {
+        scanner.next();
+        return;
+      }
+      if (!isValueStart(scanner.type())) {
+        throw unexpected(EXPECTED_ARRAY_VALUE);
+      }
+      skipValue(IN_ARRAY);
+      while (scanner.type() == NEW_LINE) {
+        scanner.next();
+      }
+      if (scanner.type() == COMMA) {
+        scanner.next();
+        continue;
+      }
+      if (scanner.type() == ARRAY_END) {
+        scanner.next();
+        return;
+      }
+      throw unexpected(EXPECTED_ARRAY_SEPARATOR);
+    }
+  }
+
+  private void skipInlineTable(int context) {
+    scanner.next();
+    if (scanner.type() == INLINE_TABLE_END) {
+      scanner.next();
+      return;
+    }
+    if (!isKeyStart(scanner.type())) {
+      throw unexpected(EXPECTED_INLINE_TABLE_KEY);
+    }
+    while (true) {
+      key();
+      if (scanner.type() != EQUALS) {
+        throw unexpected(EXPECTED_DOT_OR_EQUALS);
+      }
+      scanner.next();
+      skipValue(IN_INLINE_TABLE);
+      if (scanner.type() == COMMA) {
+        scanner.next();
+        if (!isKeyStart(scanner.type())) {
+          throw unexpected(EXPECTED_KEY);
+        }
+        continue;
+      }
+      if (scanner.type() == INLINE_TABLE_END) {
+        scanner.next();
+        return;
+      }
+      throw unexpected(isFollow(context, scanner.type()) ? "}" : "} or a comma");
+    }
+  }
+
+  private void skipDateTime() {
+    scanner.next();
+    if (scanner.type() == COLON) {
+      skipTime();
+      return;
+    }
+    if (scanner.type() != DASH) {
+      throw unexpected(EXPECTED_DATE_TIME);
+    }
+    scanner.next();
+    skipDateDigits();
+    if (scanner.type() != DASH) {
+      throw unexpected("-");
+    }
+    scanner.next();
+    skipDateDigits();
+    if (scanner.type() != TIME_DELIMITER) {
+      return;
+    }
+    scanner.next();
+    if (scanner.type() != DATE_DIGITS) {
+      throw unexpected(EXPECTED_DATE_TIME);
+    }
+    scanner.next();
+    if (scanner.type() != COLON) {
+      throw unexpected(":");
+    }
+    skipTime();
+    if (scanner.type() == Z) {
+      scanner.next();
+    } else if (scanner.type() == DASH || scanner.type() == PLUS) {
+      scanner.next();
+      skipDateDigits();
+      if (scanner.type() != COLON) {
+        throw unexpected(":");
+      }
+      scanner.next();
+      skipDateDigits();
+    }
+  }
+
+  // Called with the scanner positioned on the colon following the hour
+  private void skipTime() {
+    scanner.next();
+    skipDateDigits();
+    if (scanner.type() != COLON) {
+      throw unexpected(":");
+    }
+    scanner.next();
+    skipDateDigits();
+    if (scanner.type() == DOT) {
+      scanner.next();
+      skipDateDigits();
+    }
+  }
+
+  private void skipDateDigits() {
+    if (scanner.type() != DATE_DIGITS) {
+      throw unexpected(EXPECTED_DATE_TIME);
+    }
+    scanner.next();
+  }
+
+  private void table(int endType, String end) {
+    boolean isArrayTable = endType == ARRAY_TABLE_KEY_END;
+    long position = TomlPosition.pack(scanner.line(), scanner.column());
+    scanner.next();
+    if (scanner.type() == endType) {
+      scanner.next();
+      applyTable(isArrayTable, null, new TomlParseError("Empty table key", TomlPosition.unpack(position)), position);
+      return;
+    }
+    if (!isKeyStart(scanner.type())) {
+      throw unexpected("a-z, A-Z, 0-9, " + end + ", ', or \"");
+    }
+    List<String> path = key();
+    if (scanner.type() != endType) {
+      throw unexpected(isFollow(TOP_LEVEL, scanner.type()) ? end : end + " or .");
+    }
+    scanner.next();
+    if (handler != null) {
+      if (valueError != null) {
+        error(valueError);
+        return;
+      }
+      currentPath = path;
+      if (isArrayTable) {
+        handler.startArrayTable(path, TomlPosition.unpack(position));
+      } else {
+        handler.startTable(path, TomlPosition.unpack(position));
+      }
+      return;
+    }
+    applyTable(isArrayTable, path, valueError, position);
+  }
+
+  // The path is null for an empty table key (which always has an error)
+  private void applyTable(
+      boolean isArrayTable,
+      @Nullable List<String> path,
+      @Nullable TomlParseError error,
+      long position) {
+    if (expressions != null) {
+      expressions.add(new Expression(true, isArrayTable, path, null, error, position));
+      return;
+    }
+    defineOpenTables();
+    if (error != null) {
+      error(error);
+      return;
+    }
+    assert path != null;
+    try {
+      currentTable = isArrayTable ? rootTable.createTableArray(path, position) : rootTable.createTable(path, position);
+    } catch (TomlParseError e) {
+      error(e);
+    }
+  }
+
+  private void streamKeyval(TomlEventHandler handler, List<String> path, TomlPosition position) {
+    if (skipValues) {
+      skipValue(TOP_LEVEL);
+      return;
+    }
+    List<String> fullPath = path;
+    if (!currentPath.isEmpty()) {
+      fullPath = new ArrayList<>(currentPath.size() + path.size());
+      fullPath.addAll(currentPath);
+      fullPath.addAll(path);
+    }
+    if (scanner.type() == ARRAY_START) {
+      streamArray(handler, fullPath, position);
+    } else {
+      streamValue(handler, fullPath, TOP_LEVEL, null, position);
+    }
+    if (valueError != null) {
+      error(valueError);
+    }
+  }
+
+  private void defineOpenTables() {
+    openTables.forEach(MutableTomlTable::define);
+    openTables.clear();
+  }
+
+  private List<String> key() {
+    List<String> keys = new ArrayList<>(4);
+    simpleKey(keys);
+    while (scanner.type() == DOT) {
+      scanner.next();
+      if (!isKeyStart(scanner.type())) {
+        throw unexpected(EXPECTED_KEY);
+      }
+      simpleKey(keys);
+    }
+    return keys;
+  }
+
+  private void simpleKey(List<String> keys) {
+    switch (scanner.type()) {
+      case UNQUOTED_KEY:
+        keys.add(scanner.text());
+        scanner.next();
+        return;
+      case QUOTATION_MARK:
+        keys.add(basicString());
+        return;
+      case APOSTROPHE:
+        keys.add(literalString(IN_KEY));
+        return;
+      default:
+        throw unexpected(EXPECTED_KEY);
+    }
+  }
+
+  private static boolean isKeyStart(int type) {
+    return type == UNQUOTED_KEY || type == QUOTATION_MARK || type == APOSTROPHE;
+  }
+
+  @Nullable
+  private Object value(int context) {
+    switch (scanner.type()) {
+      case QUOTATION_MARK:
+        return basicString();
+      case TRIPLE_QUOTATION_MARK:
+        return mlBasicString();
+      case APOSTROPHE:
+        return literalString(context);
+      case TRIPLE_APOSTROPHE:
+        return mlLiteralString(context);
+      case DECIMAL_INTEGER:
+        return integer(scanner.start(), 10);
+      case HEX_INTEGER:
+        return integer(scanner.start() + 2, 16);
+      case OCTAL_INTEGER:
+        return integer(scanner.start() + 2, 8);
+      case BINARY_INTEGER:
+        return integer(scanner.start() + 2, 2);
+      case FLOATING_POINT:
+        return floatingPoint();
+      case FLOATING_POINT_INF: {
+        Double value = (scanner.input().charAt(scanner.start()) == '-')
+            ? Double.NEGATIVE_INFINITY
+            : Double.POSITIVE_INFINITY;
+        scanner.next();
+        return value;
+      }
+      case FLOATING_POINT_NAN:
+        scanner.next();
+        return Double.NaN;
+      case TRUE_BOOLEAN:
+        scanner.next();
+        return Boolean.TRUE;
+      case FALSE_BOOLEAN:
+        scanner.next();
+        return Boolean.FALSE;
+      case DATE_DIGITS:
+        return dateTime();
+      case ARRAY_START:
+        return array();
+      case INLINE_TABLE_START:
+        return inlineTable(context);
+      default:
+        throw unexpected(EXPECTED_VALUE);
+    }
+  }
+
+  @Nullable
+  private Long integer(int start, int radix) {
+    TomlParseError previousError = valueError;
+    long value = longValue(start, radix);
+    return (valueError == previousError) ? value : null;
+  }
+
+  // Reports a value error (and returns 0) if the integer is out of range
+  private long longValue(int start, int radix) {
+    String s = withoutUnderscores(scanner.input(), start, scanner.end());
+    long value = 0;
+    try {
+      value = Long.parseLong(s, radix);
+    } catch (NumberFormatException e) {
+      valueError(new TomlParseError("Integer is too large", scanner.position()));
+    }
+    scanner.next();
+    return value;
+  }
+
+  @Nullable
+  private Double floatingPoint() {
+    TomlParseError previousError = valueError;
+    double value = doubleValue();
+    return (valueError == previousError) ? value : null;
+  }
+
+  // Reports a value error (and returns 0) if the float is out of range
+  private double doubleValue() {
+    String s = withoutUnderscores(scanner.input(), scanner.start(), scanner.end());
+    double value = 0;
+    try {
+      double d = Double.parseDouble(s);
+      if (d == Double.POSITIVE_INFINITY || d == Double.NEGATIVE_INFINITY) {
+        valueError(new TomlParseError("Float is too large", scanner.position()));
+      } else if (d == 0d && !isZeroFloat(s)) {
+        valueError(new TomlParseError("Float is too small", scanner.position()));
+      } else {
+        value = d;
+      }
+    } catch (NumberFormatException e) {
+      valueError(new TomlParseError("Invalid floating point number: " + e.getMessage(), scanner.position()));
+    }
+    scanner.next();
+    return value;
+  }
+
+  private static String withoutUnderscores(CharSequence input, int start, int end) {
+    StringBuilder builder = null;
+    for (int i = start; i < end; ++i) {
+      char c = input.charAt(i);
+      if (c == '_') {
+        if (builder == null) {
+          builder = new StringBuilder(end - start);
+          builder.append(input, start, i);
+        }
+      } else if (builder != null) {
+        builder.append(c);
+      }
+    }
+    return (builder == null) ? input.subSequence(start, end).toString() : builder.toString();
+  }
+
+
+  // Equivalent to matching [+-]?0+(\.[+-]?0*)?([eE].*)?
+  private static boolean isZeroFloat(String s) {
+    int i = 0;
+    int length = s.length();
+    if (i < length && (s.charAt(i) == '+' || s.charAt(i) == '-')) {
+      ++i;
+    }
+    int zeros = i;
+    while (i < length && s.charAt(i) == '0') {
+      ++i;
+    }
+    if (i == zeros) {
+      return false;
+    }
+    if (i < length && s.charAt(i) == '.') {
+      ++i;
+      if (i < length && (s.charAt(i) == '+' || s.charAt(i) == '-')) {
+        ++i;
+      }
+      while (i < length && s.charAt(i) == '0') {
+        ++i;
+      }
+    }
+    return i == length || s.charAt(i) == 'e' || s.charAt(i) == 'E';
+  }
+
+  private String basicString() {
+    scanner.next();
+    StringBuilder builder = new StringBuilder();
+    while (true) {
+      switch (scanner.type()) {
+        case QUOTATION_MARK:
+          scanner.next();
+          return builder.toString();
+        case STRING_CHARS:
+          appendUnescaped(builder);
+          scanner.next();
+          break;
+        case ESCAPE_SEQUENCE:
+          appendEscaped(builder);
+          scanner.next();
+          break;
+        default:
+          throw unexpected("\" or a character");
+      }
+    }
+  }
+
+  private String mlBasicString() {
+    scanner.next();
+    StringBuilder builder = new StringBuilder();
+    while (true) {
+      switch (scanner.type()) {
+        case TRIPLE_QUOTATION_MARK:
+          scanner.next();
+          return builder.toString();
+        case STRING_CHARS:
+          if (isNewLine()) {
+            builder.append(System.lineSeparator());
+          } else {
+            appendUnescaped(builder);
+          }
+          scanner.next();
+          break;
+        case ESCAPE_SEQUENCE:
+          appendEscaped(builder);
+          scanner.next();
+          break;
+        default:
+          throw unexpected("\"\"\" or a character");
+      }
+    }
+  }
+
+  private String literalString(int context) {
+    scanner.next();
+    StringBuilder builder = new StringBuilder();
+    int line = scanner.line();
+    int column = scanner.column();
+    while (scanner.type() == STRING_CHARS) {
+      builder.append(scanner.input(), scanner.start(), scanner.end());
+      scanner.next();
+    }
+    if (scanner.type() != APOSTROPHE) {
+      throw unexpected(isFollow(context, scanner.type()) ? "'" : "' or a character");
+    }
+    scanner.next();
+    checkTabs(builder, line, column);
+    return builder.toString();
+  }
+
+  private String mlLiteralString(int context) {
+    scanner.next();
+    StringBuilder builder = new StringBuilder();
+    int line = scanner.line();
+    int column = scanner.column();
+    while (scanner.type() == STRING_CHARS) {
+      if (isNewLine()) {
+        builder.append(System.lineSeparator());
+      } else {
+        builder.append(scanner.input(), scanner.start(), scanner.end());
+      }
+      scanner.next();
+    }
+    if (scanner.type() != TRIPLE_APOSTROPHE) {
+      throw unexpected(isFollow(context, scanner.type()) ? "'''" : "''' or a character");
+    }
+    scanner.next();
+    checkTabs(builder, line, column);
+    return builder.toString();
+  }
+
+  private boolean isNewLine() {
+    char c = scanner.input().charAt(scanner.start());
+    return c == '\n' || c == '\r';
+  }
+
+  private void checkTabs(CharSequence text, int line, int column) {
+    if (!version.after(V0_5_0)) {
+      for (int i = 0; i < text.length(); ++i) {
+        if (text.charAt(i) == '\t') {
+          valueError(
+              new TomlParseError(
+                  "Use \\t to represent a tab in a string (TOML versions before 1.0.0)",
+                  TomlPosition.positionAt(line, column)));
+          return;
+        }
+      }
+    }
+  }
+
+  private void appendUnescaped(StringBuilder builder) {
+    CharSequence input = scanner.input();
+    int start = scanner.start();
+    int end = scanner.end();
+    if (!version.after(V0_5_0)) {
+      int column = scanner.column();
+      for (int i = start; i < end; ++i) {
+        char c = input.charAt(i);
+        if (c == '\t') {
+          valueError(
+              new TomlParseError(
+                  "Use \\t to represent a tab in a string (TOML versions before 1.0.0)",
+                  TomlPosition.positionAt(scanner.line(), column)));
+          break;
+        }
+        if (!Character.isHighSurrogate(c)) {
+          column++;
+        }
+      }
+    }
+    builder.append(input, start, end);
+  }
+
+  private void appendEscaped(StringBuilder builder) {
+    int codePoint = unescape();
+    if (codePoint >= 0) {
+      builder.appendCodePoint(codePoint);
+    }
+  }
+
+  // Returns the character of the current escape sequence, or reports a value error and returns -1 if it is invalid
+  private int unescape() {
+    CharSequence input = scanner.input();
+    int start = scanner.start();
+    int end = scanner.end();
+    if (end - start == 1) {
+      return '\\';
+    }
+    switch (input.charAt(start + 1)) {
+      case '\'':
+        return '\'';
+      case '"':
+        return '"';
+      case '\\':
+        return '\\';
+      case 'b':
+        return '\b';
+      case 'f':
+        return '\f';
+      case 'n':
+        return '\n';
+      case 'r':
+        return '\r';
+      case 't':
+        return '\t';
+      case 'u':
+      case 'U':
+        // the scanner only includes the hex digits if there are exactly 4 (or 8) of them
+        long codePoint = (end - start > 2) ? 0 : -1;
+        for (int i = start + 2; i < end; ++i) {
+          codePoint = (codePoint << 4) | Character.digit(input.charAt(i), 16);
+        }
+        if (codePoint < 0
+            || codePoint > Character.MAX_CODE_POINT
+            || (codePoint >= Character.MIN_SURROGATE && codePoint <= Character.MAX_SURROGATE)) {
+          valueError(new TomlParseError("Invalid unicode escape sequence", scanner.position()));
+          return -1;
+        }
+        return (int) codePoint;
+      default:
+        valueError(
+            new TomlParseError("Invalid escape sequence '" + input.subSequence(start, end) + "'", scanner.position()));
+        return -1;
+    }
+  }
+
+  @Nullable
+  private Object dateTime() {
+    int line = scanner.line();
+    int column = scanner.column();
+    String first = scanner.text();
+    scanner.next();
+    if (scanner.type() == COLON) {
+      return time(first, line, column);
+    }
+    if (scanner.type() != DASH) {
+      throw unexpected(EXPECTED_DATE_TIME);
+    }
+    scanner.next();
+    int monthLine = scanner.line();
+    int monthColumn = scanner.column();
+    String month = expectDateDigits();
+    if (scanner.type() != DASH) {
+      throw unexpected("-");
+    }
+    scanner.next();
+    int dayLine = scanner.line();
+    int dayColumn = scanner.column();
+    String day = expectDateDigits();
+    LocalDate date = toDate(first, line, column, month, monthLine, monthColumn, day, dayLine, dayColumn);
+    if (scanner.type() != TIME_DELIMITER) {
+      return date;
+    }
+    scanner.next();
+    if (scanner.type() != DATE_DIGITS) {
+      throw unexpected(EXPECTED_DATE_TIME);
+    }
+    int hourLine = scanner.line();
+    int hourColumn = scanner.column();
+    String hour = scanner.text();
+    scanner.next();
+    if (scanner.type() != COLON) {
+      throw unexpected(":");
+    }
+    LocalTime time = time(hour, hourLine, hourColumn);
+    if (scanner.type() != Z && scanner.type() != DASH && scanner.type() != PLUS) {
+      return (date != null && time != null) ? LocalDateTime.of(date, time) : null;
+    }
+    ZoneOffset offset = timeOffset();
+    return (date != null && time != null && offset != null) ? OffsetDateTime.of(date, time, offset) : null;
+  }
+
+  private String expectDateDigits() {
+    if (scanner.type() != DATE_DIGITS) {
+      throw unexpected(EXPECTED_DATE_TIME);
+    }
+    String text = scanner.text();
+    scanner.next();
+    return text;
+  }
+
+  // Called with the scanner positioned on the colon following the hour
+  @Nullable
+  private LocalTime time(String hour, int hourLine, int hourColumn) {
+    scanner.next();
+    int minuteLine = scanner.line();
+    int minuteColumn = scanner.column();
+    String minute = expectDateDigits();
+    if (scanner.type() != COLON) {
+      throw unexpected(":");
+    }
+    scanner.next();
+    int secondLine = scanner.line();
+    int secondColumn = scanner.column();
+    String second = expectDateDigits();
+    String fraction = null;
+    int fractionLine = 0;
+    int fractionColumn = 0;
+    if (scanner.type() == DOT) {
+      scanner.next();
+      fractionLine = scanner.line();
+      fractionColumn = scanner.column();
+      fraction = expectDateDigits();
+    }
+
+    if (valueError != null) {
+      return null;
+    }
+    LocalTime time = LocalTime.MIN;
+    Integer value = dateTimeField(hour, 2, 0, 23, "Invalid hour", "(valid range 00..23)", hourLine, hourColumn);
+    if (value == null) {
+      return null;
+    }
+    time = time.withHour(value);
+    value =
+        dateTimeField(minute, 2, 0, 59, "Invalid minutes", "(valid range 00..59)", minuteLine, minuteColumn);
+    if (value == null) {
+      return null;
+    }
+    time = time.withMinute(value);
+    value =
+        dateTimeField(second, 2, 0, 59, "Invalid seconds", "(valid range 00..59)", secondLine, secondColumn);
+    if (value == null) {
+      return null;
+    }
+    time = time.withSecond(value);
+    if (fraction != null) {
+      if (fraction.isEmpty() || fraction.length() > 9) {
+        valueError(
+            new TomlParseError(
+                "Invalid nanoseconds (valid range 0..999999999)",
+                TomlPosition.positionAt(fractionLine, fractionColumn)));
+        return null;
+      }
+      if (fraction.length() < 9) {
+        fraction = fraction + "000000000".substring(fraction.length());
+      }
+      time = time.withNano(Integer.parseInt(fraction));
+    }
+    return time;
+  }
+
+  @Nullable
+  private LocalDate toDate(
+      String year,
+      int yearLine,
+      int yearColumn,
+      String month,
+      int monthLine,
+      int monthColumn,
+      String day,
+      int dayLine,
+      int dayColumn) {
+    if (valueError != null) {
+      return null;
+    }
+    if (year.length() != 4) {
+      valueError(
+          new TomlParseError("Invalid year (valid range 0000..9999)", TomlPosition.positionAt(yearLine, yearColumn)));
+      return null;
+    }
+    LocalDate date = LocalDate.of(Integer.parseInt(year), 1, 1);
+    Integer value = dateTimeField(month, 2, 1, 12, "Invalid month", "(valid range 01..12)", monthLine, monthColumn);
+    if (value == null) {
+      return null;
+    }
+    date = date.withMonth(value);
+    value = dateTimeField(day, 2, 1, 31, "Invalid day", "(valid range 01..28/31)", dayLine, dayColumn);
+    if (value == null) {
+      return null;
+    }
+    try {
+      return date.withDayOfMonth(value);
+    } catch (DateTimeException e) {
+      valueError(new TomlParseError(e.getMessage(), TomlPosition.positionAt(dayLine, dayColumn), e));
+      return null;
+    }
+  }
+
+  @Nullable
+  private Integer dateTimeField(
+      String text,
+      int length,
+      int min,
+      int max,
+      String message,
+      String range,
+      int line,
+      int column) {
+    if (text.length() != length) {
+      valueError(new TomlParseError(message + " " + range, TomlPosition.positionAt(line, column)));
+      return null;
+    }
+    int value = Integer.parseInt(text);
+    if (value < min || value > max) {
+      valueError(new TomlParseError(message + " " + range, TomlPosition.positionAt(line, column)));
+      return null;
+    }
+    return value;
+  }
+
+  @Nullable
+  private ZoneOffset timeOffset() {
+    if (scanner.type() == Z) {
+      scanner.next();
+      return ZoneOffset.UTC;
+    }
+    int hourLine = scanner.line();
+    int hourColumn = scanner.column();
+    boolean negative = scanner.type() == DASH;
+    scanner.next();
+    String hourText = expectDateDigits();
+    if (scanner.type() != COLON) {
+      throw unexpected(":");
+    }
+    scanner.next();
+    int minuteLine = scanner.line();
+    int minuteColumn = scanner.column();
+    String minuteText = expectDateDigits();
+
+    if (valueError != null) {
+      return null;
+    }
+    TomlPosition hourPosition = TomlPosition.positionAt(hourLine, hourColumn);
+    int hours;
+    try {
+      hours = Integer.parseInt(hourText);
+    } catch (NumberFormatException e) {
+      valueError(new TomlParseError("Invalid zone offset", hourPosition, e));
+      return null;
+    }
+    if (negative) {
+      hours = -hours;
+    }
+    if (hours < -18 || hours > 18) {
+      valueError(new TomlParseError("Invalid zone offset hours (valid range -18..+18)", hourPosition));
+      return null;
+    }
+    if (toZoneOffset(hours, 0, hourPosition) == null) {
+      return null;
+    }
+    int minutes;
+    try {
+      minutes = Integer.parseInt(minuteText);
+    } catch (NumberFormatException e) {
+      valueError(new TomlParseError("Invalid zone offset", TomlPosition.positionAt(minuteLine, minuteColumn), e));
+      return null;
+    }
+    if (minutes < 0 || minutes > 59) {
+      valueError(
+          new TomlParseError(
+              "Invalid zone offset minutes (valid range 0..59)",
+              TomlPosition.positionAt(minuteLine, minuteColumn)));
+      return null;
+    }
+    return toZoneOffset(hours, minutes, TomlPosition.positionAt(minuteLine, minuteColumn - 4));
+  }
+
+  @Nullable
+  private ZoneOffset toZoneOffset(int hours, int minutes, TomlPosition position) {
+    try {
+      return ZoneOffset.ofHoursMinutes(hours, (hours < 0) ? -minutes : minutes);
+    } catch (DateTimeException e) {
+      valueError(new TomlParseError("Invalid zone offset (valid range -18:00..+18:00)", position, e));
+      return null;
+    }
+  }
+
+  @Nullable
+  private Object array() {
+    scanner.next();
+    MutableTomlArray array = null;
+    while (true) {
+      int line = 0;
+      int column = 0;
+      if (scanner.type() == NEW_LINE) {
+        line = scanner.line();
+        column = scanner.column();
+        do {
+          scanner.next();
+        } while (scanner.type() == NEW_LINE);
+      }
+      if (scanner.type() == ARRAY_END) {
+        scanner.next();
+        return (array == null) ? EMPTY_ARRAY : array;
+      }
+      if (!isValueStart(scanner.type())) {
+        throw unexpected(EXPECTED_ARRAY_VALUE);
+      }
+      if (line == 0) {
+        line = scanner.line();
+        column = scanner.column();
+      }
+      if (array == null) {
+        array = MutableTomlArray.create(version);
+        if (!inputPositions) {
+          array.discardPositions();
+        }
+      }
+      long position = TomlPosition.pack(line, column);
+      try {
+        appendValue(array, position);
+      } catch (TomlInvalidTypeException e) {
+        valueError(new TomlParseError(e.getMessage(), TomlPosition.unpack(position)));
+      }
+
+      while (scanner.type() == NEW_LINE) {
+        scanner.next();
+      }
+      if (scanner.type() == COMMA) {
+        scanner.next();
+        continue;
+      }
+      if (scanner.type() == ARRAY_END) {
+        scanner.next();
+        return array;
+      }
+      throw unexpected(EXPECTED_ARRAY_SEPARATOR);
+    }
+  }
+
+  // Appends the next value to an array, unless a value error has been found, without boxing numbers or booleans
+  private void appendValue(MutableTomlArray array, long position) {
+    switch (scanner.type()) {
+      case DECIMAL_INTEGER: {
+        long value = longValue(scanner.start(), 10);
+        if (valueError == null) {
+          array.append(value, position);
+        }
+        return;
+      }
+      case HEX_INTEGER: {
+        long value = longValue(scanner.start() + 2, 16);
+        if (valueError == null) {
+          array.append(value, position);
+        }
+        return;
+      }
+      case OCTAL_INTEGER: {
+        long value = longValue(scanner.start() + 2, 8);
+        if (valueError == null) {
+          array.append(value, position);
+        }
+        return;
+      }
+      case BINARY_INTEGER: {
+        long value = longValue(scanner.start() + 2, 2);
+        if (valueError == null) {
+          array.append(value, position);
+        }
+        return;
+      }
+      case FLOATING_POINT: {
+        double value = doubleValue();
+        if (valueError == null) {
+          array.append(value, position);
+        }
+        return;
+      }
+      case TRUE_BOOLEAN:
+      case FALSE_BOOLEAN: {
+        boolean value = scanner.type() == TRUE_BOOLEAN;
+        scanner.next();
+        if (valueError == null) {
+          array.append(value, position);
+        }
+        return;
+      }
+      default:
+        Object value = value(IN_ARRAY);
+        if (value != null && valueError == null) {
+          array.append(value, position);
+        }
+    }
+  }
+
+  // Streams the elements of an array, in place of array(). Once a value error is found, nothing more is streamed.
+  private void streamArray(TomlEventHandler handler, List<String> path, TomlPosition position) {
+    if (valueError != null) {
+      array();
+      return;
+    }
+    scanner.next();
+    handler.startArray(path, position);
+    try {
+      TomlType elementType = null;
+      while (true) {
+        int line = 0;
+        int column = 0;
+        if (scanner.type() == NEW_LINE) {
+          line = scanner.line();
+          column = scanner.column();
+          do {
+            scanner.next();
+          } while (scanner.type() == NEW_LINE);
+        }
+        if (scanner.type() == ARRAY_END) {
+          scanner.next();
+          return;
+        }
+        if (!isValueStart(scanner.type())) {
+          throw unexpected(EXPECTED_ARRAY_VALUE);
+        }
+        if (line == 0) {
+          line = scanner.line();
+          column = scanner.column();
+        }
+        TomlPosition elementPosition = TomlPosition.positionAt(line, column);
+        TomlType type;
+        if (scanner.type() == ARRAY_START) {
+          type = TomlType.ARRAY;
+          if (valueError == null && elementType != null) {
+            checkElementType(elementType, type, elementPosition);
+          }
+          streamArray(handler, path, elementPosition);
+        } else {
+          type = streamValue(handler, null, IN_ARRAY, elementType, elementPosition);
+        }
+        if (elementType == null) {
+          elementType = type;
+        }
+
+        while (scanner.type() == NEW_LINE) {
+          scanner.next();
+        }
+        if (scanner.type() == COMMA) {
+          scanner.next();
+          continue;
+        }
+        if (scanner.type() == ARRAY_END) {
+          scanner.next();
+          return;
+        }
+        throw unexpected(EXPECTED_ARRAY_SEPARATOR);
+      }
+    } finally {
+      handler.endArray();
+    }
+  }
+
+  // Streams a value that is not an array, to handler.keyValue (or if the path is null, to handler.arrayValue). Numbers
+  // and booleans are streamed without boxing. Returns the type of the value, or null if it could not be converted.
+  @Nullable
+  private TomlType streamValue(
+      TomlEventHandler handler,
+      @Nullable List<String> path,
+      int context,
+      @Nullable TomlType elementType,
+      TomlPosition position) {
+    TomlParseError previousError = valueError;
+    TomlType type;
+    long longValue = 0;
+    double doubleValue = 0;
+    Object value = null;
+    switch (scanner.type()) {
+      case DECIMAL_INTEGER:
+        type = TomlType.INTEGER;
+        longValue = longValue(scanner.start(), 10);
+        break;
+      case HEX_INTEGER:
+        type = TomlType.INTEGER;
+        longValue = longValue(scanner.start() + 2, 16);
+        break;
+      case OCTAL_INTEGER:
+        type = TomlType.INTEGER;
+        longValue = longValue(scanner.start() + 2, 8);
+        break;
+      case BINARY_INTEGER:
+        type = TomlType.INTEGER;
+        longValue = longValue(scanner.start() + 2, 2);
+        break;
+      case FLOATING_POINT:
+        type = TomlType.FLOAT;
+        doubleValue = doubleValue();
+        break;
+      case FLOATING_POINT_INF:
+        type = TomlType.FLOAT;
+        doubleValue = (scanner.input().charAt(scanner.start()) == '-')
+            ? Double.NEGATIVE_INFINITY
+            : Double.POSITIVE_INFINITY;
+        scanner.next();
+        break;
+      case FLOATING_POINT_NAN:
+        type = TomlType.FLOAT;
+        doubleValue = Double.NaN;
+        scanner.next();
+        break;
+      case TRUE_BOOLEAN:
+      case FALSE_BOOLEAN:
+        type = TomlType.BOOLEAN;
+        longValue = (scanner.type() == TRUE_BOOLEAN) ? 1 : 0;
+        scanner.next();
+        break;
+      default:
+        value = value(context);
+        if (value == null) {
+          return null;
+        }
+        type = TomlType.typeFor(value).get();
+    }
+    if (valueError != previousError) {
+      return null;
+    }
+    if (elementType != null) {
+      checkElementType(elementType, type, position);
+    }
+    if (valueError != null) {
+      return type;
+    }
+    switch (type) {
+      case INTEGER:
+        if (path != null) {
+          handler.keyValue(path, longValue, position);
+        } else {
+          handler.arrayValue(longValue, position);
+        }
+        break;
+      case FLOAT:
+        if (path != null) {
+          handler.keyValue(path, doubleValue, position);
+        } else {
+          handler.arrayValue(doubleValue, position);
+        }
+        break;
+      case BOOLEAN:
+        if (path != null) {
+          handler.keyValue(path, longValue != 0, position);
+        } else {
+          handler.arrayValue(longValue != 0, position);
+        }
+        break;
+      default:
+        if (path != null) {
+          handler.keyValue(path, value, position);
+        } else {
+          handler.arrayValue(value, position);
+        }
+    }
+    return type;
+  }
+
+  // Arrays are homogeneous in TOML 0.5.0 and earlier
+  private void checkElementType(TomlType elementType, TomlType type, TomlPosition position) {
+    if (elementType != type && !version.after(V0_5_0)) {
+      valueError(
+          new TomlParseError(
+              "Cannot add a " + type.typeName() + " to an array containing " + elementType.typeName() + "s",
+              position));
+    }
+  }
+
+  private static boolean isValueStart(int type) {
+    switch (type) {
+      case QUOTATION_MARK:
+      case TRIPLE_QUOTATION_MARK:
+      case APOSTROPHE:
+      case TRIPLE_APOSTROPHE:
+      case DECIMAL_INTEGER:
+      case HEX_INTEGER:
+      case OCTAL_INTEGER:
+      case BINARY_INTEGER:
+      case FLOATING_POINT:
+      case FLOATING_POINT_INF:
+      case FLOATING_POINT_NAN:
+      case TRUE_BOOLEAN:
+      case FALSE_BOOLEAN:
+      case DATE_DIGITS:
+      case ARRAY_START:
+      case INLINE_TABLE_START:
+        return true;
+      default:
+        return false;
+    }
+  }
+
+  private Object inlineTable(int context) {
+    long position = TomlPosition.pack(scanner.line(), scanner.column());
+    scanner.next();
+    if (scanner.type() == INLINE_TABLE_END) {
+      scanner.next();
+      return EmptyTomlTable.EMPTY_TABLE;
+    }
+    if (!isKeyStart(scanner.type())) {
+      throw unexpected(EXPECTED_INLINE_TABLE_KEY);
+    }
+    MutableTomlTable table = new MutableTomlTable(version, position);
+    Map<MutableTomlTable, TomlPosition> inlineOpenTables = new HashMap<>();
+    while (true) {
+      long keyvalPosition = TomlPosition.pack(scanner.line(), scanner.column());
+      List<String> path = key();
+      if (scanner.type() != EQUALS) {
+        throw unexpected(EXPECTED_DOT_OR_EQUALS);
+      }
+      scanner.next();
+      Object value = value(IN_INLINE_TABLE);
+      if (value != null && valueError == null) {
+        try {
+          table
+              .set(path, value, keyvalPosition)
+              .forEach(entry -> inlineOpenTables.putIfAbsent(entry.getKey(), entry.getValue()));
+        } catch (TomlParseError e) {
+          valueError(e);
+        }
+      }
+      if (scanner.type() == COMMA) {
+        scanner.next();
+        if (!isKeyStart(scanner.type())) {
+          throw unexpected(EXPECTED_KEY);
+        }
+        continue;
+      }
+      if (scanner.type() == INLINE_TABLE_END) {
+        scanner.next();
+        break;
+      }
+      throw unexpected(isFollow(context, scanner.type()) ? "}" : "} or a comma");
+    }
+    inlineOpenTables.forEach(MutableTomlTable::define);
+    return table;
+  }
+
+  /**
+   * Check whether a token could directly follow a value in the given context.
+   *
+   * <p>
+   * When a closing token is missing, the ANTLR parser only reports that token as expected if the offending token would
+   * be valid after it. This is used to report the same expectations.
+   */
+  private static boolean isFollow(int context, int type) {
+    switch (context) {
+      case TOP_LEVEL:
+        return type == NEW_LINE || type == EOF;
+      case IN_ARRAY:
+        return type == NEW_LINE || type == COMMA || type == ARRAY_END;
+      case IN_INLINE_TABLE:
+        return type == COMMA || type == INLINE_TABLE_END;
+      default:
+        return false;
+    }
+  }
+
+  private void syntaxError(TomlParseError error) {
+    if (handler != null) {
+      handler.error(error);
+    } else {
+      syntaxErrors.add(error);
+    }
+  }
+
+  private void error(TomlParseError error) {
+    if (handler != null) {
+      handler.error(error);
+    } else {
+      errors.add(error);
+    }
+  }
+
+  private void valueError(TomlParseError error) {
+    if (valueError == null) {
+      valueError = error;
+    }
+  }
+
+  private TomlParseError unexpected(String expected) {
+    return new TomlParseError("Unexpected " + tokenName() + ", expected " + expected, scanner.position());
+  }
+
+  private String tokenName() {
+    switch (scanner.type()) {
+      case NEW_LINE:
+        return "end of line";
+      case EOF:
+        return "end of input";
+      default:
+        String text = scanner.text();
+        if (isOnlyQuotes(text)) {
+          return text;
+        }
+        return "'" + Toml.tomlEscape(text) + '\'';
+    }
+  }
+
+  private static boolean isOnlyQuotes(String text) {
+    int length = text.length();
+    if (length == 0) {
+      return false;
+    }
+    char first = text.charAt(0);
+    if (first != '\'' && first != '\"') {
+      return false;
+    }
+    for (int i = 1; i < length; ++i) {
+      if (text.charAt(i) != first) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
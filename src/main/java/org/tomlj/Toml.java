@@ -22,18 +22,20 @@ import java.nio.channels.ReadableByteChannel;
 import java.nio.charset.CharsetDecoder;
 import java.nio.charset.CodingErrorAction;
 import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.StringJoiner;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
 import java.util.regex.Pattern;
 
 import org.antlr.v4.runtime.CharStream;
 import org.antlr.v4.runtime.CharStreams;
 import org.antlr.v4.runtime.IntStream;
 import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
 import org.checkerframework.framework.qual.DefaultQualifier;
 import org.checkerframework.framework.qual.TypeUseLocation;
 
@@ -65,8 +67,7 @@ public final class Toml {
    * @return The parse result.
    */
   public static TomlParseResult parse(String input, TomlVersion version) {
-    CharStream stream = CharStreams.fromString(input);
-    return Parser.parse(stream, version.canonical);
+    return Parser.parse(input, version.canonical);
   }
 
   /**
@@ -89,11 +90,102 @@ public final class Toml {
    * @throws IOException If an IO error occurs.
    */
   public static TomlParseResult parse(Path file, TomlVersion version) throws IOException {
-    CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder();
-    decoder.onMalformedInput(CodingErrorAction.REPORT);
-    decoder.onUnmappableCharacter(CodingErrorAction.REPORT);
-    InputStreamReader reader = new InputStreamReader(Files.newInputStream(file), decoder);
-    return parse(reader, version);
+    return Parser.parse(MappedInput.read(file), version.canonical);
+  }
+
+  /**
+   * Parse a TOML string.
+   *
+   * @param input The input to parse.
+   * @param options The parse options.
+   * @return The parse result.
+   */
+  public static TomlParseResult parse(String input, TomlParseOptions options) {
+    requireNonNull(input);
+    return Parser.parse(input, options);
+  }
+
+  /**
+   * Parse a TOML file.
+   *
+   * @param file The input file to parse.
+   * @param options The parse options.
+   * @return The parse result.
+   * @throws IOException If an IO error occurs.
+   */
+  public static TomlParseResult parse(Path file, TomlParseOptions options) throws IOException {
+    return Parser.parse(MappedInput.read(file), options);
+  }
+
+  /**
+   * Parse a TOML document again after an edit to its text.
+   *
+   * <p>
+   * Only the lines around the edit are parsed again: the expressions on the other lines are reused from the previous
+   * result, with their input positions moved by the number of lines added or removed. The result (including any errors
+   * and input positions) is the same as for parsing the edited text, and can itself be reparsed.
+   *
+   * <pre>
+   * {@code
+   * TomlParseResult result = Toml.parse(text, TomlParseOptions.defaults().withIncremental(true));
+   * // replace the 3 characters at offset 120 with "8080"
+   * result = Toml.reparse(result, 120, 3, "8080");
+   * }
+   * </pre>
+   *
+   * @param previous The result of parsing the text before the edit, with
+   *        {@link TomlParseOptions#withIncremental(boolean)} or by an earlier reparse.
+   * @param offset The offset in the previous text at which the edit starts.
+   * @param removedLength The number of characters removed from the previous text.
+   * @param insertedText The text inserted at the offset.
+   * @return The parse result for the edited text.
+   * @throws IllegalArgumentException If the previous result was not parsed with incremental reparsing enabled.
+   * @throws IndexOutOfBoundsException If the removed characters are not within the previous text.
+   */
+  public static TomlParseResult reparse(TomlParseResult previous, int offset, int removedLength, String insertedText) {
+    requireNonNull(previous);
+    requireNonNull(insertedText);
+    return IncrementalParser.reparse(previous, offset, removedLength, insertedText);
+  }
+
+  /**
+   * Parse a large TOML file, using multiple threads.
+   *
+   * <p>
+   * The file is split at table headers, and the parts are parsed concurrently on the
+   * {@link ForkJoinPool#commonPool() common pool}. The result is the same as for {@link #parse(Path)}.
+   *
+   * @param file The input file to parse.
+   * @return The parse result.
+   * @throws IOException If an IO error occurs.
+   * @see #parseParallel(Path, TomlVersion, Executor)
+   */
+  public static TomlParseResult parseParallel(Path file) throws IOException {
+    return parseParallel(file, TomlVersion.LATEST, ForkJoinPool.commonPool());
+  }
+
+  /**
+   * Parse a large TOML file, using multiple threads.
+   *
+   * <p>
+   * The file is split at table headers (e.g. {@code [section]} or {@code [[array.table]]}) that start a line, and the
+   * parts are scanned, parsed and have their values converted concurrently on the given executor. The tables are then
+   * built from the parts in document order, so the result (including any errors and input positions) is the same as
+   * for {@link #parse(Path, TomlVersion)}.
+   *
+   * <p>
+   * Files that are not large enough to be split are parsed on the calling thread. If the document contains syntax
+   * errors, it is parsed a second time on the calling thread in order to report them.
+   *
+   * @param file The input file to parse.
+   * @param version The version level to parse at.
+   * @param executor The executor to parse the parts of the file on.
+   * @return The parse result.
+   * @throws IOException If an IO error occurs.
+   */
+  public static TomlParseResult parseParallel(Path file, TomlVersion version, Executor executor) throws IOException {
+    requireNonNull(executor);
+    return Parser.parseParallel(MappedInput.read(file), version.canonical, executor);
   }
 
   /**
@@ -177,11 +269,307 @@ public final class Toml {
     return Parser.parse(stream, version.canonical);
   }
 
+  /**
+   * Stream a TOML string to an event handler, without building any tables.
+   *
+   * @param input The input to parse.
+   * @param handler The handler to receive the parse events.
+   * @see TomlEventHandler
+   */
+  public static void parse(String input, TomlEventHandler handler) {
+    parse(input, TomlVersion.LATEST, handler);
+  }
+
+  /**
+   * Stream a TOML string to an event handler, without building any tables.
+   *
+   * @param input The input to parse.
+   * @param version The version level to parse at.
+   * @param handler The handler to receive the parse events.
+   * @see TomlEventHandler
+   */
+  public static void parse(String input, TomlVersion version, TomlEventHandler handler) {
+    requireNonNull(input);
+    requireNonNull(handler);
+    RecursiveDescentParser.parse(input, version.canonical, handler);
+  }
+
+  /**
+   * Stream a TOML file to an event handler, without building any tables.
+   *
+   * @param file The input file to parse.
+   * @param handler The handler to receive the parse events.
+   * @throws IOException If an IO error occurs.
+   * @see TomlEventHandler
+   */
+  public static void parse(Path file, TomlEventHandler handler) throws IOException {
+    parse(file, TomlVersion.LATEST, handler);
+  }
+
+  /**
+   * Stream a TOML file to an event handler, without building any tables.
+   *
+   * @param file The input file to parse.
+   * @param version The version level to parse at.
+   * @param handler The handler to receive the parse events.
+   * @throws IOException If an IO error occurs.
+   * @see TomlEventHandler
+   */
+  public static void parse(Path file, TomlVersion version, TomlEventHandler handler) throws IOException {
+    requireNonNull(handler);
+    RecursiveDescentParser.parse(MappedInput.read(file), version.canonical, handler);
+  }
+
+  /**
+   * Stream a TOML reader to an event handler, without building any tables.
+   *
+   * @param reader The reader to obtain the TOML document from.
+   * @param handler The handler to receive the parse events.
+   * @throws IOException If an IO error occurs.
+   * @see TomlEventHandler
+   */
+  public static void parse(Reader reader, TomlEventHandler handler) throws IOException {
+    parse(reader, TomlVersion.LATEST, handler);
+  }
+
+  /**
+   * Stream a TOML reader to an event handler, without building any tables.
+   *
+   * @param reader The reader to obtain the TOML document from.
+   * @param version The version level to parse at.
+   * @param handler The handler to receive the parse events.
+   * @throws IOException If an IO error occurs.
+   * @see TomlEventHandler
+   */
+  public static void parse(Reader reader, TomlVersion version, TomlEventHandler handler) throws IOException {
+    parse(readFully(reader), version, handler);
+  }
+
+  /**
+   * Open a pull reader over a TOML string.
+   *
+   * @param input The input to read.
+   * @return A reader positioned before the first event.
+   * @see TomlReader
+   */
+  public static TomlReader reader(String input) {
+    return reader(input, TomlVersion.LATEST);
+  }
+
+  /**
+   * Open a pull reader over a TOML string.
+   *
+   * @param input The input to read.
+   * @param version The version level to parse at.
+   * @return A reader positioned before the first event.
+   * @see TomlReader
+   */
+  public static TomlReader reader(String input, TomlVersion version) {
+    requireNonNull(input);
+    return new TomlReader(input, version.canonical);
+  }
+
+  /**
+   * Open a pull reader over a TOML file.
+   *
+   * @param file The input file to read.
+   * @return A reader positioned before the first event.
+   * @throws IOException If an IO error occurs.
+   * @see TomlReader
+   */
+  public static TomlReader reader(Path file) throws IOException {
+    return reader(file, TomlVersion.LATEST);
+  }
+
+  /**
+   * Open a pull reader over a TOML file.
+   *
+   * @param file The input file to read.
+   * @param version The version level to parse at.
+   * @return A reader positioned before the first event.
+   * @throws IOException If an IO error occurs.
+   * @see TomlReader
+   */
+  public static TomlReader reader(Path file, TomlVersion version) throws IOException {
+    return new TomlReader(MappedInput.read(file), version.canonical);
+  }
+
+  /**
+   * Open a pull reader over a TOML reader.
+   *
+   * @param reader The reader to obtain the TOML document from.
+   * @return A reader positioned before the first event.
+   * @throws IOException If an IO error occurs.
+   * @see TomlReader
+   */
+  public static TomlReader reader(Reader reader) throws IOException {
+    return reader(reader, TomlVersion.LATEST);
+  }
+
+  /**
+   * Open a pull reader over a TOML reader.
+   *
+   * @param reader The reader to obtain the TOML document from.
+   * @param version The version level to parse at.
+   * @return A reader positioned before the first event.
+   * @throws IOException If an IO error occurs.
+   * @see TomlReader
+   */
+  public static TomlReader reader(Reader reader, TomlVersion version) throws IOException {
+    return reader(readFully(reader), version);
+  }
+
+  /**
+   * Open a writer that writes a TOML document to an {@link Appendable}.
+   *
+   * @param appendable The appendable to write to, which is closed when the writer is closed if it is
+   *        {@link Closeable}.
+   * @return A writer at the start of the document.
+   * @see TomlWriter
+   */
+  public static TomlWriter writer(Appendable appendable) {
+    requireNonNull(appendable);
+    return new TomlWriter(appendable);
+  }
+
+  /**
+   * Open a writer that writes a TOML document to an {@link OutputStream}, in UTF-8.
+   *
+   * <p>
+   * The output is buffered, and the stream is closed when the writer is closed.
+   *
+   * @param stream The stream to write to.
+   * @return A writer at the start of the document.
+   * @see TomlWriter
+   */
+  public static TomlWriter writer(OutputStream stream) {
+    requireNonNull(stream);
+    return new TomlWriter(new BufferedWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8)));
+  }
+
+  /**
+   * Write a binary snapshot of a table, which can be read back without lexing or parsing.
+   *
+   * <p>
+   * The snapshot holds each key once, the typed values and, if the table has them, the input positions of the values.
+   * The file is replaced atomically where the file system allows it. The format is specific to this library, and a
+   * snapshot is only read by the version of the library that wrote it.
+   *
+   * <p>
+   * A large snapshot stays memory-mapped while any table read from it is reachable. On Windows, the file cannot be
+   * replaced during that time, so writing a new snapshot to the same file fails with an {@link IOException}. On other
+   * platforms the new snapshot replaces the file, and tables already read from the old one remain valid.
+   *
+   * @param table The table.
+   * @param file The snapshot file to write.
+   * @throws IOException If an IO error occurs.
+   * @see #readSnapshot(Path)
+   */
+  public static void writeSnapshot(TomlTable table, Path file) throws IOException {
+    requireNonNull(table);
+    requireNonNull(file);
+    TomlSnapshot.write(table, file, null);
+  }
+
+  /**
+   * Write a binary snapshot of a table parsed from a source file, recording a hash of the source's content.
+   *
+   * <pre>
+   * {@code
+   * TomlTable config = Toml.readSnapshot(snapshot, source);
+   * if (config == null) {
+   *   TomlParseResult result = Toml.parse(source);
+   *   ...
+   *   Toml.writeSnapshot(result, snapshot, source);
+   *   config = result;
+   * }
+   * }
+   * </pre>
+   *
+   * @param table The table.
+   * @param file The snapshot file to write.
+   * @param source The file the table was parsed from.
+   * @throws IOException If an IO error occurs.
+   * @see #readSnapshot(Path, Path)
+   * @see #writeSnapshot(TomlTable, Path)
+   */
+  public static void writeSnapshot(TomlTable table, Path file, Path source) throws IOException {
+    requireNonNull(table);
+    requireNonNull(file);
+    requireNonNull(source);
+    TomlSnapshot.write(table, file, TomlSnapshot.hash(source));
+  }
+
+  /**
+   * Read a binary snapshot written by {@link #writeSnapshot(TomlTable, Path)}.
+   *
+   * <p>
+   * Large snapshots are memory-mapped. The whole snapshot is checked when it is read, which is a single pass over its
+   * bytes, so that reading a table from it later cannot fail. Each table is then only decoded the first time it is
+   * read, so the parts of the document that are not used are never decoded. The returned table is read-only.
+   *
+   * @param file The snapshot file.
+   * @return The table.
+   * @throws IOException If an IO error occurs, the file is not a snapshot written by this version of the library, or
+   *         the snapshot is truncated or corrupt.
+   */
+  public static TomlTable readSnapshot(Path file) throws IOException {
+    requireNonNull(file);
+    return TomlSnapshot.read(file);
+  }
+
+  /**
+   * Read a binary snapshot written by {@link #writeSnapshot(TomlTable, Path, Path)}, if it is up to date.
+   *
+   * <p>
+   * The content of the source file is hashed (which is much cheaper than parsing it) and compared with the hash
+   * recorded in the snapshot.
+   *
+   * @param file The snapshot file.
+   * @param source The file the snapshot was taken from.
+   * @return The table, or {@code null} if the snapshot file does not exist, was written by a different version of the
+   *         library, or was not taken from the current content of the source file.
+   * @throws IOException If an IO error occurs, the file is not a snapshot, or the snapshot is truncated or corrupt.
+   */
+  @Nullable
+  public static TomlTable readSnapshot(Path file, Path source) throws IOException {
+    requireNonNull(file);
+    requireNonNull(source);
+    return TomlSnapshot.read(file, source);
+  }
+
+  private static String readFully(Reader reader) throws IOException {
+    StringBuilder builder = new StringBuilder();
+    char[] buffer = new char[8192];
+    int read;
+    while ((read = reader.read(buffer)) >= 0) {
+      builder.append(buffer, 0, read);
+    }
+    return builder.toString();
+  }
+
+  /**
+   * Warm up the parser.
+   *
+   * <p>
+   * The first documents parsed after startup are slower, while classes are loaded and internal parser caches are
+   * populated. Calling this method once at startup parses a small built-in set of documents, so that the cost is not
+   * paid by the first real request. Calling it again has no further effect beyond re-parsing those documents.
+   */
+  public static void warmUp() {
+    Parser.warmUp();
+  }
+
   /**
    * Parse a dotted key into individual parts.
    *
+   * <p>
+   * Parsed keys are kept in a bounded cache shared by all callers, so repeated lookups of the same dotted key are not
+   * re-parsed. The cache size can be set with the system property {@code tomlj.keyCacheSize}, and a size of {@code 0}
+   * disables it.
+   *
    * @param dottedKey A dotted key (e.g. {@code server.address.port}).
-   * @return A list of individual keys in the path.
+   * @return An immutable list of individual keys in the path.
    * @throws IllegalArgumentException If the dotted key cannot be parsed.
    */
   public static List<String> parseDottedKey(String dottedKey) {
@@ -189,6 +577,29 @@ public final class Toml {
     return Parser.parseDottedKey(dottedKey);
   }
 
+  /**
+   * The number of dotted keys that were found in the key path cache.
+   *
+   * @return The number of cache hits since startup.
+   * @see #parseDottedKey(String)
+   */
+  public static long keyPathCacheHits() {
+    return KeyPathCache.INSTANCE.hits();
+  }
+
+  /**
+   * The number of dotted keys that had to be parsed because they were not in the key path cache.
+   *
+   * <p>
+   * When the cache is disabled, this is always {@code 0}.
+   *
+   * @return The number of cache misses since startup.
+   * @see #parseDottedKey(String)
+   */
+  public static long keyPathCacheMisses() {
+    return KeyPathCache.INSTANCE.misses();
+  }
+
   /**
    * Join a list of keys into a single dotted key string.
    *
@@ -227,54 +638,62 @@ public final class Toml {
    * @return A {@link StringBuilder} holding the results of escaping the text.
    */
   public static StringBuilder tomlEscape(String text) {
-    final StringBuilder out = new StringBuilder();
-    for (int i = 0; i < text.length(); i++) {
-      int codepoint = text.codePointAt(i);
-      if (Character.charCount(codepoint) > 1) {
-        out.append("\\U").append(String.format("%08x", codepoint));
-        ++i;
-        continue;
-      }
+    StringBuilder out = new StringBuilder(text.length());
+    try {
+      tomlEscape(text, out);
+    } catch (IOException e) {
+      // not reachable
+      throw new UncheckedIOException(e);
+    }
+    return out;
+  }
 
-      char ch = Character.toChars(codepoint)[0];
-      if (ch == '\'') {
-        out.append("\\'");
-        continue;
-      }
-      if (ch == '\"') {
-        out.append("\\\"");
-        continue;
-      }
-      if (ch == '\\') {
-        out.append("\\\\");
+  // The escape sequence for each ASCII character that must be escaped, or null
+  private static final String[] TOML_ESCAPES = new String[0x80];
+  private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+  static {
+    for (char ch = 0; ch < 0x20; ++ch) {
+      TOML_ESCAPES[ch] = "\\u00" + HEX_DIGITS[ch >> 4] + HEX_DIGITS[ch & 0xf];
+    }
+    TOML_ESCAPES[0x7f] = "\\u007f";
+    TOML_ESCAPES['\t'] = "\\t";
+    TOML_ESCAPES['\b'] = "\\b";
+    TOML_ESCAPES['\n'] = "\\n";
+    TOML_ESCAPES['\r'] = "\\r";
+    TOML_ESCAPES['\f'] = "\\f";
+    TOML_ESCAPES['\''] = "\\'";
+    TOML_ESCAPES['"'] = "\\\"";
+    TOML_ESCAPES['\\'] = "\\\\";
+  }
+
+  // Appends the escaped text, copying runs of characters that need no escaping directly from the text
+  static void tomlEscape(String text, Appendable out) throws IOException {
+    int start = 0;
+    for (int i = 0, length = text.length(); i < length; ++i) {
+      char ch = text.charAt(i);
+      if (ch < 0x80 && TOML_ESCAPES[ch] == null) {
         continue;
       }
-      if (ch >= 0x20 && ch < 0x7F) {
-        out.append(ch);
-        continue;
+      out.append(text, start, i);
+      if (ch < 0x80) {
+        out.append(TOML_ESCAPES[ch]);
+      } else if (Character.isHighSurrogate(ch) && i + 1 < length && Character.isLowSurrogate(text.charAt(i + 1))) {
+        out.append("\\U");
+        appendHex(Character.toCodePoint(ch, text.charAt(++i)), 8, out);
+      } else {
+        out.append("\\u");
+        appendHex(ch, 4, out);
       }
+      start = i + 1;
+    }
+    out.append(text, start, text.length());
+  }
 
-      switch (ch) {
-        case '\t':
-          out.append("\\t");
-          break;
-        case '\b':
-          out.append("\\b");
-          break;
-        case '\n':
-          out.append("\\n");
-          break;
-        case '\r':
-          out.append("\\r");
-          break;
-        case '\f':
-          out.append("\\f");
-          break;
-        default:
-          out.append("\\u").append(String.format("%04x", codepoint));
-      }
+  private static void appendHex(int value, int digits, Appendable out) throws IOException {
+    for (int shift = (digits - 1) * 4; shift >= 0; shift -= 4) {
+      out.append(HEX_DIGITS[(value >>> shift) & 0xf]);
     }
-    return out;
   }
 
   /**
@@ -285,9 +704,17 @@ public final class Toml {
    * @return Returns true if the arrays are equivalent, else false.
    */
   public static boolean equals(TomlArray array1, TomlArray array2) {
+    if (array1 == array2) {
+      return true;
+    }
     if (array1.size() != array2.size()) {
       return false;
     }
+    if (TomlFingerprint.isCached(array1)
+        && TomlFingerprint.isCached(array2)
+        && TomlFingerprint.of(array1) != TomlFingerprint.of(array2)) {
+      return false;
+    }
 
     for (int i = 0; i < array1.size(); i++) {
       Object value1 = array1.get(i);
@@ -329,25 +756,26 @@ public final class Toml {
    * @return Returns true if the tables are equivalent, else false.
    */
   public static boolean equals(TomlTable table1, TomlTable table2) {
-    if (table1.entrySet().size() != table2.entrySet().size()) {
+    if (table1 == table2) {
+      return true;
+    }
+    Map<String, Object> map1 = table1.asMap();
+    Map<String, Object> map2 = table2.asMap();
+    if (map1.size() != map2.size()) {
       return false;
     }
-    for (Map.Entry<String, Object> entry : table1.entrySet()) {
-      String key = entry.getKey();
-      if (!table2.keySet().contains(key)) {
-        return false;
-      }
-
+    if (TomlFingerprint.isCached(table1)
+        && TomlFingerprint.isCached(table2)
+        && TomlFingerprint.of(table1) != TomlFingerprint.of(table2)) {
+      return false;
+    }
+    for (Map.Entry<String, Object> entry : map1.entrySet()) {
       Object value1 = entry.getValue();
-      Optional<Map.Entry<String, Object>> value2Entry =
-          table2.entrySet().stream().filter(entry2 -> entry2.getKey().equals(key)).findFirst();
-
-      if (!value2Entry.isPresent()) {
+      Object value2 = map2.get(entry.getKey());
+      if (value2 == null) {
         return false;
       }
 
-      Object value2 = value2Entry.get().getValue();
-
       Optional<TomlType> tomlType1 = typeFor(value1);
       assert tomlType1.isPresent();
 
@@ -374,4 +802,39 @@ public final class Toml {
     }
     return true;
   }
+
+  /**
+   * Compute a structural fingerprint of a table.
+   *
+   * <p>
+   * Tables that are equivalent according to {@link #equals(TomlTable, TomlTable)} have the same fingerprint, regardless
+   * of the order of their keys, so tables with different fingerprints are not equivalent. Tables with the same
+   * fingerprint are equivalent with very high probability.
+   *
+   * <p>
+   * Parsed tables and arrays compute their fingerprint once and keep it, so comparing the fingerprints of a reloaded
+   * document with those of the previously loaded one (or its sub-tables) is cheap after the first comparison.
+   *
+   * @param table The table.
+   * @return A 64-bit fingerprint of the table.
+   */
+  public static long fingerprint(TomlTable table) {
+    requireNonNull(table);
+    return TomlFingerprint.of(table);
+  }
+
+  /**
+   * Compute a structural fingerprint of an array.
+   *
+   * <p>
+   * Arrays that are equivalent according to {@link #equals(TomlArray, TomlArray)} have the same fingerprint, so arrays
+   * with different fingerprints are not equivalent.
+   *
+   * @param array The array.
+   * @return A 64-bit fingerprint of the array.
+   */
+  public static long fingerprint(TomlArray array) {
+    requireNonNull(array);
+    return TomlFingerprint.of(array);
+  }
 }
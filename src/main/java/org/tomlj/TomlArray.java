@@ -12,15 +12,24 @@
  */
 package org.tomlj;
 
+import static java.util.Objects.requireNonNull;
+
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.UncheckedIOException;
+import java.nio.channels.WritableByteChannel;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.OffsetDateTime;
 import java.util.*;
+import java.util.function.ObjIntConsumer;
+import java.util.stream.DoubleStream;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
 
 import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
 import org.checkerframework.framework.qual.DefaultQualifier;
 import org.checkerframework.framework.qual.TypeUseLocation;
 
@@ -140,9 +149,43 @@ public interface TomlArray {
    * @param index The array index.
    * @return The input position.
    * @throws IndexOutOfBoundsException If the index is out of bounds.
+   * @throws IllegalStateException If the document was parsed without input positions.
+   * @see TomlParseOptions#withInputPositions(boolean)
    */
   TomlPosition inputPositionOf(int index);
 
+  /**
+   * Get a value from the table at a specified index.
+   *
+   * @param index The array index.
+   * @param key A pre-parsed key within the table.
+   * @return The value, or {@code null} if no value was set in the table.
+   * @throws IndexOutOfBoundsException If the index is out of bounds.
+   * @throws TomlInvalidTypeException If the value at the index is not a table, or any element of the key path
+   *         preceding the final key is not a table.
+   */
+  @Nullable
+  default Object get(int index, TomlKey key) {
+    requireNonNull(key);
+    return getTable(index).get(key);
+  }
+
+  /**
+   * Get the position where a key is defined in the table at a specified index.
+   *
+   * @param index The array index.
+   * @param key A pre-parsed key within the table.
+   * @return The input position, or {@code null} if the key was not set in the table.
+   * @throws IndexOutOfBoundsException If the index is out of bounds.
+   * @throws TomlInvalidTypeException If the value at the index is not a table, or any element of the key path
+   *         preceding the final key is not a table.
+   */
+  @Nullable
+  default TomlPosition inputPositionOf(int index, TomlKey key) {
+    requireNonNull(key);
+    return getTable(index).inputPositionOf(key);
+  }
+
   /**
    * Get a string at a specified index.
    *
@@ -303,6 +346,61 @@ public interface TomlArray {
     return (TomlTable) value;
   }
 
+  /**
+   * Get the elements of this array as an array of longs.
+   *
+   * <p>
+   * Arrays of integers are held unboxed, so this does not box each element.
+   *
+   * @return A new array holding the elements of this array.
+   * @throws TomlInvalidTypeException If any element is not a long.
+   */
+  default long[] toLongArray() {
+    long[] result = new long[size()];
+    for (int i = 0; i < result.length; ++i) {
+      result[i] = getLong(i);
+    }
+    return result;
+  }
+
+  /**
+   * Get the elements of this array as an array of doubles.
+   *
+   * <p>
+   * Arrays of floats are held unboxed, so this does not box each element.
+   *
+   * @return A new array holding the elements of this array.
+   * @throws TomlInvalidTypeException If any element is not a double.
+   */
+  default double[] toDoubleArray() {
+    double[] result = new double[size()];
+    for (int i = 0; i < result.length; ++i) {
+      result[i] = getDouble(i);
+    }
+    return result;
+  }
+
+  /**
+   * Get a stream of the elements of this array as longs.
+   *
+   * @return A stream of the elements of this array.
+   * @throws TomlInvalidTypeException If any element is not a long (which may be thrown when the stream is consumed).
+   */
+  default LongStream longStream() {
+    return IntStream.range(0, size()).mapToLong(this::getLong);
+  }
+
+  /**
+   * Get a stream of the elements of this array as doubles.
+   *
+   * @return A stream of the elements of this array.
+   * @throws TomlInvalidTypeException If any element is not a double (which may be thrown when the stream is
+   *         consumed).
+   */
+  default DoubleStream doubleStream() {
+    return IntStream.range(0, size()).mapToDouble(this::getDouble);
+  }
+
   /**
    * Get the elements of this array as a {@link List}.
    *
@@ -314,6 +412,45 @@ public interface TomlArray {
    */
   List<Object> toList();
 
+  /**
+   * Get a read-only view of the elements of this array as a {@link List}.
+   *
+   * <p>
+   * Unlike {@link #toList()}, this does not copy the elements of this array.
+   *
+   * @return A read-only view of the elements of this array.
+   */
+  default List<Object> asList() {
+    return new TomlArrayView(this);
+  }
+
+  /**
+   * Perform an action for each of the elements of this array, in order.
+   *
+   * @param action The action to perform, which is passed each element and its index.
+   */
+  default void forEach(ObjIntConsumer<Object> action) {
+    requireNonNull(action);
+    for (int i = 0, size = size(); i < size; ++i) {
+      action.accept(get(i), i);
+    }
+  }
+
+  /**
+   * Walk this array, and the tables and arrays it contains, with a visitor.
+   *
+   * <p>
+   * This array is passed to {@link TomlVisitor#visitArrayStart} and {@link TomlVisitor#visitArrayEnd} with a
+   * {@code null} key.
+   *
+   * @param visitor The visitor.
+   * @return {@code false} if the walk was ended by {@link TomlVisitor.Result#TERMINATE}, otherwise {@code true}.
+   */
+  default boolean accept(TomlVisitor visitor) {
+    requireNonNull(visitor);
+    return TomlWalker.walk(null, this, visitor) != TomlVisitor.Result.TERMINATE;
+  }
+
   /**
    * Return a representation of this array using JSON.
    *
@@ -363,6 +500,63 @@ public interface TomlArray {
     JsonSerializer.toJson(this, appendable, options);
   }
 
+  /**
+   * Write a JSON representation of this array to an output stream, encoded in UTF-8.
+   *
+   * <p>
+   * The JSON is {@link JsonOptions#COMPACT compact} unless {@link JsonOptions#PRETTY_PRINT} is given, in which case it
+   * is the same as that produced by {@link #toJson(Appendable, JsonOptions...)}. It is encoded as it is written, with
+   * no intermediate strings. Output is buffered, and written to the stream in large blocks. The stream is neither
+   * flushed nor closed.
+   *
+   * @param stream The output stream.
+   * @param options Options for the JSON encoder.
+   * @throws IOException If an IO error occurs.
+   */
+  default void toJsonUtf8(OutputStream stream, JsonOptions... options) throws IOException {
+    toJsonUtf8(stream, JsonOptions.setFrom(options));
+  }
+
+  /**
+   * Write a JSON representation of this array to an output stream, encoded in UTF-8.
+   *
+   * @param stream The output stream.
+   * @param options Options for the JSON encoder.
+   * @throws IOException If an IO error occurs.
+   * @see #toJsonUtf8(OutputStream, JsonOptions...)
+   */
+  default void toJsonUtf8(OutputStream stream, EnumSet<JsonOptions> options) throws IOException {
+    JsonSerializer.toJson(this, stream, options);
+  }
+
+  /**
+   * Write a JSON representation of this array to a channel, encoded in UTF-8.
+   *
+   * <p>
+   * The JSON is {@link JsonOptions#COMPACT compact} unless {@link JsonOptions#PRETTY_PRINT} is given, in which case it
+   * is the same as that produced by {@link #toJson(Appendable, JsonOptions...)}. It is encoded as it is written, with
+   * no intermediate strings. Output is buffered, and written to the channel in large blocks. The channel is not closed.
+   *
+   * @param channel The channel.
+   * @param options Options for the JSON encoder.
+   * @throws IOException If an IO error occurs.
+   */
+  default void toJsonUtf8(WritableByteChannel channel, JsonOptions... options) throws IOException {
+    toJsonUtf8(channel, JsonOptions.setFrom(options));
+  }
+
+  /**
+   * Write a JSON representation of this array to a channel, encoded in UTF-8.
+   *
+   * @param channel The channel.
+   * @param options Options for the JSON encoder.
+   * @throws IOException If an IO error occurs.
+   * @see #toJsonUtf8(WritableByteChannel, JsonOptions...)
+   */
+  default void toJsonUtf8(WritableByteChannel channel, EnumSet<JsonOptions> options) throws IOException {
+    JsonSerializer.toJson(this, channel, options);
+  }
+
   /**
    * Return a representation of this array using TOML.
    *
@@ -0,0 +1,218 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to You under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.tomlj;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * A change to a value between two versions of a TOML document.
+ *
+ * <pre>
+ * {@code
+ * for (TomlDiff change : TomlDiff.between(previous, reloaded)) {
+ *   System.out.println(change.kind() + " " + Toml.joinKeyPath(change.path()));
+ * }
+ * }
+ * </pre>
+ */
+public final class TomlDiff {
+
+  /**
+   * The kind of change.
+   */
+  public enum Kind {
+    /**
+     * A key that is only in the new table.
+     */
+    ADDED,
+    /**
+     * A key that is only in the old table.
+     */
+    REMOVED,
+    /**
+     * A key that is in both tables, but with a different value.
+     */
+    CHANGED
+  }
+
+  private final Kind kind;
+  private final List<String> path;
+  @Nullable
+  private final Object oldValue;
+  @Nullable
+  private final Object newValue;
+  @Nullable
+  private final TomlPosition oldPosition;
+  @Nullable
+  private final TomlPosition newPosition;
+
+  /**
+   * Find the changes between two tables.
+   *
+   * <p>
+   * Changes are reported at the deepest key path at which they occur: a key that is added, removed or changed in a
+   * table that is in both the old and the new table is reported by its full path, whereas a table that is added or
+   * removed is reported as a single change. An array is treated as a single value, so any change to its elements (or
+   * to the tables in an array of tables) is reported as a change to the array.
+   *
+   * <p>
+   * Changes are ordered as the keys of the old table, followed by the keys that were added, in the order of the new
+   * table. Tables and arrays that are the same instance are skipped, as are arrays whose cached
+   * {@link Toml#fingerprint(TomlArray) fingerprints} differ, which are reported as changed without comparing their
+   * elements. Values with the same fingerprint are still compared, as equal fingerprints do not prove equivalence.
+   *
+   * @param oldTable The old table.
+   * @param newTable The new table.
+   * @return The changes, which is empty if the tables are equivalent.
+   */
+  public static List<TomlDiff> between(TomlTable oldTable, TomlTable newTable) {
+    requireNonNull(oldTable);
+    requireNonNull(newTable);
+    List<TomlDiff> changes = new ArrayList<>();
+    diff(oldTable, newTable, new ArrayList<>(), changes);
+    return changes;
+  }
+
+  private static void diff(TomlTable oldTable, TomlTable newTable, List<String> path, List<TomlDiff> changes) {
+    Map<String, Object> oldMap = oldTable.asMap();
+    Map<String, Object> newMap = newTable.asMap();
+    for (Map.Entry<String, Object> entry : oldMap.entrySet()) {
+      String key = entry.getKey();
+      Object oldValue = entry.getValue();
+      Object newValue = newMap.get(key);
+      if (newValue == null) {
+        changes.add(new TomlDiff(Kind.REMOVED, path, key, oldValue, null, positionOf(oldTable, key), null));
+      } else if (oldValue instanceof TomlTable && newValue instanceof TomlTable) {
+        if (oldValue != newValue) {
+          path.add(key);
+          diff((TomlTable) oldValue, (TomlTable) newValue, path, changes);
+          path.remove(path.size() - 1);
+        }
+      } else if (!equivalent(oldValue, newValue)) {
+        TomlPosition oldPosition = positionOf(oldTable, key);
+        TomlPosition newPosition = positionOf(newTable, key);
+        changes.add(new TomlDiff(Kind.CHANGED, path, key, oldValue, newValue, oldPosition, newPosition));
+      }
+    }
+    for (Map.Entry<String, Object> entry : newMap.entrySet()) {
+      String key = entry.getKey();
+      if (!oldMap.containsKey(key)) {
+        changes.add(new TomlDiff(Kind.ADDED, path, key, null, entry.getValue(), null, positionOf(newTable, key)));
+      }
+    }
+  }
+
+  @Nullable
+  private static TomlPosition positionOf(TomlTable table, String key) {
+    return table.inputPositionOf(Collections.singletonList(key));
+  }
+
+  // Toml.equals only uses the fingerprints of arrays to find that they differ
+  private static boolean equivalent(Object oldValue, Object newValue) {
+    if (oldValue instanceof TomlArray && newValue instanceof TomlArray) {
+      return Toml.equals((TomlArray) oldValue, (TomlArray) newValue);
+    }
+    return oldValue.equals(newValue);
+  }
+
+  private TomlDiff(
+      Kind kind,
+      List<String> parentPath,
+      String key,
+      @Nullable Object oldValue,
+      @Nullable Object newValue,
+      @Nullable TomlPosition oldPosition,
+      @Nullable TomlPosition newPosition) {
+    List<String> path = new ArrayList<>(parentPath.size() + 1);
+    path.addAll(parentPath);
+    path.add(key);
+    this.kind = kind;
+    this.path = Collections.unmodifiableList(path);
+    this.oldValue = oldValue;
+    this.newValue = newValue;
+    this.oldPosition = oldPosition;
+    this.newPosition = newPosition;
+  }
+
+  /**
+   * The kind of change.
+   *
+   * @return The kind of change.
+   */
+  public Kind kind() {
+    return kind;
+  }
+
+  /**
+   * The path of the changed key.
+   *
+   * @return The path of the changed key, from the root of the tables that were compared.
+   */
+  public List<String> path() {
+    return path;
+  }
+
+  /**
+   * The value in the old table.
+   *
+   * @return The value in the old table, or {@code null} if the key was added.
+   */
+  @Nullable
+  public Object oldValue() {
+    return oldValue;
+  }
+
+  /**
+   * The value in the new table.
+   *
+   * @return The value in the new table, or {@code null} if the key was removed.
+   */
+  @Nullable
+  public Object newValue() {
+    return newValue;
+  }
+
+  /**
+   * The position of the value in the old document.
+   *
+   * @return The position of the value in the old document, or {@code null} if the key was added or the old document
+   *         was parsed without input positions.
+   */
+  @Nullable
+  public TomlPosition oldPosition() {
+    return oldPosition;
+  }
+
+  /**
+   * The position of the value in the new document.
+   *
+   * @return The position of the value in the new document, or {@code null} if the key was removed or the new document
+   *         was parsed without input positions.
+   */
+  @Nullable
+  public TomlPosition newPosition() {
+    return newPosition;
+  }
+
+  @Override
+  public String toString() {
+    return kind + " " + Toml.joinKeyPath(path);
+  }
+}
@@ -0,0 +1,164 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to You under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.tomlj;
+
+import java.util.List;
+
+/**
+ * A handler for events produced while streaming a TOML document.
+ *
+ * <p>
+ * When a document is streamed (e.g. using {@link Toml#parse(String, TomlEventHandler)}), no tables are built. Instead,
+ * the handler is told about each table header, key/value pair and array element in document order, so memory use does
+ * not grow with the number of tables or values in the document.
+ *
+ * <p>
+ * Key paths are always absolute, i.e. they include the path of the enclosing table. Arrays are streamed element by
+ * element between {@link #startArray} and {@link #endArray} events, with nested arrays producing nested start and end
+ * events. Inline tables are delivered whole, as a {@link TomlTable} value.
+ *
+ * <p>
+ * Integers, floats and booleans are delivered to the primitive overloads of {@link #keyValue(List, long, TomlPosition)
+ * keyValue} and {@link #arrayValue(long, TomlPosition) arrayValue}, so no boxing takes place if those are overridden.
+ * By default, they box the value and call the {@code Object} overloads.
+ *
+ * <p>
+ * Because no tables are kept, errors that depend on earlier parts of the document (such as a key or table being
+ * defined twice) are not detected. All other errors are reported through {@link #error(TomlParseError)}, in the order
+ * they are found. Values from an expression containing an error may already have been delivered when the error is
+ * reported.
+ *
+ * <p>
+ * All methods have default implementations, so a handler need only override those for the events it uses.
+ */
+public interface TomlEventHandler {
+
+  /**
+   * Called for a table header (e.g. {@code [server.http]}).
+   *
+   * @param path The path of the table.
+   * @param position The position of the table header.
+   */
+  default void startTable(List<String> path, TomlPosition position) {}
+
+  /**
+   * Called for an array table header (e.g. {@code [[products]]}), each time it appears.
+   *
+   * @param path The path of the array of tables.
+   * @param position The position of the table header.
+   */
+  default void startArrayTable(List<String> path, TomlPosition position) {}
+
+  /**
+   * Called for a key/value pair whose value is not an array, integer, float or boolean.
+   *
+   * @param path The absolute path of the key.
+   * @param value The value, which will be a {@link String}, {@link java.time.OffsetDateTime},
+   *        {@link java.time.LocalDateTime}, {@link java.time.LocalDate}, {@link java.time.LocalTime} or
+   *        {@link TomlTable}, or a boxed primitive if passed on by the default primitive overloads.
+   * @param position The position of the key.
+   */
+  default void keyValue(List<String> path, Object value, TomlPosition position) {}
+
+  /**
+   * Called for a key/value pair whose value is an integer.
+   *
+   * @param path The absolute path of the key.
+   * @param value The value.
+   * @param position The position of the key.
+   */
+  default void keyValue(List<String> path, long value, TomlPosition position) {
+    keyValue(path, (Object) value, position);
+  }
+
+  /**
+   * Called for a key/value pair whose value is a float.
+   *
+   * @param path The absolute path of the key.
+   * @param value The value.
+   * @param position The position of the key.
+   */
+  default void keyValue(List<String> path, double value, TomlPosition position) {
+    keyValue(path, (Object) value, position);
+  }
+
+  /**
+   * Called for a key/value pair whose value is a boolean.
+   *
+   * @param path The absolute path of the key.
+   * @param value The value.
+   * @param position The position of the key.
+   */
+  default void keyValue(List<String> path, boolean value, TomlPosition position) {
+    keyValue(path, (Object) value, position);
+  }
+
+  /**
+   * Called at the start of an array.
+   *
+   * @param path The absolute path of the key the array is assigned to. For a nested array, this is the path of the
+   *        outermost array.
+   * @param position The position of the key, or for a nested array, of the array element.
+   */
+  default void startArray(List<String> path, TomlPosition position) {}
+
+  /**
+   * Called for each element of an array that is not itself an array, or an integer, float or boolean.
+   *
+   * @param value The value, of one of the types listed for {@link #keyValue(List, Object, TomlPosition)}.
+   * @param position The position of the element.
+   */
+  default void arrayValue(Object value, TomlPosition position) {}
+
+  /**
+   * Called for each integer element of an array.
+   *
+   * @param value The value.
+   * @param position The position of the element.
+   */
+  default void arrayValue(long value, TomlPosition position) {
+    arrayValue((Object) value, position);
+  }
+
+  /**
+   * Called for each float element of an array.
+   *
+   * @param value The value.
+   * @param position The position of the element.
+   */
+  default void arrayValue(double value, TomlPosition position) {
+    arrayValue((Object) value, position);
+  }
+
+  /**
+   * Called for each boolean element of an array.
+   *
+   * @param value The value.
+   * @param position The position of the element.
+   */
+  default void arrayValue(boolean value, TomlPosition position) {
+    arrayValue((Object) value, position);
+  }
+
+  /**
+   * Called at the end of an array.
+   */
+  default void endArray() {}
+
+  /**
+   * Called for each error found in the document.
+   *
+   * @param error The error.
+   */
+  default void error(TomlParseError error) {}
+}
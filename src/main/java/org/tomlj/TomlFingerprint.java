@@ -0,0 +1,106 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to You under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.tomlj;
+
+import static org.tomlj.TomlType.typeFor;
+
+import java.util.Optional;
+
+/**
+ * Structural 64-bit fingerprints of tables and arrays, consistent with {@link Toml#equals(TomlTable, TomlTable)} and
+ * {@link Toml#equals(TomlArray, TomlArray)}.
+ *
+ * <p>
+ * Parsed tables and arrays are not modified once parsing is complete, so they compute their fingerprint once and keep
+ * it. The fingerprint of a table does not depend on the order of its keys.
+ */
+final class TomlFingerprint {
+  private TomlFingerprint() {}
+
+  private static final long MULTIPLIER = 0x9e3779b97f4a7c15L;
+
+  static long of(TomlTable table) {
+    if (table instanceof FrozenTomlTable) {
+      return ((FrozenTomlTable) table).fingerprint();
+    }
+    if (table instanceof Parser.ParseResult) {
+      return of(((Parser.ParseResult) table).table());
+    }
+    return compute(table);
+  }
+
+  static long of(TomlArray array) {
+    if (array instanceof MutableTomlArray) {
+      return ((MutableTomlArray) array).fingerprint();
+    }
+    return compute(array);
+  }
+
+  // Whether the fingerprint of the table or array is kept, so comparing fingerprints is cheaper than comparing values
+  static boolean isCached(Object value) {
+    if (value instanceof Parser.ParseResult) {
+      return isCached(((Parser.ParseResult) value).table());
+    }
+    return value instanceof FrozenTomlTable || value instanceof MutableTomlArray;
+  }
+
+  static long compute(TomlTable table) {
+    // a sum of the entry fingerprints, so that the order of the entries does not matter
+    long[] sum = new long[2];
+    table.forEach((key, value) -> {
+      sum[0] += mix(key.hashCode() * MULTIPLIER + ofValue(value));
+      ++sum[1];
+    });
+    return mix(sum[0] + sum[1] * MULTIPLIER);
+  }
+
+  static long compute(TomlArray array) {
+    int size = array.size();
+    long hash = size;
+    for (int i = 0; i < size; ++i) {
+      hash = hash * MULTIPLIER + ofValue(array.get(i));
+    }
+    return mix(hash);
+  }
+
+  private static long ofValue(Object value) {
+    Optional<TomlType> tomlType = typeFor(value);
+    assert tomlType.isPresent();
+    long bits;
+    switch (tomlType.get()) {
+      case TABLE:
+        return of((TomlTable) value);
+      case ARRAY:
+        return of((TomlArray) value);
+      case INTEGER:
+        bits = (Long) value;
+        break;
+      case FLOAT:
+        bits = Double.doubleToLongBits((Double) value);
+        break;
+      case BOOLEAN:
+        bits = ((Boolean) value) ? 1 : 0;
+        break;
+      default:
+        bits = value.hashCode();
+    }
+    return mix(bits + tomlType.get().ordinal() * MULTIPLIER);
+  }
+
+  // The MurmurHash3 64-bit finalizer
+  static long mix(long z) {
+    z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+    z = (z ^ (z >>> 33)) * 0xc4ceb9fe1a85ec53L;
+    return z ^ (z >>> 33);
+  }
+}
@@ -0,0 +1,116 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to You under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.tomlj;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * A pre-parsed key into a TOML table.
+ *
+ * <p>
+ * A key is parsed once, when it is created, and can then be used for any number of lookups without further parsing or
+ * allocation. Keys are immutable and may be shared between threads and documents.
+ *
+ * <pre>
+ * {@code
+ * static final TomlKey PORT = TomlKey.of("server.http.port");
+ * ...
+ * long port = table.getLong(PORT, () -> 8080);
+ * }
+ * </pre>
+ */
+public final class TomlKey {
+
+  final String[] segments;
+  private final List<String> path;
+  @Nullable
+  private String dottedKey;
+
+  private TomlKey(String[] segments) {
+    this.segments = segments;
+    this.path = Collections.unmodifiableList(Arrays.asList(segments));
+  }
+
+  /**
+   * Create a key from a dotted key string.
+   *
+   * @param dottedKey A dotted key (e.g. {@code "server.address.port"}).
+   * @return The key.
+   * @throws IllegalArgumentException If the key cannot be parsed, or is empty.
+   */
+  public static TomlKey of(String dottedKey) {
+    requireNonNull(dottedKey);
+    return of(Parser.parseDottedKey(dottedKey));
+  }
+
+  /**
+   * Create a key from a key path.
+   *
+   * @param path The key path.
+   * @return The key.
+   * @throws IllegalArgumentException If the path is empty.
+   */
+  public static TomlKey of(List<String> path) {
+    requireNonNull(path);
+    if (path.isEmpty()) {
+      throw new IllegalArgumentException("empty path");
+    }
+    String[] segments = new String[path.size()];
+    for (int i = 0; i < segments.length; ++i) {
+      segments[i] = requireNonNull(path.get(i));
+    }
+    return new TomlKey(segments);
+  }
+
+  /**
+   * @return The key path.
+   */
+  public List<String> path() {
+    return path;
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (!(obj instanceof TomlKey)) {
+      return false;
+    }
+    return Arrays.equals(segments, ((TomlKey) obj).segments);
+  }
+
+  @Override
+  public int hashCode() {
+    return Arrays.hashCode(segments);
+  }
+
+  /**
+   * @return The canonical dotted form of this key.
+   */
+  @Override
+  public String toString() {
+    String key = dottedKey;
+    if (key == null) {
+      key = Toml.joinKeyPath(path);
+      dottedKey = key;
+    }
+    return key;
+  }
+}
@@ -0,0 +1,147 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to You under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.tomlj;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Options for parsing a TOML document.
+ *
+ * <p>
+ * Options are immutable: each {@code with} method returns a new set of options.
+ *
+ * <pre>
+ * {@code
+ * TomlParseResult result = Toml.parse(path, TomlParseOptions.defaults().withInputPositions(false));
+ * }
+ * </pre>
+ */
+public final class TomlParseOptions {
+  private static final TomlParseOptions DEFAULTS = new TomlParseOptions(TomlVersion.LATEST, false, true, false);
+
+  private final TomlVersion version;
+  private final boolean incremental;
+  private final boolean inputPositions;
+  private final boolean frozenTables;
+
+  /**
+   * The default options: parse at {@link TomlVersion#LATEST}, not incrementally, keeping input positions, and without
+   * freezing the tables.
+   *
+   * @return The default options.
+   */
+  public static TomlParseOptions defaults() {
+    return DEFAULTS;
+  }
+
+  private TomlParseOptions(TomlVersion version, boolean incremental, boolean inputPositions, boolean frozenTables) {
+    this.version = version;
+    this.incremental = incremental;
+    this.inputPositions = inputPositions;
+    this.frozenTables = frozenTables;
+  }
+
+  /**
+   * The version level to parse at.
+   *
+   * @return The version level to parse at.
+   */
+  public TomlVersion version() {
+    return version;
+  }
+
+  /**
+   * Set the version level to parse at.
+   *
+   * @param version The version level to parse at.
+   * @return Options with the given version.
+   */
+  public TomlParseOptions withVersion(TomlVersion version) {
+    requireNonNull(version);
+    return new TomlParseOptions(version, incremental, inputPositions, frozenTables);
+  }
+
+  /**
+   * Whether the result can be incrementally reparsed.
+   *
+   * @return {@code true} if the result can be passed to {@link Toml#reparse(TomlParseResult, int, int, String)}.
+   */
+  public boolean incremental() {
+    return incremental;
+  }
+
+  /**
+   * Set whether the result can be incrementally reparsed.
+   *
+   * <p>
+   * An incremental result keeps the input text and the parsed expressions, so that after an edit to the text
+   * {@link Toml#reparse(TomlParseResult, int, int, String)} only needs to parse the lines around the edit. The result
+   * of a reparse can itself be reparsed. This suits editors that parse a document on every change.
+   *
+   * @param incremental {@code true} to allow the result to be incrementally reparsed.
+   * @return Options with the given setting.
+   */
+  public TomlParseOptions withIncremental(boolean incremental) {
+    return new TomlParseOptions(version, incremental, inputPositions, frozenTables);
+  }
+
+  /**
+   * Whether the input positions of values are kept.
+   *
+   * @return {@code true} if the input positions of values are kept.
+   */
+  public boolean inputPositions() {
+    return inputPositions;
+  }
+
+  /**
+   * Set whether the input positions of values are kept.
+   *
+   * <p>
+   * Without input positions, {@link TomlTable#inputPositionOf(String)} returns {@code null} for every key,
+   * {@link TomlArray#inputPositionOf(int)} throws {@link IllegalStateException}, and the parsed tables and arrays use
+   * less memory. Parse errors still report their position. The tables are always frozen (see
+   * {@link #withFrozenTables(boolean)}), since freezing is what discards their positions.
+   *
+   * @param inputPositions {@code true} to keep the input positions of values.
+   * @return Options with the given setting.
+   */
+  public TomlParseOptions withInputPositions(boolean inputPositions) {
+    return new TomlParseOptions(version, incremental, inputPositions, frozenTables);
+  }
+
+  /**
+   * Whether the parsed tables are frozen.
+   *
+   * @return {@code true} if the parsed tables are frozen.
+   */
+  public boolean frozenTables() {
+    return frozenTables;
+  }
+
+  /**
+   * Set whether the parsed tables are frozen.
+   *
+   * <p>
+   * Once parsing is complete, frozen tables are copied into a compact read-only form: the keys of each table are held
+   * in a single array (with keys that occur in many tables shared), the values in a parallel array, and the input
+   * positions packed into a third. This takes extra time while parsing, but the tables then use about a third of the
+   * memory. This suits documents that are kept for a long time, rather than parsed, read once and discarded.
+   *
+   * @param frozenTables {@code true} to freeze the parsed tables.
+   * @return Options with the given setting.
+   */
+  public TomlParseOptions withFrozenTables(boolean frozenTables) {
+    return new TomlParseOptions(version, incremental, inputPositions, frozenTables);
+  }
+}
@@ -0,0 +1,92 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to You under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.tomlj;
+
+import org.tomlj.internal.TomlLexer;
+import org.tomlj.internal.TomlParser;
+
+import java.lang.ref.SoftReference;
+
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.DefaultErrorStrategy;
+import org.antlr.v4.runtime.atn.PredictionMode;
+
+/**
+ * Per-thread reuse of the ANTLR lexer, token stream and parser.
+ *
+ * <p>
+ * Creating these for every document re-allocates their internal state (including the ATN simulators), so each thread
+ * keeps one set and resets it between documents. A nested acquire on the same thread gets a fresh, unpooled set.
+ *
+ * <p>
+ * Each thread holds its set through a soft reference, so that threads that outlive the library (such as the pooled
+ * threads of a container) do not keep its classes loaded once memory is needed.
+ */
+final class TomlParserPool implements AutoCloseable {
+
+  private static final ThreadLocal<SoftReference<TomlParserPool>> POOL = new ThreadLocal<>();
+
+  // char streams hold a read position, so each pool has its own
+  private final CharStream emptyInput = CharStreams.fromString("");
+  private final TomlLexer lexer = new TomlLexer(emptyInput);
+  private final CommonTokenStream tokens = new CommonTokenStream(lexer);
+  private final TomlParser parser = new TomlParser(tokens);
+  private boolean inUse;
+
+  private TomlParserPool() {}
+
+  /**
+   * Acquire the parser for the current thread. It must be released by calling {@link #close()}.
+   */
+  static TomlParserPool acquire() {
+    SoftReference<TomlParserPool> reference = POOL.get();
+    TomlParserPool pool = (reference != null) ? reference.get() : null;
+    if (pool == null) {
+      pool = new TomlParserPool();
+      POOL.set(new SoftReference<>(pool));
+    } else if (pool.inUse) {
+      pool = new TomlParserPool();
+    }
+    pool.inUse = true;
+    return pool;
+  }
+
+  /**
+   * Reset the lexer, token stream and parser to read a new input.
+   *
+   * <p>
+   * The parser is returned with no error listeners, the default error strategy and LL prediction.
+   */
+  TomlParser parser(CharStream input, int lexerMode) {
+    // setInputStream resets the lexer, including its mode stack and array depth
+    lexer.setInputStream(input);
+    lexer.mode(lexerMode);
+    tokens.setTokenSource(lexer);
+    parser.setTokenStream(tokens);
+    parser.removeErrorListeners();
+    parser.setErrorHandler(new DefaultErrorStrategy());
+    parser.getInterpreter().setPredictionMode(PredictionMode.LL);
+    return parser;
+  }
+
+  /**
+   * Release the parser, dropping any references to the last input and its tokens.
+   */
+  @Override
+  public void close() {
+    parser(emptyInput, TomlLexer.DEFAULT_MODE);
+    inUse = false;
+  }
+}
@@ -78,6 +78,27 @@ public final class TomlPosition {
     return column;
   }
 
+  TomlPosition plusLines(int lines) {
+    return (lines == 0) ? this : new TomlPosition(line + lines, column);
+  }
+
+  // Positions are held packed into a long by the parsed tables and arrays, rather than as an object per value
+  long pack() {
+    return pack(line, column);
+  }
+
+  static long pack(int line, int column) {
+    return ((long) line << 32) | column;
+  }
+
+  static long plusLines(long position, int lines) {
+    return position + ((long) lines << 32);
+  }
+
+  static TomlPosition unpack(long position) {
+    return new TomlPosition((int) (position >>> 32), (int) position);
+  }
+
   @Override
   public boolean equals(Object obj) {
     if (obj == this) {
@@ -0,0 +1,500 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to You under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.tomlj;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * A cursor over the events of a TOML document, read without building any tables.
+ *
+ * <p>
+ * This is the pull equivalent of a {@link TomlEventHandler}: each call to {@link #next()} advances to the next event,
+ * which can then be examined using the accessor methods. The events and their key paths are the same as those sent to
+ * a {@link TomlEventHandler}, with a final {@link Event#END_DOCUMENT} event.
+ *
+ * <pre>
+ * {@code
+ * TomlReader reader = Toml.reader(Paths.get("config.toml"));
+ * while (reader.next() != TomlReader.Event.END_DOCUMENT) {
+ *   if (reader.event() == TomlReader.Event.START_TABLE && !reader.currentKeyPath().get(0).equals("mine")) {
+ *     reader.skipTable();
+ *   } else if (reader.event() == TomlReader.Event.KEY_VALUE && reader.isLong()) {
+ *     long value = reader.longValue();
+ *     ...
+ *   }
+ * }
+ * }
+ * </pre>
+ *
+ * <p>
+ * The document is parsed one expression (key/value pair or table header) at a time, as events are requested. As with
+ * a {@link TomlEventHandler}, errors that depend on earlier definitions (such as a key being defined twice) are not
+ * detected.
+ *
+ * <p>
+ * A reader is not thread safe.
+ */
+public final class TomlReader {
+
+  /**
+   * The kinds of event.
+   */
+  public enum Event {
+    /** A table header (e.g. {@code [server.http]}). */
+    START_TABLE,
+    /** An array table header (e.g. {@code [[products]]}). */
+    START_ARRAY_TABLE,
+    /** A key/value pair whose value is not an array. */
+    KEY_VALUE,
+    /** The start of an array. */
+    START_ARRAY,
+    /** An element of an array that is not itself an array. */
+    ARRAY_VALUE,
+    /** The end of an array. */
+    END_ARRAY,
+    /** An error in the document. */
+    ERROR,
+    /** The end of the document. */
+    END_DOCUMENT
+  }
+
+  private final RecursiveDescentParser parser;
+
+  // Events found in the current expression, waiting to be read
+  private Event[] events = new Event[16];
+  private Object[] paths = new Object[16];
+  private Object[] positions = new Object[16];
+  private TomlType[] types = new TomlType[16];
+  private long[] longs = new long[16];
+  private double[] doubles = new double[16];
+  private Object[] objects = new Object[16];
+  private int size;
+  private int index;
+
+  private final List<List<String>> arrayPaths = new ArrayList<>();
+  private boolean skipping;
+
+  // The current event
+  @Nullable
+  private Event event;
+  private List<String> keyPath = Collections.emptyList();
+  @Nullable
+  private TomlPosition position;
+  @Nullable
+  private TomlType type;
+  private long longValue;
+  private double doubleValue;
+  @Nullable
+  private Object value;
+
+  TomlReader(CharSequence input, TomlVersion version) {
+    this.parser = RecursiveDescentParser.streaming(input, version, new Handler());
+  }
+
+  /**
+   * Check whether there are more events.
+   *
+   * @return {@code false} if the current event is {@link Event#END_DOCUMENT}.
+   */
+  public boolean hasNext() {
+    return event != Event.END_DOCUMENT;
+  }
+
+  /**
+   * Advance to the next event.
+   *
+   * @return The event.
+   * @throws NoSuchElementException If the current event is {@link Event#END_DOCUMENT}.
+   */
+  public Event next() {
+    if (event == Event.END_DOCUMENT) {
+      throw new NoSuchElementException();
+    }
+    while (index >= size) {
+      if (!fill()) {
+        event = Event.END_DOCUMENT;
+        keyPath = Collections.emptyList();
+        position = null;
+        type = null;
+        value = null;
+        return Event.END_DOCUMENT;
+      }
+    }
+    int i = index++;
+    event = events[i];
+    @SuppressWarnings("unchecked")
+    List<String> path = (List<String>) paths[i];
+    keyPath = path;
+    position = (TomlPosition) positions[i];
+    type = types[i];
+    longValue = longs[i];
+    doubleValue = doubles[i];
+    value = objects[i];
+    return events[i];
+  }
+
+  /**
+   * Skip the rest of the current table.
+   *
+   * <p>
+   * After this call, {@link #next()} returns the next {@link Event#START_TABLE} or {@link Event#START_ARRAY_TABLE}
+   * event, or {@link Event#END_DOCUMENT}. Values in the skipped part of the document are only scanned for the end of
+   * each value, and are not converted or kept. Any errors in the skipped part are ignored.
+   */
+  public void skipTable() {
+    while (index < size) {
+      if (events[index] == Event.START_TABLE || events[index] == Event.START_ARRAY_TABLE) {
+        return;
+      }
+      ++index;
+    }
+    skipping = true;
+    parser.skipValues(true);
+    try {
+      while (index >= size && fill()) {
+        // continue
+      }
+    } finally {
+      skipping = false;
+      parser.skipValues(false);
+    }
+  }
+
+  /**
+   * The current event.
+   *
+   * @return The current event, or {@code null} if {@link #next()} has not yet been called.
+   */
+  @Nullable
+  public Event event() {
+    return event;
+  }
+
+  /**
+   * The key path of the current event.
+   *
+   * <p>
+   * For a table header this is the path of the table. For a key/value pair or array, it is the absolute path of the
+   * key, and for an array element, the absolute path of the key the (outermost) array is assigned to. For other events
+   * it is empty.
+   *
+   * @return The key path of the current event.
+   */
+  public List<String> currentKeyPath() {
+    return keyPath;
+  }
+
+  /**
+   * The position of the current event.
+   *
+   * @return The position of the current event, or {@code null} at the end of the document.
+   * @throws IllegalStateException If {@link #next()} has not yet been called.
+   */
+  @Nullable
+  public TomlPosition position() {
+    checkStarted();
+    return position;
+  }
+
+  /**
+   * The error for an {@link Event#ERROR} event.
+   *
+   * @return The error.
+   * @throws IllegalStateException If the current event is not an error.
+   */
+  public TomlParseError error() {
+    if (event != Event.ERROR) {
+      throw new IllegalStateException("Current event is not an error");
+    }
+    return (TomlParseError) value;
+  }
+
+  /**
+   * Check if the current value is a string.
+   *
+   * @return {@code true} if the current event is a value, and it is a string.
+   */
+  public boolean isString() {
+    return type == TomlType.STRING;
+  }
+
+  /**
+   * Check if the current value is a long.
+   *
+   * @return {@code true} if the current event is a value, and it is a long.
+   */
+  public boolean isLong() {
+    return type == TomlType.INTEGER;
+  }
+
+  /**
+   * Check if the current value is a double.
+   *
+   * @return {@code true} if the current event is a value, and it is a double.
+   */
+  public boolean isDouble() {
+    return type == TomlType.FLOAT;
+  }
+
+  /**
+   * Check if the current value is a boolean.
+   *
+   * @return {@code true} if the current event is a value, and it is a boolean.
+   */
+  public boolean isBoolean() {
+    return type == TomlType.BOOLEAN;
+  }
+
+  /**
+   * Check if the current value is an inline table.
+   *
+   * @return {@code true} if the current event is a value, and it is a table.
+   */
+  public boolean isTable() {
+    return type == TomlType.TABLE;
+  }
+
+  /**
+   * The current value, as a string.
+   *
+   * @return The value.
+   * @throws IllegalStateException If the current event is not a value.
+   * @throws TomlInvalidTypeException If the value is not a string.
+   */
+  public String stringValue() {
+    checkType(TomlType.STRING);
+    return (String) value;
+  }
+
+  /**
+   * The current value, as a long.
+   *
+   * @return The value.
+   * @throws IllegalStateException If the current event is not a value.
+   * @throws TomlInvalidTypeException If the value is not a long.
+   */
+  public long longValue() {
+    checkType(TomlType.INTEGER);
+    return longValue;
+  }
+
+  /**
+   * The current value, as a double.
+   *
+   * @return The value.
+   * @throws IllegalStateException If the current event is not a value.
+   * @throws TomlInvalidTypeException If the value is not a double.
+   */
+  public double doubleValue() {
+    checkType(TomlType.FLOAT);
+    return doubleValue;
+  }
+
+  /**
+   * The current value, as a boolean.
+   *
+   * @return The value.
+   * @throws IllegalStateException If the current event is not a value.
+   * @throws TomlInvalidTypeException If the value is not a boolean.
+   */
+  public boolean booleanValue() {
+    checkType(TomlType.BOOLEAN);
+    return longValue != 0;
+  }
+
+  /**
+   * The current value.
+   *
+   * <p>
+   * Longs, doubles and booleans are boxed. The value may also be an {@link OffsetDateTime}, {@link LocalDateTime},
+   * {@link LocalDate}, {@link LocalTime} or {@link TomlTable} (for an inline table).
+   *
+   * @return The value.
+   * @throws IllegalStateException If the current event is not a value.
+   */
+  public Object value() {
+    if (type == null) {
+      throw new IllegalStateException("Current event is not a value");
+    }
+    switch (type) {
+      case INTEGER:
+        return longValue;
+      case FLOAT:
+        return doubleValue;
+      case BOOLEAN:
+        return longValue != 0;
+      default:
+        assert value != null;
+        return value;
+    }
+  }
+
+  private void checkStarted() {
+    if (event == null) {
+      throw new IllegalStateException("next() has not been called");
+    }
+  }
+
+  private void checkType(TomlType expected) {
+    if (type == null) {
+      throw new IllegalStateException("Current event is not a value");
+    }
+    if (type != expected) {
+      throw new TomlInvalidTypeException("Value of '" + Toml.joinKeyPath(keyPath) + "' is a " + type.typeName());
+    }
+  }
+
+  // Parse the next expression, returning false at the end of the input
+  private boolean fill() {
+    Arrays.fill(paths, 0, size, null);
+    Arrays.fill(positions, 0, size, null);
+    Arrays.fill(objects, 0, size, null);
+    size = 0;
+    index = 0;
+    return parser.nextExpression();
+  }
+
+  private void add(
+      Event event,
+      List<String> path,
+      @Nullable TomlPosition position,
+      @Nullable TomlType type,
+      long longValue,
+      double doubleValue,
+      @Nullable Object value) {
+    if (size == events.length) {
+      int capacity = size * 2;
+      events = Arrays.copyOf(events, capacity);
+      paths = Arrays.copyOf(paths, capacity);
+      positions = Arrays.copyOf(positions, capacity);
+      types = Arrays.copyOf(types, capacity);
+      longs = Arrays.copyOf(longs, capacity);
+      doubles = Arrays.copyOf(doubles, capacity);
+      objects = Arrays.copyOf(objects, capacity);
+    }
+    events[size] = event;
+    paths[size] = path;
+    positions[size] = position;
+    types[size] = type;
+    longs[size] = longValue;
+    doubles[size] = doubleValue;
+    objects[size] = value;
+    ++size;
+  }
+
+  private List<String> arrayPath() {
+    return arrayPaths.get(arrayPaths.size() - 1);
+  }
+
+  private final class Handler implements TomlEventHandler {
+
+    @Override
+    public void startTable(List<String> path, TomlPosition position) {
+      add(Event.START_TABLE, path, position, null, 0, 0, null);
+    }
+
+    @Override
+    public void startArrayTable(List<String> path, TomlPosition position) {
+      add(Event.START_ARRAY_TABLE, path, position, null, 0, 0, null);
+    }
+
+    @Override
+    public void keyValue(List<String> path, Object value, TomlPosition position) {
+      if (!skipping) {
+        add(Event.KEY_VALUE, path, position, TomlType.typeFor(value).get(), 0, 0, value);
+      }
+    }
+
+    @Override
+    public void keyValue(List<String> path, long value, TomlPosition position) {
+      if (!skipping) {
+        add(Event.KEY_VALUE, path, position, TomlType.INTEGER, value, 0, null);
+      }
+    }
+
+    @Override
+    public void keyValue(List<String> path, double value, TomlPosition position) {
+      if (!skipping) {
+        add(Event.KEY_VALUE, path, position, TomlType.FLOAT, 0, value, null);
+      }
+    }
+
+    @Override
+    public void keyValue(List<String> path, boolean value, TomlPosition position) {
+      if (!skipping) {
+        add(Event.KEY_VALUE, path, position, TomlType.BOOLEAN, value ? 1 : 0, 0, null);
+      }
+    }
+
+    @Override
+    public void startArray(List<String> path, TomlPosition position) {
+      if (!skipping) {
+        arrayPaths.add(path);
+        add(Event.START_ARRAY, path, position, null, 0, 0, null);
+      }
+    }
+
+    @Override
+    public void arrayValue(Object value, TomlPosition position) {
+      if (!skipping) {
+        add(Event.ARRAY_VALUE, arrayPath(), position, TomlType.typeFor(value).get(), 0, 0, value);
+      }
+    }
+
+    @Override
+    public void arrayValue(long value, TomlPosition position) {
+      if (!skipping) {
+        add(Event.ARRAY_VALUE, arrayPath(), position, TomlType.INTEGER, value, 0, null);
+      }
+    }
+
+    @Override
+    public void arrayValue(double value, TomlPosition position) {
+      if (!skipping) {
+        add(Event.ARRAY_VALUE, arrayPath(), position, TomlType.FLOAT, 0, value, null);
+      }
+    }
+
+    @Override
+    public void arrayValue(boolean value, TomlPosition position) {
+      if (!skipping) {
+        add(Event.ARRAY_VALUE, arrayPath(), position, TomlType.BOOLEAN, value ? 1 : 0, 0, null);
+      }
+    }
+
+    @Override
+    public void endArray() {
+      if (!skipping) {
+        List<String> path = arrayPaths.remove(arrayPaths.size() - 1);
+        add(Event.END_ARRAY, path, null, null, 0, 0, null);
+      }
+    }
+
+    @Override
+    public void error(TomlParseError error) {
+      if (!skipping) {
+        add(Event.ERROR, Collections.emptyList(), error.position(), null, 0, 0, error);
+      }
+    }
+  }
+}
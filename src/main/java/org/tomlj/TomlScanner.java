@@ -0,0 +1,1000 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to You under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.tomlj;
+
+import java.util.Arrays;
+
+/**
+ * A hand-written scanner that produces the same token sequence as the ANTLR generated {@code TomlLexer}.
+ *
+ * <p>
+ * No token objects are created: the scanner exposes the type, offsets and position of the current token, and is
+ * advanced by calling {@link #next()}. Whitespace and comments are skipped. The lexer modes, and the array depth
+ * tracking, mirror those in {@code TomlLexer.g4} so that the parser sees exactly the same tokens (including in error
+ * cases).
+ */
+final class TomlScanner {
+
+  // Token types
+  static final int EOF = -1;
+  static final int NEW_LINE = 0;
+  static final int DOT = 1;
+  static final int EQUALS = 2;
+  static final int QUOTATION_MARK = 3;
+  static final int APOSTROPHE = 4;
+  static final int TRIPLE_QUOTATION_MARK = 5;
+  static final int TRIPLE_APOSTROPHE = 6;
+  static final int TABLE_KEY_START = 7;
+  static final int TABLE_KEY_END = 8;
+  static final int ARRAY_TABLE_KEY_START = 9;
+  static final int ARRAY_TABLE_KEY_END = 10;
+  static final int UNQUOTED_KEY = 11;
+  static final int STRING_CHARS = 12;
+  static final int ESCAPE_SEQUENCE = 13;
+  static final int DECIMAL_INTEGER = 14;
+  static final int HEX_INTEGER = 15;
+  static final int OCTAL_INTEGER = 16;
+  static final int BINARY_INTEGER = 17;
+  static final int FLOATING_POINT = 18;
+  static final int FLOATING_POINT_INF = 19;
+  static final int FLOATING_POINT_NAN = 20;
+  static final int TRUE_BOOLEAN = 21;
+  static final int FALSE_BOOLEAN = 22;
+  static final int DATE_DIGITS = 23;
+  static final int ARRAY_START = 24;
+  static final int ARRAY_END = 25;
+  static final int COMMA = 26;
+  static final int INLINE_TABLE_START = 27;
+  static final int INLINE_TABLE_END = 28;
+  static final int DASH = 29;
+  static final int PLUS = 30;
+  static final int COLON = 31;
+  static final int Z = 32;
+  static final int TIME_DELIMITER = 33;
+  static final int ERROR = 34;
+
+  // Lexer modes
+  static final int DEFAULT_MODE = 0;
+  static final int TOML_KEY_MODE = 1;
+  private static final int VALUE_MODE = 2;
+  private static final int BASIC_STRING_MODE = 3;
+  private static final int ML_BASIC_STRING_MODE = 4;
+  private static final int LITERAL_STRING_MODE = 5;
+  private static final int ML_LITERAL_STRING_MODE = 6;
+  private static final int DATE_MODE = 7;
+  private static final int INLINE_TABLE_MODE = 8;
+
+  private final CharSequence input;
+  private final int length;
+
+  private int pos;
+  private int line;
+  private int column;
+
+  private int mode;
+  private int[] modeStack = new int[8];
+  private int modeStackSize = 0;
+  private int arrayDepth = 0;
+  private int[] arrayDepthStack = new int[8];
+  private int arrayDepthStackSize = 0;
+
+  // Current token
+  private int type;
+  private int start;
+  private int end;
+  private int tokenLine;
+  private int tokenColumn;
+
+  TomlScanner(CharSequence input) {
+    this(input, 0, input.length(), 1, 0, DEFAULT_MODE);
+  }
+
+  private TomlScanner(CharSequence input, int start, int end, int line, int column, int mode) {
+    this.input = input;
+    this.length = end;
+    this.pos = start;
+    this.line = line;
+    this.column = column;
+    this.mode = mode;
+  }
+
+  /**
+   * Create a scanner for part of the input, which must start at the beginning of a line.
+   *
+   * @param input The input.
+   * @param start The offset to start scanning at.
+   * @param end The offset to stop scanning at.
+   * @param line The line number of the start offset.
+   * @return A scanner.
+   */
+  static TomlScanner forRange(CharSequence input, int start, int end, int line) {
+    return new TomlScanner(input, start, end, line, 0, DEFAULT_MODE);
+  }
+
+  /**
+   * @return The type of the current token.
+   */
+  int type() {
+    return type;
+  }
+
+  /**
+   * @return The offset of the first character of the current token.
+   */
+  int start() {
+    return start;
+  }
+
+  /**
+   * @return The offset following the last character of the current token.
+   */
+  int end() {
+    return end;
+  }
+
+  /**
+   * @return The line of the current token.
+   */
+  int line() {
+    return tokenLine;
+  }
+
+  /**
+   * @return The column of the current token.
+   */
+  int column() {
+    return tokenColumn;
+  }
+
+  /**
+   * @return The position of the current token.
+   */
+  TomlPosition position() {
+    return TomlPosition.positionAt(tokenLine, tokenColumn);
+  }
+
+  /**
+   * @return The text of the current token.
+   */
+  String text() {
+    return input.subSequence(start, end).toString();
+  }
+
+  CharSequence input() {
+    return input;
+  }
+
+  /**
+   * @return The line following the current token.
+   */
+  int lineAfter() {
+    return line;
+  }
+
+  /**
+   * @return {@code true} if the current token is a line break after which the scanner is in the same state as a new
+   *         scanner starting on the next line.
+   */
+  boolean atCleanLineBreak() {
+    return type == NEW_LINE
+        && mode == DEFAULT_MODE
+        && modeStackSize == 0
+        && arrayDepth == 0
+        && arrayDepthStackSize == 0;
+  }
+
+  /**
+   * Advance to the next (non-hidden) token.
+   *
+   * @return The type of the token.
+   */
+  int next() {
+    while (true) {
+      start = pos;
+      tokenLine = line;
+      tokenColumn = column + 1;
+      if (pos >= length) {
+        end = pos;
+        return type = EOF;
+      }
+      int t;
+      switch (mode) {
+        case DEFAULT_MODE:
+          t = scanDefault();
+          break;
+        case TOML_KEY_MODE:
+          t = scanTomlKey();
+          break;
+        case VALUE_MODE:
+          t = scanValue();
+          break;
+        case BASIC_STRING_MODE:
+          t = scanBasicString();
+          break;
+        case ML_BASIC_STRING_MODE:
+          t = scanMLBasicString();
+          break;
+        case LITERAL_STRING_MODE:
+          t = scanLiteralString();
+          break;
+        case ML_LITERAL_STRING_MODE:
+          t = scanMLLiteralString();
+          break;
+        case DATE_MODE:
+          t = scanDate();
+          break;
+        case INLINE_TABLE_MODE:
+          t = scanInlineTable();
+          break;
+        default:
+          throw new IllegalStateException("Unknown mode " + mode);
+      }
+      end = pos;
+      if (t != -2) {
+        return type = t;
+      }
+    }
+  }
+
+  /**
+   * Skip all input up to (but not including) the next line break, and return to the default mode.
+   */
+  void skipLine() {
+    int i = pos;
+    while (i < length) {
+      char c = input.charAt(i);
+      if (c == '\n' || (c == '\r' && i + 1 < length && input.charAt(i + 1) == '\n')) {
+        break;
+      }
+      ++i;
+    }
+    advanceTo(i);
+    mode = DEFAULT_MODE;
+    modeStackSize = 0;
+    arrayDepth = 0;
+    arrayDepthStackSize = 0;
+  }
+
+  // A hidden token (whitespace or comment) - scanning continues
+  private static final int HIDDEN = -2;
+
+  private int scanDefault() {
+    char c = input.charAt(pos);
+    switch (c) {
+      case '.':
+        return single(DOT);
+      case '=':
+        arrayDepth = 0;
+        arrayDepthStackSize = 0;
+        pushMode(VALUE_MODE);
+        return single(EQUALS);
+      case '"':
+        pushMode(BASIC_STRING_MODE);
+        return single(QUOTATION_MARK);
+      case '\'':
+        pushMode(LITERAL_STRING_MODE);
+        return single(APOSTROPHE);
+      case '[':
+        if (charAt(pos + 1) == '[') {
+          advanceTo(pos + 2);
+          return ARRAY_TABLE_KEY_START;
+        }
+        return single(TABLE_KEY_START);
+      case ']':
+        if (charAt(pos + 1) == ']') {
+          advanceTo(pos + 2);
+          return ARRAY_TABLE_KEY_END;
+        }
+        return single(TABLE_KEY_END);
+      default:
+        break;
+    }
+    if (isKeyChar(c)) {
+      advanceTo(keyCharsEnd(pos));
+      return UNQUOTED_KEY;
+    }
+    int hidden = scanWhitespaceOrComment();
+    if (hidden != 0) {
+      return HIDDEN;
+    }
+    if (scanNewLine()) {
+      return NEW_LINE;
+    }
+    return error();
+  }
+
+  private int scanTomlKey() {
+    char c = input.charAt(pos);
+    switch (c) {
+      case '.':
+        return single(DOT);
+      case '"':
+        pushMode(BASIC_STRING_MODE);
+        return single(QUOTATION_MARK);
+      case '\'':
+        pushMode(LITERAL_STRING_MODE);
+        return single(APOSTROPHE);
+      default:
+        break;
+    }
+    if (isKeyChar(c)) {
+      // LENIENT_UNQUOTED_KEY : KeyChar | KeyChar (KeyChar | WSChar)* KeyChar
+      int i = pos + 1;
+      int last = i;
+      while (i < length) {
+        char k = input.charAt(i);
+        if (isKeyChar(k)) {
+          last = ++i;
+        } else if (k == ' ' || k == '\t') {
+          ++i;
+        } else {
+          break;
+        }
+      }
+      advanceTo(last);
+      return UNQUOTED_KEY;
+    }
+    if (c == ' ' || c == '\t') {
+      advanceTo(whitespaceEnd(pos));
+      return HIDDEN;
+    }
+    return single(ERROR);
+  }
+
+  private int scanValue() {
+    char c = input.charAt(pos);
+    switch (c) {
+      case '"':
+        if (charAt(pos + 1) == '"' && charAt(pos + 2) == '"') {
+          advanceTo(newLineEnd(pos + 3));
+          mode = ML_BASIC_STRING_MODE;
+          return TRIPLE_QUOTATION_MARK;
+        }
+        mode = BASIC_STRING_MODE;
+        return single(QUOTATION_MARK);
+      case '\'':
+        if (charAt(pos + 1) == '\'' && charAt(pos + 2) == '\'') {
+          advanceTo(newLineEnd(pos + 3));
+          mode = ML_LITERAL_STRING_MODE;
+          return TRIPLE_APOSTROPHE;
+        }
+        mode = LITERAL_STRING_MODE;
+        return single(APOSTROPHE);
+      case '[':
+        arrayDepth++;
+        pushMode(VALUE_MODE);
+        return single(ARRAY_START);
+      case ']':
+        arrayDepth--;
+        popMode();
+        return single(ARRAY_END);
+      case ',':
+        if (arrayDepth > 0) {
+          pushMode(VALUE_MODE);
+          return single(COMMA);
+        }
+        break;
+      case '{':
+        pushArrayDepth();
+        mode = INLINE_TABLE_MODE;
+        return single(INLINE_TABLE_START);
+      default:
+        break;
+    }
+
+    int t = scanLiteralValue();
+    if (t != ERROR) {
+      return t;
+    }
+    if (scanWhitespaceOrComment() != 0) {
+      return HIDDEN;
+    }
+    if (scanNewLine()) {
+      if (arrayDepth == 0) {
+        popMode();
+      }
+      return NEW_LINE;
+    }
+    popMode();
+    return error();
+  }
+
+  /**
+   * Match the longest of the integer, float, boolean and date-start rules at the current position (in the same order
+   * of precedence as the ANTLR lexer). Returns {@link #ERROR} if none match.
+   */
+  private int scanLiteralValue() {
+    int bestType = ERROR;
+    int bestEnd = pos;
+
+    int decEnd = decIntEnd(pos);
+    if (decEnd > pos) {
+      // DecimalInteger : DecInt { "-:".indexOf(_input.LA(1)) < 0 }?
+      int intEnd = decEnd;
+      if (isDateSeparator(charAt(intEnd))) {
+        intEnd = shorterDecIntEnd(pos, decEnd);
+      }
+      if (intEnd > bestEnd) {
+        bestType = DECIMAL_INTEGER;
+        bestEnd = intEnd;
+      }
+    }
+    int e = prefixedIntEnd(pos, 'x', 16);
+    if (e > bestEnd) {
+      bestType = HEX_INTEGER;
+      bestEnd = e;
+    }
+    e = prefixedIntEnd(pos, 'o', 8);
+    if (e > bestEnd) {
+      bestType = OCTAL_INTEGER;
+      bestEnd = e;
+    }
+    e = prefixedIntEnd(pos, 'b', 2);
+    if (e > bestEnd) {
+      bestType = BINARY_INTEGER;
+      bestEnd = e;
+    }
+    if (decEnd > pos) {
+      e = exponentEnd(decEnd);
+      if (e == decEnd) {
+        e = fractionEnd(decEnd);
+        if (e > decEnd) {
+          e = exponentEnd(e);
+        }
+      }
+      if (e > decEnd && e > bestEnd) {
+        bestType = FLOATING_POINT;
+        bestEnd = e;
+      }
+    }
+    int unsigned = (charAt(pos) == '+' || charAt(pos) == '-') ? pos + 1 : pos;
+    if (startsWith("inf", unsigned) && unsigned + 3 > bestEnd) {
+      bestType = FLOATING_POINT_INF;
+      bestEnd = unsigned + 3;
+    }
+    if (startsWith("nan", unsigned) && unsigned + 3 > bestEnd) {
+      bestType = FLOATING_POINT_NAN;
+      bestEnd = unsigned + 3;
+    }
+    if (startsWith("true", pos) && pos + 4 > bestEnd) {
+      bestType = TRUE_BOOLEAN;
+      bestEnd = pos + 4;
+    }
+    if (startsWith("false", pos) && pos + 5 > bestEnd) {
+      bestType = FALSE_BOOLEAN;
+      bestEnd = pos + 5;
+    }
+    e = digitsEnd(pos);
+    if (e > bestEnd && isDateSeparator(charAt(e))) {
+      advanceTo(e);
+      mode = DATE_MODE;
+      return DATE_DIGITS;
+    }
+
+    if (bestType != ERROR) {
+      advanceTo(bestEnd);
+      popMode();
+    }
+    return bestType;
+  }
+
+  private int scanBasicString() {
+    char c = input.charAt(pos);
+    if (c == '"') {
+      popMode();
+      return single(QUOTATION_MARK);
+    }
+    if (c == '\\') {
+      int e = escapeEnd(pos);
+      if (e > pos) {
+        advanceTo(e);
+        return ESCAPE_SEQUENCE;
+      }
+      popMode();
+      return error();
+    }
+    if (isBasicStringChar(c)) {
+      int i = pos + 1;
+      while (i < length && isBasicStringChar(input.charAt(i))) {
+        ++i;
+      }
+      advanceTo(i);
+      return STRING_CHARS;
+    }
+    popMode();
+    if (scanNewLine()) {
+      return NEW_LINE;
+    }
+    return error();
+  }
+
+  private int scanMLBasicString() {
+    char c = input.charAt(pos);
+    if (c == '"') {
+      int t = scanMLDelimiter('"', TRIPLE_QUOTATION_MARK);
+      if (t != STRING_CHARS) {
+        return t;
+      }
+      return single(STRING_CHARS);
+    }
+    if (c == '\\') {
+      // MLBasicStringLineEndBackslash : '\\' WSChar* NL (WSChar | NL)*
+      int i = whitespaceEnd(pos + 1);
+      int nl = newLineEnd(i);
+      if (nl > i) {
+        i = nl;
+        while (true) {
+          int ws = whitespaceEnd(i);
+          nl = newLineEnd(ws);
+          if (nl == i) {
+            break;
+          }
+          i = nl;
+        }
+        advanceTo(i);
+        return HIDDEN;
+      }
+      int e = escapeEnd(pos);
+      if (e > pos) {
+        advanceTo(e);
+        return ESCAPE_SEQUENCE;
+      }
+      if (pos + 1 < length) {
+        // '\\' .
+        advanceTo(pos + 1 + Character.charCount(Character.codePointAt(input, pos + 1)));
+        return ESCAPE_SEQUENCE;
+      }
+      popMode();
+      return error();
+    }
+    if (isMLBasicStringChar(c)) {
+      int i = pos + 1;
+      while (i < length && isMLBasicStringChar(input.charAt(i)) && input.charAt(i) != '"') {
+        ++i;
+      }
+      advanceTo(i);
+      return STRING_CHARS;
+    }
+    if (scanNewLine()) {
+      return STRING_CHARS;
+    }
+    popMode();
+    return error();
+  }
+
+  private int scanLiteralString() {
+    char c = input.charAt(pos);
+    if (c == '\'') {
+      popMode();
+      return single(APOSTROPHE);
+    }
+    if (isLiteralStringChar(c)) {
+      int i = pos + 1;
+      while (i < length && isLiteralStringChar(input.charAt(i))) {
+        ++i;
+      }
+      advanceTo(i);
+      return STRING_CHARS;
+    }
+    popMode();
+    if (scanNewLine()) {
+      return NEW_LINE;
+    }
+    return error();
+  }
+
+  private int scanMLLiteralString() {
+    char c = input.charAt(pos);
+    if (c == '\'') {
+      int t = scanMLDelimiter('\'', TRIPLE_APOSTROPHE);
+      if (t != STRING_CHARS) {
+        return t;
+      }
+      return single(STRING_CHARS);
+    }
+    if (isMLLiteralStringChar(c)) {
+      int i = pos + 1;
+      while (i < length && isMLLiteralStringChar(input.charAt(i)) && input.charAt(i) != '\'') {
+        ++i;
+      }
+      advanceTo(i);
+      return STRING_CHARS;
+    }
+    if (scanNewLine()) {
+      return STRING_CHARS;
+    }
+    popMode();
+    return error();
+  }
+
+  private int scanMLDelimiter(char quote, int tripleType) {
+    if (charAt(pos + 1) == quote && charAt(pos + 2) == quote) {
+      // A sextuple closes after the first three, otherwise close only when not followed by another quote
+      boolean sext = charAt(pos + 3) == quote && charAt(pos + 4) == quote && charAt(pos + 5) == quote;
+      if (sext || charAt(pos + 3) != quote) {
+        advanceTo(pos + 3);
+        popMode();
+        return tripleType;
+      }
+    }
+    return STRING_CHARS;
+  }
+
+  private int scanDate() {
+    char c = input.charAt(pos);
+    switch (c) {
+      case '-':
+        return single(DASH);
+      case '+':
+        return single(PLUS);
+      case ':':
+        return single(COLON);
+      case '.':
+        return single(DOT);
+      case 'Z':
+      case 'z':
+        return single(Z);
+      case 'T':
+      case 't':
+        return single(TIME_DELIMITER);
+      case ' ':
+        if (isDigit(charAt(pos + 1))) {
+          return single(TIME_DELIMITER);
+        }
+        break;
+      case ',':
+        if (arrayDepth > 0) {
+          mode = VALUE_MODE;
+          return single(COMMA);
+        }
+        break;
+      case ']':
+        if (arrayDepth > 0) {
+          arrayDepth--;
+          popMode();
+          return single(ARRAY_END);
+        }
+        break;
+      default:
+        break;
+    }
+    if (isDigit(c)) {
+      advanceTo(digitsEnd(pos));
+      return DATE_DIGITS;
+    }
+    if (scanWhitespaceOrComment() != 0) {
+      popMode();
+      return HIDDEN;
+    }
+    popMode();
+    if (scanNewLine()) {
+      return NEW_LINE;
+    }
+    return error();
+  }
+
+  private int scanInlineTable() {
+    char c = input.charAt(pos);
+    switch (c) {
+      case '}':
+        popArrayDepth();
+        popMode();
+        return single(INLINE_TABLE_END);
+      case '.':
+        return single(DOT);
+      case '=':
+        pushMode(VALUE_MODE);
+        return single(EQUALS);
+      case ',':
+        return single(COMMA);
+      case '"':
+        pushMode(BASIC_STRING_MODE);
+        return single(QUOTATION_MARK);
+      case '\'':
+        pushMode(LITERAL_STRING_MODE);
+        return single(APOSTROPHE);
+      default:
+        break;
+    }
+    if (isKeyChar(c)) {
+      advanceTo(keyCharsEnd(pos));
+      return UNQUOTED_KEY;
+    }
+    int hidden = scanWhitespaceOrComment();
+    if (hidden != 0) {
+      if (hidden < 0) {
+        // comments end the inline table mode
+        popMode();
+      }
+      return HIDDEN;
+    }
+    popMode();
+    if (scanNewLine()) {
+      return NEW_LINE;
+    }
+    return error();
+  }
+
+  /**
+   * Consume whitespace or a comment.
+   *
+   * @return 1 if whitespace was consumed, -1 if a comment was consumed, or 0 otherwise.
+   */
+  private int scanWhitespaceOrComment() {
+    char c = input.charAt(pos);
+    if (c == ' ' || c == '\t') {
+      advanceTo(whitespaceEnd(pos));
+      return 1;
+    }
+    if (c == '#') {
+      int i = pos + 1;
+      while (i < length && isCommentChar(input.charAt(i))) {
+        ++i;
+      }
+      advanceTo(i);
+      return -1;
+    }
+    return 0;
+  }
+
+  private boolean scanNewLine() {
+    int e = newLineEnd(pos);
+    if (e == pos) {
+      return false;
+    }
+    advanceTo(e);
+    return true;
+  }
+
+  private int single(int t) {
+    advanceTo(pos + 1);
+    return t;
+  }
+
+  private int error() {
+    advanceTo(pos + Character.charCount(Character.codePointAt(input, pos)));
+    return ERROR;
+  }
+
+  private void advanceTo(int newPos) {
+    for (int i = pos; i < newPos; ++i) {
+      char c = input.charAt(i);
+      if (c == '\n') {
+        line++;
+        column = 0;
+      } else if (!Character.isLowSurrogate(c) || i == 0 || !Character.isHighSurrogate(input.charAt(i - 1))) {
+        column++;
+      }
+    }
+    pos = newPos;
+  }
+
+  private void pushMode(int newMode) {
+    if (modeStackSize == modeStack.length) {
+      modeStack = Arrays.copyOf(modeStack, modeStackSize * 2);
+    }
+    modeStack[modeStackSize++] = mode;
+    mode = newMode;
+  }
+
+  private void popMode() {
+    mode = (modeStackSize == 0) ? DEFAULT_MODE : modeStack[--modeStackSize];
+  }
+
+  private void pushArrayDepth() {
+    if (arrayDepthStackSize == arrayDepthStack.length) {
+      arrayDepthStack = Arrays.copyOf(arrayDepthStack, arrayDepthStackSize * 2);
+    }
+    arrayDepthStack[arrayDepthStackSize++] = arrayDepth;
+    arrayDepth = 0;
+  }
+
+  private void popArrayDepth() {
+    arrayDepth = (arrayDepthStackSize == 0) ? 0 : arrayDepthStack[--arrayDepthStackSize];
+  }
+
+  private char charAt(int i) {
+    return (i < length) ? input.charAt(i) : '\0';
+  }
+
+  private boolean startsWith(String prefix, int i) {
+    if (i < 0 || i + prefix.length() > length) {
+      return false;
+    }
+    for (int j = 0; j < prefix.length(); ++j) {
+      if (input.charAt(i + j) != prefix.charAt(j)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private int whitespaceEnd(int i) {
+    while (i < length && (input.charAt(i) == ' ' || input.charAt(i) == '\t')) {
+      ++i;
+    }
+    return i;
+  }
+
+  private int newLineEnd(int i) {
+    if (i < length) {
+      char c = input.charAt(i);
+      if (c == '\n') {
+        return i + 1;
+      }
+      if (c == '\r' && i + 1 < length && input.charAt(i + 1) == '\n') {
+        return i + 2;
+      }
+    }
+    return i;
+  }
+
+  private int keyCharsEnd(int i) {
+    while (i < length && isKeyChar(input.charAt(i))) {
+      ++i;
+    }
+    return i;
+  }
+
+  private int digitsEnd(int i) {
+    while (i < length && isDigit(input.charAt(i))) {
+      ++i;
+    }
+    return i;
+  }
+
+  // DecInt : [-+]? (Digit | Digit1_9 ('_'? Digit)+)
+  private int decIntEnd(int i) {
+    char c = charAt(i);
+    if (c == '+' || c == '-') {
+      c = charAt(++i);
+    }
+    if (!isDigit(c)) {
+      return pos;
+    }
+    if (c == '0') {
+      return i + 1;
+    }
+    return underscoredEnd(i + 1, 10);
+  }
+
+  // The end of the longest DecInt match shorter than the given end (which always ends on a digit)
+  private int shorterDecIntEnd(int i, int end) {
+    int unsigned = (charAt(i) == '+' || charAt(i) == '-') ? i + 1 : i;
+    int e = end - 1;
+    if (e > unsigned && charAt(e - 1) == '_') {
+      --e;
+    }
+    return (e > unsigned) ? e : pos;
+  }
+
+  // ('_'? Digit)*
+  private int underscoredEnd(int i, int radix) {
+    while (true) {
+      if (isDigit(charAt(i), radix)) {
+        ++i;
+      } else if (charAt(i) == '_' && isDigit(charAt(i + 1), radix)) {
+        i += 2;
+      } else {
+        return i;
+      }
+    }
+  }
+
+  private int prefixedIntEnd(int i, char prefix, int radix) {
+    if (charAt(i) != '0' || charAt(i + 1) != prefix || !isDigit(charAt(i + 2), radix)) {
+      return pos;
+    }
+    return underscoredEnd(i + 3, radix);
+  }
+
+  // Exp : [eE] [-+]? Digit ('_'? Digit)*
+  private int exponentEnd(int i) {
+    char c = charAt(i);
+    if (c != 'e' && c != 'E') {
+      return i;
+    }
+    int j = i + 1;
+    c = charAt(j);
+    if (c == '+' || c == '-') {
+      c = charAt(++j);
+    }
+    if (!isDigit(c)) {
+      return i;
+    }
+    return underscoredEnd(j + 1, 10);
+  }
+
+  // Frac : '.' Digit ('_'? Digit)*
+  private int fractionEnd(int i) {
+    if (charAt(i) != '.' || !isDigit(charAt(i + 1))) {
+      return i;
+    }
+    return underscoredEnd(i + 2, 10);
+  }
+
+  private int escapeEnd(int i) {
+    // '\\' ~[\n] | '\\u' HexDig{4} | '\\U' HexDig{8}
+    if (i + 1 >= length) {
+      return i;
+    }
+    char c = input.charAt(i + 1);
+    if (c == 'u' && hexDigitsEnd(i + 2, 4) == i + 6) {
+      return i + 6;
+    }
+    if (c == 'U' && hexDigitsEnd(i + 2, 8) == i + 10) {
+      return i + 10;
+    }
+    if (c == '\n') {
+      return i;
+    }
+    return i + 1 + Character.charCount(Character.codePointAt(input, i + 1));
+  }
+
+  private int hexDigitsEnd(int i, int count) {
+    int e = Math.min(length, i + count);
+    while (i < e && isDigit(input.charAt(i), 16)) {
+      ++i;
+    }
+    return i;
+  }
+
+  static boolean isKeyChar(char c) {
+    return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '-' || c == '_';
+  }
+
+  private static boolean isDigit(char c) {
+    return c >= '0' && c <= '9';
+  }
+
+  private static boolean isDigit(char c, int radix) {
+    switch (radix) {
+      case 2:
+        return c == '0' || c == '1';
+      case 8:
+        return c >= '0' && c <= '7';
+      case 16:
+        return (c >= '0' && c <= '9') || (c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F');
+      default:
+        return isDigit(c);
+    }
+  }
+
+  private static boolean isDateSeparator(char c) {
+    return c == '-' || c == ':';
+  }
+
+  private static boolean isControl(char c) {
+    return (c <= 0x1F && c != '\t') || c == 0x7F;
+  }
+
+  private static boolean isCommentChar(char c) {
+    return !isControl(c);
+  }
+
+  private static boolean isBasicStringChar(char c) {
+    return !isControl(c) && c != '"' && c != '\\';
+  }
+
+  private static boolean isMLBasicStringChar(char c) {
+    return !isControl(c) && c != '\\';
+  }
+
+  private static boolean isLiteralStringChar(char c) {
+    return !isControl(c) && c != '\'';
+  }
+
+  private static boolean isMLLiteralStringChar(char c) {
+    return !isControl(c);
+  }
+}
@@ -13,9 +13,6 @@
 package org.tomlj;
 
 import static java.util.Objects.requireNonNull;
-import static org.tomlj.TomlType.ARRAY;
-import static org.tomlj.TomlType.TABLE;
-import static org.tomlj.TomlType.typeFor;
 
 import java.io.IOException;
 import java.time.LocalDate;
@@ -23,159 +20,206 @@ import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.OffsetDateTime;
 import java.time.format.DateTimeFormatter;
-import java.util.Comparator;
-import java.util.Iterator;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
-import java.util.stream.Collectors;
 
 final class TomlSerializer {
-  private TomlSerializer() {}
+  private static final String LINE_SEPARATOR = System.lineSeparator();
+  private static final String SPACES = "                                                                ";
+  // The ASCII characters that may appear in a bare key
+  private static final boolean[] BARE_KEY_CHARS = new boolean[0x80];
+
+  static {
+    for (char ch = 'a'; ch <= 'z'; ++ch) {
+      BARE_KEY_CHARS[ch] = true;
+      BARE_KEY_CHARS[Character.toUpperCase(ch)] = true;
+    }
+    for (char ch = '0'; ch <= '9'; ++ch) {
+      BARE_KEY_CHARS[ch] = true;
+    }
+    BARE_KEY_CHARS['_'] = true;
+    BARE_KEY_CHARS['-'] = true;
+  }
+
+  private final Appendable out;
+
+  private TomlSerializer(Appendable out) {
+    this.out = out;
+  }
 
   static void toToml(TomlTable table, Appendable appendable) throws IOException {
     requireNonNull(table);
     requireNonNull(appendable);
-    toToml(table, appendable, -2, "");
+    new TomlSerializer(appendable).writeTable(table, -2, "");
   }
 
-  private static void toToml(TomlTable table, Appendable appendable, int indent, String path)
-      throws IOException {
-    final List<Map.Entry<String, Object>> entryListSorted =
-        table.entrySet().stream()
-            .sorted(
-                Comparator.comparing(
-                    entry -> {
-                      final TomlType tomlType = typeFor(entry.getValue()).get();
-                      return tomlType.equals(TABLE)
-                              || (tomlType.equals(ARRAY)
-                                  && isTableArray((TomlArray) entry.getValue()))
-                          ? 1
-                          : 0;
-                    }))
-            .collect(Collectors.toList());
-
-    for (Map.Entry<String, Object> entry : entryListSorted) {
-      String key = entry.getKey();
-      Object value = entry.getValue();
+  static void toToml(TomlArray array, Appendable appendable) throws IOException {
+    requireNonNull(array);
+    requireNonNull(appendable);
+    new TomlSerializer(appendable).writeArray(array, isTableArray(array), 0, "");
+  }
 
-      key = Toml.tomlEscape(key).toString();
-      if (!key.matches("[a-zA-Z0-9_-]*")) {
-        key = "\"" + key + "\"";
+  private void writeTable(TomlTable table, int indent, String path) throws IOException {
+    // values must come before any tables or arrays of tables, which are held back until the values are written
+    List<Map.Entry<String, Object>> deferred = null;
+    for (Map.Entry<String, Object> entry : table.asMap().entrySet()) {
+      Object value = entry.getValue();
+      if (value instanceof TomlTable || (value instanceof TomlArray && isTableArray((TomlArray) value))) {
+        if (deferred == null) {
+          deferred = new ArrayList<>();
+        }
+        deferred.add(entry);
+        continue;
       }
-
-      String newPath = (path.isEmpty() ? "" : path + ".") + key;
-
-      Optional<TomlType> tomlType = typeFor(value);
-      assert tomlType.isPresent();
-
-      boolean isTableArray = tomlType.get().equals(ARRAY) && isTableArray((TomlArray) value);
-
-      if (tomlType.get().equals(TABLE)) {
-        append(appendable, indent + 2, "[" + newPath + "]");
-        appendable.append(System.lineSeparator());
-      } else if (!isTableArray) {
-        append(appendable, indent + 2, key + "=");
+      indent(out, indent + 2);
+      if (value instanceof TomlArray) {
+        String key = keyText(entry.getKey());
+        out.append(key).append('=');
+        writeArray((TomlArray) value, false, indent + 2, childPath(path, key));
+      } else {
+        appendKey(entry.getKey(), out);
+        out.append('=');
+        writeScalar(value);
       }
-
-      appendTomlValue(value, appendable, indent, newPath);
-      if (!tomlType.get().equals(TABLE) && !isTableArray) {
-        appendable.append(System.lineSeparator());
+      out.append(LINE_SEPARATOR);
+    }
+    if (deferred == null) {
+      return;
+    }
+    for (Map.Entry<String, Object> entry : deferred) {
+      String newPath = childPath(path, keyText(entry.getKey()));
+      Object value = entry.getValue();
+      if (value instanceof TomlTable) {
+        indent(out, indent + 2);
+        out.append('[').append(newPath).append(']').append(LINE_SEPARATOR);
+        writeTable((TomlTable) value, indent + 2, newPath);
+      } else {
+        // only arrays of tables are deferred
+        writeArray((TomlArray) value, true, indent + 2, newPath);
       }
     }
   }
 
-  static void toToml(TomlArray array, Appendable appendable) throws IOException {
-    requireNonNull(array);
-    requireNonNull(appendable);
-    toToml(array, appendable, 0, "");
-  }
-
-  private static void toToml(TomlArray array, Appendable appendable, int indent, String path) throws IOException {
-    boolean tableArray = isTableArray(array);
+  private void writeArray(TomlArray array, boolean tableArray, int indent, String path) throws IOException {
     if (!tableArray) {
-      appendable.append("[");
+      out.append('[');
       if (!array.isEmpty()) {
-        appendable.append(System.lineSeparator());
+        out.append(LINE_SEPARATOR);
       }
     }
-
-    for (Iterator<Object> iterator = array.toList().iterator(); iterator.hasNext();) {
-      Object tomlValue = iterator.next();
-      Optional<TomlType> tomlType = typeFor(tomlValue);
-      assert tomlType.isPresent();
-      if (tomlType.get().equals(TABLE)) {
-        append(appendable, indent, "[[" + path + "]]");
-        appendable.append(System.lineSeparator());
-        toToml((TomlTable) tomlValue, appendable, indent, path);
+    for (int i = 0, size = array.size(); i < size; ++i) {
+      Object value = array.get(i);
+      if (value instanceof TomlTable) {
+        indent(out, indent);
+        out.append("[[").append(path).append("]]").append(LINE_SEPARATOR);
+        writeTable((TomlTable) value, indent, path);
       } else {
-        indentLine(appendable, indent + 2);
-        appendTomlValue(tomlValue, appendable, indent, path);
+        indent(out, indent + 2);
+        writeValue(value, indent, path);
       }
-
       if (!tableArray) {
-        if (iterator.hasNext()) {
-          appendable.append(",");
+        if (i + 1 < size) {
+          out.append(',');
         }
-        appendable.append(System.lineSeparator());
+        out.append(LINE_SEPARATOR);
       }
     }
     if (!tableArray) {
-      append(appendable, indent, "]");
+      indent(out, indent);
+      out.append(']');
+    }
+  }
+
+  private void writeValue(Object value, int indent, String path) throws IOException {
+    if (value instanceof TomlArray) {
+      TomlArray array = (TomlArray) value;
+      writeArray(array, isTableArray(array), indent + 2, path);
+    } else if (value instanceof TomlTable) {
+      writeTable((TomlTable) value, indent + 2, path);
+    } else {
+      writeScalar(value);
     }
   }
 
-  private static void appendTomlValue(Object value, Appendable appendable, int indent, String path) throws IOException {
-    Optional<TomlType> tomlType = typeFor(value);
-    assert tomlType.isPresent();
-    switch (tomlType.get()) {
-      case STRING:
-        append(appendable, 0, "\"" + Toml.tomlEscape((String) value) + "\"");
-        break;
-      case INTEGER:
-      case FLOAT:
-        append(appendable, 0, value.toString());
-        break;
-      case OFFSET_DATE_TIME:
-        append(appendable, 0, DateTimeFormatter.ISO_OFFSET_DATE_TIME.format((OffsetDateTime) value));
-        break;
-      case LOCAL_DATE_TIME:
-        append(appendable, 0, DateTimeFormatter.ISO_LOCAL_DATE_TIME.format((LocalDateTime) value));
-        break;
-      case LOCAL_DATE:
-        append(appendable, 0, DateTimeFormatter.ISO_LOCAL_DATE.format((LocalDate) value));
-        break;
-      case LOCAL_TIME:
-        append(appendable, 0, DateTimeFormatter.ISO_LOCAL_TIME.format((LocalTime) value));
-        break;
-      case BOOLEAN:
-        append(appendable, 0, ((Boolean) value) ? "true" : "false");
-        break;
-      case ARRAY:
-        toToml((TomlArray) value, appendable, indent + 2, path);
-        break;
-      case TABLE:
-        toToml((TomlTable) value, appendable, indent + 2, path);
-        break;
+  private void writeScalar(Object value) throws IOException {
+    if (value instanceof String) {
+      out.append('"');
+      Toml.tomlEscape((String) value, out);
+      out.append('"');
+    } else if (value instanceof Long || value instanceof Double) {
+      out.append(value.toString());
+    } else if (value instanceof Boolean) {
+      out.append(((Boolean) value) ? "true" : "false");
+    } else if (value instanceof OffsetDateTime) {
+      DateTimeFormatter.ISO_OFFSET_DATE_TIME.formatTo((OffsetDateTime) value, out);
+    } else if (value instanceof LocalDateTime) {
+      DateTimeFormatter.ISO_LOCAL_DATE_TIME.formatTo((LocalDateTime) value, out);
+    } else if (value instanceof LocalDate) {
+      DateTimeFormatter.ISO_LOCAL_DATE.formatTo((LocalDate) value, out);
+    } else if (value instanceof LocalTime) {
+      DateTimeFormatter.ISO_LOCAL_TIME.formatTo((LocalTime) value, out);
+    } else {
+      throw new IllegalArgumentException("Unsupported TOML value type " + value.getClass().getName());
     }
   }
 
-  private static void append(Appendable appendable, int indent, String line) throws IOException {
-    indentLine(appendable, indent);
-    appendable.append(line);
+  static void appendKey(String key, Appendable out) throws IOException {
+    if (isBareKey(key)) {
+      out.append(key);
+    } else {
+      out.append('"');
+      Toml.tomlEscape(key, out);
+      out.append('"');
+    }
   }
 
-  private static void indentLine(Appendable appendable, int indent) throws IOException {
-    for (int i = 0; i < indent; ++i) {
-      appendable.append(' ');
+  static String keyText(String key) {
+    if (isBareKey(key)) {
+      return key;
+    }
+    StringBuilder text = new StringBuilder(key.length() + 2).append('"');
+    try {
+      Toml.tomlEscape(key, text);
+    } catch (IOException e) {
+      // not reachable
+      throw new AssertionError(e);
+    }
+    return text.append('"').toString();
+  }
+
+  private static String childPath(String path, String key) {
+    return path.isEmpty() ? key : path + '.' + key;
+  }
+
+  // An empty key is also written bare
+  private static boolean isBareKey(String key) {
+    for (int i = 0, length = key.length(); i < length; ++i) {
+      char ch = key.charAt(i);
+      if (ch >= 0x80 || !BARE_KEY_CHARS[ch]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  static void indent(Appendable out, int indent) throws IOException {
+    while (indent > 0) {
+      int n = Math.min(indent, SPACES.length());
+      out.append(SPACES, 0, n);
+      indent -= n;
     }
   }
 
   private static boolean isTableArray(TomlArray array) {
-    for (Object tomlValue : array.toList()) {
-      Optional<TomlType> tomlType = typeFor(tomlValue);
-      assert tomlType.isPresent();
-      if (tomlType.get().equals(TABLE)) {
+    if (array instanceof MutableTomlArray) {
+      MutableTomlArray mutableArray = (MutableTomlArray) array;
+      if (mutableArray.holdsLongs() || mutableArray.holdsDoubles() || mutableArray.holdsBooleans()) {
+        return false;
+      }
+    }
+    for (int i = 0, size = array.size(); i < size; ++i) {
+      if (array.get(i) instanceof TomlTable) {
         return true;
       }
     }
@@ -0,0 +1,672 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to You under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.tomlj;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoField;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * Writes and reads the binary snapshot of a table.
+ *
+ * <p>
+ * A snapshot starts with a fixed header: the magic number, the format version, flags, the hash of the source document
+ * (if known), and the offsets of the root table and of the key dictionary. Each key is held once in the dictionary and
+ * referenced by its index. Tables and arrays are written before the table or array that contains them, which refers to
+ * them by offset, so that each can be decoded on its own: a table is decoded the first time it is read, and its
+ * sub-tables and arrays are left as {@link Deferred} values until they are read in turn. Each entry of a table or array
+ * is a type tag followed by its value, preceded by its line and column, or by a line of 0 if it has no position. The
+ * header flags whether any entry has a position. Counts, lengths, offsets, integers and positions are variable-length
+ * encoded, and strings are UTF-8.
+ *
+ * <p>
+ * When a snapshot is opened, it is checked in a single pass that reads every entry without decoding it, so that
+ * decoding a table later cannot fail.
+ */
+final class TomlSnapshot {
+  private TomlSnapshot() {}
+
+  private static final int MAGIC = 0x544f4d4c; // "TOML"
+  private static final int FORMAT_VERSION = 2;
+  private static final int HEADER_SIZE = 36;
+
+  private static final int FLAG_POSITIONS = 1;
+  private static final int FLAG_SOURCE_HASH = 2;
+
+  private static final byte STRING = 1;
+  private static final byte LONG = 2;
+  private static final byte DOUBLE = 3;
+  private static final byte TRUE = 4;
+  private static final byte FALSE = 5;
+  private static final byte OFFSET_DATE_TIME = 6;
+  private static final byte LOCAL_DATE_TIME = 7;
+  private static final byte LOCAL_DATE = 8;
+  private static final byte LOCAL_TIME = 9;
+  private static final byte TABLE = 10;
+  private static final byte ARRAY = 11;
+  private static final byte TABLE_ARRAY = 12;
+
+  private static final long HASH_MULTIPLIER = 0x9e3779b97f4a7c15L;
+
+  /**
+   * Hash the content of a file.
+   *
+   * @param file The file.
+   * @return A 64-bit hash of the bytes of the file.
+   * @throws IOException If an IO error occurs.
+   */
+  static long hash(Path file) throws IOException {
+    ByteBuffer bytes = MappedInput.readBytes(file);
+    int i = bytes.position();
+    int end = bytes.limit();
+    long hash = (end - i) * HASH_MULTIPLIER;
+    for (; i + 8 <= end; i += 8) {
+      hash = (hash ^ TomlFingerprint.mix(bytes.getLong(i))) * HASH_MULTIPLIER;
+    }
+    long tail = 0;
+    for (; i < end; ++i) {
+      tail = (tail << 8) | (bytes.get(i) & 0xff);
+    }
+    return TomlFingerprint.mix(hash ^ tail);
+  }
+
+  /**
+   * Write a snapshot of a table.
+   *
+   * <p>
+   * The snapshot is written to a temporary file that then replaces the target file, so that readers never see a
+   * partially written snapshot. On POSIX file systems, tables already read from a previous snapshot in the same file
+   * remain valid. On Windows, a file that is still memory-mapped cannot be replaced, so the move fails.
+   *
+   * @param table The table.
+   * @param file The file to write.
+   * @param sourceHash The hash of the source document, if known.
+   * @throws IOException If an IO error occurs.
+   */
+  static void write(TomlTable table, Path file, @Nullable Long sourceHash) throws IOException {
+    Path absolute = file.toAbsolutePath();
+    Path directory = absolute.getParent();
+    Path temp = Files.createTempFile(directory, absolute.getFileName().toString(), ".tmp");
+    try {
+      try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+        Writer writer = new Writer(channel);
+        ByteBuffer header = writer.write(table, sourceHash);
+        while (header.hasRemaining()) {
+          channel.write(header, header.position());
+        }
+      }
+      try {
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      } catch (AtomicMoveNotSupportedException e) {
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+      }
+    } finally {
+      Files.deleteIfExists(temp);
+    }
+  }
+
+  /**
+   * Read a snapshot.
+   *
+   * @param file The snapshot file.
+   * @return The root table.
+   * @throws IOException If an IO error occurs, the file is not a snapshot written by this version of the library, or
+   *         the snapshot is truncated or corrupt.
+   */
+  static TomlTable read(Path file) throws IOException {
+    Reader reader = Reader.open(file);
+    if (reader == null) {
+      throw new IOException("Unsupported snapshot format version: " + file);
+    }
+    return reader.root();
+  }
+
+  /**
+   * Read a snapshot, if it is a snapshot of the current content of a source document.
+   *
+   * @param file The snapshot file.
+   * @param source The source document.
+   * @return The root table, or {@code null} if the snapshot does not exist, was written by a different version of the
+   *         library, or does not hold the hash of the source document's content.
+   * @throws IOException If an IO error occurs, the file is not a snapshot, or the snapshot is truncated or corrupt.
+   */
+  @Nullable
+  static TomlTable read(Path file, Path source) throws IOException {
+    Reader reader;
+    try {
+      reader = Reader.open(file);
+    } catch (NoSuchFileException e) {
+      return null;
+    }
+    if (reader == null || !reader.hasSourceHash() || reader.sourceHash() != hash(source)) {
+      return null;
+    }
+    return reader.root();
+  }
+
+  private static final class Writer {
+    private final DataOutputStream out;
+    // Whether any entry has been written with a position
+    private boolean positions;
+    private final Map<String, Integer> keyIndex = new HashMap<>();
+    private final List<String> keys = new ArrayList<>();
+
+    Writer(FileChannel channel) throws IOException {
+      channel.position(HEADER_SIZE);
+      this.out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), 64 * 1024));
+    }
+
+    // Writes the body of the snapshot, and returns its header
+    ByteBuffer write(TomlTable table, @Nullable Long sourceHash) throws IOException {
+      int root = writeTable(table);
+      int keysOffset = offset();
+      for (String key : keys) {
+        writeString(key);
+      }
+      int end = offset();
+      out.flush();
+      if (end < 0 || out.size() > Integer.MAX_VALUE - HEADER_SIZE) {
+        throw new IOException("Snapshot is too large");
+      }
+
+      ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+      header.putInt(MAGIC);
+      header.putInt(FORMAT_VERSION);
+      header.putInt((positions ? FLAG_POSITIONS : 0) | (sourceHash != null ? FLAG_SOURCE_HASH : 0));
+      header.putLong(sourceHash != null ? sourceHash : 0);
+      header.putInt(root);
+      header.putInt(keysOffset);
+      header.putInt(keys.size());
+      header.putInt(end);
+      header.flip();
+      return header;
+    }
+
+    private int offset() {
+      return HEADER_SIZE + out.size();
+    }
+
+    private int writeTable(TomlTable table) throws IOException {
+      int size = table.size();
+      List<String> entryKeys = new ArrayList<>(size);
+      List<Object> entryValues = new ArrayList<>(size);
+      table.forEach((key, value) -> {
+        entryKeys.add(key);
+        entryValues.add(value);
+      });
+      int[] offsets = writeContainers(entryValues);
+
+      int offset = offset();
+      writeVarLong(entryKeys.size());
+      for (int i = 0; i < entryKeys.size(); ++i) {
+        String key = entryKeys.get(i);
+        writeVarLong(keyIndex.computeIfAbsent(key, k -> {
+          keys.add(k);
+          return keys.size() - 1;
+        }));
+        writePosition(table.inputPositionOf(Collections.singletonList(key)));
+        writeValue(entryValues.get(i), offsets[i]);
+      }
+      return offset;
+    }
+
+    private int writeArray(TomlArray array) throws IOException {
+      int size = array.size();
+      List<Object> values = new ArrayList<>(size);
+      for (int i = 0; i < size; ++i) {
+        values.add(array.get(i));
+      }
+      int[] offsets = writeContainers(values);
+
+      boolean arrayPositions = !(array instanceof MutableTomlArray) || ((MutableTomlArray) array).hasPositions();
+      int offset = offset();
+      writeVarLong(size);
+      for (int i = 0; i < size; ++i) {
+        writePosition(arrayPositions ? array.inputPositionOf(i) : null);
+        writeValue(values.get(i), offsets[i]);
+      }
+      return offset;
+    }
+
+    // Writes the tables and arrays in the values, returning their offsets
+    private int[] writeContainers(List<Object> values) throws IOException {
+      int[] offsets = new int[values.size()];
+      for (int i = 0; i < offsets.length; ++i) {
+        Object value = values.get(i);
+        if (value instanceof TomlTable) {
+          offsets[i] = writeTable((TomlTable) value);
+        } else if (value instanceof TomlArray) {
+          offsets[i] = writeArray((TomlArray) value);
+        }
+      }
+      return offsets;
+    }
+
+    // A missing position is written as line 0, without a column
+    private void writePosition(@Nullable TomlPosition position) throws IOException {
+      if (position == null) {
+        writeVarLong(0);
+        return;
+      }
+      positions = true;
+      writeVarLong(position.line());
+      writeVarLong(position.column());
+    }
+
+    private void writeValue(Object value, int offset) throws IOException {
+      if (value instanceof String) {
+        out.writeByte(STRING);
+        writeString((String) value);
+      } else if (value instanceof Long) {
+        out.writeByte(LONG);
+        writeSignedVarLong((Long) value);
+      } else if (value instanceof Double) {
+        out.writeByte(DOUBLE);
+        out.writeLong(Double.doubleToRawLongBits((Double) value));
+      } else if (value instanceof Boolean) {
+        out.writeByte(((Boolean) value) ? TRUE : FALSE);
+      } else if (value instanceof OffsetDateTime) {
+        OffsetDateTime dateTime = (OffsetDateTime) value;
+        out.writeByte(OFFSET_DATE_TIME);
+        writeSignedVarLong(dateTime.toLocalDate().toEpochDay());
+        writeVarLong(dateTime.toLocalTime().toNanoOfDay());
+        writeSignedVarLong(dateTime.getOffset().getTotalSeconds());
+      } else if (value instanceof LocalDateTime) {
+        LocalDateTime dateTime = (LocalDateTime) value;
+        out.writeByte(LOCAL_DATE_TIME);
+        writeSignedVarLong(dateTime.toLocalDate().toEpochDay());
+        writeVarLong(dateTime.toLocalTime().toNanoOfDay());
+      } else if (value instanceof LocalDate) {
+        out.writeByte(LOCAL_DATE);
+        writeSignedVarLong(((LocalDate) value).toEpochDay());
+      } else if (value instanceof LocalTime) {
+        out.writeByte(LOCAL_TIME);
+        writeVarLong(((LocalTime) value).toNanoOfDay());
+      } else if (value instanceof TomlTable) {
+        out.writeByte(TABLE);
+        writeVarLong(offset);
+      } else if (value instanceof TomlArray) {
+        boolean tableArray = (value instanceof MutableTomlArray) && ((MutableTomlArray) value).isTableArray();
+        out.writeByte(tableArray ? TABLE_ARRAY : ARRAY);
+        writeVarLong(offset);
+      } else {
+        throw new IllegalArgumentException("Unsupported TOML value type " + value.getClass().getName());
+      }
+    }
+
+    private void writeString(String value) throws IOException {
+      byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+      writeVarLong(bytes.length);
+      out.write(bytes);
+    }
+
+    // Unsigned LEB128: 7 bits per byte, low bits first, with the high bit set on all but the last byte
+    private void writeVarLong(long value) throws IOException {
+      while ((value & ~0x7fL) != 0) {
+        out.writeByte((int) ((value & 0x7f) | 0x80));
+        value >>>= 7;
+      }
+      out.writeByte((int) value);
+    }
+
+    // Zig-zag encoded, so that small negative values are also short
+    private void writeSignedVarLong(long value) throws IOException {
+      writeVarLong((value << 1) ^ (value >> 63));
+    }
+  }
+
+  private static final class Reader {
+    private final Path file;
+    private final ByteBuffer bytes;
+    private final int flags;
+    private final long sourceHash;
+    private final int root;
+    // Keys are decoded from the dictionary on first use, and shared by all the tables that use them
+    private final String[] keys;
+    private final ByteBuffer keyDictionary;
+    private int keysDecoded;
+
+    // Returns null if the snapshot was written with a different format version
+    @Nullable
+    static Reader open(Path file) throws IOException {
+      ByteBuffer bytes = MappedInput.mapBytes(file);
+      if (bytes.remaining() < HEADER_SIZE || bytes.getInt(0) != MAGIC) {
+        throw new IOException("Not a TOML snapshot: " + file);
+      }
+      if (bytes.getInt(4) != FORMAT_VERSION) {
+        return null;
+      }
+      int flags = bytes.getInt(8);
+      int root = bytes.getInt(20);
+      int keysOffset = bytes.getInt(24);
+      int keyCount = bytes.getInt(28);
+      if (bytes.getInt(32) != bytes.limit()
+          || (flags & ~(FLAG_POSITIONS | FLAG_SOURCE_HASH)) != 0
+          || root < HEADER_SIZE
+          || root >= keysOffset
+          || keysOffset > bytes.limit()
+          || keyCount < 0
+          || keyCount > bytes.limit() - keysOffset) {
+        throw corrupt(file, null);
+      }
+      return new Reader(file, bytes);
+    }
+
+    private Reader(Path file, ByteBuffer bytes) {
+      this.file = file;
+      this.bytes = bytes;
+      this.flags = bytes.getInt(8);
+      this.sourceHash = bytes.getLong(12);
+      this.root = bytes.getInt(20);
+      this.keyDictionary = view(bytes.getInt(24));
+      this.keys = new String[bytes.getInt(28)];
+    }
+
+    boolean hasSourceHash() {
+      return (flags & FLAG_SOURCE_HASH) != 0;
+    }
+
+    long sourceHash() {
+      return sourceHash;
+    }
+
+    // The whole snapshot is checked before the root table is returned, so that decoding any part of it later cannot
+    // fail
+    TomlTable root() throws IOException {
+      try {
+        ByteBuffer dictionary = view(bytes.getInt(24));
+        for (int i = 0; i < keys.length; ++i) {
+          checkString(dictionary);
+        }
+        checkContainer(root, bytes.getInt(24), true);
+      } catch (BufferUnderflowException | DateTimeException e) {
+        throw corrupt(file, e);
+      }
+      return readTable(root);
+    }
+
+    private static IOException corrupt(Path file, @Nullable Exception cause) {
+      return new IOException("Truncated or corrupt TOML snapshot: " + file, cause);
+    }
+
+    // Checks a table or array, which must be before the limit (the offset of the table or array that refers to it, or
+    // of the key dictionary for the root table), and the tables and arrays it refers to
+    private void checkContainer(int offset, int limit, boolean isTable) throws IOException {
+      if (offset < HEADER_SIZE || offset >= limit) {
+        throw corrupt(file, null);
+      }
+      ByteBuffer in = view(offset);
+      in.limit(limit);
+      // each entry takes at least two bytes: its position and its type tag
+      long size = checkVarLong(in);
+      if (!inRange(size, 0, in.remaining() / 2)) {
+        throw corrupt(file, null);
+      }
+      for (long i = 0; i < size; ++i) {
+        if (isTable && !inRange(checkVarLong(in), 0, keys.length - 1)) {
+          throw corrupt(file, null);
+        }
+        long line = checkVarLong(in);
+        if (!inRange(line, 0, Integer.MAX_VALUE) || (line != 0 && !inRange(checkVarLong(in), 1, Integer.MAX_VALUE))) {
+          throw corrupt(file, null);
+        }
+        byte tag = in.get();
+        switch (tag) {
+          case STRING:
+            checkString(in);
+            break;
+          case LONG:
+            checkVarLong(in);
+            break;
+          case DOUBLE:
+            in.getLong();
+            break;
+          case TRUE:
+          case FALSE:
+            break;
+          case OFFSET_DATE_TIME:
+            checkLocalDateTime(in);
+            ChronoField.OFFSET_SECONDS.checkValidValue(readSignedVarLong(in));
+            break;
+          case LOCAL_DATE_TIME:
+            checkLocalDateTime(in);
+            break;
+          case LOCAL_DATE:
+            ChronoField.EPOCH_DAY.checkValidValue(readSignedVarLong(in));
+            break;
+          case LOCAL_TIME:
+            ChronoField.NANO_OF_DAY.checkValidValue(checkVarLong(in));
+            break;
+          case TABLE:
+          case ARRAY:
+          case TABLE_ARRAY:
+            // a table or array is written before the table or array that refers to it
+            long child = checkVarLong(in);
+            if (!inRange(child, 0, offset - 1)) {
+              throw corrupt(file, null);
+            }
+            checkContainer((int) child, offset, tag == TABLE);
+            break;
+          default:
+            throw corrupt(file, null);
+        }
+      }
+    }
+
+    private void checkLocalDateTime(ByteBuffer in) throws IOException {
+      ChronoField.EPOCH_DAY.checkValidValue(readSignedVarLong(in));
+      ChronoField.NANO_OF_DAY.checkValidValue(checkVarLong(in));
+    }
+
+    private void checkString(ByteBuffer in) throws IOException {
+      long length = checkVarLong(in);
+      if (!inRange(length, 0, in.remaining())) {
+        throw corrupt(file, null);
+      }
+      in.position(in.position() + (int) length);
+    }
+
+    // Reads a variable-length value, which must be at most 10 bytes long
+    private long checkVarLong(ByteBuffer in) throws IOException {
+      int start = in.position();
+      long value = readVarLong(in);
+      if (in.position() - start > 10) {
+        throw corrupt(file, null);
+      }
+      return value;
+    }
+
+    private static boolean inRange(long value, long min, long max) {
+      return value >= min && value <= max;
+    }
+
+    // Each decode reads through its own view, so that tables and arrays can be decoded concurrently
+    private ByteBuffer view(int offset) {
+      ByteBuffer view = bytes.duplicate();
+      view.position(offset);
+      return view;
+    }
+
+    // The dictionary holds variable-length entries, so keys are decoded in order up to the one required
+    private synchronized String key(int index) {
+      while (keysDecoded <= index) {
+        keys[keysDecoded++] = readString(keyDictionary);
+      }
+      return keys[index];
+    }
+
+    FrozenTomlTable readTable(int offset) {
+      ByteBuffer in = view(offset);
+      int size = readVarInt(in);
+      String[] tableKeys = new String[size];
+      Object[] values = new Object[size];
+      long @Nullable [] positions = ((flags & FLAG_POSITIONS) != 0) ? new long[size] : null;
+      for (int i = 0; i < size; ++i) {
+        tableKeys[i] = key(readVarInt(in));
+        long position = readPosition(in);
+        if (positions != null) {
+          positions[i] = position;
+        }
+        values[i] = readValue(in, true);
+      }
+      return new FrozenTomlTable(tableKeys, values, positions);
+    }
+
+    MutableTomlArray readArray(int offset, boolean tableArray) {
+      ByteBuffer in = view(offset);
+      int size = readVarInt(in);
+      MutableTomlArray array = new MutableTomlArray(tableArray);
+      for (int i = 0; i < size; ++i) {
+        long position = readPosition(in);
+        // the elements of an array either all have positions or all have none
+        if (i == 0 && position == 0) {
+          array.discardPositions();
+        }
+        array.append(readValue(in, false), position);
+      }
+      if (size == 0 && (flags & FLAG_POSITIONS) == 0) {
+        array.discardPositions();
+      }
+      array.trim();
+      return array;
+    }
+
+    // Returns the position packed by TomlPosition.pack(), or 0 if the entry has no position
+    private static long readPosition(ByteBuffer in) {
+      int line = readVarInt(in);
+      return (line == 0) ? 0 : TomlPosition.pack(line, readVarInt(in));
+    }
+
+    // Tables and arrays are left as deferred values in tables, and decoded immediately in arrays
+    private Object readValue(ByteBuffer in, boolean defer) {
+      byte tag = in.get();
+      switch (tag) {
+        case STRING:
+          return readString(in);
+        case LONG:
+          return readSignedVarLong(in);
+        case DOUBLE:
+          return Double.longBitsToDouble(in.getLong());
+        case TRUE:
+          return Boolean.TRUE;
+        case FALSE:
+          return Boolean.FALSE;
+        case OFFSET_DATE_TIME:
+          LocalDateTime dateTime = readLocalDateTime(in);
+          return OffsetDateTime.of(dateTime, ZoneOffset.ofTotalSeconds((int) readSignedVarLong(in)));
+        case LOCAL_DATE_TIME:
+          return readLocalDateTime(in);
+        case LOCAL_DATE:
+          return LocalDate.ofEpochDay(readSignedVarLong(in));
+        case LOCAL_TIME:
+          return LocalTime.ofNanoOfDay(readVarLong(in));
+        case TABLE:
+        case ARRAY:
+        case TABLE_ARRAY:
+          Deferred deferred = new Deferred(this, tag, readVarInt(in));
+          return defer ? deferred : deferred.get();
+        default:
+          // not reachable, as the tags were checked before the root table was returned
+          throw new AssertionError("Unknown type " + tag + " at offset " + (in.position() - 1));
+      }
+    }
+
+    private static LocalDateTime readLocalDateTime(ByteBuffer in) {
+      LocalDate date = LocalDate.ofEpochDay(readSignedVarLong(in));
+      return LocalDateTime.of(date, LocalTime.ofNanoOfDay(readVarLong(in)));
+    }
+
+    private static String readString(ByteBuffer in) {
+      byte[] data = new byte[readVarInt(in)];
+      in.get(data);
+      return new String(data, StandardCharsets.UTF_8);
+    }
+
+    private static int readVarInt(ByteBuffer in) {
+      return (int) readVarLong(in);
+    }
+
+    private static long readVarLong(ByteBuffer in) {
+      long value = 0;
+      for (int shift = 0;; shift += 7) {
+        byte b = in.get();
+        value |= (long) (b & 0x7f) << shift;
+        if (b >= 0) {
+          return value;
+        }
+      }
+    }
+
+    private static long readSignedVarLong(ByteBuffer in) {
+      long value = readVarLong(in);
+      return (value >>> 1) ^ -(value & 1);
+    }
+  }
+
+  /**
+   * A table or array in a snapshot, decoded the first time it is requested.
+   */
+  static final class Deferred {
+    private final Reader reader;
+    private final byte tag;
+    private final int offset;
+    @Nullable
+    private volatile Object value;
+
+    private Deferred(Reader reader, byte tag, int offset) {
+      this.reader = reader;
+      this.tag = tag;
+      this.offset = offset;
+    }
+
+    Object get() {
+      Object value = this.value;
+      if (value != null) {
+        return value;
+      }
+      synchronized (this) {
+        value = this.value;
+        if (value == null) {
+          value = (tag == TABLE) ? reader.readTable(offset) : reader.readArray(offset, tag == TABLE_ARRAY);
+          this.value = value;
+        }
+        return value;
+      }
+    }
+  }
+}
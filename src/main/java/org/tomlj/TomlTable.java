@@ -17,17 +17,21 @@ import static org.tomlj.EmptyTomlArray.EMPTY_ARRAY;
 import static org.tomlj.EmptyTomlTable.EMPTY_TABLE;
 
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.UncheckedIOException;
+import java.nio.channels.WritableByteChannel;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.OffsetDateTime;
 import java.util.*;
+import java.util.function.BiConsumer;
 import java.util.function.BooleanSupplier;
 import java.util.function.DoubleSupplier;
 import java.util.function.LongSupplier;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import org.checkerframework.checker.nullness.qual.NonNull;
 import org.checkerframework.checker.nullness.qual.Nullable;
@@ -64,7 +68,26 @@ public interface TomlTable {
    */
   default boolean contains(String dottedKey) {
     requireNonNull(dottedKey);
-    return contains(Parser.parseDottedKey(dottedKey));
+    try {
+      return get(dottedKey) != null;
+    } catch (TomlInvalidTypeException e) {
+      return false;
+    }
+  }
+
+  /**
+   * Check if a key was set in the TOML document.
+   *
+   * @param key A pre-parsed key.
+   * @return {@code true} if the key was set in the TOML document.
+   */
+  default boolean contains(TomlKey key) {
+    requireNonNull(key);
+    try {
+      return get(key) != null;
+    } catch (TomlInvalidTypeException e) {
+      return false;
+    }
   }
 
   /**
@@ -101,7 +124,7 @@ public interface TomlTable {
    * @return A set containing all the dotted keys of this table.
    */
   default Set<String> dottedKeySet() {
-    return keyPathSet().stream().map(Toml::joinKeyPath).collect(Collectors.toCollection(LinkedHashSet::new));
+    return dottedKeySet(false);
   }
 
   /**
@@ -111,8 +134,7 @@ public interface TomlTable {
    * @return A set containing all the dotted keys of this table.
    */
   default Set<String> dottedKeySet(boolean includeTables) {
-    return keyPathSet(includeTables)
-        .stream()
+    return pathStream(includeTables)
         .map(Toml::joinKeyPath)
         .collect(Collectors.toCollection(LinkedHashSet::new));
   }
@@ -158,10 +180,7 @@ public interface TomlTable {
    * @return A set containing all the entries of this table.
    */
   default Set<Map.Entry<String, Object>> dottedEntrySet() {
-    return entryPathSet()
-        .stream()
-        .map(e -> new AbstractMap.SimpleEntry<>(Toml.joinKeyPath(e.getKey()), e.getValue()))
-        .collect(Collectors.toCollection(LinkedHashSet::new));
+    return dottedEntrySet(false);
   }
 
   /**
@@ -171,8 +190,7 @@ public interface TomlTable {
    * @return A set containing all the entries of this table.
    */
   default Set<Map.Entry<String, Object>> dottedEntrySet(boolean includeTables) {
-    return entryPathSet(includeTables)
-        .stream()
+    return entryPathStream(includeTables)
         .map(e -> new AbstractMap.SimpleEntry<>(Toml.joinKeyPath(e.getKey()), e.getValue()))
         .collect(Collectors.toCollection(LinkedHashSet::new));
   }
@@ -197,6 +215,61 @@ public interface TomlTable {
    */
   Set<Map.Entry<List<String>, Object>> entryPathSet(boolean includeTables);
 
+  /**
+   * Get a stream of all the paths in this table.
+   *
+   * <p>
+   * Paths to intermediary and empty tables are not returned. To include these, use {@link #pathStream(boolean)}.
+   *
+   * @return A stream of all the key paths of this table.
+   */
+  default Stream<List<String>> pathStream() {
+    return pathStream(false);
+  }
+
+  /**
+   * Get a stream of all the paths in this table.
+   *
+   * <p>
+   * Unlike {@link #keyPathSet(boolean)}, the table is walked lazily, depth first and in the order in which keys were
+   * defined, as the stream is consumed. The paths in a table share the storage for the path of the table, so a path
+   * does not copy its prefix. The returned paths are read-only.
+   *
+   * @param includeTables If {@code true}, also include paths to intermediary and empty tables.
+   * @return A stream of all the key paths of this table.
+   */
+  default Stream<List<String>> pathStream(boolean includeTables) {
+    return KeyPath.paths(this, includeTables);
+  }
+
+  /**
+   * Get a stream of all the entries in this table.
+   *
+   * <p>
+   * Paths to intermediary and empty tables are not returned. To include these, use
+   * {@link #entryPathStream(boolean)}.
+   *
+   * @return A stream of all the entries of this table.
+   */
+  default Stream<Map.Entry<List<String>, Object>> entryPathStream() {
+    return entryPathStream(false);
+  }
+
+  /**
+   * Get a stream of all the entries in this table.
+   *
+   * <p>
+   * Unlike {@link #entryPathSet(boolean)}, the table is walked lazily, depth first and in the order in which keys were
+   * defined, as the stream is consumed. The paths in a table share the storage for the path of the table, so a path
+   * does not copy its prefix. The returned paths are read-only.
+   *
+   * @param includeTables If {@code true}, also include entries in intermediary and empty tables.
+   * @return A stream of all the entries of this table.
+   */
+  default Stream<Map.Entry<List<String>, Object>> entryPathStream(boolean includeTables) {
+    return KeyPath.entries(this, includeTables);
+  }
+
   /**
    * Get a value from the TOML document.
    *
@@ -211,6 +284,19 @@ public interface TomlTable {
     return get(Parser.parseDottedKey(dottedKey));
   }
 
+  /**
+   * Get a value from the TOML document.
+   *
+   * @param key A pre-parsed key.
+   * @return The value, or {@code null} if no value was set in the TOML document.
+   * @throws TomlInvalidTypeException If any element of the path preceding the final key is not a table.
+   */
+  @Nullable
+  default Object get(TomlKey key) {
+    requireNonNull(key);
+    return get(key.path());
+  }
+
   /**
    * Get a value from the TOML document.
    *
@@ -225,7 +311,8 @@ public interface TomlTable {
    * Get the position where a key is defined in the TOML document.
    *
    * @param dottedKey A dotted key (e.g. {@code "server.address.port"}).
-   * @return The input position, or {@code null} if the key was not set in the TOML document.
+   * @return The input position, or {@code null} if the key was not set in the TOML document (or the document was
+   *         parsed without input positions).
    * @throws IllegalArgumentException If the key cannot be parsed.
    * @throws TomlInvalidTypeException If any element of the path preceding the final key is not a table.
    */
@@ -235,11 +322,26 @@ public interface TomlTable {
     return inputPositionOf(Parser.parseDottedKey(dottedKey));
   }
 
+  /**
+   * Get the position where a key is defined in the TOML document.
+   *
+   * @param key A pre-parsed key.
+   * @return The input position, or {@code null} if the key was not set in the TOML document (or the document was
+   *         parsed without input positions).
+   * @throws TomlInvalidTypeException If any element of the path preceding the final key is not a table.
+   */
+  @Nullable
+  default TomlPosition inputPositionOf(TomlKey key) {
+    requireNonNull(key);
+    return inputPositionOf(key.path());
+  }
+
   /**
    * Get the position where a key is defined in the TOML document.
    *
    * @param path The key path.
-   * @return The input position, or {@code null} if the key was not set in the TOML document.
+   * @return The input position, or {@code null} if the key was not set in the TOML document (or the document was
+   *         parsed without input positions).
    * @throws TomlInvalidTypeException If any element of the path preceding the final key is not a table.
    */
   @Nullable
@@ -254,7 +356,30 @@ public interface TomlTable {
    */
   default boolean isString(String dottedKey) {
     requireNonNull(dottedKey);
-    return isString(Parser.parseDottedKey(dottedKey));
+    Object value;
+    try {
+      value = get(dottedKey);
+    } catch (TomlInvalidTypeException e) {
+      return false;
+    }
+    return value instanceof String;
+  }
+
+  /**
+   * Check if a value in the TOML document is a string.
+   *
+   * @param key A pre-parsed key.
+   * @return {@code true} if the value can be obtained as a string.
+   */
+  default boolean isString(TomlKey key) {
+    requireNonNull(key);
+    Object value;
+    try {
+      value = get(key);
+    } catch (TomlInvalidTypeException e) {
+      return false;
+    }
+    return value instanceof String;
   }
 
   /**
@@ -285,7 +410,36 @@ public interface TomlTable {
   @Nullable
   default String getString(String dottedKey) {
     requireNonNull(dottedKey);
-    return getString(Parser.parseDottedKey(dottedKey));
+    Object value = get(dottedKey);
+    if (value == null) {
+      return null;
+    }
+    if (!(value instanceof String)) {
+      throw new TomlInvalidTypeException(
+          "Value of '" + Toml.canonicalDottedKey(dottedKey) + "' is a " + TomlType.typeNameFor(value));
+    }
+    return (String) value;
+  }
+
+  /**
+   * Get a string from the TOML document.
+   *
+   * @param key A pre-parsed key.
+   * @return The value, or {@code null} if no value was set in the TOML document.
+   * @throws TomlInvalidTypeException If the value is present but not a string, or any element of the path preceding the
+   *         final key is not a table.
+   */
+  @Nullable
+  default String getString(TomlKey key) {
+    requireNonNull(key);
+    Object value = get(key);
+    if (value == null) {
+      return null;
+    }
+    if (!(value instanceof String)) {
+      throw new TomlInvalidTypeException("Value of '" + key + "' is a " + TomlType.typeNameFor(value));
+    }
+    return (String) value;
   }
 
   /**
@@ -321,7 +475,31 @@ public interface TomlTable {
    */
   default String getString(String dottedKey, Supplier<String> defaultValue) {
     requireNonNull(dottedKey);
-    return getString(Parser.parseDottedKey(dottedKey), defaultValue);
+    requireNonNull(defaultValue);
+    String value = getString(dottedKey);
+    if (value != null) {
+      return value;
+    }
+    return defaultValue.get();
+  }
+
+  /**
+   * Get a string from the TOML document, or return a default.
+   *
+   * @param key A pre-parsed key.
+   * @param defaultValue A supplier for the default value.
+   * @return The value, or the default.
+   * @throws TomlInvalidTypeException If the value is present but not a string, or any element of the path preceding the
+   *         final key is not a table.
+   */
+  default String getString(TomlKey key, Supplier<String> defaultValue) {
+    requireNonNull(key);
+    requireNonNull(defaultValue);
+    String value = getString(key);
+    if (value != null) {
+      return value;
+    }
+    return defaultValue.get();
   }
 
   /**
@@ -351,7 +529,30 @@ public interface TomlTable {
    */
   default boolean isLong(String dottedKey) {
     requireNonNull(dottedKey);
-    return isLong(Parser.parseDottedKey(dottedKey));
+    Object value;
+    try {
+      value = get(dottedKey);
+    } catch (TomlInvalidTypeException e) {
+      return false;
+    }
+    return value instanceof Long;
+  }
+
+  /**
+   * Check if a value in the TOML document is a long.
+   *
+   * @param key A pre-parsed key.
+   * @return {@code true} if the value can be obtained as a long.
+   */
+  default boolean isLong(TomlKey key) {
+    requireNonNull(key);
+    Object value;
+    try {
+      value = get(key);
+    } catch (TomlInvalidTypeException e) {
+      return false;
+    }
+    return value instanceof Long;
   }
 
   /**
@@ -382,7 +583,36 @@ public interface TomlTable {
   @Nullable
   default Long getLong(String dottedKey) {
     requireNonNull(dottedKey);
-    return getLong(Parser.parseDottedKey(dottedKey));
+    Object value = get(dottedKey);
+    if (value == null) {
+      return null;
+    }
+    if (!(value instanceof Long)) {
+      throw new TomlInvalidTypeException(
+          "Value of '" + Toml.canonicalDottedKey(dottedKey) + "' is a " + TomlType.typeNameFor(value));
+    }
+    return (Long) value;
+  }
+
+  /**
+   * Get a long from the TOML document.
+   *
+   * @param key A pre-parsed key.
+   * @return The value, or {@code null} if no value was set in the TOML document.
+   * @throws TomlInvalidTypeException If the value is present but not a long, or any element of the path preceding the
+   *         final key is not a table.
+   */
+  @Nullable
+  default Long getLong(TomlKey key) {
+    requireNonNull(key);
+    Object value = get(key);
+    if (value == null) {
+      return null;
+    }
+    if (!(value instanceof Long)) {
+      throw new TomlInvalidTypeException("Value of '" + key + "' is a " + TomlType.typeNameFor(value));
+    }
+    return (Long) value;
   }
 
   /**
@@ -418,7 +648,31 @@ public interface TomlTable {
    */
   default long getLong(String dottedKey, LongSupplier defaultValue) {
     requireNonNull(dottedKey);
-    return getLong(Parser.parseDottedKey(dottedKey), defaultValue);
+    requireNonNull(defaultValue);
+    Long value = getLong(dottedKey);
+    if (value != null) {
+      return value;
+    }
+    return defaultValue.getAsLong();
+  }
+
+  /**
+   * Get a long from the TOML document, or return a default.
+   *
+   * @param key A pre-parsed key.
+   * @param defaultValue A supplier for the default value.
+   * @return The value, or the default.
+   * @throws TomlInvalidTypeException If the value is present but not a long, or any element of the path preceding the
+   *         final key is not a table.
+   */
+  default long getLong(TomlKey key, LongSupplier defaultValue) {
+    requireNonNull(key);
+    requireNonNull(defaultValue);
+    Long value = getLong(key);
+    if (value != null) {
+      return value;
+    }
+    return defaultValue.getAsLong();
   }
 
   /**
@@ -448,7 +702,30 @@ public interface TomlTable {
    */
   default boolean isDouble(String dottedKey) {
     requireNonNull(dottedKey);
-    return isDouble(Parser.parseDottedKey(dottedKey));
+    Object value;
+    try {
+      value = get(dottedKey);
+    } catch (TomlInvalidTypeException e) {
+      return false;
+    }
+    return value instanceof Double;
+  }
+
+  /**
+   * Check if a value in the TOML document is a double.
+   *
+   * @param key A pre-parsed key.
+   * @return {@code true} if the value can be obtained as a double.
+   */
+  default boolean isDouble(TomlKey key) {
+    requireNonNull(key);
+    Object value;
+    try {
+      value = get(key);
+    } catch (TomlInvalidTypeException e) {
+      return false;
+    }
+    return value instanceof Double;
   }
 
   /**
@@ -479,7 +756,36 @@ public interface TomlTable {
   @Nullable
   default Double getDouble(String dottedKey) {
     requireNonNull(dottedKey);
-    return getDouble(Parser.parseDottedKey(dottedKey));
+    Object value = get(dottedKey);
+    if (value == null) {
+      return null;
+    }
+    if (!(value instanceof Double)) {
+      throw new TomlInvalidTypeException(
+          "Value of '" + Toml.canonicalDottedKey(dottedKey) + "' is a " + TomlType.typeNameFor(value));
+    }
+    return (Double) value;
+  }
+
+  /**
+   * Get a double from the TOML document.
+   *
+   * @param key A pre-parsed key.
+   * @return The value, or {@code null} if no value was set in the TOML document.
+   * @throws TomlInvalidTypeException If the value is present but not a double, or any element of the path preceding the
+   *         final key is not a table.
+   */
+  @Nullable
+  default Double getDouble(TomlKey key) {
+    requireNonNull(key);
+    Object value = get(key);
+    if (value == null) {
+      return null;
+    }
+    if (!(value instanceof Double)) {
+      throw new TomlInvalidTypeException("Value of '" + key + "' is a " + TomlType.typeNameFor(value));
+    }
+    return (Double) value;
   }
 
   /**
@@ -515,7 +821,31 @@ public interface TomlTable {
    */
   default double getDouble(String dottedKey, DoubleSupplier defaultValue) {
     requireNonNull(dottedKey);
-    return getDouble(Parser.parseDottedKey(dottedKey), defaultValue);
+    requireNonNull(defaultValue);
+    Double value = getDouble(dottedKey);
+    if (value != null) {
+      return value;
+    }
+    return defaultValue.getAsDouble();
+  }
+
+  /**
+   * Get a double from the TOML document, or return a default.
+   *
+   * @param key A pre-parsed key.
+   * @param defaultValue A supplier for the default value.
+   * @return The value, or the default.
+   * @throws TomlInvalidTypeException If the value is present but not a double, or any element of the path preceding the
+   *         final key is not a table.
+   */
+  default double getDouble(TomlKey key, DoubleSupplier defaultValue) {
+    requireNonNull(key);
+    requireNonNull(defaultValue);
+    Double value = getDouble(key);
+    if (value != null) {
+      return value;
+    }
+    return defaultValue.getAsDouble();
   }
 
   /**
@@ -545,7 +875,30 @@ public interface TomlTable {
    */
   default boolean isBoolean(String dottedKey) {
     requireNonNull(dottedKey);
-    return isBoolean(Parser.parseDottedKey(dottedKey));
+    Object value;
+    try {
+      value = get(dottedKey);
+    } catch (TomlInvalidTypeException e) {
+      return false;
+    }
+    return value instanceof Boolean;
+  }
+
+  /**
+   * Check if a value in the TOML document is a boolean.
+   *
+   * @param key A pre-parsed key.
+   * @return {@code true} if the value can be obtained as a boolean.
+   */
+  default boolean isBoolean(TomlKey key) {
+    requireNonNull(key);
+    Object value;
+    try {
+      value = get(key);
+    } catch (TomlInvalidTypeException e) {
+      return false;
+    }
+    return value instanceof Boolean;
   }
 
   /**
@@ -576,7 +929,36 @@ public interface TomlTable {
   @Nullable
   default Boolean getBoolean(String dottedKey) {
     requireNonNull(dottedKey);
-    return getBoolean(Parser.parseDottedKey(dottedKey));
+    Object value = get(dottedKey);
+    if (value == null) {
+      return null;
+    }
+    if (!(value instanceof Boolean)) {
+      throw new TomlInvalidTypeException(
+          "Value of '" + Toml.canonicalDottedKey(dottedKey) + "' is a " + TomlType.typeNameFor(value));
+    }
+    return (Boolean) value;
+  }
+
+  /**
+   * Get a boolean from the TOML document.
+   *
+   * @param key A pre-parsed key.
+   * @return The value, or {@code null} if no value was set in the TOML document.
+   * @throws TomlInvalidTypeException If the value is present but not a boolean, or any element of the path preceding
+   *         the final key is not a table.
+   */
+  @Nullable
+  default Boolean getBoolean(TomlKey key) {
+    requireNonNull(key);
+    Object value = get(key);
+    if (value == null) {
+      return null;
+    }
+    if (!(value instanceof Boolean)) {
+      throw new TomlInvalidTypeException("Value of '" + key + "' is a " + TomlType.typeNameFor(value));
+    }
+    return (Boolean) value;
   }
 
   /**
@@ -612,7 +994,31 @@ public interface TomlTable {
    */
   default boolean getBoolean(String dottedKey, BooleanSupplier defaultValue) {
     requireNonNull(dottedKey);
-    return getBoolean(Parser.parseDottedKey(dottedKey), defaultValue);
+    requireNonNull(defaultValue);
+    Boolean value = getBoolean(dottedKey);
+    if (value != null) {
+      return value;
+    }
+    return defaultValue.getAsBoolean();
+  }
+
+  /**
+   * Get a boolean from the TOML document, or return a default.
+   *
+   * @param key A pre-parsed key.
+   * @param defaultValue A supplier for the default value.
+   * @return The value, or the default.
+   * @throws TomlInvalidTypeException If the value is present but not a boolean, or any element of the path preceding
+   *         the final key is not a table.
+   */
+  default boolean getBoolean(TomlKey key, BooleanSupplier defaultValue) {
+    requireNonNull(key);
+    requireNonNull(defaultValue);
+    Boolean value = getBoolean(key);
+    if (value != null) {
+      return value;
+    }
+    return defaultValue.getAsBoolean();
   }
 
   /**
@@ -642,7 +1048,30 @@ public interface TomlTable {
    */
   default boolean isOffsetDateTime(String dottedKey) {
     requireNonNull(dottedKey);
-    return isOffsetDateTime(Parser.parseDottedKey(dottedKey));
+    Object value;
+    try {
+      value = get(dottedKey);
+    } catch (TomlInvalidTypeException e) {
+      return false;
+    }
+    return value instanceof OffsetDateTime;
+  }
+
+  /**
+   * Check if a value in the TOML document is an {@link OffsetDateTime}.
+   *
+   * @param key A pre-parsed key.
+   * @return {@code true} if the value can be obtained as an {@link OffsetDateTime}.
+   */
+  default boolean isOffsetDateTime(TomlKey key) {
+    requireNonNull(key);
+    Object value;
+    try {
+      value = get(key);
+    } catch (TomlInvalidTypeException e) {
+      return false;
+    }
+    return value instanceof OffsetDateTime;
   }
 
   /**
@@ -673,7 +1102,36 @@ public interface TomlTable {
   @Nullable
   default OffsetDateTime getOffsetDateTime(String dottedKey) {
     requireNonNull(dottedKey);
-    return getOffsetDateTime(Parser.parseDottedKey(dottedKey));
+    Object value = get(dottedKey);
+    if (value == null) {
+      return null;
+    }
+    if (!(value instanceof OffsetDateTime)) {
+      throw new TomlInvalidTypeException(
+          "Value of '" + Toml.canonicalDottedKey(dottedKey) + "' is a " + TomlType.typeNameFor(value));
+    }
+    return (OffsetDateTime) value;
+  }
+
+  /**
+   * Get an offset date time from the TOML document.
+   *
+   * @param key A pre-parsed key.
+   * @return The value, or {@code null} if no value was set in the TOML document.
+   * @throws TomlInvalidTypeException If the value is present but not an {@link OffsetDateTime}, or any element of the
+   *         path preceding the final key is not a table.
+   */
+  @Nullable
+  default OffsetDateTime getOffsetDateTime(TomlKey key) {
+    requireNonNull(key);
+    Object value = get(key);
+    if (value == null) {
+      return null;
+    }
+    if (!(value instanceof OffsetDateTime)) {
+      throw new TomlInvalidTypeException("Value of '" + key + "' is a " + TomlType.typeNameFor(value));
+    }
+    return (OffsetDateTime) value;
   }
 
   /**
@@ -709,7 +1167,31 @@ public interface TomlTable {
    */
   default OffsetDateTime getOffsetDateTime(String dottedKey, Supplier<OffsetDateTime> defaultValue) {
     requireNonNull(dottedKey);
-    return getOffsetDateTime(Parser.parseDottedKey(dottedKey), defaultValue);
+    requireNonNull(defaultValue);
+    OffsetDateTime value = getOffsetDateTime(dottedKey);
+    if (value != null) {
+      return value;
+    }
+    return defaultValue.get();
+  }
+
+  /**
+   * Get an offset date time from the TOML document, or return a default.
+   *
+   * @param key A pre-parsed key.
+   * @param defaultValue A supplier for the default value.
+   * @return The value, or the default.
+   * @throws TomlInvalidTypeException If the value is present but not an {@link OffsetDateTime}, or any element of the
+   *         path preceding the final key is not a table.
+   */
+  default OffsetDateTime getOffsetDateTime(TomlKey key, Supplier<OffsetDateTime> defaultValue) {
+    requireNonNull(key);
+    requireNonNull(defaultValue);
+    OffsetDateTime value = getOffsetDateTime(key);
+    if (value != null) {
+      return value;
+    }
+    return defaultValue.get();
   }
 
   /**
@@ -739,7 +1221,30 @@ public interface TomlTable {
    */
   default boolean isLocalDateTime(String dottedKey) {
     requireNonNull(dottedKey);
-    return isLocalDateTime(Parser.parseDottedKey(dottedKey));
+    Object value;
+    try {
+      value = get(dottedKey);
+    } catch (TomlInvalidTypeException e) {
+      return false;
+    }
+    return value instanceof LocalDateTime;
+  }
+
+  /**
+   * Check if a value in the TOML document is a {@link LocalDateTime}.
+   *
+   * @param key A pre-parsed key.
+   * @return {@code true} if the value can be obtained as a {@link LocalDateTime}.
+   */
+  default boolean isLocalDateTime(TomlKey key) {
+    requireNonNull(key);
+    Object value;
+    try {
+      value = get(key);
+    } catch (TomlInvalidTypeException e) {
+      return false;
+    }
+    return value instanceof LocalDateTime;
   }
 
   /**
@@ -770,7 +1275,36 @@ public interface TomlTable {
   @Nullable
   default LocalDateTime getLocalDateTime(String dottedKey) {
     requireNonNull(dottedKey);
-    return getLocalDateTime(Parser.parseDottedKey(dottedKey));
+    Object value = get(dottedKey);
+    if (value == null) {
+      return null;
+    }
+    if (!(value instanceof LocalDateTime)) {
+      throw new TomlInvalidTypeException(
+          "Value of '" + Toml.canonicalDottedKey(dottedKey) + "' is a " + TomlType.typeNameFor(value));
+    }
+    return (LocalDateTime) value;
+  }
+
+  /**
+   * Get a local date time from the TOML document.
+   *
+   * @param key A pre-parsed key.
+   * @return The value, or {@code null} if no value was set in the TOML document.
+   * @throws TomlInvalidTypeException If the value is present but not a {@link LocalDateTime}, or any element of the
+   *         path preceding the final key is not a table.
+   */
+  @Nullable
+  default LocalDateTime getLocalDateTime(TomlKey key) {
+    requireNonNull(key);
+    Object value = get(key);
+    if (value == null) {
+      return null;
+    }
+    if (!(value instanceof LocalDateTime)) {
+      throw new TomlInvalidTypeException("Value of '" + key + "' is a " + TomlType.typeNameFor(value));
+    }
+    return (LocalDateTime) value;
   }
 
   /**
@@ -806,7 +1340,31 @@ public interface TomlTable {
    */
   default LocalDateTime getLocalDateTime(String dottedKey, Supplier<LocalDateTime> defaultValue) {
     requireNonNull(dottedKey);
-    return getLocalDateTime(Parser.parseDottedKey(dottedKey), defaultValue);
+    requireNonNull(defaultValue);
+    LocalDateTime value = getLocalDateTime(dottedKey);
+    if (value != null) {
+      return value;
+    }
+    return defaultValue.get();
+  }
+
+  /**
+   * Get a local date time from the TOML document, or return a default.
+   *
+   * @param key A pre-parsed key.
+   * @param defaultValue A supplier for the default value.
+   * @return The value, or the default.
+   * @throws TomlInvalidTypeException If the value is present but not a {@link LocalDateTime}, or any element of the
+   *         path preceding the final key is not a table.
+   */
+  default LocalDateTime getLocalDateTime(TomlKey key, Supplier<LocalDateTime> defaultValue) {
+    requireNonNull(key);
+    requireNonNull(defaultValue);
+    LocalDateTime value = getLocalDateTime(key);
+    if (value != null) {
+      return value;
+    }
+    return defaultValue.get();
   }
 
   /**
@@ -836,7 +1394,30 @@ public interface TomlTable {
    */
   default boolean isLocalDate(String dottedKey) {
     requireNonNull(dottedKey);
-    return isLocalDate(Parser.parseDottedKey(dottedKey));
+    Object value;
+    try {
+      value = get(dottedKey);
+    } catch (TomlInvalidTypeException e) {
+      return false;
+    }
+    return value instanceof LocalDate;
+  }
+
+  /**
+   * Check if a value in the TOML document is a {@link LocalDate}.
+   *
+   * @param key A pre-parsed key.
+   * @return {@code true} if the value can be obtained as a {@link LocalDate}.
+   */
+  default boolean isLocalDate(TomlKey key) {
+    requireNonNull(key);
+    Object value;
+    try {
+      value = get(key);
+    } catch (TomlInvalidTypeException e) {
+      return false;
+    }
+    return value instanceof LocalDate;
   }
 
   /**
@@ -867,7 +1448,36 @@ public interface TomlTable {
   @Nullable
   default LocalDate getLocalDate(String dottedKey) {
     requireNonNull(dottedKey);
-    return getLocalDate(Parser.parseDottedKey(dottedKey));
+    Object value = get(dottedKey);
+    if (value == null) {
+      return null;
+    }
+    if (!(value instanceof LocalDate)) {
+      throw new TomlInvalidTypeException(
+          "Value of '" + Toml.canonicalDottedKey(dottedKey) + "' is a " + TomlType.typeNameFor(value));
+    }
+    return (LocalDate) value;
+  }
+
+  /**
+   * Get a local date from the TOML document.
+   *
+   * @param key A pre-parsed key.
+   * @return The value, or {@code null} if no value was set in the TOML document.
+   * @throws TomlInvalidTypeException If the value is present but not a {@link LocalDate}, or any element of the path
+   *         preceding the final key is not a table.
+   */
+  @Nullable
+  default LocalDate getLocalDate(TomlKey key) {
+    requireNonNull(key);
+    Object value = get(key);
+    if (value == null) {
+      return null;
+    }
+    if (!(value instanceof LocalDate)) {
+      throw new TomlInvalidTypeException("Value of '" + key + "' is a " + TomlType.typeNameFor(value));
+    }
+    return (LocalDate) value;
   }
 
   /**
@@ -903,7 +1513,31 @@ public interface TomlTable {
    */
   default LocalDate getLocalDate(String dottedKey, Supplier<LocalDate> defaultValue) {
     requireNonNull(dottedKey);
-    return getLocalDate(Parser.parseDottedKey(dottedKey), defaultValue);
+    requireNonNull(defaultValue);
+    LocalDate value = getLocalDate(dottedKey);
+    if (value != null) {
+      return value;
+    }
+    return defaultValue.get();
+  }
+
+  /**
+   * Get a local date from the TOML document, or return a default.
+   *
+   * @param key A pre-parsed key.
+   * @param defaultValue A supplier for the default value.
+   * @return The value, or the default.
+   * @throws TomlInvalidTypeException If the value is present but not a {@link LocalDate}, or any element of the path
+   *         preceding the final key is not a table.
+   */
+  default LocalDate getLocalDate(TomlKey key, Supplier<LocalDate> defaultValue) {
+    requireNonNull(key);
+    requireNonNull(defaultValue);
+    LocalDate value = getLocalDate(key);
+    if (value != null) {
+      return value;
+    }
+    return defaultValue.get();
   }
 
   /**
@@ -933,7 +1567,30 @@ public interface TomlTable {
    */
   default boolean isLocalTime(String dottedKey) {
     requireNonNull(dottedKey);
-    return isLocalTime(Parser.parseDottedKey(dottedKey));
+    Object value;
+    try {
+      value = get(dottedKey);
+    } catch (TomlInvalidTypeException e) {
+      return false;
+    }
+    return value instanceof LocalTime;
+  }
+
+  /**
+   * Check if a value in the TOML document is a {@link LocalTime}.
+   *
+   * @param key A pre-parsed key.
+   * @return {@code true} if the value can be obtained as a {@link LocalTime}.
+   */
+  default boolean isLocalTime(TomlKey key) {
+    requireNonNull(key);
+    Object value;
+    try {
+      value = get(key);
+    } catch (TomlInvalidTypeException e) {
+      return false;
+    }
+    return value instanceof LocalTime;
   }
 
   /**
@@ -964,7 +1621,36 @@ public interface TomlTable {
   @Nullable
   default LocalTime getLocalTime(String dottedKey) {
     requireNonNull(dottedKey);
-    return getLocalTime(Parser.parseDottedKey(dottedKey));
+    Object value = get(dottedKey);
+    if (value == null) {
+      return null;
+    }
+    if (!(value instanceof LocalTime)) {
+      throw new TomlInvalidTypeException(
+          "Value of '" + Toml.canonicalDottedKey(dottedKey) + "' is a " + TomlType.typeNameFor(value));
+    }
+    return (LocalTime) value;
+  }
+
+  /**
+   * Get a local time from the TOML document.
+   *
+   * @param key A pre-parsed key.
+   * @return The value, or {@code null} if no value was set in the TOML document.
+   * @throws TomlInvalidTypeException If the value is present but not a {@link LocalTime}, or any element of the path
+   *         preceding the final key is not a table.
+   */
+  @Nullable
+  default LocalTime getLocalTime(TomlKey key) {
+    requireNonNull(key);
+    Object value = get(key);
+    if (value == null) {
+      return null;
+    }
+    if (!(value instanceof LocalTime)) {
+      throw new TomlInvalidTypeException("Value of '" + key + "' is a " + TomlType.typeNameFor(value));
+    }
+    return (LocalTime) value;
   }
 
   /**
@@ -1000,7 +1686,31 @@ public interface TomlTable {
    */
   default LocalTime getLocalTime(String dottedKey, Supplier<LocalTime> defaultValue) {
     requireNonNull(dottedKey);
-    return getLocalTime(Parser.parseDottedKey(dottedKey), defaultValue);
+    requireNonNull(defaultValue);
+    LocalTime value = getLocalTime(dottedKey);
+    if (value != null) {
+      return value;
+    }
+    return defaultValue.get();
+  }
+
+  /**
+   * Get a local time from the TOML document, or return a default.
+   *
+   * @param key A pre-parsed key.
+   * @param defaultValue A supplier for the default value.
+   * @return The value, or the default.
+   * @throws TomlInvalidTypeException If the value is present but not a {@link LocalTime}, or any element of the path
+   *         preceding the final key is not a table.
+   */
+  default LocalTime getLocalTime(TomlKey key, Supplier<LocalTime> defaultValue) {
+    requireNonNull(key);
+    requireNonNull(defaultValue);
+    LocalTime value = getLocalTime(key);
+    if (value != null) {
+      return value;
+    }
+    return defaultValue.get();
   }
 
   /**
@@ -1030,7 +1740,30 @@ public interface TomlTable {
    */
   default boolean isArray(String dottedKey) {
     requireNonNull(dottedKey);
-    return isArray(Parser.parseDottedKey(dottedKey));
+    Object value;
+    try {
+      value = get(dottedKey);
+    } catch (TomlInvalidTypeException e) {
+      return false;
+    }
+    return value instanceof TomlArray;
+  }
+
+  /**
+   * Check if a value in the TOML document is an array.
+   *
+   * @param key A pre-parsed key.
+   * @return {@code true} if the value can be obtained as an array.
+   */
+  default boolean isArray(TomlKey key) {
+    requireNonNull(key);
+    Object value;
+    try {
+      value = get(key);
+    } catch (TomlInvalidTypeException e) {
+      return false;
+    }
+    return value instanceof TomlArray;
   }
 
   /**
@@ -1061,7 +1794,36 @@ public interface TomlTable {
   @Nullable
   default TomlArray getArray(String dottedKey) {
     requireNonNull(dottedKey);
-    return getArray(Parser.parseDottedKey(dottedKey));
+    Object value = get(dottedKey);
+    if (value == null) {
+      return null;
+    }
+    if (!(value instanceof TomlArray)) {
+      throw new TomlInvalidTypeException(
+          "Value of '" + Toml.canonicalDottedKey(dottedKey) + "' is a " + TomlType.typeNameFor(value));
+    }
+    return (TomlArray) value;
+  }
+
+  /**
+   * Get an array from the TOML document.
+   *
+   * @param key A pre-parsed key.
+   * @return The value, or {@code null} if no value was set in the TOML document.
+   * @throws TomlInvalidTypeException If the value is present but not an array, or any element of the path preceding the
+   *         final key is not a table.
+   */
+  @Nullable
+  default TomlArray getArray(TomlKey key) {
+    requireNonNull(key);
+    Object value = get(key);
+    if (value == null) {
+      return null;
+    }
+    if (!(value instanceof TomlArray)) {
+      throw new TomlInvalidTypeException("Value of '" + key + "' is a " + TomlType.typeNameFor(value));
+    }
+    return (TomlArray) value;
   }
 
   /**
@@ -1096,7 +1858,28 @@ public interface TomlTable {
    */
   default TomlArray getArrayOrEmpty(String dottedKey) {
     requireNonNull(dottedKey);
-    return getArrayOrEmpty(Parser.parseDottedKey(dottedKey));
+    TomlArray value = getArray(dottedKey);
+    if (value != null) {
+      return value;
+    }
+    return EMPTY_ARRAY;
+  }
+
+  /**
+   * Get an array from the TOML document.
+   *
+   * @param key A pre-parsed key.
+   * @return The value, or an empty array if no array was set in the TOML document.
+   * @throws TomlInvalidTypeException If the value is present but not an array, or any element of the path preceding the
+   *         final key is not a table.
+   */
+  default TomlArray getArrayOrEmpty(TomlKey key) {
+    requireNonNull(key);
+    TomlArray value = getArray(key);
+    if (value != null) {
+      return value;
+    }
+    return EMPTY_ARRAY;
   }
 
   /**
@@ -1124,7 +1907,30 @@ public interface TomlTable {
    */
   default boolean isTable(String dottedKey) {
     requireNonNull(dottedKey);
-    return isTable(Parser.parseDottedKey(dottedKey));
+    Object value;
+    try {
+      value = get(dottedKey);
+    } catch (TomlInvalidTypeException e) {
+      return false;
+    }
+    return value instanceof TomlTable;
+  }
+
+  /**
+   * Check if a value in the TOML document is a table.
+   *
+   * @param key A pre-parsed key.
+   * @return {@code true} if the value can be obtained as a table.
+   */
+  default boolean isTable(TomlKey key) {
+    requireNonNull(key);
+    Object value;
+    try {
+      value = get(key);
+    } catch (TomlInvalidTypeException e) {
+      return false;
+    }
+    return value instanceof TomlTable;
   }
 
   /**
@@ -1155,7 +1961,36 @@ public interface TomlTable {
   @Nullable
   default TomlTable getTable(String dottedKey) {
     requireNonNull(dottedKey);
-    return getTable(Parser.parseDottedKey(dottedKey));
+    Object value = get(dottedKey);
+    if (value == null) {
+      return null;
+    }
+    if (!(value instanceof TomlTable)) {
+      throw new TomlInvalidTypeException(
+          "Value of '" + Toml.canonicalDottedKey(dottedKey) + "' is a " + TomlType.typeNameFor(value));
+    }
+    return (TomlTable) value;
+  }
+
+  /**
+   * Get a table from the TOML document.
+   *
+   * @param key A pre-parsed key.
+   * @return The value, or {@code null} if no value was set in the TOML document.
+   * @throws TomlInvalidTypeException If the value is present but not a table, or any element of the path preceding the
+   *         final key is not a table.
+   */
+  @Nullable
+  default TomlTable getTable(TomlKey key) {
+    requireNonNull(key);
+    Object value = get(key);
+    if (value == null) {
+      return null;
+    }
+    if (!(value instanceof TomlTable)) {
+      throw new TomlInvalidTypeException("Value of '" + key + "' is a " + TomlType.typeNameFor(value));
+    }
+    return (TomlTable) value;
   }
 
   /**
@@ -1190,7 +2025,28 @@ public interface TomlTable {
    */
   default TomlTable getTableOrEmpty(String dottedKey) {
     requireNonNull(dottedKey);
-    return getTableOrEmpty(Parser.parseDottedKey(dottedKey));
+    TomlTable value = getTable(dottedKey);
+    if (value != null) {
+      return value;
+    }
+    return EMPTY_TABLE;
+  }
+
+  /**
+   * Get a table from the TOML document.
+   *
+   * @param key A pre-parsed key.
+   * @return The value, or an empty table if no value was set in the TOML document.
+   * @throws TomlInvalidTypeException If the value is present but not a table, or any element of the path preceding the
+   *         final key is not a table.
+   */
+  default TomlTable getTableOrEmpty(TomlKey key) {
+    requireNonNull(key);
+    TomlTable value = getTable(key);
+    if (value != null) {
+      return value;
+    }
+    return EMPTY_TABLE;
   }
 
   /**
@@ -1220,6 +2076,52 @@ public interface TomlTable {
    */
   Map<String, Object> toMap();
 
+  /**
+   * Get a read-only view of the entries of this table as a {@link Map}.
+   *
+   * <p>
+   * Unlike {@link #toMap()}, this does not copy the entries of this table, and iterates them in the order in which they
+   * were defined. As with {@link #entrySet()}, this only contains the immediate entries of this table.
+   *
+   * @return A read-only view of the entries of this table.
+   */
+  default Map<String, Object> asMap() {
+    TomlTable table = this;
+    return new AbstractMap<String, Object>() {
+      @Override
+      public Set<Map.Entry<String, Object>> entrySet() {
+        return Collections.unmodifiableSet(table.entrySet());
+      }
+    };
+  }
+
+  /**
+   * Perform an action for each of the immediate entries of this table, in the order in which they were defined.
+   *
+   * @param action The action to perform, which is passed the key and the value of each entry.
+   */
+  default void forEach(BiConsumer<String, Object> action) {
+    requireNonNull(action);
+    for (Map.Entry<String, Object> entry : entrySet()) {
+      action.accept(entry.getKey(), entry.getValue());
+    }
+  }
+
+  /**
+   * Walk this table, and the tables and arrays it contains, with a visitor.
+   *
+   * <p>
+   * This table is passed to {@link TomlVisitor#visitTableStart} and {@link TomlVisitor#visitTableEnd} with a
+   * {@code null} key.
+   *
+   * @param visitor The visitor.
+   * @return {@code false} if the walk was ended by {@link TomlVisitor.Result#TERMINATE}, otherwise {@code true}.
+   */
+  default boolean accept(TomlVisitor visitor) {
+    requireNonNull(visitor);
+    return TomlWalker.walk(null, this, visitor) != TomlVisitor.Result.TERMINATE;
+  }
+
   /**
    * Return a representation of this table using JSON.
    *
@@ -1269,6 +2171,63 @@ public interface TomlTable {
     JsonSerializer.toJson(this, appendable, options);
   }
 
+  /**
+   * Write a JSON representation of this table to an output stream, encoded in UTF-8.
+   *
+   * <p>
+   * The JSON is {@link JsonOptions#COMPACT compact} unless {@link JsonOptions#PRETTY_PRINT} is given, in which case it
+   * is the same as that produced by {@link #toJson(Appendable, JsonOptions...)}. It is encoded as it is written, with
+   * no intermediate strings. Output is buffered, and written to the stream in large blocks. The stream is neither
+   * flushed nor closed.
+   *
+   * @param stream The output stream.
+   * @param options Options for the JSON encoder.
+   * @throws IOException If an IO error occurs.
+   */
+  default void toJsonUtf8(OutputStream stream, JsonOptions... options) throws IOException {
+    toJsonUtf8(stream, JsonOptions.setFrom(options));
+  }
+
+  /**
+   * Write a JSON representation of this table to an output stream, encoded in UTF-8.
+   *
+   * @param stream The output stream.
+   * @param options Options for the JSON encoder.
+   * @throws IOException If an IO error occurs.
+   * @see #toJsonUtf8(OutputStream, JsonOptions...)
+   */
+  default void toJsonUtf8(OutputStream stream, EnumSet<JsonOptions> options) throws IOException {
+    JsonSerializer.toJson(this, stream, options);
+  }
+
+  /**
+   * Write a JSON representation of this table to a channel, encoded in UTF-8.
+   *
+   * <p>
+   * The JSON is {@link JsonOptions#COMPACT compact} unless {@link JsonOptions#PRETTY_PRINT} is given, in which case it
+   * is the same as that produced by {@link #toJson(Appendable, JsonOptions...)}. It is encoded as it is written, with
+   * no intermediate strings. Output is buffered, and written to the channel in large blocks. The channel is not closed.
+   *
+   * @param channel The channel.
+   * @param options Options for the JSON encoder.
+   * @throws IOException If an IO error occurs.
+   */
+  default void toJsonUtf8(WritableByteChannel channel, JsonOptions... options) throws IOException {
+    toJsonUtf8(channel, JsonOptions.setFrom(options));
+  }
+
+  /**
+   * Write a JSON representation of this table to a channel, encoded in UTF-8.
+   *
+   * @param channel The channel.
+   * @param options Options for the JSON encoder.
+   * @throws IOException If an IO error occurs.
+   * @see #toJsonUtf8(WritableByteChannel, JsonOptions...)
+   */
+  default void toJsonUtf8(WritableByteChannel channel, EnumSet<JsonOptions> options) throws IOException {
+    JsonSerializer.toJson(this, channel, options);
+  }
+
   /**
    * Return a representation of this table using TOML.
    *
@@ -31,6 +31,14 @@ enum TomlType {
   ARRAY("array", TomlArray.class),
   TABLE("table", TomlTable.class);
 
+  // Values are of only a few classes, so cache the (linear) search for each class
+  private static final ClassValue<Optional<TomlType>> TYPES = new ClassValue<Optional<TomlType>>() {
+    @Override
+    protected Optional<TomlType> computeValue(Class<?> clazz) {
+      return Arrays.stream(values()).filter(t -> t.clazz.isAssignableFrom(clazz)).findAny();
+    }
+  };
+
   private final String name;
   private final Class<?> clazz;
 
@@ -44,7 +52,7 @@ enum TomlType {
   }
 
   static Optional<TomlType> typeForClass(Class<?> clazz) {
-    return Arrays.stream(values()).filter(t -> t.clazz.isAssignableFrom(clazz)).findAny();
+    return TYPES.get(clazz);
   }
 
   static String typeNameFor(Object obj) {
@@ -0,0 +1,192 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to You under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.tomlj;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * A visitor of the tables, arrays and values in a parsed TOML document.
+ *
+ * <p>
+ * A table or array is walked using {@link TomlTable#accept(TomlVisitor)} or {@link TomlArray#accept(TomlVisitor)}.
+ * Tables and arrays are walked depth first, with the entries of a table in the order in which they were defined. Each
+ * value is passed to the method for its type, so no type checks are needed; integers, floats and booleans are passed
+ * as primitives, and are not boxed when they are held in an array of that type.
+ *
+ * <p>
+ * Each method is passed the key of the value in its enclosing table, or {@code null} for an element of an array (or the
+ * table or array that the walk started from). Each method returns a {@link Result} that controls the rest of the walk.
+ *
+ * <p>
+ * All methods have default implementations that return {@link Result#CONTINUE}, so a visitor need only override those
+ * for the values it uses.
+ */
+public interface TomlVisitor {
+
+  /**
+   * How to continue a walk.
+   */
+  enum Result {
+    /**
+     * Continue the walk.
+     */
+    CONTINUE,
+    /**
+     * When returned from {@link #visitTableStart} or {@link #visitArrayStart}, continue the walk without visiting the
+     * contents of the table or array, and without calling {@link #visitTableEnd} or {@link #visitArrayEnd}. Otherwise,
+     * the same as {@link #CONTINUE}.
+     */
+    SKIP_SUBTREE,
+    /**
+     * End the walk, without calling any more methods.
+     */
+    TERMINATE
+  }
+
+  /**
+   * Called before visiting the entries of a table.
+   *
+   * @param key The key of the table, or {@code null} if it is an element of an array or where the walk started.
+   * @param table The table.
+   * @return How to continue the walk.
+   */
+  default Result visitTableStart(@Nullable String key, TomlTable table) {
+    return Result.CONTINUE;
+  }
+
+  /**
+   * Called after visiting the entries of a table.
+   *
+   * @param key The key of the table, or {@code null} if it is an element of an array or where the walk started.
+   * @param table The table.
+   * @return How to continue the walk.
+   */
+  default Result visitTableEnd(@Nullable String key, TomlTable table) {
+    return Result.CONTINUE;
+  }
+
+  /**
+   * Called before visiting the elements of an array.
+   *
+   * @param key The key of the array, or {@code null} if it is an element of an array or where the walk started.
+   * @param array The array.
+   * @return How to continue the walk.
+   */
+  default Result visitArrayStart(@Nullable String key, TomlArray array) {
+    return Result.CONTINUE;
+  }
+
+  /**
+   * Called after visiting the elements of an array.
+   *
+   * @param key The key of the array, or {@code null} if it is an element of an array or where the walk started.
+   * @param array The array.
+   * @return How to continue the walk.
+   */
+  default Result visitArrayEnd(@Nullable String key, TomlArray array) {
+    return Result.CONTINUE;
+  }
+
+  /**
+   * Called for a string value.
+   *
+   * @param key The key of the value, or {@code null} if it is an element of an array.
+   * @param value The value.
+   * @return How to continue the walk.
+   */
+  default Result visitString(@Nullable String key, String value) {
+    return Result.CONTINUE;
+  }
+
+  /**
+   * Called for an integer value.
+   *
+   * @param key The key of the value, or {@code null} if it is an element of an array.
+   * @param value The value.
+   * @return How to continue the walk.
+   */
+  default Result visitLong(@Nullable String key, long value) {
+    return Result.CONTINUE;
+  }
+
+  /**
+   * Called for a float value.
+   *
+   * @param key The key of the value, or {@code null} if it is an element of an array.
+   * @param value The value.
+   * @return How to continue the walk.
+   */
+  default Result visitDouble(@Nullable String key, double value) {
+    return Result.CONTINUE;
+  }
+
+  /**
+   * Called for a boolean value.
+   *
+   * @param key The key of the value, or {@code null} if it is an element of an array.
+   * @param value The value.
+   * @return How to continue the walk.
+   */
+  default Result visitBoolean(@Nullable String key, boolean value) {
+    return Result.CONTINUE;
+  }
+
+  /**
+   * Called for an offset date-time value.
+   *
+   * @param key The key of the value, or {@code null} if it is an element of an array.
+   * @param value The value.
+   * @return How to continue the walk.
+   */
+  default Result visitOffsetDateTime(@Nullable String key, OffsetDateTime value) {
+    return Result.CONTINUE;
+  }
+
+  /**
+   * Called for a local date-time value.
+   *
+   * @param key The key of the value, or {@code null} if it is an element of an array.
+   * @param value The value.
+   * @return How to continue the walk.
+   */
+  default Result visitLocalDateTime(@Nullable String key, LocalDateTime value) {
+    return Result.CONTINUE;
+  }
+
+  /**
+   * Called for a local date value.
+   *
+   * @param key The key of the value, or {@code null} if it is an element of an array.
+   * @param value The value.
+   * @return How to continue the walk.
+   */
+  default Result visitLocalDate(@Nullable String key, LocalDate value) {
+    return Result.CONTINUE;
+  }
+
+  /**
+   * Called for a local time value.
+   *
+   * @param key The key of the value, or {@code null} if it is an element of an array.
+   * @param value The value.
+   * @return How to continue the walk.
+   */
+  default Result visitLocalTime(@Nullable String key, LocalTime value) {
+    return Result.CONTINUE;
+  }
+}
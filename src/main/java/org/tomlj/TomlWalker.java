@@ -0,0 +1,124 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to You under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.tomlj;
+
+import static org.tomlj.TomlVisitor.Result.CONTINUE;
+import static org.tomlj.TomlVisitor.Result.TERMINATE;
+
+import org.tomlj.TomlVisitor.Result;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.util.Map;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * Walks tables and arrays for a {@link TomlVisitor}.
+ */
+final class TomlWalker {
+  private TomlWalker() {}
+
+  // Returns TERMINATE if the walk was terminated, otherwise CONTINUE
+  static Result walk(@Nullable String key, TomlTable table, TomlVisitor visitor) {
+    Result result = visitor.visitTableStart(key, table);
+    if (result != CONTINUE) {
+      return (result == TERMINATE) ? TERMINATE : CONTINUE;
+    }
+    for (Map.Entry<String, Object> entry : table.asMap().entrySet()) {
+      if (visit(entry.getKey(), entry.getValue(), visitor) == TERMINATE) {
+        return TERMINATE;
+      }
+    }
+    return (visitor.visitTableEnd(key, table) == TERMINATE) ? TERMINATE : CONTINUE;
+  }
+
+  static Result walk(@Nullable String key, TomlArray array, TomlVisitor visitor) {
+    Result result = visitor.visitArrayStart(key, array);
+    if (result != CONTINUE) {
+      return (result == TERMINATE) ? TERMINATE : CONTINUE;
+    }
+    if (visitElements(array, visitor) == TERMINATE) {
+      return TERMINATE;
+    }
+    return (visitor.visitArrayEnd(key, array) == TERMINATE) ? TERMINATE : CONTINUE;
+  }
+
+  private static Result visitElements(TomlArray array, TomlVisitor visitor) {
+    int size = array.size();
+    // elements of arrays held unboxed are read unboxed
+    if (array instanceof MutableTomlArray) {
+      MutableTomlArray mutableArray = (MutableTomlArray) array;
+      if (mutableArray.holdsLongs()) {
+        for (int i = 0; i < size; ++i) {
+          if (visitor.visitLong(null, mutableArray.getLong(i)) == TERMINATE) {
+            return TERMINATE;
+          }
+        }
+        return CONTINUE;
+      }
+      if (mutableArray.holdsDoubles()) {
+        for (int i = 0; i < size; ++i) {
+          if (visitor.visitDouble(null, mutableArray.getDouble(i)) == TERMINATE) {
+            return TERMINATE;
+          }
+        }
+        return CONTINUE;
+      }
+      if (mutableArray.holdsBooleans()) {
+        for (int i = 0; i < size; ++i) {
+          if (visitor.visitBoolean(null, mutableArray.getBoolean(i)) == TERMINATE) {
+            return TERMINATE;
+          }
+        }
+        return CONTINUE;
+      }
+    }
+    for (int i = 0; i < size; ++i) {
+      if (visit(null, array.get(i), visitor) == TERMINATE) {
+        return TERMINATE;
+      }
+    }
+    return CONTINUE;
+  }
+
+  private static Result visit(@Nullable String key, Object value, TomlVisitor visitor) {
+    Result result;
+    if (value instanceof String) {
+      result = visitor.visitString(key, (String) value);
+    } else if (value instanceof Long) {
+      result = visitor.visitLong(key, (Long) value);
+    } else if (value instanceof Double) {
+      result = visitor.visitDouble(key, (Double) value);
+    } else if (value instanceof Boolean) {
+      result = visitor.visitBoolean(key, (Boolean) value);
+    } else if (value instanceof TomlTable) {
+      result = walk(key, (TomlTable) value, visitor);
+    } else if (value instanceof TomlArray) {
+      result = walk(key, (TomlArray) value, visitor);
+    } else if (value instanceof OffsetDateTime) {
+      result = visitor.visitOffsetDateTime(key, (OffsetDateTime) value);
+    } else if (value instanceof LocalDateTime) {
+      result = visitor.visitLocalDateTime(key, (LocalDateTime) value);
+    } else if (value instanceof LocalDate) {
+      result = visitor.visitLocalDate(key, (LocalDate) value);
+    } else if (value instanceof LocalTime) {
+      result = visitor.visitLocalTime(key, (LocalTime) value);
+    } else {
+      throw new IllegalStateException("Unsupported type " + value.getClass().getSimpleName());
+    }
+    return (result == TERMINATE) ? TERMINATE : CONTINUE;
+  }
+}
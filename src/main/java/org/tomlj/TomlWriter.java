@@ -0,0 +1,494 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to You under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.tomlj;
+
+import static java.util.Objects.requireNonNull;
+import static org.tomlj.Parser.parseDottedKey;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * A forward-only writer of TOML documents, which writes keys, values and table headers as they are given, without
+ * building any tables.
+ *
+ * <pre>
+ * {@code
+ * try (TomlWriter writer = Toml.writer(outputStream)) {
+ *   writer.key("title").value("Dump");
+ *   for (Record record : records) {
+ *     writer.arrayTable("records");
+ *     writer.key("id").value(record.id());
+ *     writer.key("tags").beginArray();
+ *     for (String tag : record.tags()) {
+ *       writer.value(tag);
+ *     }
+ *     writer.endArray();
+ *   }
+ * }
+ * }
+ * </pre>
+ *
+ * <p>
+ * The document is laid out as {@link TomlTable#toToml()} lays it out. Keys that are not bare keys are quoted, and
+ * strings are written as basic strings.
+ *
+ * <p>
+ * Misuse of the writer (such as writing a value without a key, or a table header inside an array) and keys or tables
+ * that are defined twice are reported by throwing {@link IllegalStateException}. To keep memory use independent of the
+ * size of the document, keys are only checked against the other keys of the current table, and against the table
+ * headers (and the tables they define implicitly) that have been written outside of arrays of tables and in the
+ * current element of each array of tables.
+ *
+ * <p>
+ * A writer is not thread safe.
+ */
+public final class TomlWriter implements Closeable, Flushable {
+
+  private final Appendable out;
+
+  // The path of the current table, and the keys that have been written in it
+  private List<String> tablePath = Collections.emptyList();
+  private final Set<String> tableKeys = new HashSet<>();
+  // The tables defined by the headers that have been written, by path, and the node of the current table. Tables below
+  // an array of tables are forgotten when the next element of the array is started.
+  private final TableNode rootTable = new TableNode();
+  private TableNode currentTable = rootTable;
+
+  @Nullable
+  private String pendingKey;
+  // The number of elements written to each open array
+  private int[] arrayElements = new int[8];
+  private int arrayDepth;
+  private boolean closed;
+
+  TomlWriter(Appendable out) {
+    this.out = out;
+  }
+
+  /**
+   * Start a table.
+   *
+   * @param dottedKey A dotted key (e.g. {@code "server.http"}).
+   * @return This writer.
+   * @throws IllegalArgumentException If the key cannot be parsed.
+   * @throws IllegalStateException If a key is waiting for a value, an array is open, or the table is already defined.
+   * @throws IOException If an IO error occurs.
+   */
+  public TomlWriter table(String dottedKey) throws IOException {
+    requireNonNull(dottedKey);
+    return table(parseDottedKey(dottedKey));
+  }
+
+  /**
+   * Start a table.
+   *
+   * @param path The key path of the table.
+   * @return This writer.
+   * @throws IllegalArgumentException If the path is empty.
+   * @throws IllegalStateException If a key is waiting for a value, an array is open, or the table is already defined.
+   * @throws IOException If an IO error occurs.
+   */
+  public TomlWriter table(List<String> path) throws IOException {
+    startTable(path, false);
+    return this;
+  }
+
+  /**
+   * Start a new table in an array of tables.
+   *
+   * @param dottedKey A dotted key (e.g. {@code "products"}).
+   * @return This writer.
+   * @throws IllegalArgumentException If the key cannot be parsed.
+   * @throws IllegalStateException If a key is waiting for a value, an array is open, or the key is already defined as
+   *         something other than an array of tables.
+   * @throws IOException If an IO error occurs.
+   */
+  public TomlWriter arrayTable(String dottedKey) throws IOException {
+    requireNonNull(dottedKey);
+    return arrayTable(parseDottedKey(dottedKey));
+  }
+
+  /**
+   * Start a new table in an array of tables.
+   *
+   * @param path The key path of the array of tables.
+   * @return This writer.
+   * @throws IllegalArgumentException If the path is empty.
+   * @throws IllegalStateException If a key is waiting for a value, an array is open, or the key is already defined as
+   *         something other than an array of tables.
+   * @throws IOException If an IO error occurs.
+   */
+  public TomlWriter arrayTable(List<String> path) throws IOException {
+    startTable(path, true);
+    return this;
+  }
+
+  private void startTable(List<String> headerPath, boolean arrayTable) throws IOException {
+    requireNonNull(headerPath);
+    if (headerPath.isEmpty()) {
+      throw new IllegalArgumentException("Empty key path");
+    }
+    checkWritable();
+    if (pendingKey != null) {
+      throw new IllegalStateException("No value written for key " + Toml.joinKeyPath(keyPath(pendingKey)));
+    }
+    if (arrayDepth > 0) {
+      throw new IllegalStateException("Cannot start a table inside an array");
+    }
+    List<String> path = Collections.unmodifiableList(new ArrayList<>(headerPath));
+    int depth = tablePath.size();
+    if (path.size() > depth && path.subList(0, depth).equals(tablePath) && tableKeys.contains(path.get(depth))) {
+      String message = Toml.joinKeyPath(path.subList(0, depth + 1)) + " previously defined as a value";
+      throw new IllegalStateException(message);
+    }
+    // the parent tables are defined implicitly, unless they are already defined
+    TableNode parent = rootTable;
+    for (int i = 0; i < path.size() - 1; ++i) {
+      parent = parent.child(path.get(i));
+    }
+    String key = path.get(path.size() - 1);
+    TableNode table = (parent.children == null) ? null : parent.children.get(key);
+    if (table != null && table.kind != TableNode.IMPLICIT && !(arrayTable && table.kind == TableNode.ARRAY_TABLE)) {
+      boolean wasArrayTable = table.kind == TableNode.ARRAY_TABLE;
+      String message = Toml.joinKeyPath(path)
+          + (wasArrayTable ? " previously defined as an array of tables" : " previously defined");
+      throw new IllegalStateException(message);
+    }
+    if (table != null && arrayTable && table.kind == TableNode.IMPLICIT) {
+      throw new IllegalStateException(Toml.joinKeyPath(path) + " previously defined as a table");
+    }
+    if (table == null) {
+      table = parent.child(key);
+    } else if (arrayTable) {
+      // tables in the previous element of the array are out of scope
+      table.children = null;
+    }
+    table.kind = arrayTable ? TableNode.ARRAY_TABLE : TableNode.TABLE;
+    currentTable = table;
+    tablePath = path;
+    tableKeys.clear();
+
+    TomlSerializer.indent(out, 2 * (path.size() - 1));
+    out.append(arrayTable ? "[[" : "[");
+    for (int i = 0; i < path.size(); ++i) {
+      if (i > 0) {
+        out.append('.');
+      }
+      TomlSerializer.appendKey(path.get(i), out);
+    }
+    out.append(arrayTable ? "]]" : "]").append(System.lineSeparator());
+  }
+
+  /**
+   * Write a key in the current table, which must be followed by a value or an array.
+   *
+   * @param name The key, which is a single key (any dots are part of the key).
+   * @return This writer.
+   * @throws IllegalStateException If a key is already waiting for a value, an array is open, or the key is already
+   *         defined in the current table.
+   * @throws IOException If an IO error occurs.
+   */
+  public TomlWriter key(String name) throws IOException {
+    requireNonNull(name);
+    checkWritable();
+    if (pendingKey != null) {
+      throw new IllegalStateException("No value written for key " + Toml.joinKeyPath(keyPath(pendingKey)));
+    }
+    if (arrayDepth > 0) {
+      throw new IllegalStateException("Cannot write a key inside an array");
+    }
+    if ((currentTable.children != null && currentTable.children.containsKey(name)) || !tableKeys.add(name)) {
+      throw new IllegalStateException(Toml.joinKeyPath(keyPath(name)) + " previously defined");
+    }
+    pendingKey = name;
+    return this;
+  }
+
+  private List<String> keyPath(String key) {
+    List<String> path = new ArrayList<>(tablePath.size() + 1);
+    path.addAll(tablePath);
+    path.add(key);
+    return path;
+  }
+
+  /**
+   * Start an array, as the value of the preceding key or as an element of the enclosing array.
+   *
+   * @return This writer.
+   * @throws IllegalStateException If no key is waiting for a value and no array is open.
+   * @throws IOException If an IO error occurs.
+   */
+  public TomlWriter beginArray() throws IOException {
+    startValue();
+    out.append('[');
+    if (arrayDepth == arrayElements.length) {
+      arrayElements = Arrays.copyOf(arrayElements, arrayDepth * 2);
+    }
+    arrayElements[arrayDepth++] = 0;
+    return this;
+  }
+
+  /**
+   * End the innermost open array.
+   *
+   * @return This writer.
+   * @throws IllegalStateException If no array is open.
+   * @throws IOException If an IO error occurs.
+   */
+  public TomlWriter endArray() throws IOException {
+    checkWritable();
+    if (arrayDepth == 0) {
+      throw new IllegalStateException("No array is open");
+    }
+    if (arrayElements[--arrayDepth] > 0) {
+      out.append(System.lineSeparator());
+    }
+    TomlSerializer.indent(out, 2 * (tablePath.size() + arrayDepth));
+    out.append(']');
+    endValue();
+    return this;
+  }
+
+  /**
+   * Write a string value.
+   *
+   * @param value The value.
+   * @return This writer.
+   * @throws IllegalStateException If no key is waiting for a value and no array is open.
+   * @throws IOException If an IO error occurs.
+   */
+  public TomlWriter value(String value) throws IOException {
+    requireNonNull(value);
+    startValue();
+    out.append('"');
+    Toml.tomlEscape(value, out);
+    out.append('"');
+    endValue();
+    return this;
+  }
+
+  /**
+   * Write an integer value.
+   *
+   * @param value The value.
+   * @return This writer.
+   * @throws IllegalStateException If no key is waiting for a value and no array is open.
+   * @throws IOException If an IO error occurs.
+   */
+  public TomlWriter value(long value) throws IOException {
+    startValue();
+    out.append(Long.toString(value));
+    endValue();
+    return this;
+  }
+
+  /**
+   * Write a float value.
+   *
+   * @param value The value.
+   * @return This writer.
+   * @throws IllegalStateException If no key is waiting for a value and no array is open.
+   * @throws IOException If an IO error occurs.
+   */
+  public TomlWriter value(double value) throws IOException {
+    startValue();
+    if (Double.isNaN(value)) {
+      out.append("nan");
+    } else if (Double.isInfinite(value)) {
+      out.append(value > 0 ? "inf" : "-inf");
+    } else {
+      out.append(Double.toString(value));
+    }
+    endValue();
+    return this;
+  }
+
+  /**
+   * Write a boolean value.
+   *
+   * @param value The value.
+   * @return This writer.
+   * @throws IllegalStateException If no key is waiting for a value and no array is open.
+   * @throws IOException If an IO error occurs.
+   */
+  public TomlWriter value(boolean value) throws IOException {
+    startValue();
+    out.append(value ? "true" : "false");
+    endValue();
+    return this;
+  }
+
+  /**
+   * Write an offset date-time value.
+   *
+   * @param value The value.
+   * @return This writer.
+   * @throws IllegalStateException If no key is waiting for a value and no array is open.
+   * @throws IOException If an IO error occurs.
+   */
+  public TomlWriter value(OffsetDateTime value) throws IOException {
+    requireNonNull(value);
+    startValue();
+    DateTimeFormatter.ISO_OFFSET_DATE_TIME.formatTo(value, out);
+    endValue();
+    return this;
+  }
+
+  /**
+   * Write a local date-time value.
+   *
+   * @param value The value.
+   * @return This writer.
+   * @throws IllegalStateException If no key is waiting for a value and no array is open.
+   * @throws IOException If an IO error occurs.
+   */
+  public TomlWriter value(LocalDateTime value) throws IOException {
+    requireNonNull(value);
+    startValue();
+    DateTimeFormatter.ISO_LOCAL_DATE_TIME.formatTo(value, out);
+    endValue();
+    return this;
+  }
+
+  /**
+   * Write a local date value.
+   *
+   * @param value The value.
+   * @return This writer.
+   * @throws IllegalStateException If no key is waiting for a value and no array is open.
+   * @throws IOException If an IO error occurs.
+   */
+  public TomlWriter value(LocalDate value) throws IOException {
+    requireNonNull(value);
+    startValue();
+    DateTimeFormatter.ISO_LOCAL_DATE.formatTo(value, out);
+    endValue();
+    return this;
+  }
+
+  /**
+   * Write a local time value.
+   *
+   * @param value The value.
+   * @return This writer.
+   * @throws IllegalStateException If no key is waiting for a value and no array is open.
+   * @throws IOException If an IO error occurs.
+   */
+  public TomlWriter value(LocalTime value) throws IOException {
+    requireNonNull(value);
+    startValue();
+    DateTimeFormatter.ISO_LOCAL_TIME.formatTo(value, out);
+    endValue();
+    return this;
+  }
+
+  // Writes the key, or the separator before an array element
+  private void startValue() throws IOException {
+    checkWritable();
+    if (arrayDepth > 0) {
+      int elements = arrayElements[arrayDepth - 1]++;
+      out.append((elements == 0) ? "" : ",").append(System.lineSeparator());
+      TomlSerializer.indent(out, 2 * (tablePath.size() + arrayDepth));
+      return;
+    }
+    String key = pendingKey;
+    if (key == null) {
+      throw new IllegalStateException("No key written for the value");
+    }
+    TomlSerializer.indent(out, 2 * tablePath.size());
+    TomlSerializer.appendKey(key, out);
+    out.append('=');
+  }
+
+  private void endValue() throws IOException {
+    if (arrayDepth == 0) {
+      pendingKey = null;
+      out.append(System.lineSeparator());
+    }
+  }
+
+  private void checkWritable() {
+    if (closed) {
+      throw new IllegalStateException("Writer is closed");
+    }
+  }
+
+  /**
+   * Flush the output, if it is {@link Flushable}.
+   *
+   * @throws IOException If an IO error occurs.
+   */
+  @Override
+  public void flush() throws IOException {
+    if (out instanceof Flushable) {
+      ((Flushable) out).flush();
+    }
+  }
+
+  /**
+   * Close the writer and its output, if the output is {@link Closeable}.
+   *
+   * @throws IllegalStateException If a key is waiting for a value or an array is open. The output is still closed.
+   * @throws IOException If an IO error occurs.
+   */
+  @Override
+  public void close() throws IOException {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    if (out instanceof Closeable) {
+      ((Closeable) out).close();
+    } else {
+      flush();
+    }
+    if (pendingKey != null || arrayDepth > 0) {
+      throw new IllegalStateException("Document is incomplete");
+    }
+  }
+
+  // A table defined by a table header, or implicitly as the parent of one
+  private static final class TableNode {
+    static final int IMPLICIT = 0;
+    static final int TABLE = 1;
+    static final int ARRAY_TABLE = 2;
+
+    int kind = IMPLICIT;
+    @Nullable
+    Map<String, TableNode> children;
+
+    TableNode child(String key) {
+      if (children == null) {
+        children = new HashMap<>();
+      }
+      return children.computeIfAbsent(key, k -> new TableNode());
+    }
+  }
+}
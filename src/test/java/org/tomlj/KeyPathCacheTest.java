@@ -0,0 +1,85 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to You under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.tomlj;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.Test;
+
+class KeyPathCacheTest {
+
+  @Test
+  void shouldCacheParsedDottedKeys() {
+    KeyPathCache cache = new KeyPathCache(2);
+    List<String> path = cache.get("foo.\"bar\"", Toml::parseDottedKey);
+    assertEquals(Arrays.asList("foo", "bar"), path);
+    assertSame(path, cache.get("foo.\"bar\"", key -> fail("should be cached")));
+    assertEquals(1, cache.hits());
+    assertEquals(1, cache.misses());
+
+    assertThrows(UnsupportedOperationException.class, () -> Toml.parseDottedKey("foo.bar").add("baz"));
+  }
+
+  @Test
+  void shouldEvictLeastRecentlyUsedDottedKeys() {
+    KeyPathCache cache = new KeyPathCache(2, 1);
+    AtomicInteger loads = new AtomicInteger();
+    Function<String, List<String>> loader = key -> {
+      loads.incrementAndGet();
+      return Collections.singletonList(key);
+    };
+    cache.get("a", loader);
+    cache.get("b", loader);
+    // touching "a" makes "b" the least recently used
+    cache.get("a", loader);
+    assertEquals(2, loads.get());
+
+    cache.get("c", loader);
+    assertEquals(3, loads.get());
+    cache.get("a", loader);
+    cache.get("c", loader);
+    assertEquals(3, loads.get());
+    cache.get("b", loader);
+    assertEquals(4, loads.get());
+    assertEquals(3, cache.hits());
+    assertEquals(4, cache.misses());
+  }
+
+  @Test
+  void shouldNotCacheInvalidDottedKeys() {
+    KeyPathCache cache = new KeyPathCache(2);
+    assertThrows(IllegalArgumentException.class, () -> cache.get("foo.=bar", Toml::parseDottedKey));
+    assertThrows(IllegalArgumentException.class, () -> cache.get("foo.=bar", Toml::parseDottedKey));
+    assertEquals(0, cache.hits());
+    assertEquals(2, cache.misses());
+  }
+
+  @Test
+  void shouldParseDottedKeysWithCacheDisabled() {
+    KeyPathCache cache = new KeyPathCache(0);
+    assertFalse(cache.isEnabled());
+    assertEquals(Arrays.asList("foo", "bar"), cache.get("foo.bar", Toml::parseDottedKey));
+    assertEquals(0, cache.hits());
+    assertEquals(0, cache.misses());
+  }
+}
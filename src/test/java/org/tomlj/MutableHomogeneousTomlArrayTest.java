@@ -18,6 +18,8 @@ import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.tomlj.TomlPosition.positionAt;
 
+import java.util.Arrays;
+
 import org.junit.jupiter.api.Test;
 
 class MutableHomogeneousTomlArrayTest {
@@ -72,6 +74,32 @@ class MutableHomogeneousTomlArrayTest {
     assertEquals(2, array.size());
   }
 
+  @Test
+  void cannotAppendDifferentUnboxedTypes() {
+    MutableHomogeneousTomlArray array = new MutableHomogeneousTomlArray(false);
+    array.append(1L, positionAt(1, 1).pack());
+    assertThrows(TomlInvalidTypeException.class, () -> array.append(1.5, positionAt(1, 2).pack()));
+    assertThrows(TomlInvalidTypeException.class, () -> array.append(true, positionAt(1, 2).pack()));
+    array.append(2L, positionAt(1, 3).pack());
+    assertEquals(2, array.size());
+    assertTrue(array.holdsLongs());
+    assertEquals(positionAt(1, 3), array.inputPositionOf(1));
+  }
+
+  @Test
+  void shouldBoxUnboxedValuesOnceTypesAreMixed() {
+    MutableTomlArray array = new MutableTomlArray(false);
+    array.append(true, positionAt(1, 1).pack());
+    array.append(false, positionAt(1, 2).pack());
+    assertTrue(array.holdsBooleans());
+    array.append(1L, positionAt(1, 3).pack());
+    array.append(2.5, positionAt(1, 4).pack());
+    array.trim();
+    assertFalse(array.holdsBooleans());
+    assertEquals(Arrays.asList(true, false, 1L, 2.5), array.toList());
+    assertEquals(positionAt(1, 4), array.inputPositionOf(3));
+  }
+
   @Test
   void shouldReturnNullForUnknownIndex() {
     MutableHomogeneousTomlArray array = new MutableHomogeneousTomlArray(false);
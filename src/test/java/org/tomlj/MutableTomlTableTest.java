@@ -23,9 +23,12 @@ import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.OffsetDateTime;
 import java.util.AbstractMap;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Stream;
 
 import org.junit.jupiter.api.Test;
@@ -114,6 +117,39 @@ class MutableTomlTableTest {
     assertEquals(Long.valueOf(9), table.getLong("' Bar '.  \" B A Z \""));
   }
 
+  @Test
+  void dottedAndPathLookupsAgree() {
+    MutableTomlTable table = new MutableTomlTable(HEAD);
+    table.set("foo.bar-baz.qux_1", 4, positionAt(5, 3));
+    table.set(Arrays.asList("foo", "a.b"), "one", positionAt(6, 1));
+    assertEquals(table.get(Arrays.asList("foo", "bar-baz", "qux_1")), table.get("foo.bar-baz.qux_1"));
+    assertEquals(positionAt(5, 3), table.inputPositionOf("foo.bar-baz.qux_1"));
+    assertEquals("one", table.getString("foo.\"a.b\""));
+    assertNull(table.get("foo.a.b"));
+    assertNull(table.get("foo.bar-baz.qux_1.x"));
+    assertTrue(table.contains("foo.bar-baz"));
+    TomlInvalidTypeException e = assertThrows(TomlInvalidTypeException.class, () -> table.getString("foo.bar-baz"));
+    assertEquals("Value of 'foo.bar-baz' is a table", e.getMessage());
+  }
+
+  @Test
+  void lookupsByTomlKey() {
+    MutableTomlTable table = new MutableTomlTable(HEAD);
+    table.set(Arrays.asList("foo", "a.b", "c"), 4, positionAt(5, 3));
+    TomlKey key = TomlKey.of("foo.\"a.b\".c");
+    assertEquals(TomlKey.of(Arrays.asList("foo", "a.b", "c")), key);
+    assertEquals("foo.\"a.b\".c", key.toString());
+    assertEquals(Long.valueOf(4), table.getLong(key));
+    assertEquals(positionAt(5, 3), table.inputPositionOf(key));
+    assertTrue(table.contains(key));
+    assertFalse(table.contains(TomlKey.of("foo.a.b.c")));
+    assertEquals(EMPTY_ARRAY, table.getArrayOrEmpty(TomlKey.of("foo.bar")));
+    TomlInvalidTypeException e =
+        assertThrows(TomlInvalidTypeException.class, () -> table.getString(TomlKey.of("foo.\"a.b\"")));
+    assertEquals("Value of 'foo.\"a.b\"' is a table", e.getMessage());
+    assertThrows(IllegalArgumentException.class, () -> TomlKey.of(Collections.emptyList()));
+  }
+
   @Test
   void throwsForInvalidKey() {
     MutableTomlTable table = new MutableTomlTable(HEAD);
@@ -226,4 +262,22 @@ class MutableTomlTableTest {
         + "}\n";
     assertEquals(expected.replace("\n", System.lineSeparator()), table.toJson());
   }
+
+  @Test
+  void asMapIsAReadOnlyViewInDefinitionOrder() {
+    MutableTomlTable table = new MutableTomlTable(HEAD);
+    table.set("foo", 1L, positionAt(1, 1));
+    table.set("bar.baz", "two", positionAt(2, 1));
+    Map<String, Object> map = table.asMap();
+    assertEquals(2, map.size());
+    assertEquals(Arrays.asList("foo", "bar"), new ArrayList<>(map.keySet()));
+    assertEquals(1L, map.get("foo"));
+    assertTrue(map.containsKey("bar"));
+    assertFalse(map.containsKey("bar.baz"));
+    assertEquals(table.toMap(), map);
+    table.set("qux", true, positionAt(3, 1));
+    assertEquals(3, map.size());
+    assertThrows(UnsupportedOperationException.class, () -> map.put("quux", 2L));
+    assertThrows(UnsupportedOperationException.class, () -> map.entrySet().iterator().next().setValue(2L));
+  }
 }
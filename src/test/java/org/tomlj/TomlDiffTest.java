@@ -0,0 +1,67 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to You under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.tomlj;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+
+class TomlDiffTest {
+
+  @Test
+  void shouldDiffTables() {
+    TomlParseResult before =
+        Toml.parse("a = 1\nb = [ 1, 2 ]\nc = 'x'\n[t]\nd = true\ne = 1.0\n[u]\nf = 1\n[w]\ng = 1\n");
+    TomlParseResult after =
+        Toml.parse("b = [ 1, 3 ]\na = 1\nc = 1\nh = 2\n[t]\ne = 1.0\nd = false\ni = 0\n[w]\ng = 1\n");
+    assertFalse(before.hasErrors(), () -> joinErrors(before));
+    assertFalse(after.hasErrors(), () -> joinErrors(after));
+
+    List<TomlDiff> changes = TomlDiff.between(before, after);
+    assertEquals(
+        Arrays.asList("CHANGED b", "CHANGED c", "CHANGED t.d", "ADDED t.i", "REMOVED u", "ADDED h"),
+        changes.stream().map(TomlDiff::toString).collect(Collectors.toList()));
+
+    TomlDiff c = changes.get(1);
+    assertEquals(TomlDiff.Kind.CHANGED, c.kind());
+    assertEquals(Arrays.asList("c"), c.path());
+    assertEquals("x", c.oldValue());
+    assertEquals(1L, c.newValue());
+    assertEquals(TomlPosition.positionAt(3, 1), c.oldPosition());
+    assertEquals(TomlPosition.positionAt(3, 1), c.newPosition());
+
+    TomlDiff i = changes.get(3);
+    assertNull(i.oldValue());
+    assertNull(i.oldPosition());
+    assertEquals(0L, i.newValue());
+    assertEquals(TomlPosition.positionAt(8, 1), i.newPosition());
+
+    TomlDiff u = changes.get(4);
+    assertSame(before.getTable("u"), u.oldValue());
+    assertNull(u.newValue());
+
+    assertTrue(TomlDiff.between(after, Toml.parse(after.toToml())).isEmpty());
+  }
+
+  private String joinErrors(TomlParseResult result) {
+    return result.errors().stream().map(TomlParseError::toString).collect(Collectors.joining("\n"));
+  }
+}
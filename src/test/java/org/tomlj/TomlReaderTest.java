@@ -0,0 +1,163 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to You under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.tomlj;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+class TomlReaderTest {
+
+  @ParameterizedTest
+  @MethodSource("org.tomlj.TomlTest#antlrComparisonSupplier")
+  void shouldReadSameEventsAsStream(String resource, TomlVersion version) throws Exception {
+    List<String> expected = new ArrayList<>();
+    try (InputStream is = this.getClass().getResourceAsStream(resource)) {
+      Toml.parse(new InputStreamReader(is, StandardCharsets.UTF_8), version, new TomlEventHandler() {
+        private final Deque<List<String>> arrayPaths = new ArrayDeque<>();
+
+        @Override
+        public void startTable(List<String> path, TomlPosition position) {
+          expected.add("START_TABLE " + path + " " + position);
+        }
+
+        @Override
+        public void startArrayTable(List<String> path, TomlPosition position) {
+          expected.add("START_ARRAY_TABLE " + path + " " + position);
+        }
+
+        @Override
+        public void keyValue(List<String> path, Object value, TomlPosition position) {
+          expected.add("KEY_VALUE " + path + " " + describeValue(value) + " " + position);
+        }
+
+        @Override
+        public void startArray(List<String> path, TomlPosition position) {
+          arrayPaths.push(path);
+          expected.add("START_ARRAY " + path + " " + position);
+        }
+
+        @Override
+        public void arrayValue(Object value, TomlPosition position) {
+          expected.add("ARRAY_VALUE " + arrayPaths.peek() + " " + describeValue(value) + " " + position);
+        }
+
+        @Override
+        public void endArray() {
+          expected.add("END_ARRAY " + arrayPaths.pop() + " null");
+        }
+      });
+    }
+
+    List<String> actual = new ArrayList<>();
+    try (InputStream is = this.getClass().getResourceAsStream(resource)) {
+      TomlReader reader = Toml.reader(new InputStreamReader(is, StandardCharsets.UTF_8), version);
+      while (reader.next() != TomlReader.Event.END_DOCUMENT) {
+        assertTrue(reader.event() != TomlReader.Event.ERROR, () -> reader.error().toString());
+        String value = (reader.event() == TomlReader.Event.KEY_VALUE
+            || reader.event() == TomlReader.Event.ARRAY_VALUE) ? " " + describeValue(reader.value()) : "";
+        actual.add(reader.event() + " " + reader.currentKeyPath() + value + " " + reader.position());
+      }
+      assertFalse(reader.hasNext());
+      assertThrows(NoSuchElementException.class, reader::next);
+    }
+    assertEquals(expected, actual);
+  }
+
+  @Test
+  void shouldReadPrimitiveValues() {
+    TomlReader reader = Toml.reader("a = 1\nb = 2.5\nc = true\nd = [ 3, 'x' ]\n", TomlVersion.V1_0_0);
+    assertEquals(TomlReader.Event.KEY_VALUE, reader.next());
+    assertTrue(reader.isLong());
+    assertEquals(1L, reader.longValue());
+    assertEquals(Arrays.asList("a"), reader.currentKeyPath());
+    TomlInvalidTypeException e = assertThrows(TomlInvalidTypeException.class, reader::doubleValue);
+    assertEquals("Value of 'a' is a integer", e.getMessage());
+
+    assertEquals(TomlReader.Event.KEY_VALUE, reader.next());
+    assertTrue(reader.isDouble());
+    assertEquals(2.5, reader.doubleValue());
+
+    assertEquals(TomlReader.Event.KEY_VALUE, reader.next());
+    assertTrue(reader.isBoolean());
+    assertTrue(reader.booleanValue());
+    assertEquals(Boolean.TRUE, reader.value());
+
+    assertEquals(TomlReader.Event.START_ARRAY, reader.next());
+    assertThrows(IllegalStateException.class, reader::longValue);
+    assertEquals(TomlReader.Event.ARRAY_VALUE, reader.next());
+    assertEquals(3L, reader.longValue());
+    assertEquals(Arrays.asList("d"), reader.currentKeyPath());
+    assertEquals(TomlReader.Event.ARRAY_VALUE, reader.next());
+    assertEquals("x", reader.stringValue());
+    assertEquals(TomlReader.Event.END_ARRAY, reader.next());
+    assertEquals(TomlReader.Event.END_DOCUMENT, reader.next());
+  }
+
+  @Test
+  void shouldSkipTablesWithReader() {
+    TomlReader reader = Toml
+        .reader(
+            "a = 1\n[skip]\nb = [ 1, [ 'x', { y = 2 } ],\n  3 ]\nc = @\nf = { g = [ 1979-05-27 ], h = \"\\u00e9\" }\n"
+                + "i = 99999999999999999999\n[[keep]]\nd = 'x'\n[skip2]\ne = 1\ne = 2\n[end]\n");
+    assertEquals(TomlReader.Event.KEY_VALUE, reader.next());
+    reader.skipTable();
+    assertEquals(TomlReader.Event.START_TABLE, reader.next());
+    assertEquals(Arrays.asList("skip"), reader.currentKeyPath());
+    reader.skipTable();
+    assertEquals(TomlReader.Event.START_ARRAY_TABLE, reader.next());
+    assertEquals(Arrays.asList("keep"), reader.currentKeyPath());
+    assertEquals(TomlReader.Event.KEY_VALUE, reader.next());
+    assertEquals(Arrays.asList("keep", "d"), reader.currentKeyPath());
+    assertEquals("x", reader.stringValue());
+    assertEquals(TomlReader.Event.START_TABLE, reader.next());
+    reader.skipTable();
+    reader.skipTable();
+    assertEquals(TomlReader.Event.START_TABLE, reader.next());
+    assertEquals(Arrays.asList("end"), reader.currentKeyPath());
+    reader.skipTable();
+    assertEquals(TomlReader.Event.END_DOCUMENT, reader.next());
+  }
+
+  @Test
+  void shouldReadErrors() {
+    TomlReader reader = Toml.reader("a = @\nb = 1\n");
+    assertEquals(TomlReader.Event.ERROR, reader.next());
+    assertEquals(Collections.emptyList(), reader.currentKeyPath());
+    assertEquals(TomlPosition.positionAt(1, 5), reader.position());
+    assertEquals(TomlPosition.positionAt(1, 5), reader.error().position());
+    assertEquals(TomlReader.Event.KEY_VALUE, reader.next());
+    assertThrows(IllegalStateException.class, reader::error);
+    assertEquals(1L, reader.longValue());
+  }
+
+  private static String describeValue(Object value) {
+    return (value instanceof TomlTable) ? ((TomlTable) value).toJson() : value.toString();
+  }
+}
@@ -0,0 +1,102 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to You under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.tomlj;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+
+class TomlSnapshotTest {
+
+  @Test
+  void shouldReadSnapshots() throws Exception {
+    StringBuilder builder = new StringBuilder("title = \"kéy ☃\"\nodt = 1979-05-27T07:32:00.5-07:00\n")
+        .append("ldt = 1979-05-27T07:32:00\nld = 1979-05-27\nlt = 00:32:00.999\nf = [1.5, nan]\n")
+        .append("flags = [true, false]\nmixed = [1, 'a', [2], {x = 1}]\n");
+    for (int i = 0; i < 2000; ++i) {
+      builder.append("[[items]]\nid = ").append(i).append("\n[items.sub]\nname = \"n").append(i).append("\"\n");
+    }
+    Path source = Files.createTempFile("tomlj", ".toml");
+    Path snapshot = Files.createTempFile("tomlj", ".snapshot");
+    try {
+      Files.delete(snapshot);
+      Files.write(source, builder.toString().getBytes(StandardCharsets.UTF_8));
+      TomlParseResult result = Toml.parse(source);
+      assertFalse(result.hasErrors(), () -> joinErrors(result));
+      assertNull(Toml.readSnapshot(snapshot, source));
+
+      Toml.writeSnapshot(result, snapshot, source);
+      TomlTable table = Toml.readSnapshot(snapshot, source);
+      assertNotNull(table);
+      assertEquals("n1999", table.getArray("items").getTable(1999).getString("sub.name"));
+      assertEquals(result.getArray("items").inputPositionOf(7), table.getArray("items").inputPositionOf(7));
+      assertEquals(result.inputPositionOf("mixed"), table.inputPositionOf("mixed"));
+      assertTrue(Toml.equals(result, table));
+      assertEquals(result.toJson(), table.toJson());
+
+      Files.write(source, (builder + "x = 1\n").getBytes(StandardCharsets.UTF_8));
+      assertNull(Toml.readSnapshot(snapshot, source));
+      assertTrue(Toml.equals(result, Toml.readSnapshot(snapshot)));
+
+      Toml.writeSnapshot(Toml.parse("a = [1]", TomlParseOptions.defaults().withInputPositions(false)), snapshot);
+      TomlTable withoutPositions = Toml.readSnapshot(snapshot);
+      assertEquals(Long.valueOf(1), withoutPositions.getArray("a").get(0));
+      assertNull(withoutPositions.inputPositionOf("a"));
+      assertThrows(IllegalStateException.class, () -> withoutPositions.getArray("a").inputPositionOf(0));
+      assertNull(Toml.readSnapshot(snapshot, source));
+
+      long[] somePositions = {0, TomlPosition.pack(2, 1)};
+      Toml.writeSnapshot(new FrozenTomlTable(new String[] {"a", "b"}, new Object[] {1L, 2L}, somePositions), snapshot);
+      TomlTable partialPositions = Toml.readSnapshot(snapshot);
+      assertNull(partialPositions.inputPositionOf("a"));
+      assertEquals(TomlPosition.positionAt(2, 1), partialPositions.inputPositionOf("b"));
+
+      Files.write(snapshot, "a = 1".getBytes(StandardCharsets.UTF_8));
+      assertThrows(IOException.class, () -> Toml.readSnapshot(snapshot));
+
+      Toml.writeSnapshot(Toml.parse("s = 'x'\nt = {a = [1, 2.5, true], d = 1979-05-27T07:32:00Z}\n"), snapshot);
+      byte[] valid = Files.readAllBytes(snapshot);
+      for (int i = 36; i < valid.length; ++i) {
+        byte[] corrupt = valid.clone();
+        corrupt[i] ^= (byte) 0xc5;
+        Files.write(snapshot, corrupt);
+        TomlTable read;
+        try {
+          read = Toml.readSnapshot(snapshot);
+        } catch (IOException e) {
+          continue;
+        }
+        // a change that is not detected leaves a snapshot that can be decoded in full
+        assertNotNull(read.toJson());
+      }
+    } finally {
+      Files.deleteIfExists(source);
+      Files.deleteIfExists(snapshot);
+    }
+  }
+
+  private String joinErrors(TomlParseResult result) {
+    return result.errors().stream().map(TomlParseError::toString).collect(Collectors.joining("\n"));
+  }
+}
@@ -12,27 +12,46 @@
  */
 package org.tomlj;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.charset.CharacterCodingException;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.OffsetDateTime;
+import java.util.AbstractMap;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Deque;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Random;
 import java.util.Scanner;
+import java.util.concurrent.ForkJoinPool;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
+import org.antlr.v4.runtime.CharStreams;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
@@ -447,7 +466,6 @@ class TomlTest {
     // @formatter:on
   }
 
-
   @Test
   void testImplicitAndExplicitAfter() throws Exception {
     TomlParseResult result = Toml.parse("[a.b.c]\nanswer = 42\n\n[a]\nbetter = 43\n");
@@ -696,6 +714,507 @@ class TomlTest {
     // @formatter:on
   }
 
+  @ParameterizedTest
+  @MethodSource("errorCaseSupplier")
+  void shouldReportSameFirstErrorAsAntlrParser(String input, int line, int column, String expected) {
+    TomlParseResult antlrResult = Parser.parseWithAntlr(CharStreams.fromString(input), TomlVersion.LATEST);
+    TomlParseResult result = RecursiveDescentParser.parse(input, TomlVersion.LATEST);
+    assertFalse(antlrResult.errors().isEmpty());
+    assertFalse(result.errors().isEmpty());
+    assertEquals(antlrResult.errors().get(0).toString(), result.errors().get(0).toString());
+  }
+
+  @ParameterizedTest
+  @MethodSource("antlrComparisonSupplier")
+  void shouldParseSameInParallel(String resource, TomlVersion version) throws Exception {
+    InputStream is = this.getClass().getResourceAsStream(resource);
+    assertNotNull(is);
+    String input = new Scanner(is, "UTF-8").useDelimiter("\\A").next();
+    TomlParseResult result = Toml.parse(input, version);
+    assertTrue(ParallelParser.split(input, 1).size() > 1);
+    TomlParseResult parallelResult = ParallelParser.parse(input, version, ForkJoinPool.commonPool(), 1);
+    assertFalse(parallelResult.hasErrors(), () -> joinErrors(parallelResult));
+    assertTrue(Toml.equals(result, parallelResult));
+    for (List<String> path : result.keyPathSet(true)) {
+      assertEquals(result.inputPositionOf(path), parallelResult.inputPositionOf(path), path::toString);
+    }
+  }
+
+  @ParameterizedTest
+  @MethodSource("errorCaseSupplier")
+  void shouldReportSameErrorsInParallel(String input, int line, int column, String expected) {
+    TomlParseResult result = Toml.parse(input);
+    TomlParseResult parallelResult = ParallelParser.parse(input, TomlVersion.LATEST, ForkJoinPool.commonPool(), 1);
+    assertEquals(
+        result.errors().stream().map(TomlParseError::toString).collect(Collectors.toList()),
+        parallelResult.errors().stream().map(TomlParseError::toString).collect(Collectors.toList()));
+  }
+
+  @Test
+  void shouldSplitOnlyAtTableHeaders() {
+    String input = "a = \"\"\"\n[b]\n\"\"\"\nc = [\n  [ 1 ],\n]\n[d] # '''\n"
+        + "e = '''\n[f]\n'''\ng = \"\\\"\" # \"\"\"\n  [[h]]\ni = 1\n";
+    List<String> splits = ParallelParser
+        .split(input, 1)
+        .stream()
+        .map(split -> split[1] + ":" + input.substring(split[0], input.indexOf('\n', split[0])))
+        .collect(Collectors.toList());
+    assertEquals(Arrays.asList("1:a = \"\"\"", "7:[d] # '''", "12:  [[h]]"), splits);
+  }
+
+  @ParameterizedTest
+  @MethodSource("antlrComparisonSupplier")
+  void shouldReparseSameAsParse(String resource, TomlVersion version) throws Exception {
+    InputStream is = this.getClass().getResourceAsStream(resource);
+    assertNotNull(is);
+    String input = new Scanner(is, "UTF-8").useDelimiter("\\A").next();
+    TomlParseOptions options = TomlParseOptions.defaults().withVersion(version).withIncremental(true);
+    TomlParseResult result = Toml.parse(input, options);
+    String[] insertions = {"", "\n", "a = 1\n", "x", "\"", "'''", "[", "]", "# ", "\n[t]\n", "{ b = [ 1, 2 ] }"};
+    Random random = new Random(resource.hashCode());
+    for (int i = 0; i < 40; ++i) {
+      int offset = random.nextInt(input.length() + 1);
+      int removed = random.nextInt(Math.min(6, input.length() - offset) + 1);
+      String inserted = insertions[random.nextInt(insertions.length)];
+      input = input.substring(0, offset) + inserted + input.substring(offset + removed);
+      result = Toml.reparse(result, offset, removed, inserted);
+      TomlParseResult expected = Toml.parse(input, version);
+      String text = input;
+      assertEquals(
+          expected.errors().stream().map(TomlParseError::toString).collect(Collectors.toList()),
+          result.errors().stream().map(TomlParseError::toString).collect(Collectors.toList()),
+          () -> text);
+      assertTrue(Toml.equals(expected, result), () -> text);
+      for (List<String> path : expected.keyPathSet(true)) {
+        assertEquals(expected.inputPositionOf(path), result.inputPositionOf(path), path::toString);
+      }
+    }
+  }
+
+  @Test
+  void shouldReuseUnchangedValuesWhenReparsing() {
+    shouldReuseUnchangedValuesWhenReparsing(false);
+    shouldReuseUnchangedValuesWhenReparsing(true);
+  }
+
+  private void shouldReuseUnchangedValuesWhenReparsing(boolean frozenTables) {
+    String input = "a = \"x\"\nb = [\n  1,\n]\n[t]\nc = \"y\"\nd = { e = 1 }\n";
+    TomlParseResult result =
+        Toml.parse(input, TomlParseOptions.defaults().withIncremental(true).withFrozenTables(frozenTables));
+    TomlParseResult reparsed = Toml.reparse(result, input.indexOf("[t]"), 0, "f = 2\n\n");
+    assertFalse(reparsed.hasErrors(), () -> joinErrors(reparsed));
+    assertEquals(Long.valueOf(2), reparsed.getLong("f"));
+    assertSame(result.get("a"), reparsed.get("a"));
+    assertSame(result.get("t.c"), reparsed.get("t.c"));
+    assertEquals(TomlPosition.positionAt(7, 1), result.inputPositionOf("t.d"));
+    assertEquals(TomlPosition.positionAt(9, 1), reparsed.inputPositionOf("t.d"));
+    assertEquals(TomlPosition.positionAt(7, 7), result.getTable("t.d").inputPositionOf("e"));
+    assertEquals(TomlPosition.positionAt(9, 7), reparsed.getTable("t.d").inputPositionOf("e"));
+    assertSame(result.get("b"), reparsed.get("b"));
+
+    String reparsedInput = input.replace("[t]", "f = 2\n\n[t]");
+    TomlParseResult changed = Toml.reparse(reparsed, reparsedInput.indexOf("f = 2") + 4, 1, "3");
+    assertEquals(Long.valueOf(3), changed.getLong("f"));
+    assertSame(reparsed.get("t.d"), changed.get("t.d"));
+    assertSame(reparsed.get("b"), changed.get("b"));
+
+    TomlParseResult broken = Toml.reparse(reparsed, input.indexOf("1,") + 3, 1, "");
+    String edited = input.replace("1,\n]", "1,\n").replace("[t]", "f = 2\n\n[t]");
+    String expected = Toml.parse(edited).errors().get(0).toString();
+    assertEquals(1, broken.errors().size());
+    assertEquals(expected, broken.errors().get(0).toString());
+
+    assertThrows(IllegalArgumentException.class, () -> Toml.reparse(Toml.parse(input), 0, 0, ""));
+    assertThrows(IndexOutOfBoundsException.class, () -> Toml.reparse(result, input.length(), 1, ""));
+  }
+
+  @Test
+  void shouldNotChangeSharedInlineTablesWhenReparsing() {
+    String input = "a = { x = 1 }\n[a.b]\ny = 2\n";
+    TomlParseResult result = Toml.parse(input, TomlParseOptions.defaults().withIncremental(true));
+    assertEquals(Long.valueOf(2), result.getLong("a.b.y"));
+    TomlParseResult reparsed = Toml.reparse(result, input.indexOf("2"), 1, "3");
+    assertEquals(Long.valueOf(3), reparsed.getLong("a.b.y"));
+    assertEquals(Long.valueOf(2), result.getLong("a.b.y"));
+    assertEquals(Arrays.asList("x", "b"), new ArrayList<>(reparsed.getTable("a").keySet()));
+    TomlParseResult again = Toml.reparse(reparsed, input.indexOf("[a.b]"), 5, "[a.c]");
+    assertEquals(Long.valueOf(3), again.getLong("a.c.y"));
+    assertNull(again.get("a.b"));
+  }
+
+  @Test
+  void shouldLookUpKeysInFrozenTables() {
+    StringBuilder input = new StringBuilder();
+    for (int i = 0; i < 20; ++i) {
+      input.append("k").append(i).append(" = ").append(i).append('\n');
+    }
+    input.append("\"a.b\" = 'quoted'\n[t]\nx.y = 1\n[[arr]]\nname = 'first'\n[[arr]]\nname = 'second'\n");
+    TomlParseResult result = Toml.parse(input.toString(), TomlParseOptions.defaults().withFrozenTables(true));
+    assertFalse(result.hasErrors(), () -> joinErrors(result));
+    assertTrue(Toml.equals(Toml.parse(input.toString()), result));
+    assertEquals(23, result.size());
+    assertEquals("k0", result.keySet().iterator().next());
+    assertTrue(result.keySet().contains("k19"));
+    assertFalse(result.keySet().contains("k20"));
+    for (int i = 0; i < 20; ++i) {
+      assertEquals(Long.valueOf(i), result.getLong("k" + i));
+      assertEquals(TomlPosition.positionAt(i + 1, 1), result.inputPositionOf(Collections.singletonList("k" + i)));
+    }
+    assertNull(result.get("k20"));
+    assertEquals("quoted", result.getString("\"a.b\""));
+    assertEquals("quoted", result.get(TomlKey.of("\"a.b\"")));
+    assertNull(result.get("a.b"));
+    assertEquals(Long.valueOf(1), result.getLong("t.x.y"));
+    assertEquals(Long.valueOf(1), result.get(Arrays.asList("t", "x", "y")));
+    assertNull(result.get("t.x.y.z"));
+    assertEquals(TomlPosition.positionAt(23, 1), result.inputPositionOf(TomlKey.of("t.x.y")));
+    TomlArray arr = result.getArrayOrEmpty("arr");
+    assertEquals("second", arr.getTable(1).getString("name"));
+    assertSame(arr.getTable(0).keySet().iterator().next(), arr.getTable(1).keySet().iterator().next());
+  }
+
+  @Test
+  void shouldDiscardInputPositions() {
+    String input = "a = [ 1, { b = 2 } ]\n[t]\nc = 'x'\n[[u]]\nd = 1\nd = 2\n";
+    TomlParseOptions options = TomlParseOptions.defaults().withInputPositions(false);
+    TomlParseResult withPositions = Toml.parse(input);
+    for (TomlParseResult result : Arrays
+        .asList(Toml.parse(input, options), Toml.parse(input, options.withIncremental(true)))) {
+      assertTrue(Toml.equals(withPositions, result));
+      assertNull(result.inputPositionOf("t.c"));
+      assertNull(result.inputPositionOf(Arrays.asList("a")));
+      assertThrows(IllegalStateException.class, () -> result.getArrayOrEmpty("a").inputPositionOf(1));
+      assertNull(result.getArrayOrEmpty("a").getTable(1).inputPositionOf("b"));
+      assertThrows(IndexOutOfBoundsException.class, () -> result.getArrayOrEmpty("a").inputPositionOf(2));
+      assertEquals(1, result.errors().size());
+      assertEquals(TomlPosition.positionAt(6, 1), result.errors().get(0).position());
+      assertEquals("d previously defined at line 5, column 1", result.errors().get(0).getMessage());
+    }
+    assertEquals(TomlPosition.positionAt(1, 10), withPositions.getArrayOrEmpty("a").inputPositionOf(1));
+  }
+
+  @Test
+  void shouldReadPrimitiveArrays() {
+    TomlParseResult result = Toml
+        .parse("a = [ 1, -2, 0x10 ]\nb = [ 1.5, inf ]\nc = [ true, false, true ]\nd = [ 1, 2, 'x' ]\ne = [ 1.0, 2 ]\n");
+    assertFalse(result.hasErrors(), () -> joinErrors(result));
+    TomlArray a = result.getArrayOrEmpty("a");
+    assertArrayEquals(new long[] {1, -2, 16}, a.toLongArray());
+    assertEquals(15, a.longStream().sum());
+    assertEquals(Arrays.asList(1L, -2L, 16L), a.toList());
+    assertEquals(-2L, a.get(1));
+    assertEquals(TomlPosition.positionAt(1, 14), a.inputPositionOf(2));
+    assertThrows(TomlInvalidTypeException.class, () -> a.getDouble(0));
+    assertThrows(TomlInvalidTypeException.class, a::toDoubleArray);
+    assertThrows(IndexOutOfBoundsException.class, () -> a.getLong(3));
+
+    TomlArray b = result.getArrayOrEmpty("b");
+    assertArrayEquals(new double[] {1.5, Double.POSITIVE_INFINITY}, b.toDoubleArray());
+    assertEquals(2, b.doubleStream().count());
+    assertEquals(1.5, b.get(0));
+
+    TomlArray c = result.getArrayOrEmpty("c");
+    assertTrue(c.getBoolean(0));
+    assertFalse(c.getBoolean(1));
+    assertEquals(Arrays.asList(true, false, true), c.toList());
+
+    TomlArray d = result.getArrayOrEmpty("d");
+    assertEquals(Arrays.asList(1L, 2L, "x"), d.toList());
+    assertEquals(2L, d.getLong(1));
+    assertThrows(TomlInvalidTypeException.class, d::toLongArray);
+    assertEquals(TomlPosition.positionAt(4, 13), d.inputPositionOf(2));
+
+    TomlArray e = result.getArrayOrEmpty("e");
+    assertEquals(Arrays.asList(1.0, 2L), e.toList());
+    assertThrows(TomlInvalidTypeException.class, () -> e.doubleStream().sum());
+  }
+
+  @Test
+  void shouldStreamPathsDepthFirst() {
+    TomlParseResult result = Toml.parse("b = 1\n[t.u]\nc = [ { d = 1 } ]\n[t]\ne = 2\n[v]\n[a]\nf = 'x'\n");
+    assertFalse(result.hasErrors(), () -> joinErrors(result));
+    assertEquals(
+        Arrays.asList("b", "t.u.c", "t.e", "a.f"),
+        result.pathStream().map(Toml::joinKeyPath).collect(Collectors.toList()));
+    assertEquals(
+        Arrays.asList("b", "t", "t.u", "t.u.c", "t.e", "v", "a", "a.f"),
+        result.pathStream(true).map(Toml::joinKeyPath).collect(Collectors.toList()));
+    assertEquals(result.keyPathSet(true), result.pathStream(true).collect(Collectors.toSet()));
+    assertEquals(new ArrayList<>(result.entryPathSet()), result.entryPathStream().collect(Collectors.toList()));
+    assertEquals(
+        Arrays.asList("b", "t.u.c", "t.e", "a.f"),
+        result.dottedEntrySet().stream().map(Map.Entry::getKey).collect(Collectors.toList()));
+
+    List<String> path = result.pathStream().skip(1).findFirst().orElseThrow(AssertionError::new);
+    assertEquals(Arrays.asList("t", "u", "c"), path);
+    assertEquals("u", path.get(1));
+    assertEquals(3, path.size());
+    assertThrows(IndexOutOfBoundsException.class, () -> path.get(3));
+    assertThrows(UnsupportedOperationException.class, () -> path.add("d"));
+    assertSame(result.getArray("t.u.c"), result.entryPathStream().skip(1).findFirst().get().getValue());
+  }
+
+  @Test
+  void shouldIterateOverViews() {
+    TomlParseResult result = Toml.parse("b = 1\na = [ 'x', 2.0 ]\nc = 99999999999999999999\n[t]\nd = true\n");
+    List<String> keys = new ArrayList<>();
+    List<Object> values = new ArrayList<>();
+    result.forEach((key, value) -> {
+      keys.add(key);
+      values.add(value);
+    });
+    assertEquals(Arrays.asList("b", "a", "t"), keys);
+    assertEquals(1L, values.get(0));
+    assertSame(result.getTable("t"), values.get(2));
+
+    Map<String, Object> map = result.asMap();
+    assertEquals(3, map.size());
+    assertEquals(Arrays.asList("b", "a", "t"), new ArrayList<>(map.keySet()));
+    assertEquals(1L, map.get("b"));
+    assertFalse(map.containsKey("c"));
+    assertNull(map.get("t.d"));
+    assertEquals(result.toMap(), map);
+    assertThrows(UnsupportedOperationException.class, () -> map.put("e", 1L));
+    assertThrows(UnsupportedOperationException.class, () -> map.entrySet().iterator().next().setValue(2L));
+    List<Map.Entry<String, Object>> entries = new ArrayList<>(map.entrySet());
+    assertEquals(new AbstractMap.SimpleImmutableEntry<>("b", 1L), entries.get(0));
+    assertEquals("a", entries.get(1).getKey());
+
+    TomlArray array = result.getArrayOrEmpty("a");
+    List<Object> list = array.asList();
+    assertEquals(Arrays.asList("x", 2.0), list);
+    assertThrows(UnsupportedOperationException.class, () -> list.add("y"));
+    List<Object> elements = new ArrayList<>();
+    array.forEach((value, i) -> elements.add(i + ":" + value));
+    assertEquals(Arrays.asList("0:x", "1:2.0"), elements);
+
+    assertTrue(result.getTableOrEmpty("u").asMap().isEmpty());
+    assertTrue(result.getArrayOrEmpty("u").asList().isEmpty());
+  }
+
+  @ParameterizedTest
+  @MethodSource("antlrComparisonSupplier")
+  void shouldParseSameAsAntlrParser(String resource, TomlVersion version) throws Exception {
+    InputStream is = this.getClass().getResourceAsStream(resource);
+    assertNotNull(is);
+    String input = new Scanner(is, "UTF-8").useDelimiter("\\A").next();
+    TomlParseResult antlrResult = Parser.parseWithAntlr(CharStreams.fromString(input), version);
+    TomlParseResult result = RecursiveDescentParser.parse(input, version);
+    assertFalse(antlrResult.hasErrors(), () -> joinErrors(antlrResult));
+    assertFalse(result.hasErrors(), () -> joinErrors(result));
+    assertTrue(Toml.equals(antlrResult, result));
+    for (List<String> path : antlrResult.keyPathSet(true)) {
+      assertEquals(antlrResult.inputPositionOf(path), result.inputPositionOf(path), path::toString);
+    }
+  }
+
+  @Test
+  void shouldResetAntlrParserBetweenDocuments() {
+    TomlParseResult broken = Parser.parseWithAntlr(CharStreams.fromString("a = [ [ 1,\n"), TomlVersion.LATEST);
+    assertTrue(broken.hasErrors());
+    String input = "b = [ [ 1 ], [ 2 ] ]\nc = { d = 1 }\n";
+    TomlParseResult result = Parser.parseWithAntlr(CharStreams.fromString(input), TomlVersion.LATEST);
+    assertFalse(result.hasErrors(), () -> joinErrors(result));
+    assertTrue(Toml.equals(Toml.parse(input), result));
+  }
+
+  @Test
+  void shouldWarmUp() {
+    Toml.warmUp();
+    TomlParseResult result = Toml.parse("a = 1");
+    assertFalse(result.hasErrors(), () -> joinErrors(result));
+    assertEquals(Long.valueOf(1), result.getLong("a"));
+  }
+
+  @ParameterizedTest
+  @MethodSource("antlrComparisonSupplier")
+  void shouldStreamSameDocumentAsParse(String resource, TomlVersion version) throws Exception {
+    TomlParseResult expected;
+    try (InputStream is = this.getClass().getResourceAsStream(resource)) {
+      expected = Toml.parse(is, version);
+    }
+    assertFalse(expected.hasErrors(), () -> joinErrors(expected));
+
+    MutableTomlTable root = new MutableTomlTable(version);
+    List<TomlParseError> errors = new ArrayList<>();
+    try (InputStream is = this.getClass().getResourceAsStream(resource)) {
+      Toml.parse(new InputStreamReader(is, StandardCharsets.UTF_8), version, new TomlEventHandler() {
+        private MutableTomlTable table = root;
+        private int depth = 0;
+        private final Deque<MutableTomlArray> arrays = new ArrayDeque<>();
+        private final Deque<Map.Entry<List<String>, TomlPosition>> arrayKeys = new ArrayDeque<>();
+
+        @Override
+        public void startTable(List<String> path, TomlPosition position) {
+          table = root.createTable(path, position);
+          depth = path.size();
+        }
+
+        @Override
+        public void startArrayTable(List<String> path, TomlPosition position) {
+          table = root.createTableArray(path, position);
+          depth = path.size();
+        }
+
+        @Override
+        public void keyValue(List<String> path, Object value, TomlPosition position) {
+          table.set(path.subList(depth, path.size()), value, position);
+        }
+
+        @Override
+        public void startArray(List<String> path, TomlPosition position) {
+          arrays.push(MutableTomlArray.create(version));
+          arrayKeys.push(new AbstractMap.SimpleEntry<>(path.subList(depth, path.size()), position));
+        }
+
+        @Override
+        public void arrayValue(Object value, TomlPosition position) {
+          arrays.peek().append(value, position);
+        }
+
+        @Override
+        public void endArray() {
+          MutableTomlArray array = arrays.pop();
+          Map.Entry<List<String>, TomlPosition> key = arrayKeys.pop();
+          if (arrays.isEmpty()) {
+            table.set(key.getKey(), array, key.getValue());
+          } else {
+            arrays.peek().append(array, key.getValue());
+          }
+        }
+
+        @Override
+        public void error(TomlParseError error) {
+          errors.add(error);
+        }
+      });
+    }
+    assertTrue(errors.isEmpty(), errors::toString);
+    assertTrue(Toml.equals(expected, root));
+  }
+
+  @Test
+  void shouldStreamEventsInDocumentOrder() {
+    List<String> events = new ArrayList<>();
+    Toml
+        .parse(
+            "a = 1\nb = [ 2, [ 'x' ], { c = 3 } ]\nd = @\n[t.u]\ne.f = 1979-05-27\n"
+                + "[[g]]\nh = [ ]\ni = 99999999999999999999\n",
+            new TomlEventHandler() {
+              @Override
+              public void startTable(List<String> path, TomlPosition position) {
+                events.add("table " + path + " " + position);
+              }
+
+              @Override
+              public void startArrayTable(List<String> path, TomlPosition position) {
+                events.add("array table " + path + " " + position);
+              }
+
+              @Override
+              public void keyValue(List<String> path, Object value, TomlPosition position) {
+                events.add(path + " = " + value + " " + position);
+              }
+
+              @Override
+              public void startArray(List<String> path, TomlPosition position) {
+                events.add("start " + path + " " + position);
+              }
+
+              @Override
+              public void arrayValue(Object value, TomlPosition position) {
+                Object element = (value instanceof TomlTable) ? ((TomlTable) value).toMap() : value;
+                events.add("element " + element + " " + position);
+              }
+
+              @Override
+              public void endArray() {
+                events.add("end");
+              }
+
+              @Override
+              public void error(TomlParseError error) {
+                events.add("error " + error.getMessage() + " " + error.position());
+              }
+            });
+    assertEquals(
+        Arrays
+            .asList(
+                "[a] = 1 line 1, column 1",
+                "start [b] line 2, column 1",
+                "element 2 line 2, column 7",
+                "start [b] line 2, column 10",
+                "element x line 2, column 12",
+                "end",
+                "element {c=3} line 2, column 19",
+                "end",
+                "error Unexpected '@', expected ', \", \'\'\', \"\"\", a number, a boolean, a date/time, an array, "
+                    + "or a table line 3, column 5",
+                "table [t, u] line 4, column 1",
+                "[t, u, e, f] = 1979-05-27 line 5, column 1",
+                "array table [g] line 6, column 1",
+                "start [g, h] line 7, column 1",
+                "end",
+                "error Integer is too large line 8, column 5"),
+        events);
+  }
+
+  @Test
+  void shouldParseSmallAndLargeFiles() throws Exception {
+    shouldParseFile(1);
+    shouldParseFile(10000);
+  }
+
+  private void shouldParseFile(int repeat) throws Exception {
+    StringBuilder builder = new StringBuilder();
+    for (int i = 0; i < repeat; ++i) {
+      builder.append("[t").append(i).append("]\nascii = \"value\"\n\"kéy\" = \"é\\u00e9 ☃\"\n");
+    }
+    String document = builder.toString();
+    byte[] ascii = document.replace('é', 'e').replace('☃', 's').getBytes(StandardCharsets.UTF_8);
+    byte[] utf8 = document.getBytes(StandardCharsets.UTF_8);
+
+    Path file = Files.createTempFile("tomlj", ".toml");
+    try {
+      Files.write(file, ascii);
+      TomlParseResult result = Toml.parse(file);
+      assertFalse(result.hasErrors(), () -> joinErrors(result));
+      assertEquals(Toml.parse(new String(ascii, StandardCharsets.UTF_8)).toJson(), result.toJson());
+      assertEquals("value", result.getString("t0.ascii"));
+      assertEquals("eé s", result.getString(Arrays.asList("t" + (repeat - 1), "key")));
+      // a mapped file is read through a direct buffer
+      ByteBuffer direct = ByteBuffer.allocateDirect(ascii.length);
+      direct.put(ascii).flip();
+      assertEquals(result.toJson(), Parser.parse(MappedInput.decode(direct), TomlVersion.LATEST.canonical).toJson());
+
+      Files.write(file, utf8);
+      TomlParseResult result2 = Toml.parse(file);
+      assertFalse(result2.hasErrors(), () -> joinErrors(result2));
+      assertEquals(Toml.parse(document).toJson(), result2.toJson());
+      assertEquals("éé ☃", result2.getString(Arrays.asList("t0", "kéy")));
+
+      byte[] malformed = Arrays.copyOf(ascii, ascii.length + 1);
+      malformed[ascii.length] = (byte) 0xC3;
+      Files.write(file, malformed);
+      assertThrows(CharacterCodingException.class, () -> Toml.parse(file));
+    } finally {
+      Files.delete(file);
+    }
+  }
+
+  static Stream<Arguments> antlrComparisonSupplier() {
+    // @formatter:off
+    return Stream.of(
+        Arguments.of("/org/tomlj/example-v0.4.0.toml", TomlVersion.V0_4_0),
+        Arguments.of("/org/tomlj/hard_example.toml", TomlVersion.V0_4_0),
+        Arguments.of("/org/tomlj/hard_example_unicode.toml", TomlVersion.V0_4_0),
+        Arguments.of("/org/tomlj/crate-example.toml", TomlVersion.LATEST),
+        Arguments.of("/org/tomlj/toml-v0.5.0-spec-example.toml", TomlVersion.V0_5_0),
+        Arguments.of("/org/tomlj/array_table_example.toml", TomlVersion.LATEST)
+    );
+    // @formatter:on
+  }
+
   @Test
   void testTomlV0_4_0Example() throws Exception {
     InputStream is = this.getClass().getResourceAsStream("/org/tomlj/example-v0.4.0.toml");
@@ -869,6 +1388,57 @@ class TomlTest {
     assertEquals(expectedJson.replace("\n", System.lineSeparator()), result.toJson());
   }
 
+  @Test
+  void shouldWriteJsonAsUtf8() throws Exception {
+    StringBuilder input = new StringBuilder("a = \"caf\u00e9 \u2603 \\U0001F600 \\u0001 \\\"q\\\" \\\\\"\n");
+    input.append("b = [ -9223372036854775808, 0, 42, -7, 1.5, nan, -inf, true, 1979-05-27T07:32:00-08:00 ]\n");
+    for (int i = 0; i < 1000; ++i) {
+      input.append("[t").append(i).append("]\nkey").append(i).append(" = [ { c = 'x' }, { d = 07:32:00 } ]\n");
+    }
+    TomlParseResult result = Toml.parse(input.toString());
+    assertFalse(result.hasErrors(), () -> joinErrors(result));
+
+    for (EnumSet<JsonOptions> options : Arrays
+        .asList(
+            EnumSet.of(JsonOptions.PRETTY_PRINT),
+            EnumSet.of(JsonOptions.PRETTY_PRINT, JsonOptions.VALUES_AS_OBJECTS_WITH_TYPE),
+            EnumSet.of(JsonOptions.PRETTY_PRINT, JsonOptions.ALL_VALUES_AS_STRINGS),
+            EnumSet.of(JsonOptions.COMPACT),
+            EnumSet.of(JsonOptions.COMPACT, JsonOptions.VALUES_AS_OBJECTS_WITH_TYPE))) {
+      byte[] expected = result.toJson(options).getBytes(StandardCharsets.UTF_8);
+      ByteArrayOutputStream stream = new ByteArrayOutputStream();
+      result.toJsonUtf8(stream, options);
+      assertArrayEquals(expected, stream.toByteArray());
+
+      stream.reset();
+      result.toJsonUtf8(Channels.newChannel(stream), options);
+      assertArrayEquals(expected, stream.toByteArray());
+
+      TomlArray array = result.getArrayOrEmpty("b");
+      stream.reset();
+      array.toJsonUtf8(stream, options);
+      assertArrayEquals(array.toJson(options).getBytes(StandardCharsets.UTF_8), stream.toByteArray());
+    }
+  }
+
+  @Test
+  void shouldWriteCompactJson() throws Exception {
+    TomlParseResult result = Toml.parse("a = 'x'\nb = [ 1, [ 2.5 ], { c = true } ]\n[t]\n[u]\nd = []\n");
+    assertFalse(result.hasErrors(), () -> joinErrors(result));
+    String expected = "{\"a\":\"x\",\"b\":[1,[2.5],{\"c\":true}],\"t\":{},\"u\":{\"d\":[]}}";
+    assertEquals(expected, result.toJson(JsonOptions.COMPACT));
+    ByteArrayOutputStream stream = new ByteArrayOutputStream();
+    result.toJsonUtf8(stream);
+    assertEquals(expected, new String(stream.toByteArray(), StandardCharsets.UTF_8));
+    assertEquals(
+        "[{\"type\":\"integer\",\"value\":\"1\"},[{\"type\":\"float\",\"value\":\"2.5\"}],"
+            + "{\"c\":{\"type\":\"bool\",\"value\":\"true\"}}]",
+        result
+            .getArrayOrEmpty("b")
+            .toJson(JsonOptions.COMPACT, JsonOptions.VALUES_AS_OBJECTS_WITH_TYPE, JsonOptions.ALL_VALUES_AS_STRINGS));
+    assertThrows(IllegalArgumentException.class, () -> result.toJson(JsonOptions.COMPACT, JsonOptions.PRETTY_PRINT));
+  }
+
   @Test
   void testTableEquality() throws Exception {
     InputStream is = this.getClass().getResourceAsStream("/org/tomlj/array_table_example.toml");
@@ -889,6 +1459,38 @@ class TomlTest {
     assertFalse(Toml.equals(result1, result2));
   }
 
+  @Test
+  void testTableFingerprints() throws Exception {
+    TomlParseResult result1 = Toml.parse("a = 1\nb = [ 1.0, 'x', { c = true } ]\n[t]\nd = 1979-05-27\n[[u]]\ne = 0\n");
+    TomlParseResult result2 = Toml.parse("[t]\nd = 1979-05-27\n[[u]]\ne = 0\n[v]\n");
+    TomlParseResult result3 =
+        Toml.parse("b = [ 1.0, 'x', { c = true } ]\nt = { d = 1979-05-27 }\na = 1\nu = [ { e = 0 } ]\n");
+    assertFalse(result1.hasErrors(), () -> joinErrors(result1));
+    assertFalse(result2.hasErrors(), () -> joinErrors(result2));
+    assertFalse(result3.hasErrors(), () -> joinErrors(result3));
+
+    assertTrue(Toml.equals(result1, result3));
+    assertEquals(Toml.fingerprint(result1), Toml.fingerprint(result3));
+    assertEquals(Toml.fingerprint(result1.getArrayOrEmpty("b")), Toml.fingerprint(result3.getArrayOrEmpty("b")));
+    assertFalse(Toml.equals(result1, result2));
+    assertTrue(Toml.equals(result1.getTableOrEmpty("t"), result2.getTableOrEmpty("t")));
+    assertEquals(Toml.fingerprint(result1.getTableOrEmpty("t")), Toml.fingerprint(result2.getTableOrEmpty("t")));
+    assertTrue(Toml.equals(result1.getArrayOrEmpty("u"), result2.getArrayOrEmpty("u")));
+
+    long fingerprint = Toml.fingerprint(Toml.parse("a = [ 1, 'x', { c = true } ]"));
+    for (String other : Arrays
+        .asList(
+            "a = [ 2, 'x', { c = true } ]",
+            "a = [ 1.0, 'x', { c = true } ]",
+            "a = [ 'x', 1, { c = true } ]",
+            "a = [ 1, 'x', { c = false } ]",
+            "a = [ 1, 'x', { d = true } ]",
+            "a = [ 1, 'x' ]",
+            "b = [ 1, 'x', { c = true } ]")) {
+      assertTrue(Toml.fingerprint(Toml.parse(other)) != fingerprint, other);
+    }
+  }
+
   @Test
   void testArrayEquality() throws Exception {
     TomlParseResult result1 = Toml.parse("fruit=['apple','banana']");
@@ -948,6 +1550,18 @@ class TomlTest {
     assertTrue(Toml.equals(result, resultReparse));
   }
 
+  @Test
+  void testSerializerEscapesKeysAndStrings() throws Exception {
+    TomlParseResult result = Toml.parse("\"a b\" = \"\\u00e9\\t\\U0001F600\\u0001\"\n[\"x.y\"]\nbare-key_1 = 'q\"'\n");
+    assertFalse(result.hasErrors(), () -> joinErrors(result));
+
+    String nl = System.lineSeparator();
+    String expected =
+        "\"a b\"=\"\\u00e9\\t\\U0001f600\\u0001\"" + nl + "[\"x.y\"]" + nl + "  bare-key_1=\"q\\\"\"" + nl;
+    assertEquals(expected, result.toToml());
+    assertEquals("\\u2603\\b\\'\\\\", Toml.tomlEscape("☃\b'\\").toString());
+  }
+
   private String joinErrors(TomlParseResult result) {
     return result.errors().stream().map(TomlParseError::toString).collect(Collectors.joining("\n"));
   }
@@ -0,0 +1,123 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to You under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.tomlj;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.junit.jupiter.api.Test;
+
+class TomlVisitorTest {
+
+  @Test
+  void shouldWalkWithVisitor() {
+    TomlParseResult result = Toml
+        .parse(
+            "a = [ 1, 2 ]\nb = [ 1.5, 'x', [ true ] ]\n[t]\nc = 1979-05-27\n"
+                + "[u]\nd = false\ne = 07:32:00\n[w]\nf = 1\n");
+    assertFalse(result.hasErrors(), () -> joinErrors(result));
+    List<String> events = new ArrayList<>();
+    TomlVisitor visitor = new TomlVisitor() {
+      @Override
+      public Result visitTableStart(@Nullable String key, TomlTable table) {
+        events.add("{" + key);
+        return "t".equals(key) ? Result.SKIP_SUBTREE : Result.CONTINUE;
+      }
+
+      @Override
+      public Result visitTableEnd(@Nullable String key, TomlTable table) {
+        events.add("}" + key);
+        return Result.CONTINUE;
+      }
+
+      @Override
+      public Result visitArrayStart(@Nullable String key, TomlArray array) {
+        events.add("[" + key);
+        return Result.CONTINUE;
+      }
+
+      @Override
+      public Result visitArrayEnd(@Nullable String key, TomlArray array) {
+        events.add("]" + key);
+        return Result.CONTINUE;
+      }
+
+      @Override
+      public Result visitString(@Nullable String key, String value) {
+        events.add(key + "=" + value);
+        return Result.CONTINUE;
+      }
+
+      @Override
+      public Result visitLong(@Nullable String key, long value) {
+        events.add(key + "=" + value);
+        return Result.CONTINUE;
+      }
+
+      @Override
+      public Result visitDouble(@Nullable String key, double value) {
+        events.add(key + "=" + value);
+        return Result.CONTINUE;
+      }
+
+      @Override
+      public Result visitBoolean(@Nullable String key, boolean value) {
+        events.add(key + "=" + value);
+        return Result.CONTINUE;
+      }
+
+      @Override
+      public Result visitLocalTime(@Nullable String key, LocalTime value) {
+        events.add(key + "=" + value);
+        return Result.TERMINATE;
+      }
+    };
+    assertFalse(result.accept(visitor));
+    assertEquals(
+        Arrays
+            .asList(
+                "{null",
+                "[a",
+                "null=1",
+                "null=2",
+                "]a",
+                "[b",
+                "null=1.5",
+                "null=x",
+                "[null",
+                "null=true",
+                "]null",
+                "]b",
+                "{t",
+                "{u",
+                "d=false",
+                "e=07:32"),
+        events);
+
+    events.clear();
+    assertTrue(result.getArrayOrEmpty("b").accept(visitor));
+    assertEquals(Arrays.asList("[null", "null=1.5", "null=x", "[null", "null=true", "]null", "]null"), events);
+  }
+
+  private String joinErrors(TomlParseResult result) {
+    return result.errors().stream().map(TomlParseError::toString).collect(Collectors.joining("\n"));
+  }
+}
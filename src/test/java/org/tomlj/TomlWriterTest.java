@@ -0,0 +1,83 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to You under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.tomlj;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+
+class TomlWriterTest {
+
+  @Test
+  void shouldStreamDocumentsWithWriter() throws Exception {
+    StringBuilder out = new StringBuilder();
+    try (TomlWriter writer = Toml.writer(out)) {
+      writer.key("title").value("Dump \"1\"");
+      writer.key("a b").value(Double.NaN);
+      writer.table("server.http").key("port").value(8080).key("on").value(true);
+      for (long id = 1; id <= 2; ++id) {
+        writer.arrayTable("records").key("id").value(id);
+        writer.table("records.meta").key("at").value(LocalDate.of(2020, 1, id == 1 ? 1 : 2));
+        writer.key("tags").beginArray().value("x").beginArray().endArray().beginArray().value(id).endArray().endArray();
+      }
+    }
+    TomlParseResult result = Toml.parse(out.toString());
+    assertFalse(result.hasErrors(), () -> joinErrors(result));
+    assertEquals("Dump \"1\"", result.getString("title"));
+    assertTrue(Double.isNaN(result.getDouble("\"a b\"")));
+    assertEquals(Long.valueOf(8080), result.getLong("server.http.port"));
+    assertEquals(LocalDate.of(2020, 1, 2), result.getArray("records").getTable(1).get("meta.at"));
+
+    StringBuilder laidOut = new StringBuilder();
+    try (TomlWriter writer = Toml.writer(laidOut)) {
+      writer.key("x").beginArray().value(1).beginArray().value("a").endArray().endArray();
+      writer.table("t").key("k").value(1.5e-7);
+      writer.arrayTable("t.r").key("z").value(true);
+      writer.table("t.r.s").key("y").value(LocalTime.of(1, 2));
+    }
+    assertEquals(Toml.parse(laidOut.toString()).toToml(), laidOut.toString());
+
+    TomlWriter writer = Toml.writer(new StringBuilder());
+    writer.key("a").value(1);
+    assertThrows(IllegalStateException.class, () -> writer.key("a"));
+    assertThrows(IllegalStateException.class, () -> writer.value(2));
+    assertThrows(IllegalStateException.class, () -> writer.table("a.b"));
+    writer.arrayTable("t").table("t.u");
+    assertThrows(IllegalStateException.class, () -> writer.table("t.u"));
+    assertThrows(IllegalStateException.class, () -> writer.table("t"));
+    writer.arrayTable("t").table("t.u").key("v").beginArray();
+    assertThrows(IllegalStateException.class, () -> writer.key("w"));
+    assertThrows(IllegalStateException.class, () -> writer.table("x"));
+    assertThrows(IllegalStateException.class, writer::close);
+    assertThrows(IllegalStateException.class, () -> writer.value(1));
+
+    TomlWriter implicit = Toml.writer(new StringBuilder());
+    implicit.table("a.b.c").table("a");
+    assertThrows(IllegalStateException.class, () -> implicit.key("b"));
+    assertThrows(IllegalStateException.class, () -> implicit.arrayTable("a.b"));
+    implicit.key("d").value(1).table("a.b").key("e").value(2);
+    assertThrows(IllegalStateException.class, () -> implicit.table("a.b"));
+    assertThrows(IllegalStateException.class, () -> implicit.key("c"));
+  }
+
+  private String joinErrors(TomlParseResult result) {
+    return result.errors().stream().map(TomlParseError::toString).collect(Collectors.joining("\n"));
+  }
+}